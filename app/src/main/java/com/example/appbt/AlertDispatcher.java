@@ -0,0 +1,222 @@
+package com.example.appbt;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reparte una alerta a todos los contactos desde su propio hilo. El mensaje se divide una
+ * sola vez; cada contacto y cada parte llevan su estado de envío y entrega, los fallos se
+ * reintentan con espera creciente y el listener se entera cuando se confirma el quórum.
+ */
+public class AlertDispatcher {
+
+    public interface Listener {
+        /** Se confirmó la entrega a {@code quorum} contactos (solo se llama una vez). */
+        void onQuorumReached(int alertId);
+
+        /** Todos los contactos terminaron (entregados o fallidos) o venció el plazo. */
+        void onAlertFinished(int alertId, int delivered, int failed, int total);
+
+        /** El operador aceptó todas las partes para el contacto {@code recipient}. */
+        default void onRecipientSent(int alertId, int recipient) {}
+    }
+
+    private enum Status { SENDING, SENT, DELIVERED, RETRYING, FAILED }
+
+    private static class Recipient {
+        final String number;
+        final BitSet sentParts = new BitSet();
+        final BitSet deliveredParts = new BitSet();
+        Status status = Status.SENDING;
+        int attempt;
+
+        Recipient(String number) {
+            this.number = number;
+        }
+    }
+
+    private static class Alert {
+        final int id;
+        final List<String> parts;
+        final List<Recipient> recipients;
+        final int quorum;
+        final boolean followUp;
+        final Listener listener;
+        int delivered;
+        int failed;
+        boolean quorumReported;
+        boolean finished;
+
+        Alert(int id, List<String> parts, List<Recipient> recipients, int quorum, boolean followUp,
+              Listener listener) {
+            this.id = id;
+            this.parts = parts;
+            this.recipients = recipients;
+            this.quorum = quorum;
+            this.followUp = followUp;
+            this.listener = listener;
+        }
+    }
+
+    private final SmsSender sender;
+    private final TaskScheduler scheduler;
+    private final int quorum;
+    private final int primaryRecipients;
+    private final int maxAttempts;
+    private final long retryBaseDelayMs;
+    private final long timeoutMs;
+
+    private final AtomicInteger nextAlertId = new AtomicInteger(1);
+    // Solo se toca desde el hilo del scheduler
+    private final List<Alert> active = new ArrayList<>();
+
+    public AlertDispatcher(SmsSender sender, TaskScheduler scheduler, int quorum,
+                           int maxAttempts, long retryBaseDelayMs, long timeoutMs) {
+        this(sender, scheduler, quorum, quorum, maxAttempts, retryBaseDelayMs, timeoutMs);
+    }
+
+    /**
+     * @param primaryRecipients los primeros contactos de la lista que salen con prioridad
+     *                          alta; el resto se envía como secundario
+     */
+    public AlertDispatcher(SmsSender sender, TaskScheduler scheduler, int quorum, int primaryRecipients,
+                           int maxAttempts, long retryBaseDelayMs, long timeoutMs) {
+        this.sender = sender;
+        this.scheduler = scheduler;
+        this.quorum = Math.max(1, quorum);
+        this.primaryRecipients = Math.max(1, primaryRecipients);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBaseDelayMs = retryBaseDelayMs;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /** Encola la alerta y devuelve su id; el envío ocurre en el hilo del dispatcher. */
+    public int dispatch(String message, List<String> numbers, Listener listener) {
+        return dispatch(message, numbers, false, listener);
+    }
+
+    /** Los seguimientos van detrás de cualquier alerta nueva al repartir el cupo de SMS. */
+    public int dispatch(String message, List<String> numbers, boolean followUp, Listener listener) {
+        int alertId = nextAlertId.getAndIncrement();
+        List<String> snapshot = new ArrayList<>(numbers);
+        scheduler.execute(() -> start(alertId, message, snapshot, followUp, listener));
+        return alertId;
+    }
+
+    public void onPartSent(int alertId, int recipient, int attempt, int part, boolean success) {
+        scheduler.execute(() -> {
+            Alert alert = find(alertId);
+            Recipient r = current(alert, recipient, attempt);
+            if (r == null || r.status != Status.SENDING) return;
+            if (!success) {
+                onRecipientFailed(alert, r);
+                return;
+            }
+            r.sentParts.set(part);
+            if (r.sentParts.cardinality() < alert.parts.size()) return;
+            r.status = Status.SENT;
+            if (alert.listener != null) alert.listener.onRecipientSent(alert.id, recipient);
+        });
+    }
+
+    public void onPartDelivered(int alertId, int recipient, int attempt, int part, boolean success) {
+        scheduler.execute(() -> {
+            Alert alert = find(alertId);
+            Recipient r = current(alert, recipient, attempt);
+            if (r == null || (r.status != Status.SENDING && r.status != Status.SENT)) return;
+            if (!success) {
+                onRecipientFailed(alert, r);
+                return;
+            }
+            r.deliveredParts.set(part);
+            if (r.deliveredParts.cardinality() < alert.parts.size()) return;
+            r.status = Status.DELIVERED;
+            alert.delivered++;
+            if (!alert.quorumReported && alert.delivered >= alert.quorum) {
+                alert.quorumReported = true;
+                notifyQuorum(alert);
+            }
+            finishIfDone(alert);
+        });
+    }
+
+    private void start(int alertId, String message, List<String> numbers, boolean followUp, Listener listener) {
+        List<String> parts = sender.divideMessage(message);
+        List<Recipient> recipients = new ArrayList<>(numbers.size());
+        for (String number : numbers) recipients.add(new Recipient(number));
+        Alert alert = new Alert(alertId, parts, recipients, Math.min(quorum, recipients.size()),
+                followUp, listener);
+        active.add(alert);
+
+        for (int i = 0; i < recipients.size(); i++) send(alert, i);
+        scheduler.schedule(() -> finish(alert), timeoutMs);
+        finishIfDone(alert);
+    }
+
+    private void send(Alert alert, int index) {
+        Recipient r = alert.recipients.get(index);
+        r.attempt++;
+        r.status = Status.SENDING;
+        r.sentParts.clear();
+        r.deliveredParts.clear();
+        try {
+            sender.send(r.number, alert.parts, alert.id, index, r.attempt, tierOf(alert, index));
+        } catch (RuntimeException e) {
+            onRecipientFailed(alert, r);
+        }
+    }
+
+    private int tierOf(Alert alert, int index) {
+        if (alert.followUp) return SmsRateScheduler.TIER_FOLLOW_UP;
+        return index < primaryRecipients ? SmsRateScheduler.TIER_PRIMARY : SmsRateScheduler.TIER_SECONDARY;
+    }
+
+    private void onRecipientFailed(Alert alert, Recipient r) {
+        if (alert.finished) return;
+        if (r.attempt >= maxAttempts) {
+            r.status = Status.FAILED;
+            alert.failed++;
+            finishIfDone(alert);
+            return;
+        }
+        r.status = Status.RETRYING;
+        int index = alert.recipients.indexOf(r);
+        long delay = retryBaseDelayMs << (r.attempt - 1);
+        scheduler.schedule(() -> {
+            if (!alert.finished) send(alert, index);
+        }, delay);
+    }
+
+    private void finishIfDone(Alert alert) {
+        if (alert.delivered + alert.failed == alert.recipients.size()) finish(alert);
+    }
+
+    private void finish(Alert alert) {
+        if (alert.finished) return;
+        alert.finished = true;
+        active.remove(alert);
+        if (alert.listener != null) {
+            alert.listener.onAlertFinished(alert.id, alert.delivered, alert.failed, alert.recipients.size());
+        }
+    }
+
+    private static void notifyQuorum(Alert alert) {
+        if (alert.listener != null) alert.listener.onQuorumReached(alert.id);
+    }
+
+    private Alert find(int alertId) {
+        for (Alert alert : active) {
+            if (alert.id == alertId) return alert;
+        }
+        return null;
+    }
+
+    // Ignora resultados de intentos anteriores que lleguen tarde
+    private static Recipient current(Alert alert, int recipient, int attempt) {
+        if (alert == null || recipient < 0 || recipient >= alert.recipients.size()) return null;
+        Recipient r = alert.recipients.get(recipient);
+        return r.attempt == attempt ? r : null;
+    }
+}
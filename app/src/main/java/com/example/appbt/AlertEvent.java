@@ -0,0 +1,103 @@
+package com.example.appbt;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+
+/** Registro de una alerta enviada, tal como se guarda en el outbox local. */
+public final class AlertEvent {
+
+    public static final int ORIGIN_SERVICE = 0;
+    public static final int ORIGIN_APP = 1;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final String id;
+    private final long timeMs;
+    private final int origin;
+    private final String type;
+    private final double latitude;
+    private final double longitude;
+    private final float accuracy;
+    private final String message;
+
+    public AlertEvent(String id, long timeMs, int origin, String type,
+                      double latitude, double longitude, float accuracy, String message) {
+        this.id = id;
+        this.timeMs = timeMs;
+        this.origin = origin;
+        this.type = type;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.accuracy = accuracy;
+        this.message = message;
+    }
+
+    public static AlertEvent create(int origin, String type, double latitude, double longitude,
+                                    float accuracy, String message) {
+        return new AlertEvent(UUID.randomUUID().toString(), System.currentTimeMillis(), origin, type,
+                latitude, longitude, accuracy, message);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getTimeMs() {
+        return timeMs;
+    }
+
+    public int getOrigin() {
+        return origin;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public float getAccuracy() {
+        return accuracy;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + message.length() * 2);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeUTF(id);
+            out.writeLong(timeMs);
+            out.writeByte(origin);
+            out.writeUTF(type);
+            out.writeDouble(latitude);
+            out.writeDouble(longitude);
+            out.writeFloat(accuracy);
+            out.writeUTF(message);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static AlertEvent fromBytes(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int version = in.readUnsignedByte();
+            if (version != FORMAT_VERSION) throw new IOException("Versión de evento desconocida: " + version);
+            return new AlertEvent(in.readUTF(), in.readLong(), in.readUnsignedByte(), in.readUTF(),
+                    in.readDouble(), in.readDouble(), in.readFloat(), in.readUTF());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.appbt;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Esquema único de las alertas en Firestore:
+ * {@code Usuarios/{uid}/meses/{yyyyMM}/alertas/{idEvento}} con campos numéricos cortos.
+ * Cada escritura crea un documento pequeño, así el costo no crece con el historial y una
+ * consulta por rango solo toca los meses involucrados.
+ */
+public final class AlertEventSchema {
+
+    public static final String USERS = "Usuarios";
+    public static final String MONTHS = "meses";
+    public static final String ALERTS = "alertas";
+
+    public static final String FIELD_TIME = "t";
+    public static final String FIELD_LATITUDE = "la";
+    public static final String FIELD_LONGITUDE = "lo";
+    public static final String FIELD_ACCURACY = "ac";
+    public static final String FIELD_KIND = "k";
+    public static final String FIELD_ORIGIN = "o";
+    /** Tipo tal cual, solo cuando el código no lo representa (KIND_OTHER o alertas migradas). */
+    public static final String FIELD_TYPE = "tp";
+    /** Texto enviado, solo en las alertas migradas: ese texto no se puede reconstruir. */
+    public static final String FIELD_MESSAGE = "m";
+
+    // El texto de las alertas nuevas no se guarda: se reconstruye con el tipo y las coordenadas
+    public static final int KIND_OTHER = 0;
+    public static final int KIND_TEST = 1;
+    public static final int KIND_FOLLOW_UP = 2;
+
+    /** Campo de array del esquema anterior dentro de {@code Usuarios/{uid}}. */
+    public static final String LEGACY_ARRAY = "Ubicación";
+    /** Marca en {@code Usuarios/{uid}} de que el array ya se copió; el array se conserva. */
+    public static final String LEGACY_MIGRATED = "UbicaciónMigrada";
+    public static final String LEGACY_ID_PREFIX = "legacy-";
+
+    private AlertEventSchema() {}
+
+    public static int kindCode(String type) {
+        if ("PRUEBA".equals(type)) return KIND_TEST;
+        if ("SEGUIMIENTO".equals(type)) return KIND_FOLLOW_UP;
+        return KIND_OTHER;
+    }
+
+    public static String kindName(int code) {
+        switch (code) {
+            case KIND_TEST:
+                return "PRUEBA";
+            case KIND_FOLLOW_UP:
+                return "SEGUIMIENTO";
+            default:
+                return "OTRO";
+        }
+    }
+
+    public static Map<String, Object> toFields(AlertEvent event) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(FIELD_TIME, event.getTimeMs());
+        fields.put(FIELD_LATITUDE, event.getLatitude());
+        fields.put(FIELD_LONGITUDE, event.getLongitude());
+        fields.put(FIELD_ACCURACY, (double) event.getAccuracy());
+        int kind = kindCode(event.getType());
+        fields.put(FIELD_KIND, kind);
+        fields.put(FIELD_ORIGIN, event.getOrigin());
+        boolean legacy = isLegacy(event);
+        if (event.getType() != null && !event.getType().isEmpty() && (legacy || kind == KIND_OTHER)) {
+            fields.put(FIELD_TYPE, event.getType());
+        }
+        if (legacy && event.getMessage() != null && !event.getMessage().isEmpty()) {
+            fields.put(FIELD_MESSAGE, event.getMessage());
+        }
+        return fields;
+    }
+
+    public static boolean isLegacy(AlertEvent event) {
+        return event.getId().startsWith(LEGACY_ID_PREFIX);
+    }
+
+    /** Clave del mes (UTC) en formato yyyyMM, calculada sin Calendar. */
+    public static int bucketOf(long timeMs) {
+        long days = Math.floorDiv(timeMs, 86_400_000L);
+        // Conversión de días desde 1970 a fecha civil (algoritmo de H. Hinnant)
+        long z = days + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (int) (year * 100 + month);
+    }
+
+    public static String bucketKey(long timeMs) {
+        return Integer.toString(bucketOf(timeMs));
+    }
+
+    /** Meses que cubre el rango [desde, hasta], en orden, para consultar solo esos. */
+    public static List<String> bucketsBetween(long fromMs, long toMs) {
+        List<String> keys = new ArrayList<>();
+        int bucket = bucketOf(fromMs);
+        int last = bucketOf(toMs);
+        while (bucket <= last) {
+            keys.add(Integer.toString(bucket));
+            bucket = bucket % 100 == 12 ? (bucket / 100 + 1) * 100 + 1 : bucket + 1;
+        }
+        return keys;
+    }
+
+    /**
+     * Convierte una entrada del array anterior ({fecha, latitud, longitud, mensaje, tipo}).
+     * El id es determinista para que repetir la migración no duplique documentos.
+     */
+    public static AlertEvent fromLegacy(Map<String, Object> entry, int index) {
+        long time = asLong(entry.get("fecha"));
+        String type = entry.get("tipo") instanceof String ? (String) entry.get("tipo") : "";
+        String message = entry.get("mensaje") instanceof String ? (String) entry.get("mensaje") : "";
+        return new AlertEvent(LEGACY_ID_PREFIX + time + "-" + index, time, AlertEvent.ORIGIN_SERVICE, type,
+                asDouble(entry.get("latitud")), asDouble(entry.get("longitud")), 0f, message);
+    }
+
+    private static long asLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    private static double asDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+}
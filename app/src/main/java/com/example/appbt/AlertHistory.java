@@ -0,0 +1,129 @@
+package com.example.appbt;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Punto único del proceso para registrar alertas: primero se guardan en el outbox local y
+ * después el uploader las sube a Firestore en lotes, cuando hay red.
+ */
+public final class AlertHistory {
+
+    private static final String TAG = "AlertHistory";
+    private static final int BATCH_SIZE = 50;
+    private static final long COALESCE_MS = 2000;
+    private static final long RETRY_BASE_MS = 10 * 1000;
+    private static final long RETRY_MAX_MS = 10 * 60 * 1000;
+
+    private static volatile AlertHistory instance;
+
+    private final AlertOutbox outbox;
+    private final TaskScheduler scheduler;
+    private final AlertSink sink;
+    private final OutboxUploader uploader;
+    private final LegacyAlertMigration migration;
+    // Avisos pendientes por id de evento; se borran al subir
+    private final Map<String, Runnable> uploadCallbacks = new ConcurrentHashMap<>();
+
+    private AlertHistory(Context context) throws IOException {
+        outbox = new AlertOutbox(new File(context.getFilesDir(), "outbox"));
+        scheduler = TaskScheduler.singleThread("outbox-upload");
+        AppServices services = AppServices.get(context);
+        sink = new FirestoreAlertSink(services);
+        uploader = new OutboxUploader(outbox, sink, scheduler,
+                BATCH_SIZE, COALESCE_MS, RETRY_BASE_MS, RETRY_MAX_MS);
+        migration = new LegacyAlertMigration(context, services);
+        uploader.setListener(batch -> {
+            for (AlertEvent event : batch) {
+                Runnable callback = uploadCallbacks.remove(event.getId());
+                if (callback != null) callback.run();
+            }
+        });
+
+        ConnectivityManager connectivity = context.getSystemService(ConnectivityManager.class);
+        if (connectivity != null) {
+            connectivity.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(Network network) {
+                    if (!migration.isDone()) scheduler.execute(migration::runIfNeeded);
+                    uploader.onNetworkAvailable();
+                }
+            });
+        }
+        scheduler.execute(migration::runIfNeeded);
+        // Lo que quedó pendiente de una ejecución anterior
+        if (outbox.pendingCount() > 0) uploader.requestFlush();
+    }
+
+    public static AlertHistory get(Context context) {
+        AlertHistory result = instance;
+        if (result == null) {
+            synchronized (AlertHistory.class) {
+                result = instance;
+                if (result == null) {
+                    try {
+                        result = new AlertHistory(context.getApplicationContext());
+                    } catch (IOException e) {
+                        throw new IllegalStateException("No se pudo abrir el outbox de alertas", e);
+                    }
+                    instance = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Guarda el evento en disco (fuera del hilo principal) y programa su subida. */
+    public void record(AlertEvent event) {
+        record(event, null);
+    }
+
+    /**
+     * Igual, con un aviso cuando Firestore confirme este evento. Si la app muere antes,
+     * el evento se sube en la próxima ejecución pero el aviso se pierde. Si el outbox no
+     * puede guardarlo, se intenta subir directo una vez.
+     */
+    public void record(AlertEvent event, @Nullable Runnable onUploaded) {
+        if (onUploaded != null) uploadCallbacks.put(event.getId(), onUploaded);
+        scheduler.execute(() -> {
+            try {
+                outbox.append(event);
+            } catch (IOException e) {
+                Log.e(TAG, "No se pudo guardar la alerta en el outbox; se sube directo", e);
+                uploadDirectly(event);
+                return;
+            }
+            uploader.requestFlush();
+        });
+    }
+
+    // El uploader nunca verá este evento: el aviso se resuelve aquí, se suba o no
+    private void uploadDirectly(AlertEvent event) {
+        Runnable callback = uploadCallbacks.remove(event.getId());
+        try {
+            sink.upload(Collections.singletonList(event));
+        } catch (IOException e) {
+            Log.e(TAG, "No se pudo subir la alerta " + event.getId(), e);
+            return;
+        }
+        if (callback != null) callback.run();
+    }
+
+    public int pendingCount() {
+        return outbox.pendingCount();
+    }
+
+    public OutboxUploader getUploader() {
+        return uploader;
+    }
+}
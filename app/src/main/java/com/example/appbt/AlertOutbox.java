@@ -0,0 +1,158 @@
+package com.example.appbt;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Registro local de alertas, solo de anexado. Cada alerta se escribe y sincroniza a disco
+ * antes de intentar subirla; un archivo aparte guarda hasta dónde se confirmó la subida.
+ *
+ * Formato de cada registro: | largo (int) | CRC32 del payload (int) | payload |.
+ * Al abrir, un registro final incompleto (corte de energía a mitad de escritura) se descarta.
+ */
+public class AlertOutbox {
+
+    private static final int RECORD_HEADER = 8;
+    private static final int MAX_RECORD = 64 * 1024;
+
+    private final File logFile;
+    private final File offsetFile;
+    private final File offsetTmpFile;
+    private long committedOffset;
+    private long length;
+    private int pending;
+
+    public AlertOutbox(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("No se pudo crear " + directory);
+        }
+        logFile = new File(directory, "alerts.log");
+        offsetFile = new File(directory, "alerts.offset");
+        offsetTmpFile = new File(directory, "alerts.offset.tmp");
+        recover();
+    }
+
+    public synchronized void append(AlertEvent event) throws IOException {
+        byte[] payload = event.toBytes();
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        try (FileOutputStream file = new FileOutputStream(logFile, true);
+             DataOutputStream out = new DataOutputStream(file)) {
+            out.writeInt(payload.length);
+            out.writeInt((int) crc.getValue());
+            out.write(payload);
+            out.flush();
+            file.getFD().sync();
+        }
+        length += RECORD_HEADER + payload.length;
+        pending++;
+    }
+
+    /** Hasta {@code max} eventos aún no confirmados, en orden de llegada. */
+    public synchronized List<AlertEvent> peek(int max) throws IOException {
+        List<AlertEvent> events = new ArrayList<>(Math.min(max, pending));
+        if (committedOffset >= length) return events;
+        try (RandomAccessFile file = new RandomAccessFile(logFile, "r")) {
+            long position = committedOffset;
+            while (events.size() < max && position < length) {
+                byte[] payload = readRecord(file, position);
+                if (payload == null) break;
+                events.add(AlertEvent.fromBytes(payload));
+                position += RECORD_HEADER + payload.length;
+            }
+        }
+        return events;
+    }
+
+    /** Marca como subidos los primeros {@code count} eventos pendientes. */
+    public synchronized void commit(int count) throws IOException {
+        if (count <= 0 || committedOffset >= length) return;
+        long position = committedOffset;
+        try (RandomAccessFile file = new RandomAccessFile(logFile, "r")) {
+            for (int i = 0; i < count && position < length; i++) {
+                file.seek(position);
+                position += RECORD_HEADER + file.readInt();
+            }
+        }
+        if (position >= length) {
+            // Todo subido: se vacía el log en vez de dejarlo crecer
+            try (RandomAccessFile file = new RandomAccessFile(logFile, "rw")) {
+                file.setLength(0);
+                file.getFD().sync();
+            }
+            length = 0;
+            position = 0;
+            pending = 0;
+        } else {
+            pending = Math.max(0, pending - count);
+        }
+        writeOffset(position);
+    }
+
+    public synchronized int pendingCount() {
+        return pending;
+    }
+
+    private void recover() throws IOException {
+        long stored = readOffset();
+        long valid = 0;
+        int pendingRecords = 0;
+        if (logFile.exists()) {
+            try (RandomAccessFile file = new RandomAccessFile(logFile, "rw")) {
+                long fileLength = file.length();
+                while (valid < fileLength) {
+                    byte[] payload = readRecord(file, valid);
+                    if (payload == null) break;
+                    valid += RECORD_HEADER + payload.length;
+                    if (valid > stored) pendingRecords++;
+                }
+                if (valid < fileLength) {
+                    file.setLength(valid);
+                    file.getFD().sync();
+                }
+            }
+        }
+        length = valid;
+        pending = pendingRecords;
+        committedOffset = Math.min(stored, valid);
+        if (committedOffset != stored) writeOffset(committedOffset);
+    }
+
+    private byte[] readRecord(RandomAccessFile file, long position) throws IOException {
+        if (position + RECORD_HEADER > file.length()) return null;
+        file.seek(position);
+        int size = file.readInt();
+        int expectedCrc = file.readInt();
+        if (size < 0 || size > MAX_RECORD || position + RECORD_HEADER + size > file.length()) return null;
+        byte[] payload = new byte[size];
+        file.readFully(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue() == expectedCrc ? payload : null;
+    }
+
+    private long readOffset() throws IOException {
+        if (!offsetFile.exists()) return 0;
+        try (RandomAccessFile file = new RandomAccessFile(offsetFile, "r")) {
+            return file.length() >= 8 ? file.readLong() : 0;
+        }
+    }
+
+    // Escritura atómica: archivo temporal sincronizado y luego renombrado
+    private void writeOffset(long offset) throws IOException {
+        try (FileOutputStream file = new FileOutputStream(offsetTmpFile);
+             DataOutputStream out = new DataOutputStream(file)) {
+            out.writeLong(offset);
+            out.flush();
+            file.getFD().sync();
+        }
+        if (!offsetTmpFile.renameTo(offsetFile)) throw new IOException("No se pudo actualizar " + offsetFile);
+        committedOffset = offset;
+    }
+}
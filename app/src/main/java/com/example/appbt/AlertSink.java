@@ -0,0 +1,11 @@
+package com.example.appbt;
+
+import java.io.IOException;
+import java.util.List;
+
+/** Destino de los eventos del outbox. Debe ser idempotente: un lote puede reenviarse tras un fallo. */
+public interface AlertSink {
+
+    /** Bloquea hasta que el lote quede guardado; lanza IOException para reintentar más tarde. */
+    void upload(List<AlertEvent> batch) throws IOException;
+}
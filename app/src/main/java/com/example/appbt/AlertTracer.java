@@ -0,0 +1,106 @@
+package com.example.appbt;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Mide cada alerta desde que llega la línea del ESP32 hasta cada etapa del envío. Cada etapa
+ * tiene su {@link LatencyHistogram} con el tiempo acumulado desde el disparo. Las trazas
+ * viven en un anillo fijo de ranuras: una traza muy vieja se pisa y sus marcas tardías se
+ * descartan. Marcar una etapa no reserva memoria; se puede llamar desde cualquier hilo.
+ */
+public class AlertTracer {
+
+    public enum Stage {
+        /** getLocationAsync entregó la ubicación (o se rindió). */
+        LOCATION(true),
+        /** Cada llamada a sendMultipartTextMessage, incluidos los reintentos. */
+        SMS_SUBMITTED(false),
+        /** El operador aceptó todas las partes de un contacto. */
+        SMS_SENT(false),
+        /** Firestore confirmó el registro de la alerta. */
+        FIRESTORE(true),
+        /** El primer SMS_ENVIADO quedó escrito en el enlace con el ESP32. */
+        ACK_WRITTEN(true);
+
+        /** Solo cuenta la primera marca de cada traza. */
+        final boolean once;
+
+        Stage(boolean once) {
+            this.once = once;
+        }
+    }
+
+    private static final int SLOTS = 16;
+
+    private final LongSupplier clock;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+
+    // Protegidos por this
+    private final int[] traceIds = new int[SLOTS];
+    private final int[] alertIds = new int[SLOTS];
+    private final long[] startedAt = new long[SLOTS];
+    private final int[] marked = new int[SLOTS];
+    private int nextTraceId = 1;
+
+    /** @param clock ms del mismo reloj que el inicio que se pasa a {@link #begin(long)} */
+    public AlertTracer(LongSupplier clock) {
+        this.clock = clock;
+        for (int i = 0; i < histograms.length; i++) histograms[i] = new LatencyHistogram();
+    }
+
+    /** Abre una traza que empezó en {@code startMs} y devuelve su id (nunca 0). */
+    public synchronized int begin(long startMs) {
+        int id = nextTraceId;
+        nextTraceId = id == Integer.MAX_VALUE ? 1 : id + 1;
+        int slot = id & (SLOTS - 1);
+        traceIds[slot] = id;
+        alertIds[slot] = 0;
+        startedAt[slot] = startMs;
+        marked[slot] = 0;
+        return id;
+    }
+
+    /** Asocia la traza con el id de {@link AlertDispatcher} para marcarla desde el envío. */
+    public synchronized void bindAlert(int traceId, int alertId) {
+        int slot = traceId & (SLOTS - 1);
+        if (traceIds[slot] == traceId) alertIds[slot] = alertId;
+    }
+
+    public void mark(int traceId, Stage stage) {
+        long start;
+        synchronized (this) {
+            int slot = traceId & (SLOTS - 1);
+            if (traceId == 0 || traceIds[slot] != traceId || !claim(slot, stage)) return;
+            start = startedAt[slot];
+        }
+        histograms[stage.ordinal()].record(clock.getAsLong() - start);
+    }
+
+    /** Igual que {@link #mark}, buscando la traza por id de alerta; sin traza no hace nada. */
+    public void markAlert(int alertId, Stage stage) {
+        long start;
+        synchronized (this) {
+            int slot = -1;
+            for (int i = 0; i < SLOTS; i++) {
+                if (traceIds[i] != 0 && alertIds[i] == alertId) {
+                    slot = i;
+                    break;
+                }
+            }
+            if (alertId == 0 || slot < 0 || !claim(slot, stage)) return;
+            start = startedAt[slot];
+        }
+        histograms[stage.ordinal()].record(clock.getAsLong() - start);
+    }
+
+    private boolean claim(int slot, Stage stage) {
+        int bit = 1 << stage.ordinal();
+        if (stage.once && (marked[slot] & bit) != 0) return false;
+        marked[slot] |= bit;
+        return true;
+    }
+
+    public LatencyHistogram get(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.appbt;
+
+import android.content.Context;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationServices;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Clientes caros de crear (Firebase, Firestore, ubicación, contactos), compartidos por la actividad y el
+ * servicio. Nada se crea en el hilo principal al arrancar: {@link #warmUp()} los prepara en
+ * un hilo propio y cada getter espera a ese cálculo o lo hace él mismo. Firebase ya no se
+ * inicializa solo al abrir el proceso (el FirebaseInitProvider está quitado del manifiesto),
+ * así que todo acceso a Firebase debe pasar por aquí.
+ */
+public final class AppServices {
+
+    private static final String TAG = "AppServices";
+
+    /** Fases del arranque del proceso, medidas desde que el sistema lo creó. */
+    public static final StartupTrace STARTUP =
+            new StartupTrace(SystemClock::uptimeMillis, Process.getStartUptimeMillis());
+
+    private static volatile AppServices instance;
+
+    private final Context context;
+    private final TaskScheduler background;
+    private final Lazy<FirebaseApp> firebase;
+    private final Lazy<FirebaseFirestore> firestore;
+    private final Lazy<FusedLocationProviderClient> location;
+    private final Lazy<ContactRepository> contacts;
+
+    private AppServices(Context context) {
+        this.context = context;
+        background = TaskScheduler.singleThread("startup");
+        firebase = new Lazy<>(() -> {
+            FirebaseApp app = FirebaseApp.initializeApp(context);
+            if (app != null) mark("firebase");
+            return app;
+        });
+        firestore = new Lazy<>(() -> {
+            FirebaseFirestore result = FirebaseFirestore.getInstance(firebase.get());
+            mark("firestore");
+            return result;
+        });
+        location = new Lazy<>(() -> {
+            FusedLocationProviderClient client = LocationServices.getFusedLocationProviderClient(context);
+            mark("location");
+            return client;
+        });
+        contacts = new Lazy<>(() -> {
+            ContactRepository repository = ContactRepository.get(context);
+            mark("contacts");
+            return repository;
+        });
+    }
+
+    public static AppServices get(Context context) {
+        AppServices result = instance;
+        if (result == null) {
+            synchronized (AppServices.class) {
+                result = instance;
+                if (result == null) {
+                    result = new AppServices(context.getApplicationContext());
+                    instance = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Prepara todo en segundo plano; se puede llamar muchas veces. */
+    public void warmUp() {
+        location.prefetch(background);
+        contacts.prefetch(background);
+        firebase.prefetch(background);
+        firestore.prefetch(background);
+        // El outbox abre archivos y registra el callback de red: mejor fuera del hilo principal
+        background.execute(() -> AlertHistory.get(context));
+    }
+
+    public FirebaseApp firebase() {
+        return firebase.get();
+    }
+
+    public FirebaseFirestore firestore() {
+        return firestore.get();
+    }
+
+    public FirebaseAuth auth() {
+        return FirebaseAuth.getInstance(firebase.get());
+    }
+
+    public FusedLocationProviderClient location() {
+        return location.get();
+    }
+
+    /** Bloquea si los contactos todavía se están leyendo del disco; no usar en el hilo principal. */
+    public ContactRepository contacts() {
+        return contacts.get();
+    }
+
+    /** Entrega los contactos en {@code executor} cuando estén cargados, sin bloquear a quien llama. */
+    public void contacts(Executor executor, Consumer<ContactRepository> callback) {
+        background.execute(() -> {
+            ContactRepository repository;
+            try {
+                repository = contacts.get();
+            } catch (IllegalStateException e) {
+                Log.e(TAG, "No se pudieron cargar los contactos", e);
+                return;
+            }
+            executor.execute(() -> callback.accept(repository));
+        });
+    }
+
+    public static void mark(String phase) {
+        if (STARTUP.mark(phase)) Log.i(TAG, "Arranque: " + STARTUP.format());
+    }
+}
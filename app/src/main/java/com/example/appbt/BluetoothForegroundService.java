@@ -6,7 +6,6 @@ import android.app.NotificationManager;
 import android.app.Service;
 import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
-import android.bluetooth.BluetoothSocket;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.BroadcastReceiver;
@@ -14,8 +13,12 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.location.Location;
+import android.os.Binder;
 import android.os.Build;
+import android.os.Handler;
 import android.os.IBinder;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.telephony.SmsManager;
 import android.util.Log;
 
@@ -27,97 +30,396 @@ import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationRequest;
 import com.google.android.gms.location.LocationResult;
 import com.google.android.gms.location.LocationCallback;
-import com.google.android.gms.location.LocationServices;
 import com.google.android.gms.location.Priority;
-import com.google.firebase.FirebaseApp;
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.FieldValue;
-import com.google.firebase.firestore.FirebaseFirestore;
 
+import java.io.File;
+import java.io.FileDescriptor;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToLongFunction;
 
 public class BluetoothForegroundService extends Service {
 
     private static final String TAG = "BT_SERVICE";
     private static final String ESP32_MAC_E = "08:A6:F7:47:01:62";
-    private static final UUID BT_UUID = UUID.fromString("00001101-0000-1000-8000-00805F9B34FB");
     private static final String CHANNEL_ID = "BT_SMS_CHANNEL";
+    private static final String LINK_PREFS = "BluetoothPrefs";
+    private static final String KEY_LAST_DEVICE = "last_device_address";
+    // Lista de dispositivos, ver DevicePool.parse; vacía = solo el ESP32 de siempre
+    private static final String KEY_DEVICES = "devices";
+    private static final int MAX_DEVICES = 4;
+    private static final String LOCATION_PREFS = "LocationPrefs";
+    private static final long DEFAULT_MAX_FIX_AGE_MS = 2 * 60 * 1000;
+    private static final float DEFAULT_MAX_ACCURACY_M = 100;
+    private static final long DEFAULT_FOLLOW_UP_WINDOW_MS = 30 * 1000;
+    private static final long WARMUP_INTERVAL_MS = 60 * 1000;
+    private static final long WARMUP_MIN_INTERVAL_MS = 15 * 1000;
+    private static final long ESCALATION_TIMEOUT_MS = 15 * 1000;
+    private static final String ALERT_PREFS = "AlertPrefs";
+    private static final int DEFAULT_DELIVERY_QUORUM = 1;
+    private static final int SMS_MAX_ATTEMPTS = 3;
+    private static final long SMS_RETRY_BASE_MS = 5 * 1000;
+    private static final long ALERT_TIMEOUT_MS = 2 * 60 * 1000;
+    private static final long DEFAULT_TRIGGER_WINDOW_MS = 10 * 1000;
+    private static final int WRITE_QUEUE_CAPACITY = 64;
+    private static final long HEARTBEAT_MIN_MS = 5 * 1000;
+    private static final long HEARTBEAT_MAX_MS = 60 * 1000;
+    private static final long HEARTBEAT_TIMEOUT_MS = 3 * 1000;
+    private static final int HEARTBEAT_MAX_MISSED = 2;
+    private static final long CAPTURE_FILE_BYTES = 1024 * 1024;
+    private static final int CAPTURE_FILES = 4;
+    private static final int WRITE_BATCH_BYTES = 512;
+    // Límite por defecto de Android (SmsUsageMonitor): 30 mensajes cada 30 minutos
+    private static final int SMS_RATE_MAX_PARTS = 30;
+    private static final long SMS_RATE_WINDOW_MS = 30 * 60 * 1000;
+    private static final int SMS_RATE_RESERVE_PARTS = 10;
+    private static final int DEFAULT_PRIMARY_CONTACTS = 3;
+    // Se guarda un rato después de cada alerta para incluir el ack de Firestore y el del ESP32
+    private static final long LATENCY_SAVE_DELAY_MS = 60 * 1000;
+    private static final long METRICS_INTERVAL_MS = 5 * 60 * 1000;
+    private static final long METRICS_FILE_BYTES = 64 * 1024;
+    private static final int METRICS_FILES = 3;
 
     private BluetoothAdapter btAdapter;
-    private BluetoothSocket btSocket;
-    private OutputStream btOutputStream;
-    private boolean isConnected = false;
-    private boolean isReconnecting = false;
+    private TaskScheduler linkScheduler;
+    private TaskScheduler writerScheduler;
+    private DevicePool devicePool;
+    @Nullable
+    private CaptureTap captureTap;
+    // La captura es un solo flujo: se graba solo el primer dispositivo de la lista
+    @Nullable
+    private volatile String captureAddress;
 
-    private FusedLocationProviderClient fusedLocationClient;
     private BroadcastReceiver bluetoothReceiver;
-    private ArrayList<Contact> contacts;
+    // null hasta que AppServices termine de leer los contactos del disco
+    @Nullable
+    private volatile ContactRepository contactRepository;
+    private boolean destroyed;
+    private LocationCache locationCache;
+    private TaskScheduler alertScheduler;
+    private SmsManagerSender smsSender;
+    private SmsRateScheduler smsRateScheduler;
+    private AlertDispatcher alertDispatcher;
+    // Uno por dispositivo: los disparos de dos personas distintas nunca se juntan
+    private final Map<DevicePool.Device, TriggerCoalescer> coalescers = new ConcurrentHashMap<>();
+    private long triggerWindowMs;
+    private AlertTracer alertTracer;
+    private LatencyStore latencyStore;
+    private final AtomicBoolean latencySaveScheduled = new AtomicBoolean();
+
+    private final StateHolder<ServiceStatus> status = new StateHolder<>(ServiceStatus.INITIAL);
+    private final IBinder binder = new LocalBinder();
+
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final MetricsRegistry.Counter bytesRead = metrics.counter("link.bytes_read");
+    private final MetricsRegistry.Counter connectFailures = metrics.counter("link.connect_failures");
+    private final MetricsRegistry.Counter discoveryFailures = metrics.counter("link.discovery_failures");
+    private final LatencyHistogram discoveryMs = metrics.histogram("link.discovery_ms");
+    private final MetricsRegistry.Counter smsSegments = metrics.counter("sms.segments_sent");
+    private TaskScheduler metricsScheduler;
+    private MetricsLog metricsLog;
+    private boolean warmupActive;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     @Override
     public void onCreate() {
         super.onCreate();
-        FirebaseApp.initializeApp(this);
+        // Firebase, Firestore, ubicación y el outbox se preparan en segundo plano
+        AppServices.get(this).warmUp();
         createNotificationChannel();
         btAdapter = BluetoothAdapter.getDefaultAdapter();
-        fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
-        contacts = loadContacts();
+        AppServices.get(this).contacts(ContextCompat.getMainExecutor(this), repository -> {
+            if (destroyed) return;
+            contactRepository = repository;
+            repository.addListener(contactsListener);
+            status.update(s -> s.withContacts(repository.getContacts().size()));
+        });
+
+        SharedPreferences locationPrefs = getSharedPreferences(LOCATION_PREFS, MODE_PRIVATE);
+        locationCache = new LocationCache(
+                locationPrefs.getLong("max_fix_age_ms", DEFAULT_MAX_FIX_AGE_MS),
+                locationPrefs.getFloat("max_accuracy_m", DEFAULT_MAX_ACCURACY_M),
+                locationPrefs.getLong("follow_up_window_ms", DEFAULT_FOLLOW_UP_WINDOW_MS));
+
+        SharedPreferences alertPrefs = getSharedPreferences(ALERT_PREFS, MODE_PRIVATE);
+        int quorum = alertPrefs.getInt("delivery_quorum", DEFAULT_DELIVERY_QUORUM);
+        alertScheduler = TaskScheduler.singleThread("alert-dispatch");
+        alertTracer = new AlertTracer(alertScheduler::now);
+        latencyStore = new LatencyStore(this);
+        latencyStore.load(alertTracer);
+        smsSender = new SmsManagerSender(this, SmsManager.getDefault());
+        smsRateScheduler = new SmsRateScheduler(instrumentedSender(smsSender), alertScheduler,
+                SMS_RATE_MAX_PARTS, SMS_RATE_WINDOW_MS, SMS_RATE_RESERVE_PARTS);
+        int primaryContacts = alertPrefs.getInt("primary_contacts", Math.max(quorum, DEFAULT_PRIMARY_CONTACTS));
+        alertDispatcher = new AlertDispatcher(smsRateScheduler, alertScheduler, quorum, primaryContacts,
+                SMS_MAX_ATTEMPTS, SMS_RETRY_BASE_MS, ALERT_TIMEOUT_MS);
+        smsRateScheduler.setFailureListener((alertId, recipient, attempt) ->
+                alertDispatcher.onPartSent(alertId, recipient, attempt, 0, false));
+        smsSender.register(alertDispatcher);
+        // Los disparos repetidos dentro de la ventana comparten ubicación, envío y resultado
+        triggerWindowMs = alertPrefs.getLong("trigger_window_ms", DEFAULT_TRIGGER_WINDOW_MS);
+
+        if (btAdapter != null) {
+            // Un hilo para las transiciones de todos los enlaces, otro que escribe a todos y un
+            // lector por enlace conectado, con tope MAX_DEVICES
+            linkScheduler = TaskScheduler.singleThread("bt-link");
+            writerScheduler = TaskScheduler.singleThread("bt-writer");
+            devicePool = new DevicePool(new RfcommTransport(this, btAdapter), linkScheduler, writerScheduler,
+                    MAX_DEVICES, WRITE_QUEUE_CAPACITY, WRITE_BATCH_BYTES, ReconnectPolicy::new, poolListener);
+            SharedPreferences linkPrefs = getSharedPreferences(LINK_PREFS, MODE_PRIVATE);
+            devicePool.setHeartbeat(linkPrefs.getLong("heartbeat_min_ms", HEARTBEAT_MIN_MS),
+                    linkPrefs.getLong("heartbeat_max_ms", HEARTBEAT_MAX_MS),
+                    HEARTBEAT_TIMEOUT_MS, HEARTBEAT_MAX_MISSED);
+            // Solo para diagnosticar equipos en campo: se activa a mano desde las preferencias
+            if (linkPrefs.getBoolean("capture_enabled", false)) {
+                captureTap = new CaptureTap(new File(getFilesDir(), "captures"), CAPTURE_FILE_BYTES, CAPTURE_FILES);
+            }
+            registerDiscoveryReceiver();
+        }
+        registerMetrics();
+        AppServices.mark("service_created");
+    }
+
+    private void registerMetrics() {
+        if (devicePool != null) {
+            // Sumas de todos los dispositivos; el RTT es el del enlace más lento
+            metrics.gauge("link.devices_connected", devicePool::getConnectedCount);
+            metrics.gauge("link.lines_parsed", () -> sumDevices(d -> d.getProtocol().getLineFramer().getLinesParsed()
+                    + d.getProtocol().getFrameDecoder().getFramesDecoded()));
+            metrics.gauge("link.crc_errors", () -> sumDevices(d -> d.getProtocol().getFrameDecoder().getCrcErrors()));
+            metrics.gauge("link.reconnects", () -> sumDevices(d ->
+                    d.getConnectionManager().getReconnectPolicy().getReconnectCount()));
+            metrics.gauge("link.writes_dropped", () -> sumDevices(d -> d.getWriter().getDropped()));
+            metrics.gauge("link.rtt_p50_ms", devicePool::getRttMs);
+        }
+        metrics.gauge("sms.queue_depth", smsRateScheduler::getQueueDepth);
+        metrics.gauge("sms.deferred", smsRateScheduler::getDeferred);
+        metrics.gauge("firestore.failures", () -> AlertHistory.get(this).getUploader().getFailures());
+        metrics.gauge("firestore.pending", () -> AlertHistory.get(this).pendingCount());
+        metrics.gauge("location.trigger_to_fix_last_ms", locationCache::getLastLatencyMs);
+        metrics.gauge("location.trigger_to_fix_mean_ms", locationCache::getMeanLatencyMs);
+        metrics.gauge("location.trigger_to_fix_max_ms", locationCache::getMaxLatencyMs);
+        metrics.gauge("location.fixes", locationCache::getLatencyCount);
+        metrics.gauge("location.cache_hits", locationCache::getCacheHits);
+        metrics.gauge("process.threads", Thread::activeCount);
+        metrics.gauge("startup.first_frame_ms", () -> AppServices.STARTUP.get("first_frame"));
+        metrics.gauge("startup.service_listening_ms", () -> AppServices.STARTUP.get("service_listening"));
+        for (AlertTracer.Stage stage : AlertTracer.Stage.values()) {
+            metrics.histogram("alert." + stage.name().toLowerCase(Locale.ROOT) + "_ms", alertTracer.get(stage));
+        }
+
+        metricsScheduler = TaskScheduler.singleThread("metrics");
+        metricsLog = new MetricsLog(metrics, metricsScheduler, new File(getFilesDir(), "metrics"),
+                METRICS_INTERVAL_MS, METRICS_FILE_BYTES, METRICS_FILES);
+        metricsLog.start();
+    }
+
+    private long sumDevices(ToLongFunction<DevicePool.Device> value) {
+        long sum = 0;
+        for (DevicePool.Device device : devicePool.getDevices()) sum += value.applyAsLong(device);
+        return sum;
+    }
+
+    // Corre en el hilo del enlace, como todas las transiciones
+    private void recordLinkMetrics(ConnectionManager.State from, ConnectionManager.State to, long fromMs) {
+        if (from == ConnectionManager.State.DISCOVERING) {
+            discoveryMs.record(fromMs);
+            if (to == ConnectionManager.State.BACKOFF) discoveryFailures.increment();
+        } else if (from == ConnectionManager.State.CONNECTING && to == ConnectionManager.State.BACKOFF) {
+            connectFailures.increment();
+        }
     }
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
         if (btAdapter == null) {
+            status.update(s -> s.withProblem(ServiceStatus.Problem.NO_BLUETOOTH));
             stopSelf();
             return START_NOT_STICKY;
         }
 
-        String deviceAddress = intent != null ? intent.getStringExtra("device_address") : null;
-
-        if (deviceAddress != null) {
-            BluetoothDevice device = btAdapter.getRemoteDevice(deviceAddress);
-            connectToESP32(device);
-            startForeground(1, buildNotification("Conectando al ESP32..."));
-            sendStatusBroadcast("Conectando al ESP32...");
-        } else {
-            iniciarDiscoveryNormal();
+        List<DevicePool.Entry> devices = DevicePool.parse(
+                getSharedPreferences(LINK_PREFS, MODE_PRIVATE).getString(KEY_DEVICES, null));
+        if (devices.isEmpty()) {
+            // Sin lista configurada: un solo ESP32, como siempre
+            String deviceAddress = intent != null ? intent.getStringExtra("device_address") : null;
+            if (deviceAddress == null) deviceAddress = findKnownDeviceAddress();
+            if (deviceAddress == null && !hasPermission(android.Manifest.permission.BLUETOOTH_SCAN)) {
+                status.update(s -> s.withProblem(ServiceStatus.Problem.MISSING_SCAN_PERMISSION));
+                stopSelf();
+                return START_NOT_STICKY;
+            }
+            // Si no se conoce la dirección, el ESP32_MAC_E se encuentra por búsqueda tras los intentos directos
+            devices = Collections.singletonList(new DevicePool.Entry(
+                    deviceAddress != null ? deviceAddress : ESP32_MAC_E, null));
         }
 
+        status.update(s -> s.withProblem(ServiceStatus.Problem.NONE));
+        startForeground(1, buildNotification(devices.size() == 1 ? "Conectando al ESP32..."
+                : "Conectando a " + devices.size() + " ESP32..."));
+        captureAddress = devices.get(0).address;
+        devicePool.retain(devices);
+        // Una alerta en curso de un dispositivo quitado termina igual: su ventana guarda la referencia
+        coalescers.keySet().retainAll(devicePool.getDevices());
+        for (DevicePool.Entry entry : devices) {
+            if (devicePool.add(entry) == null) {
+                Log.w(TAG, "Más de " + devicePool.getMaxDevices() + " dispositivos; se ignora " + entry.address);
+            }
+        }
+        // Los que ya estaban y esperaban para reintentar, reintentan ya
+        devicePool.start();
+        updateLinkStatus();
         return START_STICKY;
     }
 
-    private void iniciarDiscoveryNormal() {
+    // Dirección emparejada o la última que conectó: permite conectar sin búsqueda previa
+    @Nullable
+    private String findKnownDeviceAddress() {
+        if (hasPermission(android.Manifest.permission.BLUETOOTH_CONNECT)) {
+            for (BluetoothDevice device : btAdapter.getBondedDevices()) {
+                if (ESP32_MAC_E.equals(device.getAddress())) return device.getAddress();
+            }
+        }
+        return getSharedPreferences(LINK_PREFS, MODE_PRIVATE).getString(KEY_LAST_DEVICE, null);
+    }
+
+    private void registerDiscoveryReceiver() {
         IntentFilter filter = new IntentFilter(BluetoothDevice.ACTION_FOUND);
         bluetoothReceiver = new BroadcastReceiver() {
             @Override
             public void onReceive(Context context, Intent intent) {
                 if (BluetoothDevice.ACTION_FOUND.equals(intent.getAction())) {
                     BluetoothDevice device = intent.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
-                    if (device != null && ESP32_MAC_E.equals(device.getAddress())) {
-                        if (btAdapter.isDiscovering()) {
-                            btAdapter.cancelDiscovery();
-                            try { Thread.sleep(500); } catch (InterruptedException ignored) {}
-                        }
-                        if (!isConnected) connectToESP32(device);
-                    }
+                    if (device != null) devicePool.onDeviceFound(device.getAddress());
                 }
             }
         };
         registerReceiver(bluetoothReceiver, filter);
+    }
 
-        if (hasPermission(android.Manifest.permission.BLUETOOTH_SCAN)) {
-            btAdapter.startDiscovery();
-            startForeground(1, buildNotification("Buscando ESP32..."));
-            sendStatusBroadcast("Buscando ESP32...");
-        } else {
-            sendStatusBroadcast("Falta permiso BLUETOOTH_SCAN");
-            stopSelf();
+    private final DevicePool.Listener poolListener = new DevicePool.Listener() {
+        @Override
+        public void onStateChanged(DevicePool.Device device, ConnectionManager.State from,
+                                   ConnectionManager.State to, long fromMs) {
+            recordLinkMetrics(from, to, fromMs);
+            updateLinkStatus();
+            switch (to) {
+                case CONNECTED:
+                    long reconnectMs = device.getConnectionManager().getReconnectPolicy().getLastReconnectMs();
+                    if (reconnectMs >= 0) Log.i(TAG, device.getName() + " reconectado en " + reconnectMs + " ms");
+                    startLocationWarmup();
+                    break;
+                case BACKOFF:
+                case IDLE:
+                    logWrites(device);
+                    // La ubicación se sigue calentando mientras quede algún enlace
+                    if (devicePool.getConnectedCount() == 0) stopLocationWarmup();
+                    break;
+                default:
+                    break;
+            }
+            if (to == ConnectionManager.State.CONNECTED || to == ConnectionManager.State.BACKOFF) {
+                startForeground(1, buildNotification(describeDevices()));
+            }
         }
+
+        @Override
+        public void onHealthChanged(DevicePool.Device device, LinkHeartbeat.Health health, long rttMs) {
+            if (health == LinkHeartbeat.Health.DEAD) {
+                RttWindow rtt = device.getHeartbeat().getRtt();
+                Log.w(TAG, "Sin latido de " + device.getName() + "; RTT p50 " + rtt.percentile(50) + " ms, p95 "
+                        + rtt.percentile(95) + " ms, perdidos " + device.getHeartbeat().getMissed());
+            }
+            status.update(s -> s.withHealth(devicePool.getHealth(), devicePool.getRttMs()));
+        }
+
+        @Override
+        public void onTrigger(DevicePool.Device device, int seq) {
+            status.update(s -> s.withAlert(ServiceStatus.Alert.triggered(System.currentTimeMillis())));
+            coalescerFor(device).trigger(seq);
+        }
+
+        @Override
+        public InputStream openInput(DevicePool.Device device, LinkSocket socket) throws IOException {
+            getSharedPreferences(LINK_PREFS, MODE_PRIVATE).edit()
+                    .putString(KEY_LAST_DEVICE, socket.getAddress()).apply();
+            InputStream raw = MetricsRegistry.counting(socket.getInputStream(), bytesRead);
+            AppServices.mark("service_listening");
+            boolean capture = captureTap != null && device.getAddress().equals(captureAddress);
+            return capture ? captureTap.wrap(raw) : raw;
+        }
+    };
+
+    // Con varios dispositivos el estado general es el del más avanzado; la notificación da el detalle
+    private void updateLinkStatus() {
+        status.update(s -> s.withLink(devicePool.getState())
+                .withDevices(devicePool.getConnectedCount(), devicePool.size())
+                .withHealth(devicePool.getHealth(), devicePool.getRttMs()));
+    }
+
+    private String describeDevices() {
+        int total = devicePool.size();
+        int connected = devicePool.getConnectedCount();
+        if (total <= 1) return connected == 1 ? "Conectado a ESP32" : "Reconectando al ESP32...";
+        return "Conectados " + connected + " de " + total + " ESP32";
+    }
+
+    private TriggerCoalescer coalescerFor(DevicePool.Device device) {
+        return coalescers.computeIfAbsent(device, key ->
+                new TriggerCoalescer(alertScheduler, triggerWindowMs,
+                        flight -> startAlert(device, flight), ackSender(device)));
+    }
+
+    private void startAlert(DevicePool.Device device, TriggerCoalescer.Flight flight) {
+        flight.setTraceId(alertTracer.begin(flight.getStartedAt()));
+        getLocationAsync(device, location -> {
+            alertTracer.mark(flight.getTraceId(), AlertTracer.Stage.LOCATION);
+            sendEmergencySMS(location, device, flight);
+        });
+    }
+
+    // El resultado de la alerta vuelve al dispositivo que la disparó
+    private TriggerCoalescer.AckSender ackSender(DevicePool.Device device) {
+        return new TriggerCoalescer.AckSender() {
+            @Override
+            public void ack(int seq, int status) {
+                device.reply(seq, status, null);
+            }
+
+            @Override
+            public void ack(TriggerCoalescer.Flight flight, int seq, int status) {
+                int traceId = flight.getTraceId();
+                if (status != FrameCodec.ACK_SMS_SENT || traceId == 0) {
+                    device.reply(seq, status, null);
+                } else {
+                    device.reply(seq, status, () -> alertTracer.mark(traceId, AlertTracer.Stage.ACK_WRITTEN));
+                }
+            }
+        };
+    }
+
+    // Mide cada llamada real a sendMultipartTextMessage, después de la cola del límite de SMS
+    private SmsSender instrumentedSender(SmsSender sender) {
+        return new SmsSender() {
+            @Override
+            public List<String> divideMessage(String text) {
+                return sender.divideMessage(text);
+            }
+
+            @Override
+            public void send(String number, List<String> parts, int alertId, int recipient, int attempt) {
+                sender.send(number, parts, alertId, recipient, attempt);
+                smsSegments.add(parts.size());
+                alertTracer.markAlert(alertId, AlertTracer.Stage.SMS_SUBMITTED);
+            }
+        };
     }
 
     private Notification buildNotification(String contentText) {
@@ -138,206 +440,309 @@ public class BluetoothForegroundService extends Service {
         }
     }
 
-    private void connectToESP32(BluetoothDevice device) {
-        new Thread(() -> {
-            try {
-                if (!hasPermission(android.Manifest.permission.BLUETOOTH_CONNECT)) {
-                    sendStatusBroadcast("Permiso BLUETOOTH_CONNECT denegado");
-                    return;
-                }
-                btSocket = device.createRfcommSocketToServiceRecord(BT_UUID);
-                btSocket.connect();
-                btOutputStream = btSocket.getOutputStream();
-                isConnected = true;
-
-                startForeground(1, buildNotification("Conectado a ESP32"));
-                sendStatusBroadcast("Conectado a ESP32 ✅");
-
-                listenForBluetoothMessages();
-            } catch (IOException e) {
-                sendStatusBroadcast("Error conexión ESP32");
-                isConnected = false;
-                restartDiscoveryWithDelay();
-            }
-        }).start();
+    private void logWrites(DevicePool.Device device) {
+        LinkWriter linkWriter = device.getWriter();
+        Log.i(TAG, "Escrituras BT a " + device.getName() + ": " + linkWriter.getWritten() + " en " + linkWriter.getBatches()
+                + " bloques, fallidas " + linkWriter.getFailed() + ", descartadas " + linkWriter.getDropped()
+                + ", latencia media " + linkWriter.getAverageLatencyMs() + " ms, máxima "
+                + linkWriter.getMaxLatencyMs() + " ms");
     }
 
-    private void sendBluetoothMessage(String message) {
-        try {
-            if (btOutputStream != null && isConnected) {
-                btOutputStream.write(message.getBytes());
-            }
-        } catch (IOException ignored) {}
-    }
-
-    private void listenForBluetoothMessages() {
-        new Thread(() -> {
-            try (InputStream inputStream = btSocket.getInputStream()) {
-                StringBuilder messageBuilder = new StringBuilder();
-                int byteRead;
-
-                while ((byteRead = inputStream.read()) != -1) {
-                    char readChar = (char) byteRead;
-
-                    if (readChar == '\n' || readChar == '\r') {
-                        if (messageBuilder.length() > 0) {
-                            String message = messageBuilder.toString().trim();
-
-                            if (message.equalsIgnoreCase("SEND_SMS")) {
-                                sendStatusBroadcast("Comando SEND_SMS recibido");
-                                getLocationAsync(location -> {
-                                    sendEmergencySMS(location);
-                                    sendBluetoothMessage("SMS_ENVIADO\n");
-                                });
-                            }
-                            messageBuilder.setLength(0);
-                        }
-                    } else {
-                        messageBuilder.append(readChar);
-                    }
-                }
-            } catch (IOException e) {
-                sendStatusBroadcast("Conexión perdida");
-                isConnected = false;
-                restartDiscoveryWithDelay();
-            }
-        }).start();
+    private FusedLocationProviderClient locationClient() {
+        return AppServices.get(this).location();
     }
 
-    private void restartDiscoveryWithDelay() {
-        if (isReconnecting) return;
-        isReconnecting = true;
+    private boolean hasLocationPermission() {
+        return hasPermission(android.Manifest.permission.ACCESS_FINE_LOCATION) ||
+                hasPermission(android.Manifest.permission.ACCESS_COARSE_LOCATION);
+    }
 
-        new Thread(() -> {
-            try {
-                Thread.sleep(7000);
-                closeBluetoothSocketSafely();
-                if (hasPermission(android.Manifest.permission.BLUETOOTH_SCAN)) {
-                    btAdapter.startDiscovery();
-                    sendStatusBroadcast("Buscando ESP32...");
-                }
-            } catch (InterruptedException ignored) {}
-            isReconnecting = false;
-        }).start();
+    // Actualizaciones de bajo consumo mientras hay ESP32 conectado, para tener siempre un fix reciente
+    private synchronized void startLocationWarmup() {
+        if (warmupActive || !hasLocationPermission()) return;
+        LocationRequest request = new LocationRequest.Builder(Priority.PRIORITY_BALANCED_POWER_ACCURACY, WARMUP_INTERVAL_MS)
+                .setMinUpdateIntervalMillis(WARMUP_MIN_INTERVAL_MS)
+                .build();
+        locationClient().requestLocationUpdates(request, warmupCallback, Looper.getMainLooper());
+        warmupActive = true;
     }
 
-    private void closeBluetoothSocketSafely() {
-        try {
-            if (btSocket != null) {
-                btSocket.close();
-                btSocket = null;
-            }
-        } catch (IOException ignored) {}
+    private synchronized void stopLocationWarmup() {
+        if (!warmupActive) return;
+        locationClient().removeLocationUpdates(warmupCallback);
+        warmupActive = false;
     }
 
-    private void getLocationAsync(LocationResultCallback callback) {
-        if (!hasPermission(android.Manifest.permission.ACCESS_FINE_LOCATION) &&
-                !hasPermission(android.Manifest.permission.ACCESS_COARSE_LOCATION)) return;
+    private final LocationCallback warmupCallback = new LocationCallback() {
+        @Override
+        public void onLocationResult(LocationResult locationResult) {
+            for (Location location : locationResult.getLocations()) {
+                locationCache.offer(toFix(location));
+            }
+        }
+    };
+
+    // El callback corre siempre, con null si no hay ubicación: la alerta sale igual
+    private void getLocationAsync(DevicePool.Device device, LocationResultCallback callback) {
+        if (!hasLocationPermission()) {
+            Log.w(TAG, "Sin permiso de ubicación; la alerta sale sin coordenadas");
+            callback.onLocationResult(null);
+            return;
+        }
+
+        long triggeredAt = SystemClock.elapsedRealtime();
+        LocationFix cached = locationCache.getUsable(triggeredAt);
+        if (cached != null) {
+            deliverFix(cached, triggeredAt, true, callback);
+            watchForFollowUp(cached, device);
+            return;
+        }
 
-        fusedLocationClient.getLastLocation().addOnSuccessListener(location -> {
-            if (location != null) {
-                callback.onLocationResult(location);
+        locationClient().getLastLocation().addOnSuccessListener(location -> {
+            LocationFix last = location != null ? toFix(location) : null;
+            locationCache.offer(last);
+            if (locationCache.isUsable(last, SystemClock.elapsedRealtime())) {
+                deliverFix(last, triggeredAt, false, callback);
+                watchForFollowUp(last, device);
             } else {
-                LocationRequest request = new LocationRequest.Builder(Priority.PRIORITY_HIGH_ACCURACY, 1000).build();
-                LocationCallback tempCallback = new LocationCallback() {
-                    @Override
-                    public void onLocationResult(LocationResult locationResult) {
-                        fusedLocationClient.removeLocationUpdates(this);
-                        callback.onLocationResult(locationResult.getLastLocation());
-                    }
-                };
-                fusedLocationClient.requestLocationUpdates(request, tempCallback, null);
+                // Solo se escala a alta precisión cuando no hay un fix aceptable
+                requestHighAccuracyFix(last, triggeredAt, callback);
             }
+        }).addOnFailureListener(e -> {
+            Log.e(TAG, "No se pudo leer la última ubicación", e);
+            deliverFix(null, triggeredAt, false, callback);
         });
     }
 
-    // ✅ MÉTODO CORREGIDO PARA GUARDAR UBICACIÓN COMO ARRAY DENTRO DEL DOCUMENTO DEL USUARIO
-    private void sendEmergencySMS(Location location) {
-        contacts = loadContacts();
-
-        String mensajeFinal = "Ubicación no disponible";
-        double lat = 0, lon = 0;
-        float accuracy = 0;
-
-        if (location != null) {
-            lat = location.getLatitude();
-            lon = location.getLongitude();
-            accuracy = location.getAccuracy();
+    private void requestHighAccuracyFix(@Nullable LocationFix fallback, long triggeredAt, LocationResultCallback callback) {
+        AtomicBoolean delivered = new AtomicBoolean();
+        LocationRequest request = new LocationRequest.Builder(Priority.PRIORITY_HIGH_ACCURACY, 1000)
+                .setMaxUpdates(1)
+                .setDurationMillis(ESCALATION_TIMEOUT_MS)
+                .build();
+        LocationCallback tempCallback = new LocationCallback() {
+            @Override
+            public void onLocationResult(LocationResult locationResult) {
+                locationClient().removeLocationUpdates(this);
+                LocationFix fix = toFix(locationResult.getLastLocation());
+                locationCache.offer(fix);
+                if (delivered.compareAndSet(false, true)) deliverFix(fix, triggeredAt, false, callback);
+            }
+        };
+        locationClient().requestLocationUpdates(request, tempCallback, Looper.getMainLooper());
 
-            mensajeFinal = String.format(Locale.US,
-                    "🚨 MENSAJE DE PRUEBA 🚨 Ubicación: https://maps.google.com/?q=%.6f,%.6f\nPrecisión: %.0f m",
-                    lat, lon, accuracy);
-        }
+        // Si el GPS no responde a tiempo se envía lo que haya, aunque sea viejo o nada
+        mainHandler.postDelayed(() -> {
+            if (delivered.compareAndSet(false, true)) {
+                locationClient().removeLocationUpdates(tempCallback);
+                deliverFix(fallback, triggeredAt, false, callback);
+            }
+        }, ESCALATION_TIMEOUT_MS);
+    }
 
-        try {
-            SmsManager smsManager = SmsManager.getDefault();
-            for (Contact contact : contacts) {
-                ArrayList<String> parts = smsManager.divideMessage(mensajeFinal);
-                smsManager.sendMultipartTextMessage(contact.getNumber(), null, parts, null, null);
+    // Tras enviar un fix de la caché, se escucha en alta precisión un rato por si llega uno mejor
+    private void watchForFollowUp(LocationFix sent, DevicePool.Device device) {
+        long window = locationCache.getFollowUpWindowMs();
+        if (window <= 0) return;
+        LocationRequest request = new LocationRequest.Builder(Priority.PRIORITY_HIGH_ACCURACY, 2000)
+                .setDurationMillis(window)
+                .build();
+        locationClient().requestLocationUpdates(request, new LocationCallback() {
+            @Override
+            public void onLocationResult(LocationResult locationResult) {
+                LocationFix fix = toFix(locationResult.getLastLocation());
+                locationCache.offer(fix);
+                if (LocationCache.isWorthFollowUp(sent, fix)) {
+                    locationClient().removeLocationUpdates(this);
+                    sendFollowUpSMS(fix, device);
+                }
             }
+        }, Looper.getMainLooper());
+    }
 
-            String userId = FirebaseAuth.getInstance().getCurrentUser().getUid();
-            FirebaseFirestore firestore = FirebaseFirestore.getInstance();
+    private void deliverFix(@Nullable LocationFix fix, long triggeredAt, boolean fromCache, LocationResultCallback callback) {
+        long latencyMs = SystemClock.elapsedRealtime() - triggeredAt;
+        locationCache.recordTriggerToFix(latencyMs, fromCache);
+        Log.i(TAG, "Disparo → ubicación: " + latencyMs + " ms" + (fromCache ? " (caché)" : ""));
+        callback.onLocationResult(fix);
+    }
 
-            Map<String, Object> ubicacionData = new HashMap<>();
-            ubicacionData.put("fecha", System.currentTimeMillis());
-            ubicacionData.put("latitud", lat);
-            ubicacionData.put("longitud", lon);
-            ubicacionData.put("mensaje", mensajeFinal);
-            ubicacionData.put("tipo", "PRUEBA");
+    @Nullable
+    private static LocationFix toFix(@Nullable Location location) {
+        if (location == null) return null;
+        return new LocationFix(location.getLatitude(), location.getLongitude(), location.getAccuracy(),
+                location.getElapsedRealtimeNanos() / 1_000_000L);
+    }
 
-            firestore.collection("Usuarios").document(userId)
-                    .update("Ubicación", FieldValue.arrayUnion(ubicacionData))
-                    .addOnSuccessListener(aVoid -> Log.d(TAG, "Ubicación agregada correctamente"))
-                    .addOnFailureListener(e -> Log.e(TAG, "Error al guardar ubicación", e));
+    private void sendEmergencySMS(@Nullable LocationFix location, DevicePool.Device device,
+                                  TriggerCoalescer.Flight flight) {
+        SmsComposer.Message sms = withDeviceHeader(SmsComposer.TEST_ALERT.compose(location), device);
+        int traceId = flight.getTraceId();
+        if (location == null) {
+            dispatchAlert(sms, 0, 0, 0, "PRUEBA", false, ackingListener(device, flight), traceId);
+        } else {
+            dispatchAlert(sms, location.getLatitude(), location.getLongitude(), location.getAccuracy(),
+                    "PRUEBA", false, ackingListener(device, flight), traceId);
+        }
+    }
+
+    private void sendFollowUpSMS(LocationFix location, DevicePool.Device device) {
+        dispatchAlert(withDeviceHeader(SmsComposer.FOLLOW_UP.compose(location), device), location.getLatitude(),
+                location.getLongitude(), location.getAccuracy(), "SEGUIMIENTO", true, statusOnlyListener, 0);
+    }
 
-            sendStatusBroadcast("SMS enviado");
+    // Con varias personas a cargo, cada SMS dice quién pidió ayuda
+    private static SmsComposer.Message withDeviceHeader(SmsComposer.Message sms, DevicePool.Device device) {
+        return device.getLabel() != null ? sms.withHeader(device.getLabel()) : sms;
+    }
 
-        } catch (Exception e) {
-            sendStatusBroadcast("SMS enviado");
+    private void dispatchAlert(SmsComposer.Message sms, double lat, double lon, float accuracy, String tipo,
+                               boolean followUp, AlertDispatcher.Listener listener, int traceId) {
+        ContactRepository repository = contactRepository;
+        if (repository == null) {
+            // Disparo apenas arrancado el servicio: la alerta sale en cuanto estén los contactos
+            Log.w(TAG, "SMS " + tipo + " en espera de que se carguen los contactos");
+            AppServices.get(this).contacts(ContextCompat.getMainExecutor(this), loaded -> {
+                if (destroyed) return;
+                dispatchAlert(sms, lat, lon, accuracy, tipo, followUp, listener, traceId, loaded.getNumbers());
+            });
+            return;
         }
+        dispatchAlert(sms, lat, lon, accuracy, tipo, followUp, listener, traceId, repository.getNumbers());
     }
 
-    private ArrayList<Contact> loadContacts() {
-        ArrayList<Contact> loadedContacts = new ArrayList<>();
-        SharedPreferences preferences = getSharedPreferences("ContactsPrefs", MODE_PRIVATE);
-        String contactsString = preferences.getString("contacts", "");
-        if (!contactsString.isEmpty()) {
-            String[] contactArray = contactsString.split(";");
-            for (String contactStr : contactArray) {
-                String[] parts = contactStr.split(",");
-                if (parts.length == 2) {
-                    loadedContacts.add(new Contact(parts[0], parts[1]));
-                }
+    private void dispatchAlert(SmsComposer.Message sms, double lat, double lon, float accuracy, String tipo,
+                               boolean followUp, AlertDispatcher.Listener listener, int traceId,
+                               List<String> numbers) {
+        Log.i(TAG, "SMS " + tipo + ": " + sms.segments + " segmento(s) " + (sms.gsm7 ? "GSM-7" : "UCS-2")
+                + " x " + numbers.size() + " contactos; en cola " + smsRateScheduler.getQueueDepth()
+                + ", espera media " + smsRateScheduler.getAverageQueueMs() + " ms, máxima "
+                + smsRateScheduler.getMaxQueueMs() + " ms");
+
+        // El envío corre en su propio hilo; el registro va al outbox y se sube en paralelo
+        // Desde el hilo de alertas, así la traza queda asociada antes de que salga el primer SMS
+        alertScheduler.execute(() ->
+                alertTracer.bindAlert(traceId, alertDispatcher.dispatch(sms.text, numbers, followUp, listener)));
+        AlertHistory.get(this).record(AlertEvent.create(AlertEvent.ORIGIN_SERVICE, tipo,
+                lat, lon, accuracy, sms.text), traceId == 0 ? null
+                : () -> alertTracer.mark(traceId, AlertTracer.Stage.FIRESTORE));
+    }
+
+    // Confirma al ESP32 solo cuando el quórum de entregas está confirmado
+    private AlertDispatcher.Listener ackingListener(DevicePool.Device device, TriggerCoalescer.Flight flight) {
+        return new AlertDispatcher.Listener() {
+            @Override
+            public void onQuorumReached(int alertId) {
+                flight.complete(FrameCodec.ACK_SMS_SENT);
             }
-        }
-        return loadedContacts;
+
+            @Override
+            public void onRecipientSent(int alertId, int recipient) {
+                alertTracer.mark(flight.getTraceId(), AlertTracer.Stage.SMS_SENT);
+            }
+
+            @Override
+            public void onAlertFinished(int alertId, int delivered, int failed, int total) {
+                status.update(s -> s.withAlert(ServiceStatus.Alert.finished(false, delivered, total,
+                        System.currentTimeMillis())));
+                // Si ya hubo quórum el vuelo está completo y esto no cambia nada
+                flight.complete(FrameCodec.ACK_FAILED);
+                TriggerCoalescer coalescer = coalescerFor(device);
+                Log.i(TAG, "Disparos de " + device.getName() + ": " + coalescer.getTriggers() + ", alertas: "
+                        + coalescer.getAlertsStarted() + ", repetidos: " + coalescer.getSuppressed());
+                scheduleLatencySave();
+            }
+        };
     }
 
-    private void sendStatusBroadcast(String status) {
-        Intent intent = new Intent("BT_SERVICE_STATUS");
-        intent.putExtra("status", status);
-        sendBroadcast(intent);
+    private void scheduleLatencySave() {
+        if (!latencySaveScheduled.compareAndSet(false, true)) return;
+        alertScheduler.schedule(() -> {
+            latencySaveScheduled.set(false);
+            latencyStore.save(alertTracer);
+            LatencyHistogram sent = alertTracer.get(AlertTracer.Stage.SMS_SENT);
+            Log.i(TAG, "Disparo → SMS aceptado: p50 " + sent.percentile(50) + " ms, p95 "
+                    + sent.percentile(95) + " ms en " + sent.getCount() + " envíos");
+        }, LATENCY_SAVE_DELAY_MS);
     }
 
+    private final AlertDispatcher.Listener statusOnlyListener = new AlertDispatcher.Listener() {
+        @Override
+        public void onQuorumReached(int alertId) {}
+
+        @Override
+        public void onAlertFinished(int alertId, int delivered, int failed, int total) {
+            status.update(s -> s.withAlert(ServiceStatus.Alert.finished(true, delivered, total,
+                    System.currentTimeMillis())));
+        }
+    };
+
+    // La alerta lee la instantánea del repositorio; aquí solo se publica cuántos hay
+    private final ContactRepository.Listener contactsListener = contacts -> {
+        Log.i(TAG, "Contactos de emergencia: " + contacts.size());
+        status.update(s -> s.withContacts(contacts.size()));
+    };
+
     @Override
     public void onDestroy() {
         super.onDestroy();
-        try {
-            if (btSocket != null) btSocket.close();
-        } catch (IOException ignored) {}
+        destroyed = true;
+        if (devicePool != null) {
+            devicePool.shutdown();
+            // Se apaga después de que stop() cierre los sockets en el mismo hilo
+            linkScheduler.execute(linkScheduler::shutdown);
+            writerScheduler.shutdown();
+        }
         if (bluetoothReceiver != null) unregisterReceiver(bluetoothReceiver);
-        sendStatusBroadcast("Servicio detenido");
+        stopLocationWarmup();
+        mainHandler.removeCallbacksAndMessages(null);
+        smsSender.unregister();
+        if (captureTap != null) captureTap.close();
+        if (contactRepository != null) contactRepository.removeListener(contactsListener);
+        latencyStore.save(alertTracer);
+        alertScheduler.shutdown();
+        // La última instantánea se escribe antes de apagar el hilo
+        metricsLog.stop();
+        metricsScheduler.execute(metricsScheduler::shutdown);
+        status.update(ServiceStatus::stopped);
+    }
+
+    /**
+     * Métricas para diagnóstico en campo, sin red:
+     * {@code adb shell dumpsys activity service com.example.appbt/.BluetoothForegroundService}
+     */
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        if (devicePool == null) {
+            writer.println("Enlace: sin Bluetooth");
+        } else {
+            for (DevicePool.Device device : devicePool.getDevices()) {
+                writer.println("Enlace " + device.getName() + " (" + device.getAddress() + "): " + device.getState()
+                        + ", latido " + device.getHeartbeat().getHealth()
+                        + ", RTT p50 " + device.getHeartbeat().getRtt().percentile(50) + " ms");
+            }
+        }
+        writer.println("Arranque (ms desde el inicio del proceso): " + AppServices.STARTUP.format());
+        writer.println("Métricas:");
+        metrics.dump(writer);
+        writer.println("Instantáneas en disco: " + metricsLog.getSnapshots() + ", fallidas " + metricsLog.getFailures());
+    }
+
+    /** Acceso directo al estado para las actividades del mismo proceso. */
+    public class LocalBinder extends Binder {
+        public StateHolder<ServiceStatus> getStatus() {
+            return status;
+        }
     }
 
     @Nullable
     @Override
     public IBinder onBind(Intent intent) {
-        return null;
+        return binder;
     }
 
     private interface LocationResultCallback {
-        void onLocationResult(Location location);
+        void onLocationResult(@Nullable LocationFix location);
     }
 
     private boolean hasPermission(String permission) {
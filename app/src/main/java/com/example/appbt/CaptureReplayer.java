@@ -0,0 +1,172 @@
+package com.example.appbt;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Lee un archivo de {@link CaptureTap} mapeado en memoria y lo entrega conexión por conexión
+ * como InputStream, con una lectura por cada registro grabado. Así el parser ve los mismos
+ * cortes que vio en el teléfono. A velocidad original respeta los tiempos entre lecturas;
+ * a velocidad máxima sirve para medir el parser con tráfico real. Un archivo que rotó a
+ * mitad de una conexión empieza a mitad de trama: conviene reproducirlo con el modo fijo.
+ *
+ * <pre>
+ * InputStream in;
+ * while ((in = replayer.nextConnection()) != null) {
+ *     protocol.reset();
+ *     protocol.pump(in, listener);
+ * }
+ * </pre>
+ */
+public class CaptureReplayer {
+
+    public enum Speed { ORIGINAL, MAX }
+
+    private final MappedByteBuffer buffer;
+    private final Speed speed;
+    private final long startedAtMs;
+    private boolean atBoundary = true;
+    // Resto de un registro más grande que el búfer del lector
+    private int pendingTail;
+    private long records;
+    private long bytes;
+
+    public CaptureReplayer(File file, Speed speed) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            // El mapeo sigue válido después de cerrar el canal
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        this.speed = speed;
+        if (buffer.remaining() < CaptureTap.HEADER_SIZE) throw new IOException("Captura truncada: " + file);
+        byte[] magic = new byte[CaptureTap.MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, CaptureTap.MAGIC)) throw new IOException("No es una captura: " + file);
+        startedAtMs = buffer.getLong();
+    }
+
+    /** Hora de inicio del archivo (ms desde 1970). */
+    public long getStartedAtMs() {
+        return startedAtMs;
+    }
+
+    /**
+     * Stream de la siguiente conexión grabada, o null al final del archivo. El stream
+     * anterior deja de ser válido.
+     */
+    public InputStream nextConnection() {
+        // Salta lo que quedó sin leer de la conexión anterior
+        buffer.position(buffer.position() + pendingTail);
+        pendingTail = 0;
+        while (!atBoundary) readRecord(null, 0, 0, false);
+        if (!buffer.hasRemaining()) return null;
+        int mark = buffer.position();
+        readVarint();
+        if (readVarint() > 0) {
+            // Registro de datos sin marca previa: la conexión empieza aquí
+            buffer.position(mark);
+        }
+        atBoundary = false;
+        return new ConnectionStream();
+    }
+
+    /**
+     * Lee el próximo registro de datos en {@code b}. Devuelve -1 en el fin de la conexión.
+     * Con {@code b} null solo lo salta.
+     */
+    private int readRecord(byte[] b, int off, int len, boolean pace) {
+        if (!buffer.hasRemaining()) {
+            atBoundary = true;
+            return -1;
+        }
+        int mark = buffer.position();
+        long deltaMicros = readVarint();
+        int length = (int) readVarint();
+        if (length == 0) {
+            // Marca de conexión nueva: se deja para nextConnection()
+            buffer.position(mark);
+            atBoundary = true;
+            return -1;
+        }
+        if (length > buffer.remaining()) {
+            // Cola cortada (la app se cerró sin vaciar el búfer)
+            buffer.position(buffer.limit());
+            atBoundary = true;
+            return -1;
+        }
+        if (pace && speed == Speed.ORIGINAL && deltaMicros > 0) sleepMicros(deltaMicros);
+        records++;
+        bytes += length;
+        if (b == null) {
+            buffer.position(buffer.position() + length);
+            return 0;
+        }
+        if (length > len) {
+            // El registro no cabe: se entrega por partes y el resto queda para la próxima lectura
+            buffer.get(b, off, len);
+            pendingTail = length - len;
+            return len;
+        }
+        buffer.get(b, off, length);
+        return length;
+    }
+
+    private int readTail(byte[] b, int off, int len) {
+        int n = Math.min(len, pendingTail);
+        buffer.get(b, off, n);
+        pendingTail -= n;
+        return n;
+    }
+
+    private long readVarint() {
+        long value = 0;
+        int shift = 0;
+        while (buffer.hasRemaining()) {
+            int b = buffer.get() & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+            shift += 7;
+        }
+        return 0;
+    }
+
+    private static void sleepMicros(long micros) {
+        try {
+            Thread.sleep(micros / 1000, (int) (micros % 1000) * 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    private class ConnectionStream extends InputStream {
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int n = read(one, 0, 1);
+            return n <= 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException();
+            if (len == 0) return 0;
+            if (pendingTail > 0) return readTail(b, off, len);
+            if (atBoundary) return -1;
+            return readRecord(b, off, len, true);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.appbt;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Grabación opcional de los bytes crudos que manda el ESP32, para reproducirlos después con
+ * {@link CaptureReplayer}. Cada lectura del socket queda como un registro
+ * {@code [delta µs (varint)][largo (varint)][bytes]}; un registro de largo 0 marca una
+ * conexión nueva. Los archivos rotan al pasar {@code maxFileBytes} y solo se guardan los
+ * últimos {@code maxFiles}. Se escribe con búfer desde el hilo lector.
+ *
+ * <pre>
+ * archivo: | "BTCAP1" | inicio (ms desde 1970, u64 BE) | registros ... |
+ * </pre>
+ */
+public class CaptureTap {
+
+    static final byte[] MAGIC = {'B', 'T', 'C', 'A', 'P', '1'};
+    static final int HEADER_SIZE = MAGIC.length + 8;
+    static final String PREFIX = "capture-";
+    static final String SUFFIX = ".btcap";
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final File dir;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final LongSupplier nanoClock;
+
+    private OutputStream out;
+    private long fileBytes;
+    private int fileIndex;
+    private long lastNanos;
+    private long recorded;
+    private long failures;
+
+    public CaptureTap(File dir, long maxFileBytes, int maxFiles) {
+        this(dir, maxFileBytes, maxFiles, System::nanoTime);
+    }
+
+    public CaptureTap(File dir, long maxFileBytes, int maxFiles, LongSupplier nanoClock) {
+        this.dir = dir;
+        this.maxFileBytes = Math.max(HEADER_SIZE + 64, maxFileBytes);
+        this.maxFiles = Math.max(1, maxFiles);
+        this.nanoClock = nanoClock;
+        List<File> existing = listCaptures(dir);
+        if (!existing.isEmpty()) fileIndex = indexOf(existing.get(existing.size() - 1));
+    }
+
+    /** Envuelve el stream de una conexión nueva; todo lo que se lea de él queda grabado. */
+    public InputStream wrap(InputStream in) {
+        record(null, 0, 0);
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) record(new byte[]{(byte) b}, 0, 1);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) record(b, off, n);
+                return n;
+            }
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                flush();
+            }
+        };
+    }
+
+    /** Un fallo de disco no debe cortar el enlace: se cierra la grabación y se cuenta. */
+    private synchronized void record(byte[] data, int off, int len) {
+        try {
+            if (out == null || fileBytes + 20 + len > maxFileBytes) rotate();
+            if (len == 0 && fileBytes == HEADER_SIZE + 2) return;
+            long now = nanoClock.getAsLong();
+            long deltaMicros = lastNanos == 0 ? 0 : Math.max(0, (now - lastNanos) / 1000);
+            lastNanos = now;
+            fileBytes += writeVarint(out, deltaMicros);
+            fileBytes += writeVarint(out, len);
+            if (len > 0) {
+                out.write(data, off, len);
+                fileBytes += len;
+                recorded += len;
+            }
+        } catch (IOException e) {
+            failures++;
+            closeQuietly();
+        }
+    }
+
+    public synchronized void flush() {
+        if (out == null) return;
+        try {
+            out.flush();
+        } catch (IOException e) {
+            failures++;
+            closeQuietly();
+        }
+    }
+
+    public synchronized void close() {
+        flush();
+        closeQuietly();
+    }
+
+    private void rotate() throws IOException {
+        closeQuietly();
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("No se pudo crear " + dir);
+        fileIndex++;
+        File file = new File(dir, String.format("%s%06d%s", PREFIX, fileIndex, SUFFIX));
+        out = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+        out.write(MAGIC);
+        long start = System.currentTimeMillis();
+        for (int shift = 56; shift >= 0; shift -= 8) out.write((int) (start >>> shift));
+        fileBytes = HEADER_SIZE;
+        lastNanos = 0;
+        // Cada archivo empieza como una conexión nueva para poder reproducirlo suelto
+        fileBytes += writeVarint(out, 0);
+        fileBytes += writeVarint(out, 0);
+
+        List<File> files = listCaptures(dir);
+        for (int i = 0; i < files.size() - maxFiles; i++) {
+            if (!files.get(i).delete()) break;
+        }
+    }
+
+    private void closeQuietly() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException ignored) {}
+        out = null;
+    }
+
+    static int writeVarint(OutputStream out, long value) throws IOException {
+        int n = 1;
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+            n++;
+        }
+        out.write((int) value);
+        return n;
+    }
+
+    /** Capturas del directorio, de la más vieja a la más nueva. */
+    public static List<File> listCaptures(File dir) {
+        List<File> files = new ArrayList<>();
+        File[] all = dir.listFiles();
+        if (all == null) return files;
+        for (File file : all) {
+            String name = file.getName();
+            if (name.startsWith(PREFIX) && name.endsWith(SUFFIX) && indexOf(file) > 0) files.add(file);
+        }
+        Collections.sort(files, (a, b) -> Integer.compare(indexOf(a), indexOf(b)));
+        return files;
+    }
+
+    private static int indexOf(File file) {
+        String name = file.getName();
+        try {
+            return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    /** Bytes del ESP32 grabados (sin contar encabezados). */
+    public synchronized long getRecordedBytes() {
+        return recorded;
+    }
+
+    public synchronized long getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.appbt;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Máquina de estados de la conexión con el ESP32:
+ * IDLE → DISCOVERING → CONNECTING → CONNECTED → BACKOFF → ...
+ *
+ * Todas las transiciones se ejecutan en un único {@link TaskScheduler}; la conexión y la lectura,
+ * que bloquean, corren en sus propios ejecutores y devuelven el resultado al scheduler. Los
+ * reintentos siguen a {@link ReconnectPolicy}. Cada conexión lleva un número de generación para
+ * que un lector, una conexión lenta o un temporizador viejo no pueda afectar a una más nueva.
+ */
+public class ConnectionManager {
+
+    public enum State { IDLE, DISCOVERING, CONNECTING, CONNECTED, BACKOFF }
+
+    public interface Listener {
+        void onStateChanged(State state);
+
+        /** Corre en el hilo lector y debe volver cuando el enlace termine. */
+        void readLoop(LinkSocket socket) throws IOException;
+    }
+
+    public static final long DISCOVERY_TIMEOUT_MS = 15000;
+
+    private final Transport transport;
+    private final TaskScheduler scheduler;
+    private final Executor readerExecutor;
+    private final Executor connectExecutor;
+    private final Listener listener;
+    private final ReconnectPolicy reconnectPolicy;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.IDLE);
+    private volatile LinkSocket socket;
+    private volatile OutputStream output;
+    private volatile String targetAddress;
+    private int generation;
+
+    public ConnectionManager(Transport transport, TaskScheduler scheduler,
+                             Executor readerExecutor, Executor connectExecutor,
+                             ReconnectPolicy reconnectPolicy, Listener listener) {
+        this.transport = transport;
+        this.scheduler = scheduler;
+        this.readerExecutor = readerExecutor;
+        this.connectExecutor = connectExecutor;
+        this.listener = listener;
+        this.reconnectPolicy = reconnectPolicy;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public boolean isConnected() {
+        return state.get() == State.CONNECTED;
+    }
+
+    public ReconnectPolicy getReconnectPolicy() {
+        return reconnectPolicy;
+    }
+
+    /** Conecta directamente si se conoce la dirección; si no, busca el dispositivo. */
+    public void start(String address) {
+        scheduler.execute(() -> {
+            if (address != null) targetAddress = address;
+            if (state.get() != State.IDLE && state.get() != State.BACKOFF) return;
+            generation++;
+            reconnectPolicy.reset();
+            if (targetAddress != null) {
+                beginConnect(state.get());
+            } else {
+                beginDiscovery(state.get());
+            }
+        });
+    }
+
+    public void stop() {
+        scheduler.execute(() -> {
+            generation++;
+            reconnectPolicy.reset();
+            transport.cancelDiscovery();
+            closeSocket();
+            moveTo(State.IDLE);
+        });
+    }
+
+    /** Llamado desde el receptor de ACTION_FOUND cuando aparece el dispositivo buscado. */
+    public void onDeviceFound(String address) {
+        scheduler.execute(() -> {
+            if (state.get() != State.DISCOVERING) return;
+            transport.cancelDiscovery();
+            targetAddress = address;
+            beginConnect(State.DISCOVERING);
+        });
+    }
+
+    /**
+     * El latido dejó de recibir respuesta: se cierra el socket para que el lector salga ya
+     * y la reconexión siga el camino normal, sin esperar a que read() lance por su cuenta.
+     */
+    public void reportLinkDead() {
+        scheduler.execute(() -> {
+            LinkSocket current = socket;
+            if (state.get() == State.CONNECTED && current != null) closeQuietly(current);
+        });
+    }
+
+    /** Escribe en el enlace actual; devuelve false si no hay conexión o la escritura falla. */
+    public boolean write(byte[] data) {
+        OutputStream out = output;
+        if (out == null || state.get() != State.CONNECTED) return false;
+        try {
+            synchronized (out) {
+                out.write(data);
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void beginDiscovery(State from) {
+        if (!transition(from, State.DISCOVERING)) return;
+        if (!transport.startDiscovery()) {
+            reconnectPolicy.onAttemptFailed();
+            enterBackoff(State.DISCOVERING);
+            return;
+        }
+        int discoveryGeneration = generation;
+        scheduler.schedule(() -> {
+            if (generation != discoveryGeneration || state.get() != State.DISCOVERING) return;
+            transport.cancelDiscovery();
+            reconnectPolicy.onAttemptFailed();
+            enterBackoff(State.DISCOVERING);
+        }, DISCOVERY_TIMEOUT_MS);
+    }
+
+    private void beginConnect(State from) {
+        if (!transition(from, State.CONNECTING)) return;
+        int connectGeneration = ++generation;
+        String address = targetAddress;
+        // connect() puede tardar segundos: fuera del scheduler, que comparten otros enlaces
+        submit(connectExecutor, () -> {
+            LinkSocket newSocket;
+            try {
+                newSocket = transport.connect(address);
+            } catch (IOException e) {
+                scheduler.execute(() -> onConnectFailed(connectGeneration));
+                return;
+            }
+            OutputStream newOutput;
+            try {
+                newOutput = newSocket.getOutputStream();
+            } catch (IOException e) {
+                closeQuietly(newSocket);
+                scheduler.execute(() -> onConnectFailed(connectGeneration));
+                return;
+            }
+            scheduler.execute(() -> onConnected(connectGeneration, newSocket, newOutput));
+        });
+    }
+
+    /** Un ejecutor apagado rechaza la tarea: ya viene el stop() del dueño, no hay nada que hacer. */
+    private static boolean submit(Executor executor, Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private void onConnectFailed(int connectGeneration) {
+        if (generation != connectGeneration) return;
+        reconnectPolicy.onAttemptFailed();
+        enterBackoff(State.CONNECTING);
+    }
+
+    private void onConnected(int connectGeneration, LinkSocket newSocket, OutputStream newOutput) {
+        if (generation != connectGeneration || !transition(State.CONNECTING, State.CONNECTED)) {
+            closeQuietly(newSocket);
+            return;
+        }
+        socket = newSocket;
+        output = newOutput;
+        reconnectPolicy.onConnected(scheduler.now());
+        boolean reading = submit(readerExecutor, () -> {
+            try {
+                listener.readLoop(newSocket);
+            } catch (IOException ignored) {
+                // Se trata igual que el fin del stream
+            }
+            scheduler.execute(() -> onReaderFinished(connectGeneration));
+        });
+        if (!reading) closeSocket();
+    }
+
+    private void onReaderFinished(int readerGeneration) {
+        if (generation != readerGeneration) return;
+        reconnectPolicy.onLinkLost(scheduler.now());
+        closeSocket();
+        enterBackoff(State.CONNECTED);
+    }
+
+    private void enterBackoff(State from) {
+        if (!transition(from, State.BACKOFF)) return;
+        int backoffGeneration = ++generation;
+        scheduler.schedule(() -> {
+            if (generation != backoffGeneration) return;
+            // Con la dirección conocida, sin permiso para buscar solo queda el intento directo
+            if (targetAddress != null
+                    && (!transport.canDiscover() || reconnectPolicy.shouldConnectDirectly())) {
+                beginConnect(State.BACKOFF);
+            } else {
+                beginDiscovery(State.BACKOFF);
+            }
+        }, reconnectPolicy.nextDelayMs());
+    }
+
+    private boolean transition(State from, State to) {
+        if (!state.compareAndSet(from, to)) return false;
+        listener.onStateChanged(to);
+        return true;
+    }
+
+    private void moveTo(State to) {
+        if (state.getAndSet(to) != to) listener.onStateChanged(to);
+    }
+
+    private void closeSocket() {
+        LinkSocket current = socket;
+        socket = null;
+        output = null;
+        if (current != null) closeQuietly(current);
+    }
+
+    private static void closeQuietly(LinkSocket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {}
+    }
+}
@@ -1,12 +1,32 @@
 package com.example.appbt;
 
-public class Contact {
-    private String name;
-    private String number;
+/** Contacto de emergencia. Inmutable: los cambios se publican como una lista nueva. */
+public final class Contact {
+    /** Id de un contacto que todavía no se guardó en el repositorio. */
+    public static final long NO_ID = 0;
+
+    private final long id;
+    private final String name;
+    private final String number;
+    private final String canonicalNumber;
 
     public Contact(String name, String number) {
+        this(NO_ID, name, number, "");
+    }
+
+    public Contact(long id, String name, String number) {
+        this(id, name, number, "");
+    }
+
+    public Contact(long id, String name, String number, String canonicalNumber) {
+        this.id = id;
         this.name = name;
         this.number = number;
+        this.canonicalNumber = canonicalNumber;
+    }
+
+    public long getId() {
+        return id;
     }
 
     public String getName() {
@@ -17,11 +37,16 @@ public class Contact {
         return number;
     }
 
-    public void setName(String name) {
-        this.name = name;
+    /** Número en E.164 calculado al guardar; es el que se usa para enviar y deduplicar. */
+    public String getCanonicalNumber() {
+        return canonicalNumber;
     }
 
-    public void setNumber(String number) {
-        this.number = number;
+    Contact withId(long newId) {
+        return new Contact(newId, name, number, canonicalNumber);
+    }
+
+    Contact withCanonicalNumber(String canonical) {
+        return new Contact(id, name, number, canonical);
     }
 }
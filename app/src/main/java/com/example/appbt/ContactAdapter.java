@@ -1,6 +1,5 @@
 package com.example.appbt;
 
-import android.app.AlertDialog;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -8,23 +7,55 @@ import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.List;
 
-public class ContactAdapter extends RecyclerView.Adapter<ContactAdapter.ContactViewHolder> {
+/**
+ * Lista de contactos sobre ListAdapter: cada instantánea del {@link ContactRepository} se
+ * compara en segundo plano y solo se vuelven a dibujar las filas que cambiaron; si cambió
+ * solo el nombre o solo el número, se actualiza únicamente ese texto.
+ */
+public class ContactAdapter extends ListAdapter<Contact, ContactAdapter.ContactViewHolder> {
 
     public interface OnItemActionListener {
-        void onEdit(int position);
-        void onDelete(int position);
+        void onEdit(Contact contact);
+        void onDelete(Contact contact);
     }
 
-    private final List<Contact> contacts;
+    private static final int PAYLOAD_NAME = 1;
+    private static final int PAYLOAD_NUMBER = 1 << 1;
+
+    private static final DiffUtil.ItemCallback<Contact> DIFF = new DiffUtil.ItemCallback<Contact>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Contact oldItem, @NonNull Contact newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Contact oldItem, @NonNull Contact newItem) {
+            return changes(oldItem, newItem) == 0;
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull Contact oldItem, @NonNull Contact newItem) {
+            return changes(oldItem, newItem);
+        }
+    };
+
     private final OnItemActionListener listener;
 
-    public ContactAdapter(List<Contact> contacts, OnItemActionListener listener) {
-        this.contacts = contacts;
+    public ContactAdapter(OnItemActionListener listener) {
+        super(DIFF);
         this.listener = listener;
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getId();
     }
 
     @NonNull
@@ -36,37 +67,56 @@ public class ContactAdapter extends RecyclerView.Adapter<ContactAdapter.ContactV
 
     @Override
     public void onBindViewHolder(@NonNull ContactViewHolder holder, int position) {
-        Contact contact = contacts.get(position);
+        Contact contact = getItem(position);
         holder.nameText.setText(contact.getName());
         holder.numberText.setText(contact.getNumber());
-
-        holder.editBtn.setOnClickListener(v -> {
-            if (listener != null) listener.onEdit(position);
-        });
-
-        holder.deleteBtn.setOnClickListener(v -> {
-            if (listener != null) {
-                listener.onDelete(position);
-            }
-        });
-
     }
 
     @Override
-    public int getItemCount() {
-        return contacts.size();
+    public void onBindViewHolder(@NonNull ContactViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        int changed = 0;
+        for (Object payload : payloads) changed |= (Integer) payload;
+        Contact contact = getItem(position);
+        if ((changed & PAYLOAD_NAME) != 0) holder.nameText.setText(contact.getName());
+        if ((changed & PAYLOAD_NUMBER) != 0) holder.numberText.setText(contact.getNumber());
     }
 
-    static class ContactViewHolder extends RecyclerView.ViewHolder {
-        TextView nameText, numberText;
-        ImageButton editBtn, deleteBtn;
+    private static int changes(Contact oldItem, Contact newItem) {
+        int changed = 0;
+        if (!oldItem.getName().equals(newItem.getName())) changed |= PAYLOAD_NAME;
+        if (!oldItem.getNumber().equals(newItem.getNumber())) changed |= PAYLOAD_NUMBER;
+        return changed;
+    }
 
-        public ContactViewHolder(@NonNull View itemView) {
+    class ContactViewHolder extends RecyclerView.ViewHolder {
+        final TextView nameText, numberText;
+        final ImageButton editBtn, deleteBtn;
+
+        ContactViewHolder(@NonNull View itemView) {
             super(itemView);
             nameText = itemView.findViewById(R.id.contactName);
             numberText = itemView.findViewById(R.id.contactNumber);
             editBtn = itemView.findViewById(R.id.editBtn);
             deleteBtn = itemView.findViewById(R.id.deleteBtn);
+
+            // Una vez por fila; el contacto se resuelve al momento del clic, no del bind
+            editBtn.setOnClickListener(v -> {
+                Contact contact = current();
+                if (contact != null && listener != null) listener.onEdit(contact);
+            });
+            deleteBtn.setOnClickListener(v -> {
+                Contact contact = current();
+                if (contact != null && listener != null) listener.onDelete(contact);
+            });
+        }
+
+        private Contact current() {
+            int position = getBindingAdapterPosition();
+            return position == RecyclerView.NO_POSITION ? null : getItem(position);
         }
     }
 }
@@ -0,0 +1,72 @@
+package com.example.appbt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Formato de texto con el que se guardaban los contactos en ContactsPrefs:
+ * {@code nombre,número;} por contacto. Hoy se usa para migrar a {@link ContactFile}.
+ * Las comas, puntos y coma y barras invertidas dentro de un campo se escapan con
+ * {@code \}, así un nombre como "Pérez, Ana" ya no corrompe la lista. Las cadenas
+ * guardadas por versiones anteriores (sin escapes) se leen igual que antes.
+ */
+public final class ContactCodec {
+
+    private static final char FIELD = ',';
+    private static final char RECORD = ';';
+    private static final char ESCAPE = '\\';
+
+    private ContactCodec() {}
+
+    public static String encode(List<Contact> contacts) {
+        StringBuilder sb = new StringBuilder(contacts.size() * 24);
+        for (Contact contact : contacts) {
+            appendEscaped(sb, contact.getName());
+            sb.append(FIELD);
+            appendEscaped(sb, contact.getNumber());
+            sb.append(RECORD);
+        }
+        return sb.toString();
+    }
+
+    /** Entradas que no tienen exactamente dos campos se descartan, como hacía el parser anterior. */
+    public static List<Contact> decode(String text) {
+        List<Contact> contacts = new ArrayList<>();
+        if (text == null || text.isEmpty()) return contacts;
+        StringBuilder field = new StringBuilder();
+        String name = null;
+        int fields = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c == ESCAPE && i + 1 < n) {
+                field.append(text.charAt(++i));
+            } else if (c == FIELD) {
+                if (fields++ == 0) name = field.toString();
+                field.setLength(0);
+            } else if (c == RECORD) {
+                addIfValid(contacts, name, field, fields);
+                field.setLength(0);
+                name = null;
+                fields = 0;
+            } else {
+                field.append(c);
+            }
+        }
+        addIfValid(contacts, name, field, fields);
+        return contacts;
+    }
+
+    private static void addIfValid(List<Contact> contacts, String name, StringBuilder number, int separators) {
+        if (separators == 1 && !name.isEmpty() && number.length() > 0) {
+            contacts.add(new Contact(name, number.toString()));
+        }
+    }
+
+    private static void appendEscaped(StringBuilder sb, String value) {
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c == FIELD || c == RECORD || c == ESCAPE) sb.append(ESCAPE);
+            sb.append(c);
+        }
+    }
+}
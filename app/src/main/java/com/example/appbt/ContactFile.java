@@ -0,0 +1,194 @@
+package com.example.appbt;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Archivo de contactos por registros: cada alta o edición anexa un registro PUT y cada
+ * baja un registro DELETE (tombstone), en vez de reescribir la lista completa. Al cargar
+ * se reproducen los registros en orden. El archivo se compacta (se reescribe con solo los
+ * contactos vigentes) cuando tiene más del doble de registros que contactos vivos y al menos
+ * {@link #MIN_COMPACT_RECORDS}: con pocos registros el archivo es chico y reescribirlo en
+ * cada baja costaría más que leer los muertos.
+ *
+ * Formato de cada registro: | largo (int) | CRC32 del payload (int) | payload |, igual que
+ * {@link AlertOutbox}. Un registro final incompleto se descarta al abrir.
+ */
+public class ContactFile implements ContactRepository.Storage {
+
+    private static final int RECORD_HEADER = 8;
+    private static final int MAX_RECORD = 4 * 1024;
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+    // Por debajo de esto no vale la pena compactar
+    static final int MIN_COMPACT_RECORDS = 64;
+
+    private final File file;
+    private final File tmpFile;
+    private int records;
+    private int live;
+    private int compactions;
+
+    public ContactFile(File file) {
+        this.file = file;
+        this.tmpFile = new File(file.getPath() + ".tmp");
+    }
+
+    public boolean exists() {
+        return file.exists();
+    }
+
+    @Override
+    public synchronized List<Contact> load() throws IOException {
+        Map<Long, Contact> contacts = new LinkedHashMap<>();
+        records = 0;
+        if (file.exists()) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                byte[] data = new byte[(int) raf.length()];
+                raf.readFully(data);
+                int position = 0;
+                while (true) {
+                    int next = apply(data, position, contacts);
+                    if (next < 0) break;
+                    position = next;
+                    records++;
+                }
+                if (position < data.length) {
+                    raf.setLength(position);
+                    raf.getFD().sync();
+                }
+            }
+        }
+        live = contacts.size();
+        List<Contact> result = new ArrayList<>(contacts.values());
+        if (shouldCompact()) rewrite(result);
+        return result;
+    }
+
+    @Override
+    public synchronized void put(Contact contact) throws IOException {
+        append(putRecord(contact));
+    }
+
+    /** Anexa todos los registros con una sola apertura del archivo (importaciones). */
+    @Override
+    public synchronized void putAll(List<Contact> contacts) throws IOException {
+        try (FileOutputStream stream = new FileOutputStream(file, true);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 8192))) {
+            for (Contact contact : contacts) writeRecord(out, putRecord(contact));
+        }
+        records += contacts.size();
+    }
+
+    @Override
+    public synchronized void delete(long id) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(9);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OP_DELETE);
+        out.writeLong(id);
+        append(bytes.toByteArray());
+    }
+
+    @Override
+    public synchronized void compactIfNeeded(List<Contact> current) throws IOException {
+        live = current.size();
+        if (shouldCompact()) rewrite(current);
+    }
+
+    /** Reescribe el archivo con solo estos contactos (también se usa para migrar). */
+    public synchronized void rewrite(List<Contact> contacts) throws IOException {
+        try (FileOutputStream stream = new FileOutputStream(tmpFile);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 8192))) {
+            for (Contact contact : contacts) writeRecord(out, putRecord(contact));
+            out.flush();
+            stream.getFD().sync();
+        }
+        if (!tmpFile.renameTo(file)) throw new IOException("No se pudo reemplazar " + file);
+        records = contacts.size();
+        live = contacts.size();
+        compactions++;
+    }
+
+    int getRecordCount() {
+        return records;
+    }
+
+    int getCompactions() {
+        return compactions;
+    }
+
+    private boolean shouldCompact() {
+        return records >= MIN_COMPACT_RECORDS && records > 2 * live;
+    }
+
+    // Sin fsync: un corte a mitad de escritura deja un registro incompleto que load() descarta
+    private void append(byte[] payload) throws IOException {
+        try (FileOutputStream stream = new FileOutputStream(file, true);
+             DataOutputStream out = new DataOutputStream(stream)) {
+            writeRecord(out, payload);
+        }
+        records++;
+    }
+
+    private static byte[] putRecord(Contact contact) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OP_PUT);
+        out.writeLong(contact.getId());
+        out.writeUTF(contact.getName());
+        out.writeUTF(contact.getNumber());
+        out.writeUTF(contact.getCanonicalNumber());
+        return bytes.toByteArray();
+    }
+
+    private static void writeRecord(DataOutputStream out, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        out.writeInt(payload.length);
+        out.writeInt((int) crc.getValue());
+        out.write(payload);
+    }
+
+    /** Aplica el registro que empieza en {@code position}; devuelve el siguiente o -1. */
+    private static int apply(byte[] data, int position, Map<Long, Contact> contacts) throws IOException {
+        if (position + RECORD_HEADER > data.length) return -1;
+        int size = readInt(data, position);
+        int expectedCrc = readInt(data, position + 4);
+        int start = position + RECORD_HEADER;
+        if (size <= 0 || size > MAX_RECORD || start + size > data.length) return -1;
+        CRC32 crc = new CRC32();
+        crc.update(data, start, size);
+        if ((int) crc.getValue() != expectedCrc) return -1;
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, start, size));
+        byte op = in.readByte();
+        long id = in.readLong();
+        if (op == OP_PUT) {
+            String name = in.readUTF();
+            String number = in.readUTF();
+            // Los registros anteriores al número canónico terminan aquí
+            String canonical = in.available() > 0 ? in.readUTF() : "";
+            contacts.put(id, new Contact(id, name, number, canonical));
+        } else if (op == OP_DELETE) {
+            contacts.remove(id);
+        }
+        return start + size;
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+}
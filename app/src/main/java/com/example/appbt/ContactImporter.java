@@ -0,0 +1,85 @@
+package com.example.appbt;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Importa contactos desde una fuente paginada (la agenda del teléfono) sin tener toda la
+ * fuente en memoria: lee de a {@code pageSize} filas, normaliza cada número, descarta los
+ * que ya están en el repositorio o repetidos en la misma importación (por número canónico) y guarda cada página
+ * de una vez. Corre en un hilo de fondo.
+ */
+public class ContactImporter {
+
+    /** Fuente paginada por clave: devuelve filas con id mayor a {@code afterId}, en orden. */
+    public interface PageSource {
+        int readPage(long afterId, int limit, RowConsumer consumer) throws IOException;
+    }
+
+    public interface RowConsumer {
+        void accept(long rowId, String name, String number);
+    }
+
+    public interface Progress {
+        void onPage(int scanned, int imported);
+    }
+
+    public static final class Result {
+        public final int scanned;
+        public final int imported;
+        public final int duplicates;
+        public final int invalid;
+
+        Result(int scanned, int imported, int duplicates, int invalid) {
+            this.scanned = scanned;
+            this.imported = imported;
+            this.duplicates = duplicates;
+            this.invalid = invalid;
+        }
+    }
+
+    private final ContactRepository repository;
+    private final int pageSize;
+
+    public ContactImporter(ContactRepository repository, int pageSize) {
+        this.repository = repository;
+        this.pageSize = pageSize;
+    }
+
+    public Result run(PageSource source, Progress progress) throws IOException {
+        Set<String> known = new HashSet<>();
+        for (Contact contact : repository.getContacts()) known.add(contact.getCanonicalNumber());
+
+        int[] counts = new int[4];
+        long[] lastId = {Long.MIN_VALUE};
+        List<Contact> page = new ArrayList<>(pageSize);
+        RowConsumer consumer = (rowId, name, number) -> {
+            lastId[0] = rowId;
+            counts[0]++;
+            String normalized = PhoneNumbers.normalize(number);
+            if (normalized.isEmpty()) {
+                counts[3]++;
+            } else if (!known.add(repository.canonicalize(normalized))) {
+                counts[2]++;
+            } else {
+                String display = name == null || name.trim().isEmpty() ? normalized : name.trim();
+                page.add(new Contact(display, normalized));
+            }
+        };
+
+        int read;
+        do {
+            read = source.readPage(lastId[0], pageSize, consumer);
+            if (!page.isEmpty()) {
+                repository.addAll(page);
+                counts[1] += page.size();
+                page.clear();
+            }
+            if (progress != null) progress.onPage(counts[0], counts[1]);
+        } while (read == pageSize);
+        return new Result(counts[0], counts[1], counts[2], counts[3]);
+    }
+}
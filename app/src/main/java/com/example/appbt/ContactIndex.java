@@ -0,0 +1,179 @@
+package com.example.appbt;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Índice de prefijos sobre una instantánea de contactos: cada palabra del nombre (sin
+ * mayúsculas ni tildes) y los dígitos del número quedan en un arreglo ordenado, y una
+ * búsqueda es una búsqueda binaria más un recorrido de las claves con ese prefijo.
+ * Es inmutable; se reconstruye cuando cambia la lista.
+ */
+public final class ContactIndex {
+
+    private final List<Contact> contacts;
+    private final String[] nameKeys;
+    private final int[] nameOwners;
+    private final String[] numberKeys;
+    private final int[] numberOwners;
+
+    private ContactIndex(List<Contact> contacts, String[] nameKeys, int[] nameOwners,
+                         String[] numberKeys, int[] numberOwners) {
+        this.contacts = contacts;
+        this.nameKeys = nameKeys;
+        this.nameOwners = nameOwners;
+        this.numberKeys = numberKeys;
+        this.numberOwners = numberOwners;
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        final String key;
+        final int owner;
+
+        Entry(String key, int owner) {
+            this.key = key;
+            this.owner = owner;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return key.compareTo(other.key);
+        }
+    }
+
+    public static ContactIndex build(List<Contact> contacts) {
+        List<Entry> names = new ArrayList<>(contacts.size() * 2);
+        List<Entry> numbers = new ArrayList<>(contacts.size());
+        for (int i = 0; i < contacts.size(); i++) {
+            Contact contact = contacts.get(i);
+            for (String word : words(fold(contact.getName()))) names.add(new Entry(word, i));
+            String digits = PhoneNumbers.digits(contact.getNumber());
+            if (!digits.isEmpty()) numbers.add(new Entry(digits, i));
+            // También por el número canónico: "593 99" encuentra a quien se guardó como "099..."
+            String canonical = PhoneNumbers.digits(contact.getCanonicalNumber());
+            if (!canonical.isEmpty() && !canonical.equals(digits)) numbers.add(new Entry(canonical, i));
+        }
+        Collections.sort(names);
+        Collections.sort(numbers);
+
+        String[] nameKeys = new String[names.size()];
+        int[] nameOwners = new int[names.size()];
+        for (int i = 0; i < nameKeys.length; i++) {
+            nameKeys[i] = names.get(i).key;
+            nameOwners[i] = names.get(i).owner;
+        }
+        String[] numberKeys = new String[numbers.size()];
+        int[] numberOwners = new int[numbers.size()];
+        for (int i = 0; i < numberKeys.length; i++) {
+            numberKeys[i] = numbers.get(i).key;
+            numberOwners[i] = numbers.get(i).owner;
+        }
+        return new ContactIndex(contacts, nameKeys, nameOwners, numberKeys, numberOwners);
+    }
+
+    /**
+     * Contactos que coinciden con la consulta, en el orden de la lista. Si la consulta es un
+     * número se busca por prefijo de dígitos; si no, cada palabra debe ser prefijo de alguna
+     * palabra del nombre.
+     */
+    public List<Contact> search(String query) {
+        String folded = fold(query).trim();
+        if (folded.isEmpty()) return contacts;
+
+        if (looksLikeNumber(folded)) {
+            String digits = PhoneNumbers.digits(folded);
+            boolean[] matched = new boolean[contacts.size()];
+            int end = scan(numberKeys, digits);
+            for (int i = lowerBound(numberKeys, digits); i < end; i++) matched[numberOwners[i]] = true;
+            return collect(matched);
+        }
+
+        // hits[o] cuenta cuántas palabras de la consulta ya coincidieron con el contacto o
+        List<String> queryWords = words(folded);
+        int[] hits = new int[contacts.size()];
+        for (int w = 0; w < queryWords.size(); w++) {
+            String prefix = queryWords.get(w);
+            int end = scan(nameKeys, prefix);
+            for (int i = lowerBound(nameKeys, prefix); i < end; i++) {
+                int owner = nameOwners[i];
+                if (hits[owner] == w) hits[owner] = w + 1;
+            }
+        }
+        boolean[] matched = new boolean[contacts.size()];
+        for (int i = 0; i < hits.length; i++) matched[i] = hits[i] == queryWords.size();
+        return collect(matched);
+    }
+
+    public int size() {
+        return contacts.size();
+    }
+
+    private List<Contact> collect(boolean[] matched) {
+        List<Contact> result = new ArrayList<>();
+        for (int i = 0; i < matched.length; i++) {
+            if (matched[i]) result.add(contacts.get(i));
+        }
+        return result;
+    }
+
+    private static int lowerBound(String[] keys, String prefix) {
+        int index = Arrays.binarySearch(keys, prefix);
+        if (index < 0) return -index - 1;
+        while (index > 0 && keys[index - 1].equals(prefix)) index--;
+        return index;
+    }
+
+    // Primera clave después del rango que empieza con el prefijo
+    private static int scan(String[] keys, String prefix) {
+        int i = lowerBound(keys, prefix);
+        while (i < keys.length && keys[i].startsWith(prefix)) i++;
+        return i;
+    }
+
+    private static boolean looksLikeNumber(String text) {
+        boolean digit = false;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digit = true;
+            } else if (c != '+' && c != ' ' && c != '-' && c != '(' && c != ')') {
+                return false;
+            }
+        }
+        return digit;
+    }
+
+    /** Minúsculas y sin tildes: "Pérez" y "perez" son la misma clave. */
+    static String fold(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        boolean ascii = true;
+        for (int i = 0, n = lower.length(); i < n && ascii; i++) ascii = lower.charAt(i) < 0x80;
+        if (ascii) return lower;
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        for (int i = 0, n = decomposed.length(); i < n; i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>(3);
+        int start = -1;
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            boolean part = i < n && Character.isLetterOrDigit(text.charAt(i));
+            if (part && start < 0) {
+                start = i;
+            } else if (!part && start >= 0) {
+                words.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
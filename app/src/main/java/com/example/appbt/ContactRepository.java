@@ -0,0 +1,237 @@
+package com.example.appbt;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.telephony.TelephonyManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Lista de contactos compartida por todo el proceso. Se lee de disco una sola vez; cada
+ * cambio publica una instantánea nueva e inmutable, así las lecturas (por ejemplo, el envío
+ * de una alerta) no toman locks ni hacen I/O. Los listeners se enteran de cada cambio.
+ */
+public final class ContactRepository {
+
+    public interface Listener {
+        void onContactsChanged(List<Contact> contacts);
+    }
+
+    /** Dónde se guardan los contactos; cada cambio se persiste por separado. */
+    interface Storage {
+        List<Contact> load() throws IOException;
+
+        void put(Contact contact) throws IOException;
+
+        void delete(long id) throws IOException;
+
+        default void putAll(List<Contact> contacts) throws IOException {
+            for (Contact contact : contacts) put(contact);
+        }
+
+        /** Oportunidad de compactar tras un cambio, con la lista vigente. */
+        default void compactIfNeeded(List<Contact> current) throws IOException {}
+    }
+
+    private static final String PREFS = "ContactsPrefs";
+    private static final String KEY_LEGACY_CONTACTS = "contacts";
+    private static final String FILE_NAME = "contacts.dat";
+
+    private static volatile ContactRepository instance;
+
+    private static final class Snapshot {
+        final List<Contact> contacts;
+        final List<String> numbers;
+
+        Snapshot(List<Contact> contacts) {
+            // Destinatarios sin repetir: la misma persona cargada dos veces recibe un solo SMS
+            Set<String> numbers = new LinkedHashSet<>(contacts.size() * 2);
+            for (Contact contact : contacts) {
+                if (!contact.getCanonicalNumber().isEmpty()) numbers.add(contact.getCanonicalNumber());
+            }
+            this.contacts = Collections.unmodifiableList(contacts);
+            this.numbers = Collections.unmodifiableList(new ArrayList<>(numbers));
+        }
+    }
+
+    private final Storage storage;
+    private final PhoneNumberNormalizer normalizer;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Snapshot snapshot;
+    private long nextId = 1;
+
+    ContactRepository(Storage storage, PhoneNumberNormalizer normalizer) throws IOException {
+        this.storage = storage;
+        this.normalizer = normalizer;
+        List<Contact> loaded = new ArrayList<>(storage.load());
+        for (int i = 0; i < loaded.size(); i++) {
+            Contact contact = loaded.get(i);
+            nextId = Math.max(nextId, contact.getId() + 1);
+            // Contactos guardados antes de tener número canónico: se calcula una vez y se guarda
+            if (contact.getCanonicalNumber().isEmpty()) {
+                contact = withCanonical(contact);
+                storage.put(contact);
+                loaded.set(i, contact);
+            }
+        }
+        this.snapshot = new Snapshot(loaded);
+    }
+
+    public static ContactRepository get(Context context) {
+        ContactRepository result = instance;
+        if (result == null) {
+            synchronized (ContactRepository.class) {
+                result = instance;
+                if (result == null) {
+                    try {
+                        Context app = context.getApplicationContext();
+                        result = new ContactRepository(open(app), new PhoneNumberNormalizer(countryIso(app)));
+                    } catch (IOException e) {
+                        throw new IllegalStateException("No se pudieron cargar los contactos", e);
+                    }
+                    instance = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    // La primera vez pasa la cadena de ContactsPrefs al archivo y la borra de las preferencias
+    private static ContactFile open(Context context) throws IOException {
+        ContactFile file = new ContactFile(new File(context.getFilesDir(), FILE_NAME));
+        if (!file.exists()) {
+            SharedPreferences prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+            String legacy = prefs.getString(KEY_LEGACY_CONTACTS, "");
+            if (!legacy.isEmpty()) {
+                List<Contact> decoded = ContactCodec.decode(legacy);
+                List<Contact> migrated = new ArrayList<>(decoded.size());
+                for (int i = 0; i < decoded.size(); i++) migrated.add(decoded.get(i).withId(i + 1));
+                file.rewrite(migrated);
+                prefs.edit().remove(KEY_LEGACY_CONTACTS).apply();
+            }
+        }
+        return file;
+    }
+
+    // País de la SIM; si no hay SIM, el de la red o el del sistema
+    private static String countryIso(Context context) {
+        TelephonyManager telephony = context.getSystemService(TelephonyManager.class);
+        if (telephony != null) {
+            String iso = telephony.getSimCountryIso();
+            if (iso == null || iso.isEmpty()) iso = telephony.getNetworkCountryIso();
+            if (iso != null && !iso.isEmpty()) return iso;
+        }
+        return Locale.getDefault().getCountry();
+    }
+
+    /** Número canónico con la región de este repositorio (para comparar antes de guardar). */
+    public String canonicalize(String number) {
+        return normalizer.canonical(number);
+    }
+
+    public List<Contact> getContacts() {
+        return snapshot.contacts;
+    }
+
+    /** Números canónicos sin repetir de la instantánea actual, listos para el envío de alertas. */
+    public List<String> getNumbers() {
+        return snapshot.numbers;
+    }
+
+    public int size() {
+        return snapshot.contacts.size();
+    }
+
+    public void add(Contact contact) throws IOException {
+        synchronized (this) {
+            Contact stored = withCanonical(contact.withId(nextId));
+            storage.put(stored);
+            nextId++;
+            List<Contact> next = new ArrayList<>(snapshot.contacts);
+            next.add(stored);
+            publish(next);
+        }
+        notifyListeners();
+    }
+
+    /** Agrega varios contactos con una sola escritura y un solo aviso a los listeners. */
+    public void addAll(List<Contact> contacts) throws IOException {
+        if (contacts.isEmpty()) return;
+        synchronized (this) {
+            List<Contact> stored = new ArrayList<>(contacts.size());
+            for (int i = 0; i < contacts.size(); i++) stored.add(withCanonical(contacts.get(i).withId(nextId + i)));
+            storage.putAll(stored);
+            nextId += stored.size();
+            List<Contact> next = new ArrayList<>(snapshot.contacts.size() + stored.size());
+            next.addAll(snapshot.contacts);
+            next.addAll(stored);
+            publish(next);
+        }
+        notifyListeners();
+    }
+
+    /** Reemplaza el contacto con el mismo id, en su mismo lugar de la lista. */
+    public void update(Contact contact) throws IOException {
+        synchronized (this) {
+            int index = indexOf(contact.getId());
+            if (index < 0) return;
+            Contact stored = withCanonical(contact);
+            storage.put(stored);
+            List<Contact> next = new ArrayList<>(snapshot.contacts);
+            next.set(index, stored);
+            publish(next);
+        }
+        notifyListeners();
+    }
+
+    public void remove(long id) throws IOException {
+        synchronized (this) {
+            int index = indexOf(id);
+            if (index < 0) return;
+            storage.delete(id);
+            List<Contact> next = new ArrayList<>(snapshot.contacts);
+            next.remove(index);
+            publish(next);
+        }
+        notifyListeners();
+    }
+
+    private Contact withCanonical(Contact contact) {
+        return contact.withCanonicalNumber(normalizer.canonical(contact.getNumber()));
+    }
+
+    private int indexOf(long id) {
+        List<Contact> contacts = snapshot.contacts;
+        for (int i = 0; i < contacts.size(); i++) {
+            if (contacts.get(i).getId() == id) return i;
+        }
+        return -1;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private void publish(List<Contact> next) throws IOException {
+        snapshot = new Snapshot(next);
+        storage.compactIfNeeded(next);
+    }
+
+    // Fuera del lock: cada listener recibe la instantánea vigente al momento de avisar
+    private void notifyListeners() {
+        List<Contact> current = snapshot.contacts;
+        for (Listener listener : listeners) listener.onContactsChanged(current);
+    }
+}
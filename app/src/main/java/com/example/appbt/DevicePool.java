@@ -0,0 +1,431 @@
+package com.example.appbt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Varios ESP32 conectados a la vez, uno por persona a cuidar. Cada dispositivo tiene su
+ * {@link ConnectionManager}, {@link LinkProtocol}, {@link LinkWriter} y {@link LinkHeartbeat},
+ * pero los hilos se comparten: uno para las transiciones y latidos de todos los enlaces, uno
+ * que escribe a todos, y un grupo fijo de {@code maxDevices} lectores (la lectura RFCOMM es
+ * bloqueante, así que cada enlace conectado ocupa uno). El connect() bloqueante también corre
+ * en ese grupo: un dispositivo nunca conecta y lee a la vez, así que sigue bastando un hilo
+ * por dispositivo y el hilo del enlace no se traba mientras otro intenta conectar.
+ *
+ * La búsqueda es una sola para todo el adaptador: se cancela recién cuando ningún
+ * dispositivo la está esperando. La excepción es {@link RfcommTransport#connect}, que la corta
+ * antes de conectar porque Android lo exige; quien la esperaba la retoma al vencer su plazo.
+ */
+public class DevicePool {
+
+    /** Un dispositivo de la configuración: dirección y, si tiene, a quién pertenece. */
+    public static final class Entry {
+        public final String address;
+        /** null si no tiene nombre. */
+        public final String label;
+
+        public Entry(String address, String label) {
+            this.address = address;
+            this.label = label;
+        }
+    }
+
+    public interface Listener {
+        /** En el hilo del enlace; {@code fromMs} es cuánto duró el estado anterior. */
+        void onStateChanged(Device device, ConnectionManager.State from, ConnectionManager.State to, long fromMs);
+
+        /** En el hilo del enlace. */
+        void onHealthChanged(Device device, LinkHeartbeat.Health health, long rttMs);
+
+        /** SEND_SMS recibido; corre en el hilo lector del dispositivo. */
+        void onTrigger(Device device, int seq);
+
+        /**
+         * Al abrir cada conexión, en el hilo lector: devuelve el stream que se va a leer
+         * (para contar o grabar bytes). Por defecto el del socket.
+         */
+        default InputStream openInput(Device device, LinkSocket socket) throws IOException {
+            return socket.getInputStream();
+        }
+    }
+
+    /** Un enlace del grupo. */
+    public final class Device {
+        private final String address;
+        private final String label;
+        private final LinkProtocol protocol = new LinkProtocol(LinkProtocol.Mode.AUTO);
+        private final ConnectionManager manager;
+        private final LinkWriter writer;
+        private final LinkHeartbeat heartbeat;
+
+        // Solo desde el hilo del enlace
+        private ConnectionManager.State reported = ConnectionManager.State.IDLE;
+        private long reportedAt;
+
+        private Device(Entry entry) {
+            address = entry.address;
+            label = entry.label;
+            manager = new ConnectionManager(new SharedDiscovery(address), linkScheduler, readers, readers,
+                    policyFactory.get(), linkListener);
+            writer = new LinkWriter(writerScheduler, manager::write, writeCapacity, writeBatchBytes,
+                    LinkWriter.Overflow.DROP_OLDEST);
+            heartbeat = new LinkHeartbeat(linkScheduler, this::ping, heartbeatListener,
+                    heartbeatMinMs, heartbeatMaxMs, heartbeatTimeoutMs, heartbeatMaxMissed);
+            reportedAt = linkScheduler.now();
+        }
+
+        public String getAddress() {
+            return address;
+        }
+
+        /** null si la configuración no le dio nombre. */
+        public String getLabel() {
+            return label;
+        }
+
+        /** Nombre para registros: la etiqueta o, si no hay, la dirección. */
+        public String getName() {
+            return label != null ? label : address;
+        }
+
+        /** Respuesta a un comando de este dispositivo; no hace nada en modo texto sin respuesta. */
+        public void reply(int seq, int status, Runnable onWritten) {
+            byte[] reply = protocol.encodeReply(seq, status);
+            if (reply != null) writer.offer(reply, onWritten);
+        }
+
+        public ConnectionManager.State getState() {
+            return manager.getState();
+        }
+
+        public ConnectionManager getConnectionManager() {
+            return manager;
+        }
+
+        public LinkProtocol getProtocol() {
+            return protocol;
+        }
+
+        public LinkWriter getWriter() {
+            return writer;
+        }
+
+        public LinkHeartbeat getHeartbeat() {
+            return heartbeat;
+        }
+
+        private boolean ping(int nonce) {
+            byte[] ping = protocol.encodePing(nonce);
+            return ping != null && writer.offer(ping);
+        }
+
+        private final LinkProtocol.Listener commands = new LinkProtocol.Listener() {
+            @Override
+            public void onCommand(int command, int seq) {
+                if (command != LinkProtocol.CMD_SEND_SMS) return;
+                reply(seq, FrameCodec.ACK_RECEIVED, null);
+                listener.onTrigger(Device.this, seq);
+            }
+
+            @Override
+            public void onRetransmit(int command, int seq) {
+                // El ESP32 no recibió nuestro ACK: se repite sin volver a disparar la alerta
+                reply(seq, FrameCodec.ACK_RECEIVED, null);
+            }
+
+            @Override
+            public void onPong(int nonce) {
+                heartbeat.onPong(nonce);
+            }
+        };
+
+        private final ConnectionManager.Listener linkListener = new ConnectionManager.Listener() {
+            @Override
+            public void onStateChanged(ConnectionManager.State state) {
+                switch (state) {
+                    case CONNECTED:
+                        heartbeat.start();
+                        break;
+                    case BACKOFF:
+                    case IDLE:
+                        heartbeat.stop();
+                        writer.clear();
+                        break;
+                    default:
+                        break;
+                }
+                long now = linkScheduler.now();
+                ConnectionManager.State from = reported;
+                long fromMs = now - reportedAt;
+                reported = state;
+                reportedAt = now;
+                listener.onStateChanged(Device.this, from, state, fromMs);
+            }
+
+            @Override
+            public void readLoop(LinkSocket socket) throws IOException {
+                try (InputStream in = listener.openInput(Device.this, socket)) {
+                    protocol.reset();
+                    protocol.pump(in, commands);
+                }
+            }
+        };
+
+        private final LinkHeartbeat.Listener heartbeatListener = new LinkHeartbeat.Listener() {
+            @Override
+            public void onHealthChanged(LinkHeartbeat.Health health, long rttMs) {
+                listener.onHealthChanged(Device.this, health, rttMs);
+            }
+
+            @Override
+            public void onLinkDead() {
+                manager.reportLinkDead();
+            }
+        };
+    }
+
+    private final Transport transport;
+    private final TaskScheduler linkScheduler;
+    private final TaskScheduler writerScheduler;
+    private final ExecutorService readers;
+    private final Supplier<ReconnectPolicy> policyFactory;
+    private final Listener listener;
+    private final int maxDevices;
+    private final int writeCapacity;
+    private final int writeBatchBytes;
+    private long heartbeatMinMs = 5_000;
+    private long heartbeatMaxMs = 60_000;
+    private long heartbeatTimeoutMs = 3_000;
+    private int heartbeatMaxMissed = 2;
+
+    // Protegido por this; en el orden en que se agregaron
+    private final Map<String, Device> devices = new LinkedHashMap<>();
+    // Protegido por sí mismo
+    private final Set<String> discovering = new HashSet<>();
+
+    public DevicePool(Transport transport, TaskScheduler linkScheduler, TaskScheduler writerScheduler,
+                      int maxDevices, int writeCapacity, int writeBatchBytes,
+                      Supplier<ReconnectPolicy> policyFactory, Listener listener) {
+        this.transport = transport;
+        this.linkScheduler = linkScheduler;
+        this.writerScheduler = writerScheduler;
+        this.maxDevices = Math.max(1, maxDevices);
+        this.writeCapacity = writeCapacity;
+        this.writeBatchBytes = writeBatchBytes;
+        this.policyFactory = policyFactory;
+        this.listener = listener;
+        AtomicInteger readerCount = new AtomicInteger();
+        readers = Executors.newFixedThreadPool(this.maxDevices, r -> {
+            Thread thread = new Thread(r, "bt-reader-" + readerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Latido de los dispositivos que se agreguen desde ahora; ver {@link LinkHeartbeat}. */
+    public void setHeartbeat(long minIntervalMs, long maxIntervalMs, long timeoutMs, int maxMissed) {
+        heartbeatMinMs = minIntervalMs;
+        heartbeatMaxMs = maxIntervalMs;
+        heartbeatTimeoutMs = timeoutMs;
+        heartbeatMaxMissed = maxMissed;
+    }
+
+    /**
+     * Agrega el dispositivo y empieza a conectarlo. Si ya estaba devuelve el existente;
+     * devuelve null si el grupo está lleno.
+     */
+    public Device add(Entry entry) {
+        Device device;
+        synchronized (this) {
+            device = devices.get(entry.address);
+            if (device != null) return device;
+            if (devices.size() >= maxDevices) return null;
+            device = new Device(entry);
+            devices.put(entry.address, device);
+        }
+        device.manager.start(entry.address);
+        return device;
+    }
+
+    /** Desconecta y olvida el dispositivo; devuelve false si no estaba. */
+    public boolean remove(String address) {
+        Device device;
+        synchronized (this) {
+            device = devices.remove(address);
+        }
+        if (device == null) return false;
+        device.manager.stop();
+        return true;
+    }
+
+    /** Deja solo los dispositivos de {@code entries}; los demás se desconectan. */
+    public void retain(List<Entry> entries) {
+        Set<String> keep = new HashSet<>();
+        for (Entry entry : entries) keep.add(entry.address);
+        for (Device device : getDevices()) {
+            if (!keep.contains(device.address)) remove(device.address);
+        }
+    }
+
+    /** Reintenta ya los enlaces caídos (p. ej. cuando el usuario abre la app). */
+    public void start() {
+        for (Device device : getDevices()) device.manager.start(device.address);
+    }
+
+    /** Desconecta todo y libera los hilos lectores; el grupo no se vuelve a usar. */
+    public void shutdown() {
+        List<Device> all;
+        synchronized (this) {
+            all = new ArrayList<>(devices.values());
+            devices.clear();
+        }
+        for (Device device : all) device.manager.stop();
+        readers.shutdown();
+    }
+
+    /** Llamado desde el receptor de ACTION_FOUND; se ignoran las direcciones ajenas. */
+    public void onDeviceFound(String address) {
+        Device device = get(address);
+        if (device != null) device.manager.onDeviceFound(address);
+    }
+
+    public synchronized Device get(String address) {
+        return devices.get(address);
+    }
+
+    public synchronized List<Device> getDevices() {
+        return new ArrayList<>(devices.values());
+    }
+
+    public synchronized int size() {
+        return devices.size();
+    }
+
+    public int getMaxDevices() {
+        return maxDevices;
+    }
+
+    public int getConnectedCount() {
+        int connected = 0;
+        for (Device device : getDevices()) {
+            if (device.manager.isConnected()) connected++;
+        }
+        return connected;
+    }
+
+    /**
+     * Estado del grupo para la interfaz: el más avanzado de todos (basta un enlace conectado
+     * para poder recibir alertas).
+     */
+    public ConnectionManager.State getState() {
+        ConnectionManager.State best = ConnectionManager.State.IDLE;
+        for (Device device : getDevices()) {
+            ConnectionManager.State state = device.manager.getState();
+            if (rank(state) > rank(best)) best = state;
+        }
+        return best;
+    }
+
+    /** El peor latido entre los enlaces conectados. */
+    public LinkHeartbeat.Health getHealth() {
+        LinkHeartbeat.Health worst = LinkHeartbeat.Health.UNKNOWN;
+        for (Device device : getDevices()) {
+            if (!device.manager.isConnected()) continue;
+            LinkHeartbeat.Health health = device.heartbeat.getHealth();
+            if (health.ordinal() > worst.ordinal()) worst = health;
+        }
+        return worst;
+    }
+
+    /** El RTT mediano más alto entre los enlaces conectados, o -1 sin datos. */
+    public long getRttMs() {
+        long worst = -1;
+        for (Device device : getDevices()) {
+            if (device.manager.isConnected()) worst = Math.max(worst, device.heartbeat.getRtt().percentile(50));
+        }
+        return worst;
+    }
+
+    private static int rank(ConnectionManager.State state) {
+        switch (state) {
+            case CONNECTED:
+                return 4;
+            case CONNECTING:
+                return 3;
+            case DISCOVERING:
+                return 2;
+            case BACKOFF:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Formato de la lista de dispositivos en las preferencias:
+     * {@code "08:A6:F7:47:01:62=Abuela; 08:A6:F7:47:01:70"}. Se ignoran las entradas vacías
+     * y las direcciones repetidas.
+     */
+    public static List<Entry> parse(String config) {
+        if (config == null || config.trim().isEmpty()) return Collections.emptyList();
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        for (String part : config.split("[;\\n]")) {
+            String item = part.trim();
+            if (item.isEmpty()) continue;
+            int eq = item.indexOf('=');
+            String address = (eq < 0 ? item : item.substring(0, eq)).trim().toUpperCase(Locale.ROOT);
+            String label = eq < 0 ? null : item.substring(eq + 1).trim();
+            if (address.isEmpty() || entries.containsKey(address)) continue;
+            entries.put(address, new Entry(address, label == null || label.isEmpty() ? null : label));
+        }
+        return new ArrayList<>(entries.values());
+    }
+
+    /** El transporte común visto por un dispositivo: su búsqueda no corta la de los demás. */
+    private final class SharedDiscovery implements Transport {
+        private final String address;
+
+        SharedDiscovery(String address) {
+            this.address = address;
+        }
+
+        @Override
+        public LinkSocket connect(String target) throws IOException {
+            return transport.connect(target);
+        }
+
+        @Override
+        public boolean startDiscovery() {
+            synchronized (discovering) {
+                if (!transport.startDiscovery()) return false;
+                discovering.add(address);
+                return true;
+            }
+        }
+
+        @Override
+        public boolean canDiscover() {
+            return transport.canDiscover();
+        }
+
+        @Override
+        public void cancelDiscovery() {
+            synchronized (discovering) {
+                if (!discovering.remove(address) || !discovering.isEmpty()) return;
+                transport.cancelDiscovery();
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.appbt;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link AlertSink} sobre Firestore. Cada evento es un documento propio en
+ * {@code Usuarios/{uid}/meses/{yyyyMM}/alertas/{idEvento}} (ver {@link AlertEventSchema})
+ * y todo el lote va en un solo WriteBatch; el id fijo por evento hace que un reenvío no
+ * duplique nada. Se llama desde el hilo del uploader, nunca desde el principal.
+ */
+public class FirestoreAlertSink implements AlertSink {
+
+    private static final long TIMEOUT_SECONDS = 30;
+    // Límite de operaciones de un WriteBatch
+    static final int MAX_BATCH_WRITES = 500;
+
+    private final AppServices services;
+
+    public FirestoreAlertSink(AppServices services) {
+        this.services = services;
+    }
+
+    @Override
+    public void upload(List<AlertEvent> batch) throws IOException {
+        FirebaseUser user = services.auth().getCurrentUser();
+        if (user == null) throw new IOException("Sin usuario autenticado");
+        FirebaseFirestore firestore = services.firestore();
+        write(firestore, firestore.collection(AlertEventSchema.USERS).document(user.getUid()), batch);
+    }
+
+    static void write(FirebaseFirestore firestore, DocumentReference userDoc, List<AlertEvent> events)
+            throws IOException {
+        WriteBatch writes = firestore.batch();
+        int count = 0;
+        for (AlertEvent event : events) {
+            writes.set(eventDocument(userDoc, event), AlertEventSchema.toFields(event));
+            if (++count == MAX_BATCH_WRITES) {
+                await(writes.commit());
+                writes = firestore.batch();
+                count = 0;
+            }
+        }
+        if (count > 0) await(writes.commit());
+    }
+
+    static DocumentReference eventDocument(DocumentReference userDoc, AlertEvent event) {
+        return userDoc.collection(AlertEventSchema.MONTHS)
+                .document(AlertEventSchema.bucketKey(event.getTimeMs()))
+                .collection(AlertEventSchema.ALERTS)
+                .document(event.getId());
+    }
+
+    static <T> T await(Task<T> task) throws IOException {
+        try {
+            return Tasks.await(task, TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Error al guardar en Firestore", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Subida interrumpida", e);
+        }
+    }
+}
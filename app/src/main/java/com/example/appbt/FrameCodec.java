@@ -0,0 +1,106 @@
+package com.example.appbt;
+
+/**
+ * Formato binario de tramas entre el teléfono y el ESP32 (versión 1).
+ *
+ * <pre>
+ * | 0xB5 | versión | tipo | seq (u16 BE) | largo (u8) | payload ... | CRC16 (BE) |
+ * </pre>
+ *
+ * El CRC es CRC-16/CCITT-FALSE sobre todo lo que va después del byte de inicio.
+ * Como el byte de inicio no es ASCII, el modo texto sigue disponible en el mismo enlace.
+ */
+public final class FrameCodec {
+
+    public static final byte START = (byte) 0xB5;
+    public static final int VERSION = 1;
+
+    public static final int HEADER_SIZE = 6;
+    public static final int CRC_SIZE = 2;
+    public static final int OVERHEAD = HEADER_SIZE + CRC_SIZE;
+    public static final int MAX_PAYLOAD = 255;
+    public static final int MAX_FRAME = OVERHEAD + MAX_PAYLOAD;
+
+    // ESP32 -> teléfono
+    public static final int TYPE_TRIGGER = 0x01;
+    // Ambos sentidos: payload = seq confirmada (u16) + estado (u8)
+    public static final int TYPE_ACK = 0x02;
+    public static final int TYPE_STATUS = 0x03;
+    // Latido: el teléfono manda PING con un nonce (u16) y el ESP32 lo devuelve en un PONG
+    public static final int TYPE_PING = 0x04;
+    public static final int TYPE_PONG = 0x05;
+
+    public static final int ACK_RECEIVED = 0;
+    public static final int ACK_SMS_SENT = 1;
+    public static final int ACK_FAILED = 2;
+
+    private static final short[] CRC_TABLE = new short[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i << 8;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+            CRC_TABLE[i] = (short) crc;
+        }
+    }
+
+    private FrameCodec() {}
+
+    public static int crc16(byte[] data, int offset, int length) {
+        return updateCrc(0xFFFF, data, offset, length);
+    }
+
+    static int updateCrc(int crc, byte[] data, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            crc = ((crc << 8) ^ CRC_TABLE[((crc >>> 8) ^ data[i]) & 0xFF]) & 0xFFFF;
+        }
+        return crc;
+    }
+
+    /**
+     * Escribe una trama en {@code out} a partir de {@code outOffset} y devuelve la posición
+     * siguiente, de modo que se pueden empaquetar varias tramas en un mismo envío.
+     */
+    public static int encode(int type, int seq, byte[] payload, int payloadOffset, int payloadLength,
+                             byte[] out, int outOffset) {
+        if (payloadLength < 0 || payloadLength > MAX_PAYLOAD) {
+            throw new IllegalArgumentException("Payload demasiado grande: " + payloadLength);
+        }
+        if (out.length - outOffset < OVERHEAD + payloadLength) {
+            throw new IllegalArgumentException("Buffer de salida insuficiente");
+        }
+        int p = outOffset;
+        out[p++] = START;
+        out[p++] = (byte) VERSION;
+        out[p++] = (byte) type;
+        out[p++] = (byte) (seq >>> 8);
+        out[p++] = (byte) seq;
+        out[p++] = (byte) payloadLength;
+        if (payloadLength > 0) {
+            System.arraycopy(payload, payloadOffset, out, p, payloadLength);
+            p += payloadLength;
+        }
+        int crc = crc16(out, outOffset + 1, p - outOffset - 1);
+        out[p++] = (byte) (crc >>> 8);
+        out[p++] = (byte) crc;
+        return p;
+    }
+
+    public static byte[] encode(int type, int seq, byte[] payload) {
+        int length = payload != null ? payload.length : 0;
+        byte[] out = new byte[OVERHEAD + length];
+        encode(type, seq, payload, 0, length, out, 0);
+        return out;
+    }
+
+    public static byte[] encodeAck(int seq, int ackedSeq, int status) {
+        byte[] payload = {(byte) (ackedSeq >>> 8), (byte) ackedSeq, (byte) status};
+        return encode(TYPE_ACK, seq, payload);
+    }
+
+    public static byte[] encodePing(int seq, int nonce) {
+        return encode(TYPE_PING, seq, new byte[]{(byte) (nonce >>> 8), (byte) nonce});
+    }
+}
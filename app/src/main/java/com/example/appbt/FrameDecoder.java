@@ -0,0 +1,116 @@
+package com.example.appbt;
+
+import java.util.Arrays;
+
+/**
+ * Decodificador incremental de tramas {@link FrameCodec}. Acepta los bytes en cualquier
+ * fragmentación, descarta tramas corruptas resincronizando en el siguiente byte de inicio
+ * y detecta retransmisiones (misma secuencia que la última trama aceptada del mismo tipo;
+ * el ESP32 numera todas sus tramas con un solo contador, así que un PONG en medio no debe
+ * hacer pasar un TRIGGER repetido por uno nuevo).
+ */
+public class FrameDecoder {
+
+    public interface Listener {
+        /** El payload apunta al buffer interno; solo es válido durante la llamada. */
+        void onFrame(int type, int seq, byte[] payload, int offset, int length);
+
+        default void onDuplicate(int type, int seq) {}
+    }
+
+    private final byte[] frame = new byte[FrameCodec.MAX_FRAME];
+    private int size;
+    // Última secuencia aceptada por tipo de trama, -1 si todavía no llegó ninguna
+    private final int[] lastSeq = new int[256];
+
+    private long framesDecoded;
+    private long crcErrors;
+    private long duplicates;
+    private long bytesSkipped;
+
+    public FrameDecoder() {
+        Arrays.fill(lastSeq, -1);
+    }
+
+    public void reset() {
+        size = 0;
+        Arrays.fill(lastSeq, -1);
+    }
+
+    public void feed(byte[] data, int offset, int length, Listener listener) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            byte b = data[i];
+            if (size == 0 && b != FrameCodec.START) {
+                bytesSkipped++;
+                continue;
+            }
+            frame[size++] = b;
+            drain(listener);
+        }
+    }
+
+    private void drain(Listener listener) {
+        while (size > 0) {
+            // Lo que quedó detrás de una trama puede empezar con basura
+            if (frame[0] != FrameCodec.START) {
+                resync();
+                continue;
+            }
+            if (size >= 2 && (frame[1] & 0xFF) != FrameCodec.VERSION) {
+                resync();
+                continue;
+            }
+            if (size < FrameCodec.HEADER_SIZE) return;
+
+            int payloadLength = frame[5] & 0xFF;
+            int total = FrameCodec.OVERHEAD + payloadLength;
+            if (size < total) return;
+
+            int expected = ((frame[total - 2] & 0xFF) << 8) | (frame[total - 1] & 0xFF);
+            if (FrameCodec.crc16(frame, 1, total - 1 - FrameCodec.CRC_SIZE) != expected) {
+                crcErrors++;
+                resync();
+                continue;
+            }
+
+            int type = frame[2] & 0xFF;
+            int seq = ((frame[3] & 0xFF) << 8) | (frame[4] & 0xFF);
+            if (seq == lastSeq[type]) {
+                duplicates++;
+                listener.onDuplicate(type, seq);
+            } else {
+                lastSeq[type] = seq;
+                framesDecoded++;
+                listener.onFrame(type, seq, frame, FrameCodec.HEADER_SIZE, payloadLength);
+            }
+            // Tras resincronizar puede haber tramas completas detrás de esta: se siguen leyendo
+            size -= total;
+            if (size > 0) System.arraycopy(frame, total, frame, 0, size);
+        }
+    }
+
+    private void resync() {
+        int next = 1;
+        while (next < size && frame[next] != FrameCodec.START) next++;
+        bytesSkipped += next;
+        size -= next;
+        if (size > 0) System.arraycopy(frame, next, frame, 0, size);
+    }
+
+    public long getFramesDecoded() {
+        return framesDecoded;
+    }
+
+    public long getCrcErrors() {
+        return crcErrors;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getBytesSkipped() {
+        return bytesSkipped;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.appbt;
+
+import java.text.Normalizer;
+
+/**
+ * Alfabeto GSM 03.38 y conteo de segmentos SMS. Un texto que solo usa este alfabeto viaja
+ * a 7 bits (160 caracteres por SMS, 153 si va en partes); con un solo carácter fuera de él,
+ * todo el mensaje pasa a UCS-2 (70 por SMS, 67 en partes).
+ */
+public final class Gsm7 {
+
+    public static final int SINGLE_SEPTETS = 160;
+    public static final int MULTI_SEPTETS = 153;
+    public static final int SINGLE_UCS2 = 70;
+    public static final int MULTI_UCS2 = 67;
+
+    private static final String BASIC = "@£$¥èéùìòÇ\nØø\rÅåΔ_ΦΓΛΩΠΨΣΘΞÆæßÉ !\"#¤%&'()*+,-./0123456789:;<=>?"
+            + "¡ABCDEFGHIJKLMNOPQRSTUVWXYZÄÖÑÜ§¿abcdefghijklmnopqrstuvwxyzäöñüà";
+    // Tabla de extensión: cada uno ocupa dos septetos (escape + carácter)
+    private static final String EXTENDED = "\f^{}\\[~]|€";
+
+    // Septetos por carácter para U+0000..U+00FF; 0 = no está en el alfabeto
+    private static final byte[] LATIN1 = new byte[256];
+
+    static {
+        for (int i = 0; i < BASIC.length(); i++) {
+            char c = BASIC.charAt(i);
+            if (c < 256) LATIN1[c] = 1;
+        }
+        for (int i = 0; i < EXTENDED.length(); i++) {
+            char c = EXTENDED.charAt(i);
+            if (c < 256) LATIN1[c] = 2;
+        }
+    }
+
+    private Gsm7() {}
+
+    /** Septetos que ocupa el carácter, o 0 si no se puede codificar en GSM-7. */
+    public static int septets(char c) {
+        if (c < 256) return LATIN1[c];
+        if (c == '€') return 2;
+        return BASIC.indexOf(c) >= 0 ? 1 : 0;
+    }
+
+    public static boolean isEncodable(CharSequence text) {
+        for (int i = 0, n = text.length(); i < n; i++) {
+            if (septets(text.charAt(i)) == 0) return false;
+        }
+        return true;
+    }
+
+    /** Cantidad de SMS que ocupa el texto con la codificación que usaría el teléfono. */
+    public static int segments(CharSequence text) {
+        return isEncodable(text) ? gsmSegments(text) : ucs2Segments(text);
+    }
+
+    private static int gsmSegments(CharSequence text) {
+        int total = 0;
+        for (int i = 0, n = text.length(); i < n; i++) total += septets(text.charAt(i));
+        if (total <= SINGLE_SEPTETS) return 1;
+        // En partes, un par escape+carácter no se corta entre dos segmentos
+        int segments = 1;
+        int used = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            int size = septets(text.charAt(i));
+            if (used + size > MULTI_SEPTETS) {
+                segments++;
+                used = 0;
+            }
+            used += size;
+        }
+        return segments;
+    }
+
+    private static int ucs2Segments(CharSequence text) {
+        int n = text.length();
+        if (n <= SINGLE_UCS2) return 1;
+        // Tampoco se corta un par sustituto (emoji)
+        int segments = 1;
+        int used = 0;
+        for (int i = 0; i < n; i++) {
+            int size = Character.isHighSurrogate(text.charAt(i)) && i + 1 < n ? 2 : 1;
+            if (used + size > MULTI_UCS2) {
+                segments++;
+                used = 0;
+            }
+            used += size;
+            i += size - 1;
+        }
+        return segments;
+    }
+
+    /**
+     * Versión GSM-7 de un texto libre: quita tildes que el alfabeto no tiene ("ó" pasa a "o",
+     * "é" se conserva), descarta emoji y cambia lo demás por '?'.
+     */
+    public static String transliterate(CharSequence text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (septets(c) > 0) {
+                sb.append(c);
+            } else if (Character.isSurrogate(c) || Character.getType(c) == Character.NON_SPACING_MARK
+                    || c == '\uFE0F') {
+                // Emoji y selectores de variante: se descartan
+            } else {
+                char base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+                sb.append(septets(base) > 0 ? base : '?');
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.appbt;
+
+import android.os.Bundle;
+import android.widget.Button;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Pantalla de depuración: percentiles guardados de cada etapa de la alerta, medidos desde
+ * el disparo del ESP32, por versión de la app. Se abre con una pulsación larga en el estado.
+ */
+public class LatencyActivity extends AppCompatActivity {
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_latency);
+        setTitle("Latencia de alertas");
+
+        Button clearBtn = findViewById(R.id.clearLatencyBtn);
+        clearBtn.setOnClickListener(v -> {
+            LatencyStore.clear(this);
+            render();
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        render();
+    }
+
+    private void render() {
+        TextView latencyText = findViewById(R.id.latencyText);
+        Map<String, Map<AlertTracer.Stage, LatencyHistogram>> all = LatencyStore.readAll(this);
+        if (all.isEmpty()) {
+            latencyText.setText("Todavía no hay alertas medidas.");
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Map<AlertTracer.Stage, LatencyHistogram>> version : all.entrySet()) {
+            sb.append("Versión ").append(version.getKey()).append('\n');
+            sb.append(String.format(Locale.ROOT, "%-14s %6s %7s %7s %7s %7s%n", "etapa (ms)", "n", "p50", "p90", "p99", "máx"));
+            for (Map.Entry<AlertTracer.Stage, LatencyHistogram> stage : version.getValue().entrySet()) {
+                LatencyHistogram h = stage.getValue();
+                sb.append(String.format(Locale.ROOT, "%-14s %6d %7d %7d %7d %7d%n", stage.getKey().name(),
+                        h.getCount(), h.percentile(50), h.percentile(90), h.percentile(99), h.getMax()));
+            }
+            sb.append('\n');
+        }
+        latencyText.setText(sb.toString());
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.appbt;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias en ms con cubetas fijas log-lineales: exactas hasta 8 ms y después
+ * 8 cubetas por cada potencia de 2 (error menor al 12,5 %) hasta unas 4,6 horas. Registrar
+ * no reserva memoria ni toma locks, así que se puede llamar desde cualquier hilo en el
+ * camino de la alerta. Se guarda como texto con {@link #encode()} y se acumula con
+ * {@link #merge(String)}.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 23;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long valueMs) {
+        long value = Math.max(0, valueMs);
+        counts.incrementAndGet(indexOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // otro hilo subió el máximo; se vuelve a comparar
+        }
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) return BUCKETS - 1;
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /** Menor valor que cae en la cubeta. */
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+    }
+
+    /** Mayor valor que cae en la cubeta. */
+    static long upperBound(int index) {
+        return index == BUCKETS - 1 ? Long.MAX_VALUE : lowerBound(index + 1) - 1;
+    }
+
+    /**
+     * Percentil {@code p} (0-100) por rango más cercano; devuelve el tope de la cubeta, sin
+     * pasar del máximo visto. 0 si no hay muestras.
+     */
+    public long percentile(double p) {
+        long total = count.get();
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public long getMean() {
+        long total = count.get();
+        return total == 0 ? 0 : sum.get() / total;
+    }
+
+    public void clear() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /** {@code suma;máximo;cubeta:cantidad,...} solo con las cubetas usadas. */
+    public String encode() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(sum.get()).append(';').append(max.get()).append(';');
+        boolean first = true;
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = counts.get(i);
+            if (c == 0) continue;
+            if (!first) sb.append(',');
+            sb.append(i).append(':').append(c);
+            first = false;
+        }
+        return sb.toString();
+    }
+
+    /** Suma lo codificado a este histograma; un texto dañado se ignora entero. */
+    public boolean merge(String encoded) {
+        if (encoded == null) return false;
+        String[] fields = encoded.split(";", -1);
+        if (fields.length != 3) return false;
+        long[] parsed = new long[BUCKETS];
+        long parsedCount = 0;
+        long parsedSum;
+        long parsedMax;
+        try {
+            parsedSum = Long.parseLong(fields[0]);
+            parsedMax = Long.parseLong(fields[1]);
+            if (!fields[2].isEmpty()) {
+                for (String entry : fields[2].split(",")) {
+                    int colon = entry.indexOf(':');
+                    int index = Integer.parseInt(entry.substring(0, colon));
+                    long c = Long.parseLong(entry.substring(colon + 1));
+                    if (index < 0 || index >= BUCKETS || c < 0) return false;
+                    parsed[index] += c;
+                    parsedCount += c;
+                }
+            }
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return false;
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            if (parsed[i] != 0) counts.addAndGet(i, parsed[i]);
+        }
+        count.addAndGet(parsedCount);
+        sum.addAndGet(parsedSum);
+        long current;
+        while (parsedMax > (current = max.get()) && !max.compareAndSet(current, parsedMax)) {
+            // igual que en record()
+        }
+        return true;
+    }
+}
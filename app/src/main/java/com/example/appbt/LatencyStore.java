@@ -0,0 +1,86 @@
+package com.example.appbt;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Guarda los histogramas de {@link AlertTracer} en SharedPreferences, separados por versión
+ * de la app, para comparar percentiles entre versiones y encontrar regresiones.
+ */
+public final class LatencyStore {
+
+    private static final String PREFS = "LatencyPrefs";
+    private static final String SEPARATOR = "/";
+
+    private final SharedPreferences prefs;
+    private final String version;
+
+    public LatencyStore(Context context) {
+        prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        version = appVersion(context);
+    }
+
+    /** Suma a los histogramas del trazador lo acumulado antes con esta misma versión. */
+    public void load(AlertTracer tracer) {
+        for (AlertTracer.Stage stage : AlertTracer.Stage.values()) {
+            tracer.get(stage).merge(prefs.getString(key(version, stage), null));
+        }
+    }
+
+    /** Reemplaza lo guardado de esta versión por el estado actual del trazador. */
+    public void save(AlertTracer tracer) {
+        SharedPreferences.Editor editor = prefs.edit();
+        for (AlertTracer.Stage stage : AlertTracer.Stage.values()) {
+            LatencyHistogram histogram = tracer.get(stage);
+            if (histogram.getCount() > 0) editor.putString(key(version, stage), histogram.encode());
+        }
+        editor.apply();
+    }
+
+    /** Todo lo guardado, por versión (orden alfabético) y etapa. */
+    public static Map<String, Map<AlertTracer.Stage, LatencyHistogram>> readAll(Context context) {
+        Map<String, Map<AlertTracer.Stage, LatencyHistogram>> result = new TreeMap<>();
+        SharedPreferences prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            String key = entry.getKey();
+            int split = key.lastIndexOf(SEPARATOR);
+            if (split <= 0 || !(entry.getValue() instanceof String)) continue;
+            AlertTracer.Stage stage;
+            try {
+                stage = AlertTracer.Stage.valueOf(key.substring(split + 1));
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            LatencyHistogram histogram = new LatencyHistogram();
+            if (!histogram.merge((String) entry.getValue())) continue;
+            Map<AlertTracer.Stage, LatencyHistogram> stages = result.get(key.substring(0, split));
+            if (stages == null) {
+                stages = new EnumMap<>(AlertTracer.Stage.class);
+                result.put(key.substring(0, split), stages);
+            }
+            stages.put(stage, histogram);
+        }
+        return result;
+    }
+
+    public static void clear(Context context) {
+        context.getSharedPreferences(PREFS, Context.MODE_PRIVATE).edit().clear().apply();
+    }
+
+    private static String key(String version, AlertTracer.Stage stage) {
+        return version + SEPARATOR + stage.name();
+    }
+
+    static String appVersion(Context context) {
+        try {
+            return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).versionName;
+        } catch (PackageManager.NameNotFoundException e) {
+            return "?";
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.appbt;
+
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Valor que se crea una sola vez, recién cuando alguien lo pide. {@link #prefetch} lo crea de
+ * antemano en otro hilo para que el primero que lo necesite no pague el costo; si lo pide
+ * antes de que termine, espera a ese mismo cálculo en vez de repetirlo. Si la fábrica
+ * devuelve null o lanza, el próximo {@link #get()} vuelve a intentar.
+ */
+public final class Lazy<T> {
+
+    private final Supplier<T> factory;
+    private volatile T value;
+
+    public Lazy(Supplier<T> factory) {
+        this.factory = factory;
+    }
+
+    public T get() {
+        T result = value;
+        if (result != null) return result;
+        synchronized (this) {
+            if (value == null) value = factory.get();
+            return value;
+        }
+    }
+
+    public void prefetch(Executor executor) {
+        if (value == null) executor.execute(() -> {
+            try {
+                get();
+            } catch (RuntimeException ignored) {
+                // Se reintenta cuando alguien lo pida de verdad
+            }
+        });
+    }
+
+    public boolean isReady() {
+        return value != null;
+    }
+}
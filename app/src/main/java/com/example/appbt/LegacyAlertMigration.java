@@ -0,0 +1,75 @@
+package com.example.appbt;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copia el array {@code Ubicación} de {@code Usuarios/{uid}} al esquema por meses, con el texto
+ * y el tipo originales, y marca el documento como migrado. El array no se borra: es el único
+ * registro de lo que se envió de verdad y ya nadie le agrega entradas. Los ids son
+ * deterministas, así que si se corta a mitad de camino se puede repetir sin duplicar. Se
+ * ejecuta en el hilo del uploader.
+ */
+final class LegacyAlertMigration {
+
+    private static final String TAG = "LegacyAlertMigration";
+    private static final String PREFS = "AlertPrefs";
+    private static final String KEY_DONE = "legacy_array_migrated";
+
+    private final SharedPreferences prefs;
+    private final AppServices services;
+
+    LegacyAlertMigration(Context context, AppServices services) {
+        prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        this.services = services;
+    }
+
+    boolean isDone() {
+        return prefs.getBoolean(KEY_DONE, false);
+    }
+
+    /** Intenta migrar; si falta usuario o red queda pendiente para el próximo intento. */
+    void runIfNeeded() {
+        if (isDone()) return;
+        FirebaseUser user = services.auth().getCurrentUser();
+        if (user == null) return;
+        FirebaseFirestore firestore = services.firestore();
+        DocumentReference userDoc = firestore.collection(AlertEventSchema.USERS).document(user.getUid());
+        try {
+            DocumentSnapshot snapshot = FirestoreAlertSink.await(userDoc.get());
+            List<AlertEvent> events = legacyEvents(snapshot.get(AlertEventSchema.LEGACY_ARRAY));
+            // Con la marca puesta, ya lo copió otro teléfono del mismo usuario
+            if (!events.isEmpty() && !Boolean.TRUE.equals(snapshot.getBoolean(AlertEventSchema.LEGACY_MIGRATED))) {
+                FirestoreAlertSink.write(firestore, userDoc, events);
+                FirestoreAlertSink.await(userDoc.update(AlertEventSchema.LEGACY_MIGRATED, true));
+                Log.i(TAG, "Migradas " + events.size() + " alertas del array anterior");
+            }
+            prefs.edit().putBoolean(KEY_DONE, true).apply();
+        } catch (IOException e) {
+            Log.w(TAG, "Migración pendiente", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<AlertEvent> legacyEvents(Object field) {
+        List<AlertEvent> events = new ArrayList<>();
+        if (!(field instanceof List)) return events;
+        List<Object> entries = (List<Object>) field;
+        for (int i = 0; i < entries.size(); i++) {
+            Object entry = entries.get(i);
+            if (entry instanceof Map) events.add(AlertEventSchema.fromLegacy((Map<String, Object>) entry, i));
+        }
+        return events;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.appbt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Separa en líneas (CR/LF) lo que llega del ESP32 usando un buffer circular fijo.
+ * Lee en bloques y compara cada línea contra los comandos ya codificados en bytes,
+ * sin crear un String por línea.
+ */
+public class LineFramer {
+
+    public static final int UNKNOWN = -1;
+
+    public interface Listener {
+        void onCommand(int command);
+    }
+
+    private final byte[][] commands;
+    private final byte[] ring;
+    private final int mask;
+
+    private int head;      // inicio de la línea en curso
+    private int tail;      // siguiente posición libre
+    private int scan;      // siguiente byte por revisar
+    private boolean discarding;
+
+    private long bytesRead;
+    private long linesParsed;
+    private long linesDropped;
+
+    public LineFramer(int capacity, String... commands) {
+        int size = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+        this.ring = new byte[size];
+        this.mask = size - 1;
+        this.commands = new byte[commands.length][];
+        for (int i = 0; i < commands.length; i++) {
+            this.commands[i] = commands[i].trim().toUpperCase(Locale.US).getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    public void reset() {
+        head = tail = scan = 0;
+        discarding = false;
+    }
+
+    /** Lee del stream hasta EOF entregando cada comando reconocido al listener. */
+    public void pump(InputStream in, Listener listener) throws IOException {
+        while (true) {
+            int free = ring.length - (tail - head);
+            if (free == 0) {
+                // La línea llenó el buffer sin delimitador: se descarta hasta el próximo CR/LF
+                head = scan = tail;
+                discarding = true;
+                linesDropped++;
+                free = ring.length;
+            }
+            int offset = tail & mask;
+            int n = in.read(ring, offset, Math.min(free, ring.length - offset));
+            if (n == -1) return;
+            tail += n;
+            bytesRead += n;
+            scanLines(listener);
+        }
+    }
+
+    /** Entrada directa para datos que ya están en memoria. */
+    public void feed(byte[] data, int offset, int length, Listener listener) {
+        while (length > 0) {
+            int free = ring.length - (tail - head);
+            if (free == 0) {
+                head = scan = tail;
+                discarding = true;
+                linesDropped++;
+                free = ring.length;
+            }
+            int start = tail & mask;
+            int n = Math.min(length, Math.min(free, ring.length - start));
+            System.arraycopy(data, offset, ring, start, n);
+            tail += n;
+            bytesRead += n;
+            offset += n;
+            length -= n;
+            scanLines(listener);
+        }
+    }
+
+    private void scanLines(Listener listener) {
+        while (scan != tail) {
+            byte b = ring[scan & mask];
+            if (b == '\n' || b == '\r') {
+                if (discarding) {
+                    discarding = false;
+                } else if (scan != head) {
+                    linesParsed++;
+                    int command = match(head, scan);
+                    if (command != UNKNOWN) listener.onCommand(command);
+                }
+                head = scan + 1;
+            }
+            scan++;
+        }
+    }
+
+    private int match(int start, int end) {
+        // Equivalente a trim(): se ignoran espacios y controles en los extremos
+        int length = end - start;
+        while (length > 0 && (ring[start & mask] & 0xFF) <= ' ') {
+            start++;
+            length--;
+        }
+        while (length > 0 && (ring[(start + length - 1) & mask] & 0xFF) <= ' ') length--;
+        for (int c = 0; c < commands.length; c++) {
+            byte[] pattern = commands[c];
+            if (pattern.length != length) continue;
+            int i = 0;
+            while (i < length && upper(ring[(start + i) & mask]) == pattern[i]) i++;
+            if (i == length) return c;
+        }
+        return UNKNOWN;
+    }
+
+    private static byte upper(byte b) {
+        return (b >= 'a' && b <= 'z') ? (byte) (b - 32) : b;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getLinesParsed() {
+        return linesParsed;
+    }
+
+    public long getLinesDropped() {
+        return linesDropped;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.appbt;
+
+/**
+ * Latido del enlace con el ESP32. Manda un PING y espera el PONG con el mismo nonce; si
+ * faltan {@code maxMissed} seguidos avisa que el enlace está muerto para reconectar sin
+ * esperar a que read() falle. Con el enlace estable el intervalo se duplica hasta el máximo
+ * (menos despertares); un latido perdido lo devuelve al mínimo.
+ * Todo corre en el hilo del {@link TaskScheduler}.
+ */
+public class LinkHeartbeat {
+
+    public enum Health { UNKNOWN, GOOD, DEGRADED, DEAD }
+
+    public interface Pinger {
+        /** Devuelve false si el enlace todavía no admite latidos (modo texto o sin definir). */
+        boolean ping(int nonce);
+    }
+
+    public interface Listener {
+        void onHealthChanged(Health health, long rttMs);
+
+        void onLinkDead();
+    }
+
+    // Latidos sanos seguidos antes de alargar el intervalo
+    private static final int RELAX_AFTER = 4;
+    private static final int RTT_WINDOW = 64;
+
+    private final TaskScheduler scheduler;
+    private final Pinger pinger;
+    private final Listener listener;
+    private final long minIntervalMs;
+    private final long maxIntervalMs;
+    private final long timeoutMs;
+    private final int maxMissed;
+    private final RttWindow rtt = new RttWindow(RTT_WINDOW);
+
+    // Solo se tocan desde el hilo del scheduler
+    private int generation;
+    private int nextNonce;
+    private int pendingNonce = -1;
+    private long sentAt;
+    private int missed;
+    private int healthyStreak;
+
+    private volatile long intervalMs;
+    private volatile Health health = Health.UNKNOWN;
+    private volatile long pings;
+    private volatile long pongs;
+    private volatile long missedTotal;
+
+    public LinkHeartbeat(TaskScheduler scheduler, Pinger pinger, Listener listener,
+                         long minIntervalMs, long maxIntervalMs, long timeoutMs, int maxMissed) {
+        this.scheduler = scheduler;
+        this.pinger = pinger;
+        this.listener = listener;
+        this.minIntervalMs = minIntervalMs;
+        this.maxIntervalMs = Math.max(minIntervalMs, maxIntervalMs);
+        this.timeoutMs = Math.min(timeoutMs, minIntervalMs);
+        this.maxMissed = Math.max(1, maxMissed);
+        this.intervalMs = minIntervalMs;
+    }
+
+    /** Empieza con cada conexión nueva. */
+    public void start() {
+        scheduler.execute(() -> {
+            int gen = ++generation;
+            pendingNonce = -1;
+            missed = 0;
+            healthyStreak = 0;
+            intervalMs = minIntervalMs;
+            rtt.clear();
+            setHealth(Health.UNKNOWN);
+            beat(gen);
+        });
+    }
+
+    public void stop() {
+        scheduler.execute(() -> {
+            generation++;
+            pendingNonce = -1;
+        });
+    }
+
+    /** PONG recibido; se puede llamar desde el hilo lector. */
+    public void onPong(int nonce) {
+        scheduler.execute(() -> {
+            if (nonce != pendingNonce) return;
+            pendingNonce = -1;
+            long sample = scheduler.now() - sentAt;
+            rtt.add(sample);
+            pongs++;
+            missed = 0;
+            if (++healthyStreak >= RELAX_AFTER) {
+                healthyStreak = 0;
+                intervalMs = Math.min(maxIntervalMs, intervalMs * 2);
+            }
+            setHealth(Health.GOOD);
+        });
+    }
+
+    private void beat(int gen) {
+        if (gen != generation) return;
+        int nonce = nextNonce;
+        nextNonce = (nextNonce + 1) & 0xFFFF;
+        if (!pinger.ping(nonce)) {
+            scheduler.schedule(() -> beat(gen), maxIntervalMs);
+            return;
+        }
+        pings++;
+        pendingNonce = nonce;
+        sentAt = scheduler.now();
+        scheduler.schedule(() -> checkPong(gen, nonce), timeoutMs);
+    }
+
+    private void checkPong(int gen, int nonce) {
+        if (gen != generation) return;
+        if (pendingNonce != nonce) {
+            // Respondió a tiempo: el próximo latido cuenta desde que salió este
+            scheduler.schedule(() -> beat(gen), intervalMs - timeoutMs);
+            return;
+        }
+        pendingNonce = -1;
+        missed++;
+        missedTotal++;
+        healthyStreak = 0;
+        intervalMs = minIntervalMs;
+        if (missed >= maxMissed) {
+            generation++;
+            setHealth(Health.DEAD);
+            listener.onLinkDead();
+            return;
+        }
+        setHealth(Health.DEGRADED);
+        beat(gen);
+    }
+
+    private void setHealth(Health next) {
+        if (health == next) return;
+        health = next;
+        listener.onHealthChanged(next, rtt.percentile(50));
+    }
+
+    public Health getHealth() {
+        return health;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public RttWindow getRtt() {
+        return rtt;
+    }
+
+    public long getPings() {
+        return pings;
+    }
+
+    public long getPongs() {
+        return pongs;
+    }
+
+    public long getMissed() {
+        return missedTotal;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.appbt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lector del enlace con el ESP32. En modo AUTO decide por el primer byte de cada conexión:
+ * {@link FrameCodec#START} activa las tramas binarias; cualquier otro byte mantiene
+ * el protocolo de texto de los firmwares anteriores.
+ */
+public class LinkProtocol {
+
+    public enum Mode { AUTO, ASCII, BINARY }
+
+    public static final int CMD_SEND_SMS = 0;
+
+    private static final String[] ASCII_COMMANDS = {"SEND_SMS"};
+    private static final byte[] ASCII_SMS_SENT = "SMS_ENVIADO\n".getBytes(StandardCharsets.US_ASCII);
+
+    public interface Listener {
+        /** {@code seq} es -1 cuando el comando llegó por el protocolo de texto. */
+        void onCommand(int command, int seq);
+
+        default void onRetransmit(int command, int seq) {}
+
+        /** Respuesta del ESP32 a {@link #encodePing}; corre en el hilo lector. */
+        default void onPong(int nonce) {}
+    }
+
+    private final Mode configuredMode;
+    private volatile Mode activeMode;
+    private final LineFramer lineFramer = new LineFramer(256, ASCII_COMMANDS);
+    private final FrameDecoder frameDecoder = new FrameDecoder();
+    private final byte[] chunk = new byte[512];
+    private final AtomicInteger outgoingSeq = new AtomicInteger();
+
+    public LinkProtocol(Mode mode) {
+        this.configuredMode = mode;
+        this.activeMode = mode;
+    }
+
+    public void reset() {
+        activeMode = configuredMode;
+        lineFramer.reset();
+        frameDecoder.reset();
+    }
+
+    public Mode getActiveMode() {
+        return activeMode;
+    }
+
+    /** Lee hasta EOF. Se llama desde un único hilo lector por conexión. */
+    public void pump(InputStream in, Listener listener) throws IOException {
+        LineFramer.Listener asciiListener = command -> listener.onCommand(command, -1);
+        FrameDecoder.Listener binaryListener = new FrameDecoder.Listener() {
+            @Override
+            public void onFrame(int type, int seq, byte[] payload, int offset, int length) {
+                if (type == FrameCodec.TYPE_TRIGGER) {
+                    listener.onCommand(CMD_SEND_SMS, seq);
+                } else if (type == FrameCodec.TYPE_PONG && length >= 2) {
+                    listener.onPong(((payload[offset] & 0xFF) << 8) | (payload[offset + 1] & 0xFF));
+                }
+            }
+
+            @Override
+            public void onDuplicate(int type, int seq) {
+                if (type == FrameCodec.TYPE_TRIGGER) listener.onRetransmit(CMD_SEND_SMS, seq);
+            }
+        };
+
+        int n;
+        while ((n = in.read(chunk, 0, chunk.length)) != -1) {
+            if (n == 0) continue;
+            if (activeMode == Mode.AUTO) {
+                activeMode = chunk[0] == FrameCodec.START ? Mode.BINARY : Mode.ASCII;
+            }
+            if (activeMode == Mode.ASCII) {
+                // En texto el framer lee directamente del stream
+                lineFramer.feed(chunk, 0, n, asciiListener);
+                lineFramer.pump(in, asciiListener);
+                return;
+            }
+            frameDecoder.feed(chunk, 0, n, binaryListener);
+        }
+    }
+
+    /**
+     * Respuesta para el ESP32 sobre el comando {@code seq}. En modo texto solo existe
+     * la confirmación de SMS enviado, así que las demás devuelven null.
+     */
+    public byte[] encodeReply(int seq, int status) {
+        if (activeMode == Mode.BINARY && seq >= 0) {
+            return FrameCodec.encodeAck(outgoingSeq.getAndIncrement() & 0xFFFF, seq, status);
+        }
+        return status == FrameCodec.ACK_SMS_SENT ? ASCII_SMS_SENT.clone() : null;
+    }
+
+    /** Latido para el ESP32; null mientras el enlace no esté en modo binario. */
+    public byte[] encodePing(int nonce) {
+        if (activeMode != Mode.BINARY) return null;
+        return FrameCodec.encodePing(outgoingSeq.getAndIncrement() & 0xFFFF, nonce);
+    }
+
+    public LineFramer getLineFramer() {
+        return lineFramer;
+    }
+
+    public FrameDecoder getFrameDecoder() {
+        return frameDecoder;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.appbt;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/** Conexión de flujo con un dispositivo, independiente de BluetoothSocket. */
+public interface LinkSocket extends Closeable {
+
+    InputStream getInputStream() throws IOException;
+
+    OutputStream getOutputStream() throws IOException;
+
+    String getAddress();
+}
@@ -0,0 +1,171 @@
+package com.example.appbt;
+
+import java.util.ArrayDeque;
+
+/**
+ * Cola de salida hacia el ESP32 con un único escritor. Cualquier hilo puede encolar; el hilo
+ * del {@link TaskScheduler} junta los mensajes pequeños pendientes en un solo bloque y lo
+ * escribe de una vez. La cola es acotada: al llenarse se descarta según {@link Overflow}
+ * y se cuenta, igual que las escrituras que fallan.
+ */
+public class LinkWriter {
+
+    public enum Overflow {
+        /** Se pierde el mensaje más viejo: un ACK atrasado ya lo habrá retransmitido el ESP32. */
+        DROP_OLDEST,
+        /** Se rechaza el mensaje nuevo. */
+        DROP_NEWEST
+    }
+
+    /** Destino de cada bloque; devuelve false si no hay enlace o la escritura falló. */
+    public interface Sink {
+        boolean write(byte[] data);
+    }
+
+    private static class Entry {
+        final byte[] data;
+        final long queuedAt;
+        final Runnable onWritten;
+
+        Entry(byte[] data, long queuedAt, Runnable onWritten) {
+            this.data = data;
+            this.queuedAt = queuedAt;
+            this.onWritten = onWritten;
+        }
+    }
+
+    private final TaskScheduler scheduler;
+    private final Sink sink;
+    private final int capacity;
+    private final int maxBatchBytes;
+    private final Overflow overflow;
+
+    // Protegidos por this
+    private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+    private boolean drainScheduled;
+    private long dropped;
+
+    // Solo los escribe el hilo del scheduler
+    private volatile long written;
+    private volatile long failed;
+    private volatile long batches;
+    private volatile long totalLatencyMs;
+    private volatile long maxLatencyMs;
+
+    public LinkWriter(TaskScheduler scheduler, Sink sink, int capacity, int maxBatchBytes, Overflow overflow) {
+        this.scheduler = scheduler;
+        this.sink = sink;
+        this.capacity = Math.max(1, capacity);
+        this.maxBatchBytes = Math.max(1, maxBatchBytes);
+        this.overflow = overflow;
+    }
+
+    /** Encola sin bloquear; devuelve false si el mensaje se descartó por cola llena. */
+    public boolean offer(byte[] data) {
+        return offer(data, null);
+    }
+
+    /** Igual; {@code onWritten} corre en el hilo escritor si el mensaje llega al enlace. */
+    public boolean offer(byte[] data, Runnable onWritten) {
+        Entry entry = new Entry(data, scheduler.now(), onWritten);
+        synchronized (this) {
+            if (queue.size() >= capacity) {
+                dropped++;
+                if (overflow == Overflow.DROP_NEWEST) return false;
+                queue.poll();
+            }
+            queue.add(entry);
+            if (drainScheduled) return true;
+            drainScheduled = true;
+        }
+        scheduler.execute(this::drain);
+        return true;
+    }
+
+    /** Descarta lo pendiente (el enlace se cayó y esos mensajes ya no tienen destino). */
+    public void clear() {
+        synchronized (this) {
+            dropped += queue.size();
+            queue.clear();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Entry[] batch;
+            int size = 0;
+            synchronized (this) {
+                if (queue.isEmpty()) {
+                    drainScheduled = false;
+                    return;
+                }
+                int count = 0;
+                for (Entry entry : queue) {
+                    if (count > 0 && size + entry.data.length > maxBatchBytes) break;
+                    size += entry.data.length;
+                    count++;
+                }
+                batch = new Entry[count];
+                for (int i = 0; i < count; i++) batch[i] = queue.poll();
+            }
+            byte[] block;
+            if (batch.length == 1) {
+                block = batch[0].data;
+            } else {
+                block = new byte[size];
+                int offset = 0;
+                for (Entry entry : batch) {
+                    System.arraycopy(entry.data, 0, block, offset, entry.data.length);
+                    offset += entry.data.length;
+                }
+            }
+            boolean ok = sink.write(block);
+            long now = scheduler.now();
+            if (!ok) {
+                failed += batch.length;
+                continue;
+            }
+            batches++;
+            written += batch.length;
+            for (Entry entry : batch) {
+                long latency = now - entry.queuedAt;
+                totalLatencyMs += latency;
+                if (latency > maxLatencyMs) maxLatencyMs = latency;
+                if (entry.onWritten != null) entry.onWritten.run();
+            }
+        }
+    }
+
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    /** Mensajes descartados por cola llena o al limpiar la cola. */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    /** Mensajes cuya escritura falló (sin enlace o error de E/S). */
+    public long getFailed() {
+        return failed;
+    }
+
+    /** Escrituras al enlace; menos que {@link #getWritten()} cuando se juntaron mensajes. */
+    public long getBatches() {
+        return batches;
+    }
+
+    /** Desde que se encola hasta que termina la escritura. */
+    public long getAverageLatencyMs() {
+        long count = written;
+        return count == 0 ? 0 : totalLatencyMs / count;
+    }
+
+    public long getMaxLatencyMs() {
+        return maxLatencyMs;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.appbt;
+
+/**
+ * Guarda la posición más reciente que llega de las actualizaciones de bajo consumo mientras
+ * el ESP32 está conectado, para que una alerta no tenga que esperar un fix en frío.
+ * También lleva la latencia disparo → posición de cada alerta.
+ */
+public class LocationCache {
+
+    private final long maxAgeMs;
+    private final float maxAccuracyM;
+    private final long followUpWindowMs;
+
+    private volatile LocationFix latest;
+
+    private long latencyCount;
+    private long latencyTotalMs;
+    private long latencyMaxMs;
+    private long lastLatencyMs = -1;
+    private long cacheHits;
+
+    public LocationCache(long maxAgeMs, float maxAccuracyM, long followUpWindowMs) {
+        this.maxAgeMs = maxAgeMs;
+        this.maxAccuracyM = maxAccuracyM;
+        this.followUpWindowMs = followUpWindowMs;
+    }
+
+    public void offer(LocationFix fix) {
+        if (fix == null) return;
+        LocationFix current = latest;
+        if (current == null || fix.getTimeMs() >= current.getTimeMs()) latest = fix;
+    }
+
+    public LocationFix getLatest() {
+        return latest;
+    }
+
+    /** Posición en caché si es reciente y precisa; null si hay que pedir una en alta precisión. */
+    public LocationFix getUsable(long now) {
+        LocationFix fix = latest;
+        return isUsable(fix, now) ? fix : null;
+    }
+
+    public boolean isUsable(LocationFix fix, long now) {
+        return fix != null && fix.ageMs(now) <= maxAgeMs && fix.getAccuracy() <= maxAccuracyM;
+    }
+
+    public long getFollowUpWindowMs() {
+        return followUpWindowMs;
+    }
+
+    /**
+     * Un fix posterior justifica un mensaje de seguimiento si es claramente más preciso
+     * o si la persona se movió más allá del error del fix ya enviado.
+     */
+    public static boolean isWorthFollowUp(LocationFix sent, LocationFix candidate) {
+        if (sent == null || candidate == null || candidate.getTimeMs() <= sent.getTimeMs()) return false;
+        if (candidate.getAccuracy() <= sent.getAccuracy() / 2) return true;
+        double moved = distanceMeters(sent, candidate);
+        return moved > sent.getAccuracy() + candidate.getAccuracy();
+    }
+
+    static double distanceMeters(LocationFix a, LocationFix b) {
+        double lat1 = Math.toRadians(a.getLatitude());
+        double lat2 = Math.toRadians(b.getLatitude());
+        double dLat = lat2 - lat1;
+        double dLon = Math.toRadians(b.getLongitude() - a.getLongitude());
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * 6371000.0 * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    public synchronized void recordTriggerToFix(long latencyMs, boolean fromCache) {
+        latencyCount++;
+        latencyTotalMs += latencyMs;
+        latencyMaxMs = Math.max(latencyMaxMs, latencyMs);
+        lastLatencyMs = latencyMs;
+        if (fromCache) cacheHits++;
+    }
+
+    public synchronized long getLastLatencyMs() {
+        return lastLatencyMs;
+    }
+
+    public synchronized long getMeanLatencyMs() {
+        return latencyCount == 0 ? -1 : latencyTotalMs / latencyCount;
+    }
+
+    public synchronized long getMaxLatencyMs() {
+        return latencyMaxMs;
+    }
+
+    public synchronized long getCacheHits() {
+        return cacheHits;
+    }
+
+    public synchronized long getLatencyCount() {
+        return latencyCount;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.appbt;
+
+/** Posición inmutable; {@code timeMs} está en la base de elapsedRealtime. */
+public final class LocationFix {
+
+    private final double latitude;
+    private final double longitude;
+    private final float accuracy;
+    private final long timeMs;
+
+    public LocationFix(double latitude, double longitude, float accuracy, long timeMs) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.accuracy = accuracy;
+        this.timeMs = timeMs;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public float getAccuracy() {
+        return accuracy;
+    }
+
+    public long getTimeMs() {
+        return timeMs;
+    }
+
+    public long ageMs(long now) {
+        return now - timeMs;
+    }
+}
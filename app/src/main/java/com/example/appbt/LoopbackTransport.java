@@ -0,0 +1,223 @@
+package com.example.appbt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link Transport} en memoria: cada dirección registrada es un dispositivo simulado que
+ * recibe su extremo del enlace al conectar. Permite correr toda la lógica del enlace en una
+ * JVM común, sin radio. Cerrar cualquiera de los dos extremos corta el enlace en ambos
+ * sentidos, como un socket RFCOMM.
+ */
+public class LoopbackTransport implements Transport {
+
+    /** Lado del dispositivo: recibe un socket por cada conexión aceptada. */
+    public interface Device {
+        void onConnected(LinkSocket socket);
+    }
+
+    /** Aviso de dispositivos encontrados durante una búsqueda. */
+    public interface DiscoveryListener {
+        void onDeviceFound(String address);
+    }
+
+    public static final int DEFAULT_BUFFER = 4096;
+
+    private final Map<String, Device> devices = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> reachable = new ConcurrentHashMap<>();
+    private final int bufferSize;
+    private volatile DiscoveryListener discoveryListener;
+    private volatile boolean discovering;
+
+    public LoopbackTransport() {
+        this(DEFAULT_BUFFER);
+    }
+
+    public LoopbackTransport(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public void register(String address, Device device) {
+        devices.put(address, device);
+        reachable.put(address, true);
+    }
+
+    /** Simula que el dispositivo sale o vuelve a entrar en alcance; si hay búsqueda, aparece. */
+    public void setReachable(String address, boolean inRange) {
+        if (!devices.containsKey(address)) return;
+        reachable.put(address, inRange);
+        DiscoveryListener listener = discoveryListener;
+        if (inRange && discovering && listener != null) listener.onDeviceFound(address);
+    }
+
+    public void setDiscoveryListener(DiscoveryListener discoveryListener) {
+        this.discoveryListener = discoveryListener;
+    }
+
+    @Override
+    public LinkSocket connect(String address) throws IOException {
+        Device device = address != null ? devices.get(address) : null;
+        if (device == null || !Boolean.TRUE.equals(reachable.get(address))) {
+            throw new IOException("Dispositivo fuera de alcance: " + address);
+        }
+        Pipe toDevice = new Pipe(bufferSize);
+        Pipe toPhone = new Pipe(bufferSize);
+        Link link = new Link(toDevice, toPhone);
+        device.onConnected(new End(link, toDevice, toPhone, "telefono"));
+        return new End(link, toPhone, toDevice, address);
+    }
+
+    @Override
+    public boolean startDiscovery() {
+        discovering = true;
+        DiscoveryListener listener = discoveryListener;
+        if (listener == null) return true;
+        for (Map.Entry<String, Boolean> entry : reachable.entrySet()) {
+            if (entry.getValue()) listener.onDeviceFound(entry.getKey());
+        }
+        return true;
+    }
+
+    @Override
+    public void cancelDiscovery() {
+        discovering = false;
+    }
+
+    private static class Link {
+        final Pipe a, b;
+
+        Link(Pipe a, Pipe b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        void close() {
+            a.close();
+            b.close();
+        }
+    }
+
+    private static class End implements LinkSocket {
+        private final Link link;
+        private final InputStream in;
+        private final OutputStream out;
+        private final String address;
+
+        End(Link link, Pipe incoming, Pipe outgoing, String address) {
+            this.link = link;
+            this.in = incoming.input();
+            this.out = outgoing.output();
+            this.address = address;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return in;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return out;
+        }
+
+        @Override
+        public String getAddress() {
+            return address;
+        }
+
+        @Override
+        public void close() {
+            link.close();
+        }
+    }
+
+    /** Búfer circular de un solo sentido; escribir con el búfer lleno bloquea. */
+    private static class Pipe {
+        private final byte[] buffer;
+        private int head;
+        private int size;
+        private boolean closed;
+
+        Pipe(int capacity) {
+            buffer = new byte[Math.max(1, capacity)];
+        }
+
+        synchronized void close() {
+            closed = true;
+            notifyAll();
+        }
+
+        synchronized int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            while (size == 0) {
+                if (closed) return -1;
+                await();
+            }
+            int n = Math.min(len, size);
+            for (int i = 0; i < n; i++) b[off + i] = buffer[(head + i) % buffer.length];
+            head = (head + n) % buffer.length;
+            size -= n;
+            notifyAll();
+            return n;
+        }
+
+        synchronized void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (closed) throw new IOException("Enlace cerrado");
+                if (size == buffer.length) {
+                    await();
+                    continue;
+                }
+                int n = Math.min(len, buffer.length - size);
+                int tail = (head + size) % buffer.length;
+                for (int i = 0; i < n; i++) buffer[(tail + i) % buffer.length] = b[off + i];
+                size += n;
+                off += n;
+                len -= n;
+                notifyAll();
+            }
+        }
+
+        private void await() throws InterruptedIOException {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+
+        InputStream input() {
+            return new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    byte[] one = new byte[1];
+                    return Pipe.this.read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return Pipe.this.read(b, off, len);
+                }
+            };
+        }
+
+        OutputStream output() {
+            return new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    Pipe.this.write(new byte[]{(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    Pipe.this.write(b, off, len);
+                }
+            };
+        }
+    }
+}
@@ -3,28 +3,34 @@ package com.example.appbt;
 import android.Manifest;
 import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
-import android.content.BroadcastReceiver;
-import android.content.Context;
+import android.content.ComponentName;
 import android.content.Intent;
-import android.content.IntentFilter;
-import android.content.SharedPreferences;
+import android.content.ServiceConnection;
 import android.content.pm.PackageManager;
 import android.location.Location;
-import android.os.Build;
 import android.os.Bundle;
+import android.os.IBinder;
+import android.os.PowerManager;
 import android.os.Looper;
 import android.provider.Settings;
 import android.telephony.SmsManager;
+import android.text.Editable;
 import android.text.InputType;
+import android.text.TextWatcher;
 import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -33,37 +39,63 @@ import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationCallback;
 import com.google.android.gms.location.LocationRequest;
 import com.google.android.gms.location.LocationResult;
-import com.google.android.gms.location.LocationServices;
 
-import com.google.firebase.FirebaseApp;
-import com.google.firebase.firestore.FirebaseFirestore;
 
+import java.io.IOException;
+import java.text.DateFormat;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Locale;
-import java.util.Map;
+import java.util.Date;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class MainActivity extends AppCompatActivity {
 
     private static final String TAG = "MainActivity";
     private static final int REQUEST_ENABLE_BT = 200;
+    private static final int REQUEST_READ_CONTACTS = 201;
+    private static final int IMPORT_PAGE_SIZE = 200;
+
+    private static final String ESP32_ADDRESS = "08:A6:F7:47:01:62";
 
-    private FusedLocationProviderClient fusedLocationClient;
     private TextView statusText;
+    // Lo que dijo el servicio por el enlace; sin enlace se supone detenido
+    private boolean serviceRunning;
 
-    private ArrayList<Contact> contacts = new ArrayList<>();
     private ContactAdapter adapter;
-    private SharedPreferences preferences;
+    // null hasta que AppServices termine de leer los contactos del disco
+    @Nullable
+    private ContactRepository contactRepository;
+    private EditText searchInput;
+    private Button importContactsBtn;
+    private ContactIndex contactIndex;
+
+    // El índice de búsqueda se arma en su hilo; si llegan varios cambios seguidos se arma solo el último
+    private final ExecutorService indexExecutor = Executors.newSingleThreadExecutor();
+    private final ExecutorService importExecutor = Executors.newSingleThreadExecutor();
+    private final AtomicReference<List<Contact>> pendingIndex = new AtomicReference<>();
+
+    private final ContactRepository.Listener contactsListener = this::rebuildIndex;
 
-    private final BroadcastReceiver statusReceiver = new BroadcastReceiver() {
+    @Nullable
+    private StateHolder.Subscription statusSubscription;
+
+    // Sin BIND_AUTO_CREATE: el enlace no crea el servicio, solo se conecta cuando ya corre
+    private final ServiceConnection serviceConnection = new ServiceConnection() {
         @Override
-        public void onReceive(Context context, Intent intent) {
-            String status = intent.getStringExtra("status");
-            Log.i(TAG, "Estado recibido: " + status);
-            if (status != null) {
-                runOnUiThread(() -> statusText.setText("Estado: " + status));
-            }
+        public void onServiceConnected(ComponentName name, IBinder service) {
+            cancelStatusSubscription();
+            StateHolder<ServiceStatus> status = ((BluetoothForegroundService.LocalBinder) service).getStatus();
+            statusSubscription = status.subscribe(ContextCompat.getMainExecutor(MainActivity.this),
+                    MainActivity.this::showStatus);
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            cancelStatusSubscription();
+            serviceRunning = false;
         }
     };
 
@@ -71,60 +103,189 @@ public class MainActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        AppServices.mark("activity_created");
+        markFirstFrame();
 
-        FirebaseApp.initializeApp(this);
-        fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
+        // Firebase, ubicación y contactos se crean en segundo plano; aquí solo se piden
+        AppServices.get(this).warmUp();
 
         statusText = findViewById(R.id.statusText);
-        preferences = getSharedPreferences("ContactsPrefs", MODE_PRIVATE);
+        statusText.setOnLongClickListener(v -> {
+            startActivity(new Intent(this, LatencyActivity.class));
+            return true;
+        });
 
         checkAndEnableBluetooth();
-        connectIfPaired();
-        showBatteryOptimizationDialog();
-        loadContacts();
+        // Al recrear la actividad (p. ej. al girar) el servicio ya se pidió
+        if (savedInstanceState == null) connectIfPaired();
+        if (!isIgnoringBatteryOptimizations()) showBatteryOptimizationDialog();
 
         RecyclerView recyclerView = findViewById(R.id.numbersRecyclerView);
-        adapter = new ContactAdapter(contacts, new ContactAdapter.OnItemActionListener() {
+        adapter = new ContactAdapter(new ContactAdapter.OnItemActionListener() {
             @Override
-            public void onEdit(int position) {
-                showEditContactDialog(position);
+            public void onEdit(Contact contact) {
+                showEditContactDialog(contact);
             }
 
             @Override
-            public void onDelete(int position) {
-                showDeleteConfirmationDialog(position);
+            public void onDelete(Contact contact) {
+                showDeleteConfirmationDialog(contact);
             }
         });
 
         recyclerView.setAdapter(adapter);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
 
+        searchInput = findViewById(R.id.searchInput);
+        searchInput.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                applyFilter();
+            }
+        });
+
+        importContactsBtn = findViewById(R.id.importContactsBtn);
+        importContactsBtn.setOnClickListener(v -> importFromPhonebook());
+
         Button addNumberBtn = findViewById(R.id.addNumberBtn);
         addNumberBtn.setOnClickListener(v -> showAddContactDialog());
 
         Button testSmsBtn = findViewById(R.id.testSmsBtn);
         testSmsBtn.setOnClickListener(v -> sendTestSMS());
 
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            startForegroundService(new Intent(this, BluetoothForegroundService.class));
+        // Los botones que usan contactos esperan a que se lean del disco
+        importContactsBtn.setEnabled(false);
+        addNumberBtn.setEnabled(false);
+        testSmsBtn.setEnabled(false);
+        AppServices.get(this).contacts(ContextCompat.getMainExecutor(this), repository -> {
+            if (isDestroyed()) return;
+            contactRepository = repository;
+            adapter.submitList(repository.getContacts());
+            repository.addListener(contactsListener);
+            rebuildIndex(repository.getContacts());
+            importContactsBtn.setEnabled(true);
+            addNumberBtn.setEnabled(true);
+            testSmsBtn.setEnabled(true);
+        });
+    }
+
+    private void markFirstFrame() {
+        View content = findViewById(android.R.id.content);
+        content.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                content.getViewTreeObserver().removeOnPreDrawListener(this);
+                AppServices.mark("first_frame");
+                return true;
+            }
+        });
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        bindService(new Intent(this, BluetoothForegroundService.class), serviceConnection, 0);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        cancelStatusSubscription();
+        unbindService(serviceConnection);
+    }
+
+    private void cancelStatusSubscription() {
+        if (statusSubscription != null) {
+            statusSubscription.cancel();
+            statusSubscription = null;
+        }
+    }
+
+    private void showStatus(ServiceStatus status) {
+        Log.i(TAG, "Estado: " + status.getLink() + ", latido " + status.getHealth());
+        serviceRunning = status.isRunning();
+        statusText.setText(describe(status));
+    }
+
+    // Los textos para el usuario se arman aquí; el servicio solo publica datos
+    private static String describe(ServiceStatus status) {
+        StringBuilder text = new StringBuilder("Estado: ");
+        if (!status.isRunning()) {
+            text.append("Servicio detenido");
+        } else if (status.getProblem() == ServiceStatus.Problem.MISSING_SCAN_PERMISSION) {
+            text.append("Falta permiso BLUETOOTH_SCAN");
+        } else if (status.getProblem() == ServiceStatus.Problem.NO_BLUETOOTH) {
+            text.append("Este teléfono no tiene Bluetooth");
         } else {
-            startService(new Intent(this, BluetoothForegroundService.class));
+            text.append(describeLink(status));
+            if (status.getDevices() > 1) {
+                text.append(" (").append(status.getConnectedDevices()).append(" de ")
+                        .append(status.getDevices()).append(" conectados)");
+            }
+        }
+        ServiceStatus.Alert alert = status.getLastAlert();
+        if (alert != null) {
+            String time = DateFormat.getTimeInstance(DateFormat.SHORT).format(new Date(alert.atMs));
+            if (!alert.finished) {
+                text.append("\nComando SEND_SMS recibido (").append(time).append(')');
+            } else {
+                text.append(alert.followUp ? "\nSeguimiento entregado a " : "\nSMS entregado a ")
+                        .append(alert.delivered).append('/').append(alert.total)
+                        .append(" (").append(time).append(')');
+            }
         }
+        if (status.getContacts() == 0) text.append("\nSin contactos de emergencia");
+        return text.toString();
     }
 
-    @Override
-    protected void onResume() {
-        super.onResume();
-        IntentFilter filter = new IntentFilter("BT_SERVICE_STATUS");
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            registerReceiver(statusReceiver, filter, Context.RECEIVER_EXPORTED);
+    private static String describeLink(ServiceStatus status) {
+        switch (status.getLink()) {
+            case DISCOVERING:
+                return "Buscando ESP32...";
+            case CONNECTING:
+                return "Conectando al ESP32...";
+            case BACKOFF:
+                return "Conexión perdida";
+            case CONNECTED:
+                switch (status.getHealth()) {
+                    case GOOD:
+                        return "Conectado a ESP32 ✅ · RTT " + status.getRttMs() + " ms";
+                    case DEGRADED:
+                        return "Enlace inestable: el ESP32 no respondió al latido";
+                    case DEAD:
+                        return "Sin respuesta del ESP32, reconectando...";
+                    default:
+                        return "Conectado a ESP32 ✅";
+                }
+            default:
+                return "Desconectado";
         }
     }
 
     @Override
-    protected void onPause() {
-        super.onPause();
-        unregisterReceiver(statusReceiver);
+    protected void onDestroy() {
+        super.onDestroy();
+        if (contactRepository != null) contactRepository.removeListener(contactsListener);
+        indexExecutor.shutdown();
+        importExecutor.shutdown();
+    }
+
+    @Override
+    public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions, @NonNull int[] grantResults) {
+        super.onRequestPermissionsResult(requestCode, permissions, grantResults);
+        if (requestCode == REQUEST_READ_CONTACTS) {
+            if (grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
+                importFromPhonebook();
+            } else {
+                Toast.makeText(this, "Se necesita acceso a la agenda para importar", Toast.LENGTH_SHORT).show();
+            }
+        }
     }
 
     private void checkAndEnableBluetooth() {
@@ -153,18 +314,28 @@ public class MainActivity extends AppCompatActivity {
         if (bluetoothAdapter != null && bluetoothAdapter.isEnabled()) {
             Set<BluetoothDevice> pairedDevices = bluetoothAdapter.getBondedDevices();
             for (BluetoothDevice device : pairedDevices) {
-                if (device.getAddress().equals("08:A6:F7:47:01:62")) {
+                if (device.getAddress().equals(ESP32_ADDRESS)) {
                     Log.i(TAG, "ESP32 emparejado encontrado: " + device.getName());
-                    Intent serviceIntent = new Intent(this, BluetoothForegroundService.class);
-                    serviceIntent.putExtra("device_address", device.getAddress());
-                    ContextCompat.startForegroundService(this, serviceIntent);
+                    startBluetoothService(device.getAddress());
                     return;
                 }
             }
             Log.i(TAG, "ESP32 no emparejado. Iniciando servicio sin conexión directa.");
-            Intent serviceIntent = new Intent(this, BluetoothForegroundService.class);
-            ContextCompat.startForegroundService(this, serviceIntent);
         }
+        startBluetoothService(null);
+    }
+
+    // Si el servicio ya corre no se vuelve a arrancar: cada onStartCommand de más reintenta los enlaces
+    private void startBluetoothService(@Nullable String address) {
+        if (serviceRunning) return;
+        Intent serviceIntent = new Intent(this, BluetoothForegroundService.class);
+        if (address != null) serviceIntent.putExtra("device_address", address);
+        ContextCompat.startForegroundService(this, serviceIntent);
+    }
+
+    private boolean isIgnoringBatteryOptimizations() {
+        PowerManager powerManager = getSystemService(PowerManager.class);
+        return powerManager != null && powerManager.isIgnoringBatteryOptimizations(getPackageName());
     }
 
     private void showBatteryOptimizationDialog() {
@@ -181,26 +352,61 @@ public class MainActivity extends AppCompatActivity {
         startActivity(intent);
     }
 
-    private void loadContacts() {
-        String contactsString = preferences.getString("contacts", "");
-        contacts.clear();
-        if (!contactsString.isEmpty()) {
-            String[] contactArray = contactsString.split(";");
-            for (String contact : contactArray) {
-                String[] parts = contact.split(",");
-                if (parts.length == 2) {
-                    contacts.add(new Contact(parts[0], parts[1]));
-                }
-            }
+    private void rebuildIndex(List<Contact> contacts) {
+        if (pendingIndex.getAndSet(contacts) != null || indexExecutor.isShutdown()) return;
+        indexExecutor.execute(() -> {
+            ContactIndex index = ContactIndex.build(pendingIndex.getAndSet(null));
+            runOnUiThread(() -> {
+                contactIndex = index;
+                applyFilter();
+            });
+        });
+    }
+
+    private void applyFilter() {
+        if (contactIndex == null) return;
+        adapter.submitList(contactIndex.search(searchInput.getText().toString()));
+    }
+
+    private void importFromPhonebook() {
+        if (contactRepository == null) return;
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.READ_CONTACTS) != PackageManager.PERMISSION_GRANTED) {
+            ActivityCompat.requestPermissions(this, new String[]{Manifest.permission.READ_CONTACTS}, REQUEST_READ_CONTACTS);
+            return;
         }
+        importContactsBtn.setEnabled(false);
+        ContactImporter importer = new ContactImporter(contactRepository, IMPORT_PAGE_SIZE);
+        PhonebookSource source = new PhonebookSource(getContentResolver());
+        importExecutor.execute(() -> {
+            String message;
+            try {
+                ContactImporter.Result result = importer.run(source, (scanned, imported) -> runOnUiThread(() ->
+                        importContactsBtn.setText("Importando... " + imported)));
+                message = "Importados " + result.imported + " contactos (" + result.duplicates + " repetidos)";
+            } catch (IOException e) {
+                Log.e(TAG, "Error importando contactos", e);
+                message = "No se pudo importar la agenda";
+            }
+            String finalMessage = message;
+            runOnUiThread(() -> {
+                importContactsBtn.setEnabled(true);
+                importContactsBtn.setText("Importar de la agenda");
+                Toast.makeText(this, finalMessage, Toast.LENGTH_LONG).show();
+            });
+        });
+    }
+
+    private interface ContactEdit {
+        void apply() throws IOException;
     }
 
-    private void saveContacts() {
-        StringBuilder sb = new StringBuilder();
-        for (Contact contact : contacts) {
-            sb.append(contact.getName()).append(",").append(contact.getNumber()).append(";");
+    private void saveContact(ContactEdit edit) {
+        try {
+            edit.apply();
+        } catch (IOException e) {
+            Log.e(TAG, "Error guardando contactos", e);
+            Toast.makeText(this, "No se pudo guardar el contacto", Toast.LENGTH_LONG).show();
         }
-        preferences.edit().putString("contacts", sb.toString()).apply();
     }
 
     private void showAddContactDialog() {
@@ -226,9 +432,7 @@ public class MainActivity extends AppCompatActivity {
             String number = numberInput.getText().toString().trim();
 
             if (!name.isEmpty() && !number.isEmpty()) {
-                contacts.add(new Contact(name, number));
-                saveContacts();
-                adapter.notifyDataSetChanged();
+                saveContact(() -> contactRepository.add(new Contact(name, number)));
             }
         });
 
@@ -236,7 +440,7 @@ public class MainActivity extends AppCompatActivity {
         builder.show();
     }
 
-    private void showEditContactDialog(int position) {
+    private void showEditContactDialog(Contact contact) {
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         builder.setTitle("Editar Contacto");
 
@@ -244,11 +448,11 @@ public class MainActivity extends AppCompatActivity {
         layout.setOrientation(LinearLayout.VERTICAL);
 
         final EditText nameInput = new EditText(this);
-        nameInput.setText(contacts.get(position).getName());
+        nameInput.setText(contact.getName());
         layout.addView(nameInput);
 
         final EditText numberInput = new EditText(this);
-        numberInput.setText(contacts.get(position).getNumber());
+        numberInput.setText(contact.getNumber());
         numberInput.setInputType(InputType.TYPE_CLASS_PHONE);
         layout.addView(numberInput);
 
@@ -259,9 +463,7 @@ public class MainActivity extends AppCompatActivity {
             String number = numberInput.getText().toString().trim();
 
             if (!name.isEmpty() && !number.isEmpty()) {
-                contacts.set(position, new Contact(name, number));
-                saveContacts();
-                adapter.notifyDataSetChanged();
+                saveContact(() -> contactRepository.update(new Contact(contact.getId(), name, number)));
             }
         });
 
@@ -269,14 +471,12 @@ public class MainActivity extends AppCompatActivity {
         builder.show();
     }
 
-    private void showDeleteConfirmationDialog(int position) {
+    private void showDeleteConfirmationDialog(Contact contact) {
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         builder.setTitle("Eliminar Contacto")
                 .setMessage("¿Deseas eliminar este contacto?")
                 .setPositiveButton("Eliminar", (dialog, which) -> {
-                    contacts.remove(position);
-                    saveContacts();
-                    adapter.notifyDataSetChanged();
+                    saveContact(() -> contactRepository.remove(contact.getId()));
                 })
                 .setNegativeButton("Cancelar", null)
                 .show();
@@ -289,7 +489,8 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
-        fusedLocationClient.getLastLocation().addOnSuccessListener(location -> {
+        FusedLocationProviderClient locationClient = AppServices.get(this).location();
+        locationClient.getLastLocation().addOnSuccessListener(location -> {
             if (location != null) {
                 callback.onLocationResult(location);
             } else {
@@ -301,12 +502,12 @@ public class MainActivity extends AppCompatActivity {
                 LocationCallback tempCallback = new LocationCallback() {
                     @Override
                     public void onLocationResult(LocationResult locationResult) {
-                        fusedLocationClient.removeLocationUpdates(this);
+                        locationClient.removeLocationUpdates(this);
                         callback.onLocationResult(locationResult.getLastLocation());
                     }
                 };
 
-                fusedLocationClient.requestLocationUpdates(request, tempCallback, Looper.getMainLooper());
+                locationClient.requestLocationUpdates(request, tempCallback, Looper.getMainLooper());
             }
         });
     }
@@ -316,25 +517,21 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void sendTestSMS() {
-        loadContacts();
         getLocationAsync(location -> {
-            String locationInfo = "Ubicación no disponible";
-            if (location != null) {
-                locationInfo = String.format(Locale.US,
-                        "Ubicación: https://maps.google.com/?q=%.6f,%.6f\nPrecisión: %.0f m",
-                        location.getLatitude(), location.getLongitude(), location.getAccuracy());
-            }
-
-            String finalMessage = "🚨 MENSAJE DE PRUEBA 🚨\n\n" + locationInfo;
+            SmsComposer.Message sms = location != null
+                    ? SmsComposer.TEST_ALERT.compose(location.getLatitude(), location.getLongitude(), location.getAccuracy())
+                    : SmsComposer.TEST_ALERT.compose(null);
+            String finalMessage = sms.text;
 
             try {
                 SmsManager smsManager = SmsManager.getDefault();
-                for (Contact contact : contacts) {
-                    ArrayList<String> parts = smsManager.divideMessage(finalMessage);
-                    smsManager.sendMultipartTextMessage(contact.getNumber(), null, parts, null, null);
+                ArrayList<String> parts = smsManager.divideMessage(finalMessage);
+                for (String number : contactRepository.getNumbers()) {
+                    smsManager.sendMultipartTextMessage(number, null, parts, null, null);
                 }
-                Toast.makeText(this, "SMS de prueba enviado", Toast.LENGTH_SHORT).show();
-                guardarMensajeEnFirestore("PRUEBA", finalMessage, location.getLatitude(), location.getLongitude());
+                Toast.makeText(this, "SMS de prueba enviado (" + sms.segments + " segmento(s) por contacto)",
+                        Toast.LENGTH_SHORT).show();
+                guardarMensajeEnFirestore("PRUEBA", finalMessage, location);
             } catch (Exception e) {
                 Toast.makeText(this, "Error enviando SMS: " + e.getMessage(), Toast.LENGTH_LONG).show();
                 Log.e(TAG, "Error enviando SMS", e);
@@ -342,22 +539,11 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
-    private void guardarMensajeEnFirestore(String tipo, String mensaje, double lat, double lon) {
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-
-        Map<String, Object> datos = new HashMap<>();
-        datos.put("tipo", tipo);
-        datos.put("mensaje", mensaje);
-        datos.put("fecha", System.currentTimeMillis());
-        datos.put("latitud", lat);
-        datos.put("longitud", lon);
-
-        db.collection("ubicacion").add(datos)
-                .addOnSuccessListener(documentReference -> {
-                    Log.d("FIREBASE", "Mensaje prueba guardado con ID: " + documentReference.getId());
-                })
-                .addOnFailureListener(e -> {
-                    Log.e("FIREBASE", "Error al guardar mensaje de prueba", e);
-                });
+    private void guardarMensajeEnFirestore(String tipo, String mensaje, @Nullable Location location) {
+        double lat = location != null ? location.getLatitude() : 0;
+        double lon = location != null ? location.getLongitude() : 0;
+        float accuracy = location != null ? location.getAccuracy() : 0;
+        // Queda primero en el outbox local; la subida a Firestore se hace en lote cuando hay red
+        AlertHistory.get(this).record(AlertEvent.create(AlertEvent.ORIGIN_APP, tipo, lat, lon, accuracy, mensaje));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,146 @@
+package com.example.appbt;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Guarda instantáneas de un {@link MetricsRegistry} en un CSV local que rota por tamaño:
+ * {@code metrics.csv} es el actual y {@code metrics.1.csv}, {@code metrics.2.csv}... los
+ * anteriores. Cada archivo empieza con la fila de nombres y después va una fila de números
+ * por instantánea, así que ocupa poco y se lee con cualquier planilla. Si cambian las
+ * métricas registradas se empieza un archivo nuevo. Todo corre en el hilo del scheduler.
+ *
+ * <pre>
+ * adb shell run-as com.example.appbt cat files/metrics/metrics.csv
+ * </pre>
+ */
+public class MetricsLog {
+
+    static final String NAME = "metrics";
+    static final String SUFFIX = ".csv";
+
+    private final MetricsRegistry registry;
+    private final TaskScheduler scheduler;
+    private final File dir;
+    private final long intervalMs;
+    private final long maxFileBytes;
+    private final int maxFiles;
+
+    // Solo se tocan desde el hilo del scheduler
+    private String header;
+    private boolean running;
+    private int generation;
+    private volatile long snapshots;
+    private volatile long failures;
+
+    public MetricsLog(MetricsRegistry registry, TaskScheduler scheduler, File dir, long intervalMs,
+                      long maxFileBytes, int maxFiles) {
+        this.registry = registry;
+        this.scheduler = scheduler;
+        this.dir = dir;
+        this.intervalMs = intervalMs;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = Math.max(1, maxFiles);
+    }
+
+    public void start() {
+        scheduler.execute(() -> {
+            if (running) return;
+            running = true;
+            int current = ++generation;
+            scheduler.schedule(() -> tick(current), intervalMs);
+        });
+    }
+
+    /** Deja de programar instantáneas y guarda una última. */
+    public void stop() {
+        scheduler.execute(() -> {
+            if (!running) return;
+            running = false;
+            generation++;
+            writeNow();
+        });
+    }
+
+    private void tick(int tickGeneration) {
+        if (!running || tickGeneration != generation) return;
+        writeNow();
+        scheduler.schedule(() -> tick(tickGeneration), intervalMs);
+    }
+
+    /** Escribe una fila ya; un error de disco se cuenta y se reintenta en la próxima. */
+    void writeNow() {
+        List<String> columns = registry.columns();
+        long[] values = registry.values();
+        if (values.length != columns.size()) return;
+        StringBuilder row = new StringBuilder();
+        row.append(System.currentTimeMillis());
+        for (long value : values) row.append(',').append(value);
+        row.append('\n');
+        String expectedHeader = "time_ms," + String.join(",", columns);
+        try {
+            if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("No se pudo crear " + dir);
+            File file = current();
+            if (header == null && file.length() > 0) header = readHeader(file);
+            boolean newFile = file.length() == 0;
+            if (!newFile && (!expectedHeader.equals(header) || file.length() + row.length() > maxFileBytes)) {
+                roll();
+                newFile = true;
+            }
+            try (OutputStream out = new FileOutputStream(file, true)) {
+                if (newFile) out.write((expectedHeader + "\n").getBytes(StandardCharsets.US_ASCII));
+                out.write(row.toString().getBytes(StandardCharsets.US_ASCII));
+            }
+            header = expectedHeader;
+            snapshots++;
+        } catch (IOException e) {
+            failures++;
+        }
+    }
+
+    private File current() {
+        return new File(dir, NAME + SUFFIX);
+    }
+
+    private File rolled(int index) {
+        return new File(dir, NAME + "." + index + SUFFIX);
+    }
+
+    private void roll() throws IOException {
+        File oldest = rolled(maxFiles - 1);
+        if (oldest.exists() && !oldest.delete()) throw new IOException("No se pudo borrar " + oldest);
+        for (int i = maxFiles - 2; i >= 1; i--) {
+            File from = rolled(i);
+            if (from.exists() && !from.renameTo(rolled(i + 1))) throw new IOException("No se pudo rotar " + from);
+        }
+        File file = current();
+        if (maxFiles == 1) {
+            if (!file.delete()) throw new IOException("No se pudo borrar " + file);
+        } else if (!file.renameTo(rolled(1))) {
+            throw new IOException("No se pudo rotar " + file);
+        }
+        header = null;
+    }
+
+    private static String readHeader(File file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.US_ASCII))) {
+            return reader.readLine();
+        }
+    }
+
+    public long getSnapshots() {
+        return snapshots;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.appbt;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Métricas del servicio por nombre: contadores sin locks ({@link LongAdder}, repartidos entre
+ * hilos), gauges que se leen al momento y histogramas de latencia. Las métricas se registran
+ * al arrancar; actualizarlas no toma locks. Se vuelcan con {@code dumpsys} y se guardan
+ * periódicamente con {@link MetricsLog}.
+ */
+public class MetricsRegistry {
+
+    public static final class Counter {
+        private final LongAdder adder = new LongAdder();
+
+        public void increment() {
+            adder.increment();
+        }
+
+        public void add(long delta) {
+            adder.add(delta);
+        }
+
+        public long get() {
+            return adder.sum();
+        }
+    }
+
+    // Protegido por this; en orden de registro
+    private final Map<String, Object> metrics = new LinkedHashMap<>();
+
+    /** Devuelve el contador con ese nombre, creándolo si hace falta. */
+    public synchronized Counter counter(String name) {
+        Object existing = metrics.get(name);
+        if (existing instanceof Counter) return (Counter) existing;
+        Counter counter = new Counter();
+        metrics.put(name, counter);
+        return counter;
+    }
+
+    /** Valor que se lee de {@code supplier} en cada volcado; reemplaza al anterior. */
+    public synchronized void gauge(String name, LongSupplier supplier) {
+        metrics.put(name, supplier);
+    }
+
+    public synchronized LatencyHistogram histogram(String name) {
+        Object existing = metrics.get(name);
+        if (existing instanceof LatencyHistogram) return (LatencyHistogram) existing;
+        return histogram(name, new LatencyHistogram());
+    }
+
+    /** Publica un histograma que ya mantiene otra clase. */
+    public synchronized LatencyHistogram histogram(String name, LatencyHistogram histogram) {
+        metrics.put(name, histogram);
+        return histogram;
+    }
+
+    /**
+     * Nombres de columna en el orden de {@link #values()}; cada histograma ocupa cuatro:
+     * cantidad, p50, p95 y máximo.
+     */
+    public synchronized List<String> columns() {
+        List<String> columns = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : metrics.entrySet()) {
+            if (entry.getValue() instanceof LatencyHistogram) {
+                columns.add(entry.getKey() + ".n");
+                columns.add(entry.getKey() + ".p50");
+                columns.add(entry.getKey() + ".p95");
+                columns.add(entry.getKey() + ".max");
+            } else {
+                columns.add(entry.getKey());
+            }
+        }
+        return columns;
+    }
+
+    public long[] values() {
+        List<Object> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(metrics.values());
+        }
+        List<Long> values = new ArrayList<>();
+        for (Object metric : snapshot) {
+            if (metric instanceof LatencyHistogram) {
+                LatencyHistogram h = (LatencyHistogram) metric;
+                values.add(h.getCount());
+                values.add(h.percentile(50));
+                values.add(h.percentile(95));
+                values.add(h.getMax());
+            } else {
+                values.add(read(metric));
+            }
+        }
+        long[] result = new long[values.size()];
+        for (int i = 0; i < result.length; i++) result[i] = values.get(i);
+        return result;
+    }
+
+    /** Una métrica por línea, para {@code dumpsys}. */
+    public void dump(PrintWriter out) {
+        List<Map.Entry<String, Object>> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(metrics.entrySet());
+        }
+        for (Map.Entry<String, Object> entry : snapshot) {
+            Object metric = entry.getValue();
+            if (metric instanceof LatencyHistogram) {
+                LatencyHistogram h = (LatencyHistogram) metric;
+                out.printf("  %-28s n=%d p50=%d p95=%d p99=%d max=%d%n", entry.getKey(), h.getCount(),
+                        h.percentile(50), h.percentile(95), h.percentile(99), h.getMax());
+            } else {
+                out.printf("  %-28s %d%n", entry.getKey(), read(metric));
+            }
+        }
+    }
+
+    private static long read(Object metric) {
+        if (metric instanceof Counter) return ((Counter) metric).get();
+        try {
+            return ((LongSupplier) metric).getAsLong();
+        } catch (RuntimeException e) {
+            // Un gauge roto no debe tapar al resto
+            return -1;
+        }
+    }
+
+    /** Envuelve un stream sumando a {@code counter} cada byte leído. */
+    public static InputStream counting(InputStream in, Counter counter) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) counter.increment();
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) counter.add(n);
+                return n;
+            }
+        };
+    }
+}
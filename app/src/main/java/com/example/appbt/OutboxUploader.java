@@ -0,0 +1,95 @@
+package com.example.appbt;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Vacía el {@link AlertOutbox} hacia un {@link AlertSink} en lotes. Las peticiones de envío
+ * que llegan juntas se agrupan en una sola pasada; si el destino falla se reintenta con
+ * espera exponencial hasta un tope.
+ */
+public class OutboxUploader {
+
+    /** Aviso en el hilo del uploader tras confirmar cada lote en el destino. */
+    public interface Listener {
+        void onUploaded(List<AlertEvent> batch);
+    }
+
+    private final AlertOutbox outbox;
+    private final AlertSink sink;
+    private final TaskScheduler scheduler;
+    private final int batchSize;
+    private final long coalesceMs;
+    private final long retryBaseMs;
+    private final long retryMaxMs;
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private long retryDelayMs;
+    private volatile Listener listener;
+
+    private volatile long batchesUploaded;
+    private volatile long eventsUploaded;
+    private volatile long failures;
+
+    public OutboxUploader(AlertOutbox outbox, AlertSink sink, TaskScheduler scheduler, int batchSize,
+                          long coalesceMs, long retryBaseMs, long retryMaxMs) {
+        this.outbox = outbox;
+        this.sink = sink;
+        this.scheduler = scheduler;
+        this.batchSize = batchSize;
+        this.coalesceMs = coalesceMs;
+        this.retryBaseMs = retryBaseMs;
+        this.retryMaxMs = retryMaxMs;
+        this.retryDelayMs = retryBaseMs;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Programa una subida; varias llamadas dentro de la ventana producen una sola pasada. */
+    public void requestFlush() {
+        if (scheduled.compareAndSet(false, true)) scheduler.schedule(this::drain, coalesceMs);
+    }
+
+    /** La red volvió: se sube ya, sin esperar el reintento pendiente. */
+    public void onNetworkAvailable() {
+        scheduler.execute(() -> {
+            retryDelayMs = retryBaseMs;
+            drain();
+        });
+    }
+
+    private void drain() {
+        scheduled.set(false);
+        try {
+            List<AlertEvent> batch;
+            while (!(batch = outbox.peek(batchSize)).isEmpty()) {
+                sink.upload(batch);
+                outbox.commit(batch.size());
+                batchesUploaded++;
+                eventsUploaded += batch.size();
+                Listener l = listener;
+                if (l != null) l.onUploaded(batch);
+            }
+            retryDelayMs = retryBaseMs;
+        } catch (IOException e) {
+            failures++;
+            if (scheduled.compareAndSet(false, true)) scheduler.schedule(this::drain, retryDelayMs);
+            retryDelayMs = Math.min(retryMaxMs, retryDelayMs * 2);
+        }
+    }
+
+    public long getBatchesUploaded() {
+        return batchesUploaded;
+    }
+
+    public long getEventsUploaded() {
+        return eventsUploaded;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.appbt;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Convierte números escritos de cualquier forma ("099 123 4567", "+593991234567",
+ * "00593 99 123 4567", "593991234567") a E.164 usando el país del teléfono para los
+ * números nacionales. Si el número no encaja en E.164 se devuelve limpio con
+ * {@link PhoneNumbers#normalize}, para no perder al destinatario.
+ */
+public final class PhoneNumberNormalizer {
+
+    private static final int MIN_NATIONAL_DIGITS = 7;
+    private static final int MAX_E164_DIGITS = 15;
+
+    private static final class Region {
+        final String callingCode;
+        // En estos países el 0 inicial es prefijo de larga distancia y no va en E.164
+        final boolean trunkZero;
+
+        Region(String callingCode, boolean trunkZero) {
+            this.callingCode = callingCode;
+            this.trunkZero = trunkZero;
+        }
+    }
+
+    private static final Map<String, Region> REGIONS = new HashMap<>();
+
+    static {
+        REGIONS.put("EC", new Region("593", true));
+        REGIONS.put("CO", new Region("57", false));
+        REGIONS.put("PE", new Region("51", true));
+        REGIONS.put("BO", new Region("591", true));
+        REGIONS.put("VE", new Region("58", true));
+        REGIONS.put("AR", new Region("54", true));
+        REGIONS.put("CL", new Region("56", false));
+        REGIONS.put("MX", new Region("52", false));
+        REGIONS.put("ES", new Region("34", false));
+        REGIONS.put("US", new Region("1", false));
+    }
+
+    private final Region region;
+
+    /** {@code countryIso} de dos letras (el de la SIM); null o desconocido deja los nacionales sin prefijo. */
+    public PhoneNumberNormalizer(String countryIso) {
+        this.region = countryIso == null ? null : REGIONS.get(countryIso.toUpperCase(Locale.ROOT));
+    }
+
+    public String canonical(String raw) {
+        if (raw == null) return "";
+        // Un solo recorrido: dígitos en un buffer, sin expresiones regulares
+        char[] digits = new char[raw.length()];
+        int count = 0;
+        boolean plus = false;
+        for (int i = 0, n = raw.length(); i < n; i++) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits[count++] = c;
+            } else if (c == '+' && count == 0) {
+                plus = true;
+            }
+        }
+
+        int start = 0;
+        boolean international = plus;
+        if (!international && count > 2 && digits[0] == '0' && digits[1] == '0') {
+            // Prefijo internacional 00
+            international = true;
+            start = 2;
+        }
+        if (international) {
+            count = dropTrunkZeroAfterCode(digits, start, count);
+            int length = count - start;
+            if (length >= MIN_NATIONAL_DIGITS && length <= MAX_E164_DIGITS) {
+                return "+" + new String(digits, start, length);
+            }
+            return PhoneNumbers.normalize(raw);
+        }
+
+        if (region == null) return PhoneNumbers.normalize(raw);
+        String code = region.callingCode;
+        // Ya trae el código de país pero sin '+'
+        if (count - code.length() >= MIN_NATIONAL_DIGITS + 1 && startsWith(digits, count, code)
+                && count <= MAX_E164_DIGITS) {
+            return "+" + new String(digits, 0, count);
+        }
+        if (region.trunkZero && count > 0 && digits[0] == '0') start = 1;
+        int length = count - start;
+        if (length >= MIN_NATIONAL_DIGITS && code.length() + length <= MAX_E164_DIGITS) {
+            return "+" + code + new String(digits, start, length);
+        }
+        return PhoneNumbers.normalize(raw);
+    }
+
+    // "+593 (0)99..." : el 0 nacional escrito después del código de país se quita
+    private static int dropTrunkZeroAfterCode(char[] digits, int start, int count) {
+        for (Region candidate : REGIONS.values()) {
+            String code = candidate.callingCode;
+            int zero = start + code.length();
+            if (candidate.trunkZero && zero < count && digits[zero] == '0'
+                    && startsWith(digits, start, count, code)) {
+                System.arraycopy(digits, zero + 1, digits, zero, count - zero - 1);
+                return count - 1;
+            }
+        }
+        return count;
+    }
+
+    private static boolean startsWith(char[] digits, int count, String prefix) {
+        return startsWith(digits, 0, count, prefix);
+    }
+
+    private static boolean startsWith(char[] digits, int from, int count, String prefix) {
+        if (count - from < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (digits[from + i] != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+}
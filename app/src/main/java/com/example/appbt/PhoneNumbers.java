@@ -0,0 +1,39 @@
+package com.example.appbt;
+
+/** Limpieza de números de teléfono escritos a mano o importados de la agenda. */
+public final class PhoneNumbers {
+
+    private static final int MIN_DIGITS = 3;
+
+    private PhoneNumbers() {}
+
+    /**
+     * Deja solo los dígitos y un '+' inicial ("099 123-4567" pasa a "0991234567").
+     * Devuelve una cadena vacía si no queda un número utilizable.
+     */
+    public static String normalize(String raw) {
+        if (raw == null) return "";
+        StringBuilder sb = new StringBuilder(raw.length());
+        int digits = 0;
+        for (int i = 0, n = raw.length(); i < n; i++) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') {
+                sb.append(c);
+                digits++;
+            } else if (c == '+' && sb.length() == 0) {
+                sb.append(c);
+            }
+        }
+        return digits >= MIN_DIGITS ? sb.toString() : "";
+    }
+
+    /** Solo los dígitos, para buscar por prefijo. */
+    public static String digits(String raw) {
+        StringBuilder sb = new StringBuilder(raw.length());
+        for (int i = 0, n = raw.length(); i < n; i++) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') sb.append(c);
+        }
+        return sb.toString();
+    }
+}
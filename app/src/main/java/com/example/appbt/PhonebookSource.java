@@ -0,0 +1,50 @@
+package com.example.appbt;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.ContactsContract;
+
+import java.io.IOException;
+
+/**
+ * Lee los teléfonos de la agenda (ContactsContract) por páginas ordenadas por _id, así
+ * nunca hay más de una página de filas en un cursor. La página sigue al último _id leído y
+ * el tamaño va en {@link ContactsContract#LIMIT_PARAM_KEY}, que el proveedor de contactos
+ * respeta en todas las versiones (QUERY_ARG_LIMIT no). Requiere READ_CONTACTS.
+ */
+public class PhonebookSource implements ContactImporter.PageSource {
+
+    private static final String[] PROJECTION = {
+            ContactsContract.CommonDataKinds.Phone._ID,
+            ContactsContract.CommonDataKinds.Phone.DISPLAY_NAME,
+            ContactsContract.CommonDataKinds.Phone.NUMBER
+    };
+    private static final String SELECTION = ContactsContract.CommonDataKinds.Phone._ID + " > ?";
+    private static final String ORDER = ContactsContract.CommonDataKinds.Phone._ID + " ASC";
+
+    private final ContentResolver resolver;
+
+    public PhonebookSource(ContentResolver resolver) {
+        this.resolver = resolver;
+    }
+
+    @Override
+    public int readPage(long afterId, int limit, ContactImporter.RowConsumer consumer) throws IOException {
+        String[] args = {Long.toString(Math.max(afterId, 0))};
+        Uri uri = ContactsContract.CommonDataKinds.Phone.CONTENT_URI.buildUpon()
+                .appendQueryParameter(ContactsContract.LIMIT_PARAM_KEY, Integer.toString(limit))
+                .build();
+        int rows = 0;
+        try (Cursor cursor = resolver.query(uri, PROJECTION, SELECTION, args, ORDER)) {
+            if (cursor == null) throw new IOException("No se pudo leer la agenda");
+            while (cursor.moveToNext()) {
+                consumer.accept(cursor.getLong(0), cursor.getString(1), cursor.getString(2));
+                rows++;
+            }
+        } catch (SecurityException e) {
+            throw new IOException("Sin permiso para leer la agenda", e);
+        }
+        return rows;
+    }
+}
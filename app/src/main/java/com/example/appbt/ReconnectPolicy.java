@@ -0,0 +1,99 @@
+package com.example.appbt;
+
+import java.util.Random;
+
+/**
+ * Espera exponencial con tope y jitter entre reintentos. Los primeros intentos van directo
+ * por RFCOMM a la última dirección conocida (dispositivo emparejado); la búsqueda, que tarda
+ * unos 12 s y gasta radio, solo se usa cuando esos intentos fallan, y aun entonces se alterna
+ * con intentos directos: un ESP32 emparejado que no está visible se recupera igual.
+ */
+public class ReconnectPolicy {
+
+    public static final long DEFAULT_BASE_DELAY_MS = 500;
+    public static final long DEFAULT_MAX_DELAY_MS = 30000;
+    public static final int DEFAULT_DIRECT_ATTEMPTS = 4;
+
+    private static final int HISTORY_SIZE = 32;
+
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final int directAttempts;
+    private final Random random;
+
+    private int failures;
+    private long lostAt = -1;
+
+    private final long[] history = new long[HISTORY_SIZE];
+    private int reconnects;
+    private long lastReconnectMs = -1;
+
+    public ReconnectPolicy() {
+        this(DEFAULT_BASE_DELAY_MS, DEFAULT_MAX_DELAY_MS, DEFAULT_DIRECT_ATTEMPTS, new Random());
+    }
+
+    public ReconnectPolicy(long baseDelayMs, long maxDelayMs, int directAttempts, Random random) {
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.directAttempts = directAttempts;
+        this.random = random;
+    }
+
+    /** Espera antes del próximo intento: entre la mitad y el total del valor exponencial. */
+    public synchronized long nextDelayMs() {
+        long delay = baseDelayMs << Math.min(failures, 20);
+        if (delay <= 0 || delay > maxDelayMs) delay = maxDelayMs;
+        long half = delay / 2;
+        return half + (long) (random.nextDouble() * (delay - half + 1));
+    }
+
+    /** Los primeros {@code directAttempts} intentos son directos; después, uno sí y uno no. */
+    public synchronized boolean shouldConnectDirectly() {
+        return failures < directAttempts || (failures - directAttempts) % 2 == 1;
+    }
+
+    public synchronized void onAttemptFailed() {
+        failures++;
+    }
+
+    public synchronized void onLinkLost(long now) {
+        if (lostAt < 0) lostAt = now;
+    }
+
+    public synchronized void onConnected(long now) {
+        if (lostAt >= 0) {
+            lastReconnectMs = now - lostAt;
+            history[reconnects % HISTORY_SIZE] = lastReconnectMs;
+            reconnects++;
+        }
+        lostAt = -1;
+        failures = 0;
+    }
+
+    public synchronized void reset() {
+        failures = 0;
+        lostAt = -1;
+    }
+
+    public synchronized int getFailures() {
+        return failures;
+    }
+
+    public synchronized int getReconnectCount() {
+        return reconnects;
+    }
+
+    /** Tiempo de la última reconexión en ms, o -1 si aún no hubo ninguna. */
+    public synchronized long getLastReconnectMs() {
+        return lastReconnectMs;
+    }
+
+    /** Media de las últimas reconexiones registradas, o -1 si no hay datos. */
+    public synchronized long getMeanReconnectMs() {
+        int count = Math.min(reconnects, HISTORY_SIZE);
+        if (count == 0) return -1;
+        long total = 0;
+        for (int i = 0; i < count; i++) total += history[i];
+        return total / count;
+    }
+}
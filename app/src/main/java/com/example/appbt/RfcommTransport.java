@@ -0,0 +1,101 @@
+package com.example.appbt;
+
+import android.Manifest;
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothSocket;
+import android.content.Context;
+import android.content.pm.PackageManager;
+
+import androidx.core.content.ContextCompat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.UUID;
+
+/** {@link Transport} sobre RFCOMM (perfil SPP). */
+public class RfcommTransport implements Transport {
+
+    private static final UUID SPP_UUID = UUID.fromString("00001101-0000-1000-8000-00805F9B34FB");
+
+    private final Context context;
+    private final BluetoothAdapter adapter;
+
+    public RfcommTransport(Context context, BluetoothAdapter adapter) {
+        this.context = context.getApplicationContext();
+        this.adapter = adapter;
+    }
+
+    @Override
+    public LinkSocket connect(String address) throws IOException {
+        if (!hasPermission(Manifest.permission.BLUETOOTH_CONNECT)) {
+            throw new IOException("Permiso BLUETOOTH_CONNECT denegado");
+        }
+        BluetoothDevice device = adapter.getRemoteDevice(address);
+        BluetoothSocket socket = device.createRfcommSocketToServiceRecord(SPP_UUID);
+        // Una búsqueda en curso vuelve lenta la conexión y suele hacerla fallar
+        cancelDiscovery();
+        try {
+            socket.connect();
+        } catch (IOException e) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {}
+            throw e;
+        }
+        return new RfcommSocket(socket, address);
+    }
+
+    @Override
+    public boolean startDiscovery() {
+        if (!hasPermission(Manifest.permission.BLUETOOTH_SCAN)) return false;
+        return adapter.isDiscovering() || adapter.startDiscovery();
+    }
+
+    @Override
+    public boolean canDiscover() {
+        return hasPermission(Manifest.permission.BLUETOOTH_SCAN);
+    }
+
+    @Override
+    public void cancelDiscovery() {
+        if (hasPermission(Manifest.permission.BLUETOOTH_SCAN) && adapter.isDiscovering()) {
+            adapter.cancelDiscovery();
+        }
+    }
+
+    private boolean hasPermission(String permission) {
+        return ContextCompat.checkSelfPermission(context, permission) == PackageManager.PERMISSION_GRANTED;
+    }
+
+    private static class RfcommSocket implements LinkSocket {
+        private final BluetoothSocket socket;
+        private final String address;
+
+        RfcommSocket(BluetoothSocket socket, String address) {
+            this.socket = socket;
+            this.address = address;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return socket.getInputStream();
+        }
+
+        @Override
+        public OutputStream getOutputStream() throws IOException {
+            return socket.getOutputStream();
+        }
+
+        @Override
+        public String getAddress() {
+            return address;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
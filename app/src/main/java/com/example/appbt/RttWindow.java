@@ -0,0 +1,47 @@
+package com.example.appbt;
+
+import java.util.Arrays;
+
+/** Últimas N muestras de tiempo de ida y vuelta, con percentiles sobre esa ventana. */
+public class RttWindow {
+
+    private final long[] samples;
+    private int count;
+    private int next;
+    private long last = -1;
+
+    public RttWindow(int size) {
+        samples = new long[Math.max(1, size)];
+    }
+
+    public synchronized void add(long rttMs) {
+        samples[next] = rttMs;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) count++;
+        last = rttMs;
+    }
+
+    public synchronized void clear() {
+        count = 0;
+        next = 0;
+        last = -1;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /** Última muestra, o -1 si no hay. */
+    public synchronized long getLast() {
+        return last;
+    }
+
+    /** Percentil por rango más cercano ({@code p} entre 0 y 100), o -1 si no hay muestras. */
+    public synchronized long percentile(double p) {
+        if (count == 0) return -1;
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(p / 100.0 * count);
+        return sorted[Math.min(count - 1, Math.max(0, rank - 1))];
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.appbt;
+
+/**
+ * Estado del servicio para la interfaz, como datos y no como texto: enlace, salud del latido,
+ * última alerta y problemas que impiden funcionar. Es inmutable; cada {@code with...}
+ * devuelve una copia, o la misma instancia si no cambia nada, para que
+ * {@link StateHolder#update} no avise de más.
+ */
+public final class ServiceStatus {
+
+    public enum Problem { NONE, NO_BLUETOOTH, MISSING_SCAN_PERMISSION }
+
+    /** Última alerta vista por el servicio. */
+    public static final class Alert {
+        public final boolean followUp;
+        /** false mientras se envía. */
+        public final boolean finished;
+        public final int delivered;
+        public final int total;
+        /** Hora del último cambio (ms desde 1970). */
+        public final long atMs;
+
+        private Alert(boolean followUp, boolean finished, int delivered, int total, long atMs) {
+            this.followUp = followUp;
+            this.finished = finished;
+            this.delivered = delivered;
+            this.total = total;
+            this.atMs = atMs;
+        }
+
+        public static Alert triggered(long atMs) {
+            return new Alert(false, false, 0, 0, atMs);
+        }
+
+        public static Alert finished(boolean followUp, int delivered, int total, long atMs) {
+            return new Alert(followUp, true, delivered, total, atMs);
+        }
+    }
+
+    public static final ServiceStatus INITIAL = new ServiceStatus(true, ConnectionManager.State.IDLE,
+            LinkHeartbeat.Health.UNKNOWN, -1, null, -1, Problem.NONE, 0, 0);
+
+    private final boolean running;
+    private final ConnectionManager.State link;
+    private final LinkHeartbeat.Health health;
+    private final long rttMs;
+    private final Alert lastAlert;
+    private final int contacts;
+    private final Problem problem;
+    private final int connectedDevices;
+    private final int devices;
+
+    private ServiceStatus(boolean running, ConnectionManager.State link, LinkHeartbeat.Health health,
+                          long rttMs, Alert lastAlert, int contacts, Problem problem,
+                          int connectedDevices, int devices) {
+        this.running = running;
+        this.link = link;
+        this.health = health;
+        this.rttMs = rttMs;
+        this.lastAlert = lastAlert;
+        this.contacts = contacts;
+        this.problem = problem;
+        this.connectedDevices = connectedDevices;
+        this.devices = devices;
+    }
+
+    /** Un enlace nuevo empieza sin datos de latido. */
+    public ServiceStatus withLink(ConnectionManager.State state) {
+        if (state == link) return this;
+        return new ServiceStatus(running, state, LinkHeartbeat.Health.UNKNOWN, -1, lastAlert, contacts, problem,
+                connectedDevices, devices);
+    }
+
+    public ServiceStatus withHealth(LinkHeartbeat.Health health, long rttMs) {
+        if (health == this.health && rttMs == this.rttMs) return this;
+        return new ServiceStatus(running, link, health, rttMs, lastAlert, contacts, problem,
+                connectedDevices, devices);
+    }
+
+    public ServiceStatus withAlert(Alert alert) {
+        return new ServiceStatus(running, link, health, rttMs, alert, contacts, problem, connectedDevices, devices);
+    }
+
+    public ServiceStatus withContacts(int contacts) {
+        if (contacts == this.contacts) return this;
+        return new ServiceStatus(running, link, health, rttMs, lastAlert, contacts, problem,
+                connectedDevices, devices);
+    }
+
+    public ServiceStatus withProblem(Problem problem) {
+        if (problem == this.problem) return this;
+        return new ServiceStatus(running, link, health, rttMs, lastAlert, contacts, problem,
+                connectedDevices, devices);
+    }
+
+    /** Con varios ESP32 configurados, cuántos están conectados. */
+    public ServiceStatus withDevices(int connected, int total) {
+        if (connected == connectedDevices && total == devices) return this;
+        return new ServiceStatus(running, link, health, rttMs, lastAlert, contacts, problem, connected, total);
+    }
+
+    public ServiceStatus stopped() {
+        if (!running) return this;
+        return new ServiceStatus(false, ConnectionManager.State.IDLE, LinkHeartbeat.Health.UNKNOWN, -1,
+                lastAlert, contacts, problem, 0, devices);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public ConnectionManager.State getLink() {
+        return link;
+    }
+
+    public LinkHeartbeat.Health getHealth() {
+        return health;
+    }
+
+    /** RTT mediano del latido, o -1 sin datos. */
+    public long getRttMs() {
+        return rttMs;
+    }
+
+    /** null si todavía no hubo alertas. */
+    public Alert getLastAlert() {
+        return lastAlert;
+    }
+
+    /** Contactos de emergencia, o -1 si aún no se sabe. */
+    public int getContacts() {
+        return contacts;
+    }
+
+    public Problem getProblem() {
+        return problem;
+    }
+
+    public int getConnectedDevices() {
+        return connectedDevices;
+    }
+
+    /** Dispositivos configurados; 0 antes de que arranque el enlace. */
+    public int getDevices() {
+        return devices;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.appbt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Arma los SMS de alerta a partir de plantillas precompiladas. Cada mensaje tiene una
+ * variante con emoji y tildes (UCS-2) y otra solo con el alfabeto GSM-7; se envía la que
+ * ocupe menos segmentos. Las coordenadas van con 5 decimales (~1 m) en un enlace corto y
+ * se escriben sin String.format.
+ *
+ * En las plantillas, {@code {link}} es el enlace al mapa y {@code {acc}} la precisión en metros.
+ */
+public final class SmsComposer {
+
+    private static final String LINK_PREFIX = "maps.google.com/?q=";
+    private static final int COORDINATE_DECIMALS = 5;
+    private static final long[] POWERS = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    public static final SmsComposer TEST_ALERT = new SmsComposer(
+            "🚨 MENSAJE DE PRUEBA 🚨\nUbicación: {link}\nPrecisión: {acc} m",
+            "MENSAJE DE PRUEBA\nUbicacion: {link}\nPrecision: {acc} m",
+            "🚨 MENSAJE DE PRUEBA 🚨\nUbicación no disponible",
+            "MENSAJE DE PRUEBA\nUbicacion no disponible");
+
+    public static final SmsComposer FOLLOW_UP = new SmsComposer(
+            "📍 Ubicación actualizada: {link}\nPrecisión: {acc} m",
+            "Ubicacion actualizada: {link}\nPrecision: {acc} m",
+            "📍 Ubicación actualizada no disponible",
+            "Ubicacion actualizada no disponible");
+
+    /** Texto listo para enviar y lo que va a costar. */
+    public static final class Message {
+        public final String text;
+        public final boolean gsm7;
+        public final int segments;
+
+        Message(String text, boolean gsm7, int segments) {
+            this.text = text;
+            this.gsm7 = gsm7;
+            this.segments = segments;
+        }
+
+        /**
+         * El mismo mensaje con una primera línea más (p. ej. quién lo disparó), medido de nuevo.
+         * En la variante GSM-7 la línea se translitera: una tilde o un emoji la pasarían a UCS-2.
+         */
+        public Message withHeader(String header) {
+            return measure((gsm7 ? Gsm7.transliterate(header) : header) + "\n" + text);
+        }
+    }
+
+    private static final int LITERAL = 0;
+    private static final int LINK = 1;
+    private static final int ACCURACY = 2;
+
+    /** Plantilla ya partida en literales y campos; render() solo concatena. */
+    static final class Template {
+        private final String[] literals;
+        private final int[] kinds;
+        private final int literalLength;
+
+        private Template(String[] literals, int[] kinds, int literalLength) {
+            this.literals = literals;
+            this.kinds = kinds;
+            this.literalLength = literalLength;
+        }
+
+        static Template compile(String pattern) {
+            List<String> literals = new ArrayList<>();
+            List<Integer> kinds = new ArrayList<>();
+            int length = 0;
+            int start = 0;
+            while (start < pattern.length()) {
+                int open = pattern.indexOf('{', start);
+                int close = open < 0 ? -1 : pattern.indexOf('}', open);
+                int end = close < 0 ? pattern.length() : open;
+                if (end > start) {
+                    literals.add(pattern.substring(start, end));
+                    kinds.add(LITERAL);
+                    length += end - start;
+                }
+                if (close < 0) break;
+                String field = pattern.substring(open + 1, close);
+                if ("link".equals(field)) {
+                    kinds.add(LINK);
+                } else if ("acc".equals(field)) {
+                    kinds.add(ACCURACY);
+                } else {
+                    throw new IllegalArgumentException("Campo desconocido: " + field);
+                }
+                literals.add(null);
+                start = close + 1;
+            }
+            int[] kindArray = new int[kinds.size()];
+            for (int i = 0; i < kindArray.length; i++) kindArray[i] = kinds.get(i);
+            return new Template(literals.toArray(new String[0]), kindArray, length);
+        }
+
+        String render(double latitude, double longitude, float accuracy) {
+            StringBuilder sb = new StringBuilder(literalLength + 48);
+            for (int i = 0; i < kinds.length; i++) {
+                switch (kinds[i]) {
+                    case LINK:
+                        sb.append(LINK_PREFIX);
+                        appendFixed(sb, latitude, COORDINATE_DECIMALS);
+                        sb.append(',');
+                        appendFixed(sb, longitude, COORDINATE_DECIMALS);
+                        break;
+                    case ACCURACY:
+                        appendFixed(sb, accuracy, 0);
+                        break;
+                    default:
+                        sb.append(literals[i]);
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    private final Template rich;
+    private final Template gsm;
+    private final Message richNoFix;
+    private final Message gsmNoFix;
+
+    public SmsComposer(String richPattern, String gsmPattern, String richNoFix, String gsmNoFix) {
+        if (!Gsm7.isEncodable(gsmPattern) || !Gsm7.isEncodable(gsmNoFix)) {
+            throw new IllegalArgumentException("La variante GSM-7 tiene caracteres fuera del alfabeto");
+        }
+        this.rich = Template.compile(richPattern);
+        this.gsm = Template.compile(gsmPattern);
+        this.richNoFix = measure(richNoFix);
+        this.gsmNoFix = measure(gsmNoFix);
+    }
+
+    /** Sin ubicación ({@code fix} null) se usa el texto de "no disponible". */
+    public Message compose(LocationFix fix) {
+        if (fix == null) return cheaper(richNoFix, gsmNoFix);
+        return compose(fix.getLatitude(), fix.getLongitude(), fix.getAccuracy());
+    }
+
+    public Message compose(double latitude, double longitude, float accuracy) {
+        return cheaper(measure(rich.render(latitude, longitude, accuracy)),
+                measure(gsm.render(latitude, longitude, accuracy)));
+    }
+
+    /** Solo la variante GSM-7, para quien quiera forzarla. */
+    public Message composeGsm7(double latitude, double longitude, float accuracy) {
+        return measure(gsm.render(latitude, longitude, accuracy));
+    }
+
+    // A igual costo se prefiere la variante con emoji, que se lee mejor
+    private static Message cheaper(Message richMessage, Message gsmMessage) {
+        return richMessage.segments <= gsmMessage.segments ? richMessage : gsmMessage;
+    }
+
+    private static Message measure(String text) {
+        return new Message(text, Gsm7.isEncodable(text), Gsm7.segments(text));
+    }
+
+    /** Número con {@code decimals} decimales, redondeado; sin Locale ni String.format. */
+    static void appendFixed(StringBuilder sb, double value, int decimals) {
+        long scaled = Math.round(Math.abs(value) * POWERS[decimals]);
+        if (value < 0 && scaled != 0) sb.append('-');
+        sb.append(scaled / POWERS[decimals]);
+        if (decimals == 0) return;
+        sb.append('.');
+        String fraction = Long.toString(scaled % POWERS[decimals]);
+        for (int i = fraction.length(); i < decimals; i++) sb.append('0');
+        sb.append(fraction);
+    }
+}
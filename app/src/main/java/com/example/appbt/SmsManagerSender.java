@@ -0,0 +1,116 @@
+package com.example.appbt;
+
+import android.app.Activity;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Build;
+import android.telephony.SmsManager;
+import android.telephony.SmsMessage;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link SmsSender} sobre SmsManager. Cada parte lleva PendingIntents de envío y entrega;
+ * el receptor registrado devuelve esos resultados al {@link AlertDispatcher}.
+ */
+public class SmsManagerSender implements SmsSender {
+
+    private static final String ACTION_SENT = "com.example.appbt.SMS_SENT";
+    private static final String ACTION_DELIVERED = "com.example.appbt.SMS_DELIVERED";
+    private static final String EXTRA_ALERT = "alert";
+    private static final String EXTRA_RECIPIENT = "recipient";
+    private static final String EXTRA_ATTEMPT = "attempt";
+    private static final String EXTRA_PART = "part";
+
+    // TP-Status del reporte (3GPP TS 23.040): por debajo de 0x20 se entregó, de 0x20 a 0x3F
+    // el centro de mensajes sigue intentando y desde 0x40 la entrega falló
+    private static final int STATUS_DELIVERED = 0x00;
+    private static final int STATUS_PENDING_MIN = 0x20;
+    private static final int STATUS_FAILED_MIN = 0x40;
+
+    private final Context context;
+    private final SmsManager smsManager;
+    private final AtomicInteger requestCodes = new AtomicInteger();
+    private BroadcastReceiver resultReceiver;
+
+    public SmsManagerSender(Context context, SmsManager smsManager) {
+        this.context = context.getApplicationContext();
+        this.smsManager = smsManager;
+    }
+
+    public void register(AlertDispatcher dispatcher) {
+        resultReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                int alertId = intent.getIntExtra(EXTRA_ALERT, -1);
+                int recipient = intent.getIntExtra(EXTRA_RECIPIENT, -1);
+                int attempt = intent.getIntExtra(EXTRA_ATTEMPT, -1);
+                int part = intent.getIntExtra(EXTRA_PART, -1);
+                if (ACTION_SENT.equals(intent.getAction())) {
+                    dispatcher.onPartSent(alertId, recipient, attempt, part, getResultCode() == Activity.RESULT_OK);
+                } else if (ACTION_DELIVERED.equals(intent.getAction())) {
+                    int status = deliveryStatus(intent, getResultCode());
+                    // Un reporte intermedio no cierra la parte: después llega el definitivo
+                    if (status >= STATUS_PENDING_MIN && status < STATUS_FAILED_MIN) return;
+                    dispatcher.onPartDelivered(alertId, recipient, attempt, part, status < STATUS_PENDING_MIN);
+                }
+            }
+        };
+        IntentFilter filter = new IntentFilter(ACTION_SENT);
+        filter.addAction(ACTION_DELIVERED);
+        ContextCompat.registerReceiver(context, resultReceiver, filter, ContextCompat.RECEIVER_NOT_EXPORTED);
+    }
+
+    public void unregister() {
+        if (resultReceiver != null) {
+            context.unregisterReceiver(resultReceiver);
+            resultReceiver = null;
+        }
+    }
+
+    @Override
+    public List<String> divideMessage(String text) {
+        return smsManager.divideMessage(text);
+    }
+
+    @Override
+    public void send(String number, List<String> parts, int alertId, int recipient, int attempt) {
+        ArrayList<PendingIntent> sentIntents = new ArrayList<>(parts.size());
+        ArrayList<PendingIntent> deliveryIntents = new ArrayList<>(parts.size());
+        for (int part = 0; part < parts.size(); part++) {
+            sentIntents.add(resultIntent(ACTION_SENT, alertId, recipient, attempt, part, PendingIntent.FLAG_IMMUTABLE));
+            // El sistema agrega el PDU del reporte, así que este debe ser mutable
+            int mutable = Build.VERSION.SDK_INT >= Build.VERSION_CODES.S ? PendingIntent.FLAG_MUTABLE : 0;
+            deliveryIntents.add(resultIntent(ACTION_DELIVERED, alertId, recipient, attempt, part, mutable));
+        }
+        smsManager.sendMultipartTextMessage(number, null, new ArrayList<>(parts), sentIntents, deliveryIntents);
+    }
+
+    private PendingIntent resultIntent(String action, int alertId, int recipient, int attempt, int part, int flags) {
+        Intent intent = new Intent(action)
+                .setPackage(context.getPackageName())
+                .putExtra(EXTRA_ALERT, alertId)
+                .putExtra(EXTRA_RECIPIENT, recipient)
+                .putExtra(EXTRA_ATTEMPT, attempt)
+                .putExtra(EXTRA_PART, part);
+        return PendingIntent.getBroadcast(context, requestCodes.incrementAndGet(), intent,
+                flags | PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+
+    private static int deliveryStatus(Intent intent, int resultCode) {
+        byte[] pdu = intent.getByteArrayExtra("pdu");
+        String format = intent.getStringExtra("format");
+        if (pdu != null) {
+            SmsMessage report = SmsMessage.createFromPdu(pdu, format);
+            if (report != null) return report.getStatus();
+        }
+        return resultCode == Activity.RESULT_OK ? STATUS_DELIVERED : STATUS_FAILED_MIN;
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.appbt;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * {@link SmsSender} que respeta el límite de envío de Android (por defecto 30 SMS cada 30
+ * minutos por app; al pasarlo el sistema pide confirmación o devuelve error). Lleva una
+ * ventana deslizante de partes enviadas y encola lo que no cabe, por nivel de prioridad:
+ * los contactos principales salen de inmediato mientras haya cupo; los secundarios y los
+ * seguimientos se espacian y dejan una reserva para la próxima alerta.
+ * Se usa solo desde el hilo del {@link TaskScheduler}.
+ */
+public class SmsRateScheduler implements SmsSender {
+
+    public static final int TIER_PRIMARY = 0;
+    public static final int TIER_SECONDARY = 1;
+    public static final int TIER_FOLLOW_UP = 2;
+
+    /** Un envío diferido que falló al salir; se reporta como fallo de la parte 0. */
+    public interface FailureListener {
+        void onSendFailed(int alertId, int recipient, int attempt);
+    }
+
+    private static class Pending implements Comparable<Pending> {
+        final String number;
+        final List<String> parts;
+        final int alertId, recipient, attempt, tier;
+        final long order;
+        final long queuedAt;
+
+        Pending(String number, List<String> parts, int alertId, int recipient, int attempt, int tier,
+                long order, long queuedAt) {
+            this.number = number;
+            this.parts = parts;
+            this.alertId = alertId;
+            this.recipient = recipient;
+            this.attempt = attempt;
+            this.tier = tier;
+            this.order = order;
+            this.queuedAt = queuedAt;
+        }
+
+        @Override
+        public int compareTo(Pending other) {
+            return tier != other.tier ? Integer.compare(tier, other.tier) : Long.compare(order, other.order);
+        }
+    }
+
+    private final SmsSender delegate;
+    private final TaskScheduler scheduler;
+    private final int maxParts;
+    private final long windowMs;
+    private final int reserveParts;
+    private final long spacingMs;
+    private FailureListener failureListener;
+
+    private final PriorityQueue<Pending> queue = new PriorityQueue<>();
+    // Envíos dentro de la ventana: {momento, partes}
+    private final ArrayDeque<long[]> window = new ArrayDeque<>();
+    private int usedParts;
+    private long order;
+    private long lastLowTierSendAt = Long.MIN_VALUE / 2;
+    private long drainAt = Long.MAX_VALUE;
+
+    private volatile int queueDepth;
+    private volatile int maxQueueDepth;
+    private volatile long sent;
+    private volatile long deferred;
+    private volatile long totalQueueMs;
+    private volatile long maxQueueMs;
+
+    /**
+     * @param maxParts     partes permitidas por ventana
+     * @param reserveParts cupo que los niveles bajos no pueden usar
+     */
+    public SmsRateScheduler(SmsSender delegate, TaskScheduler scheduler, int maxParts, long windowMs,
+                            int reserveParts) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+        this.maxParts = Math.max(1, maxParts);
+        this.windowMs = windowMs;
+        this.reserveParts = Math.max(0, Math.min(reserveParts, this.maxParts - 1));
+        // Los niveles bajos salen a ritmo constante en vez de gastar el cupo de golpe
+        this.spacingMs = windowMs / this.maxParts;
+    }
+
+    public void setFailureListener(FailureListener failureListener) {
+        this.failureListener = failureListener;
+    }
+
+    @Override
+    public List<String> divideMessage(String text) {
+        return delegate.divideMessage(text);
+    }
+
+    @Override
+    public void send(String number, List<String> parts, int alertId, int recipient, int attempt) {
+        send(number, parts, alertId, recipient, attempt, TIER_PRIMARY);
+    }
+
+    @Override
+    public void send(String number, List<String> parts, int alertId, int recipient, int attempt, int tier) {
+        queue.add(new Pending(number, parts, alertId, recipient, attempt, tier, order++, scheduler.now()));
+        updateDepth();
+        drain();
+    }
+
+    private void drain() {
+        long now = scheduler.now();
+        expire(now);
+        while (!queue.isEmpty()) {
+            Pending next = queue.peek();
+            long wait = waitFor(next, now);
+            if (wait > 0) {
+                scheduleDrain(now, wait);
+                return;
+            }
+            queue.poll();
+            updateDepth();
+            release(next, now);
+        }
+    }
+
+    private void release(Pending p, long now) {
+        long queuedMs = now - p.queuedAt;
+        if (queuedMs > 0) deferred++;
+        totalQueueMs += queuedMs;
+        if (queuedMs > maxQueueMs) maxQueueMs = queuedMs;
+        sent++;
+        int parts = Math.max(1, p.parts.size());
+        window.add(new long[]{now, parts});
+        usedParts += parts;
+        if (p.tier != TIER_PRIMARY) lastLowTierSendAt = now;
+        try {
+            delegate.send(p.number, p.parts, p.alertId, p.recipient, p.attempt);
+        } catch (RuntimeException e) {
+            if (failureListener != null) failureListener.onSendFailed(p.alertId, p.recipient, p.attempt);
+        }
+    }
+
+    /** Milisegundos que debe esperar {@code p} para salir sin pasar el límite de su nivel. */
+    private long waitFor(Pending p, long now) {
+        int limit = p.tier == TIER_PRIMARY ? maxParts : maxParts - reserveParts;
+        int parts = Math.max(1, p.parts.size());
+        long wait = 0;
+        if (usedParts + parts > limit && !window.isEmpty()) {
+            // Un mensaje más largo que el cupo sale cuando la ventana queda vacía
+            int freed = 0;
+            for (long[] entry : window) {
+                freed += (int) entry[1];
+                wait = entry[0] + windowMs - now;
+                if (usedParts - freed + parts <= limit) break;
+            }
+        }
+        if (p.tier != TIER_PRIMARY) wait = Math.max(wait, lastLowTierSendAt + spacingMs - now);
+        return wait;
+    }
+
+    private void expire(long now) {
+        while (!window.isEmpty() && window.peek()[0] + windowMs <= now) {
+            usedParts -= (int) window.poll()[1];
+        }
+    }
+
+    // Sin cancelación en TaskScheduler: si ya hay un drenado antes, este sobra
+    private void scheduleDrain(long now, long wait) {
+        long at = now + wait;
+        if (at >= drainAt) return;
+        drainAt = at;
+        scheduler.schedule(() -> {
+            if (drainAt == at) drainAt = Long.MAX_VALUE;
+            drain();
+        }, wait);
+    }
+
+    private void updateDepth() {
+        queueDepth = queue.size();
+        if (queueDepth > maxQueueDepth) maxQueueDepth = queueDepth;
+    }
+
+    /** Envíos esperando cupo. */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    /** Envíos que no salieron en el momento por falta de cupo o espaciado. */
+    public long getDeferred() {
+        return deferred;
+    }
+
+    public long getAverageQueueMs() {
+        long count = sent;
+        return count == 0 ? 0 : totalQueueMs / count;
+    }
+
+    public long getMaxQueueMs() {
+        return maxQueueMs;
+    }
+}
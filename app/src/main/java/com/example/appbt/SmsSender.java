@@ -0,0 +1,19 @@
+package com.example.appbt;
+
+import java.util.List;
+
+/**
+ * Envío de SMS multiparte. Los resultados de envío y entrega de cada parte vuelven de forma
+ * asíncrona a {@link AlertDispatcher} con los mismos identificadores.
+ */
+public interface SmsSender {
+
+    List<String> divideMessage(String text);
+
+    void send(String number, List<String> parts, int alertId, int recipient, int attempt);
+
+    /** Igual, con el nivel de prioridad ({@code SmsRateScheduler.TIER_*}); por defecto se ignora. */
+    default void send(String number, List<String> parts, int alertId, int recipient, int attempt, int tier) {
+        send(number, parts, alertId, recipient, attempt);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.appbt;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Momentos del arranque medidos desde el inicio del proceso: primer frame de la actividad,
+ * servicio escuchando al ESP32, Firebase listo... Cada fase se marca una sola vez; las
+ * marcas repetidas (una segunda actividad, una reconexión) se ignoran.
+ */
+public class StartupTrace {
+
+    private final LongSupplier clockMs;
+    private final long originMs;
+
+    // Protegido por this; en orden de llegada
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+
+    public StartupTrace(LongSupplier clockMs, long originMs) {
+        this.clockMs = clockMs;
+        this.originMs = originMs;
+    }
+
+    /** Marca la fase ahora; devuelve false si ya estaba marcada. */
+    public boolean mark(String phase) {
+        long elapsed = clockMs.getAsLong() - originMs;
+        synchronized (this) {
+            if (phases.containsKey(phase)) return false;
+            phases.put(phase, elapsed);
+            return true;
+        }
+    }
+
+    /** ms desde el inicio del proceso, o -1 si la fase no llegó todavía. */
+    public synchronized long get(String phase) {
+        Long elapsed = phases.get(phase);
+        return elapsed != null ? elapsed : -1;
+    }
+
+    /** {@code fase=ms fase=ms ...} en el orden en que ocurrieron. */
+    public synchronized String format() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Long> entry : phases.entrySet()) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        return sb.toString();
+    }
+}
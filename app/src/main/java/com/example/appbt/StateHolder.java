@@ -0,0 +1,119 @@
+package com.example.appbt;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Estado observable dentro del proceso, sin locks. Quien publica reemplaza el valor (inmutable)
+ * con una operación atómica; cada suscriptor recibe los cambios en su propio {@link Executor}.
+ * Si llegan varios cambios antes de que el suscriptor alcance a procesar uno, recibe solo el
+ * último. Al suscribirse se entrega enseguida el estado actual.
+ */
+public class StateHolder<T> {
+
+    public interface Observer<T> {
+        void onChanged(T state);
+    }
+
+    public interface Subscription {
+        void cancel();
+    }
+
+    private final AtomicReference<T> state;
+    private final CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong published = new AtomicLong();
+
+    public StateHolder(T initial) {
+        state = new AtomicReference<>(initial);
+    }
+
+    public T get() {
+        return state.get();
+    }
+
+    public void set(T value) {
+        if (state.getAndSet(value) != value) changed();
+    }
+
+    /**
+     * Aplica {@code change} al estado actual, reintentando si otro hilo publicó entre medio.
+     * {@code change} puede correr más de una vez y debe devolver la misma instancia si no
+     * hay nada que cambiar.
+     */
+    public T update(UnaryOperator<T> change) {
+        while (true) {
+            T current = state.get();
+            T next = change.apply(current);
+            if (next == current) return current;
+            if (state.compareAndSet(current, next)) {
+                changed();
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Entrega el estado actual y después cada cambio en {@code executor}, que debe correr
+     * las tareas de a una (por ejemplo el hilo principal).
+     */
+    public Subscription subscribe(Executor executor, Observer<T> observer) {
+        Subscriber subscriber = new Subscriber(executor, observer);
+        subscribers.add(subscriber);
+        subscriber.signal();
+        return subscriber;
+    }
+
+    private void changed() {
+        published.incrementAndGet();
+        for (Subscriber subscriber : subscribers) subscriber.signal();
+    }
+
+    /** Cambios publicados; comparar con lo entregado muestra cuánto se juntó. */
+    public long getPublished() {
+        return published.get();
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private class Subscriber implements Subscription, Runnable {
+        final Executor executor;
+        final Observer<T> observer;
+        final AtomicBoolean pending = new AtomicBoolean();
+        volatile boolean cancelled;
+        // Solo desde el executor del suscriptor
+        T delivered;
+
+        Subscriber(Executor executor, Observer<T> observer) {
+            this.executor = executor;
+            this.observer = observer;
+        }
+
+        void signal() {
+            if (!cancelled && pending.compareAndSet(false, true)) executor.execute(this);
+        }
+
+        @Override
+        public void run() {
+            // Se baja antes de leer: un cambio que llegue ahora vuelve a programar la entrega
+            pending.set(false);
+            if (cancelled) return;
+            T current = state.get();
+            if (current == delivered) return;
+            delivered = current;
+            observer.onChanged(current);
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscribers.remove(this);
+        }
+    }
+}
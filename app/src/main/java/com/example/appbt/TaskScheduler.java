@@ -0,0 +1,49 @@
+package com.example.appbt;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ejecutor serializado con tareas diferidas. La implementación real usa un único hilo;
+ * en las pruebas se sustituye por un reloj manual para que las transiciones sean deterministas.
+ */
+public interface TaskScheduler {
+
+    void execute(Runnable task);
+
+    void schedule(Runnable task, long delayMs);
+
+    long now();
+
+    void shutdown();
+
+    static TaskScheduler singleThread(String name) {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new TaskScheduler() {
+            @Override
+            public void execute(Runnable task) {
+                if (!executor.isShutdown()) executor.execute(task);
+            }
+
+            @Override
+            public void schedule(Runnable task, long delayMs) {
+                if (!executor.isShutdown()) executor.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public long now() {
+                return System.nanoTime() / 1_000_000L;
+            }
+
+            @Override
+            public void shutdown() {
+                executor.shutdownNow();
+            }
+        };
+    }
+}
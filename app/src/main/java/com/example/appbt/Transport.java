@@ -0,0 +1,24 @@
+package com.example.appbt;
+
+import java.io.IOException;
+
+/**
+ * Medio por el que se llega al ESP32: abre conexiones y lanza búsquedas.
+ * {@link ConnectionManager} solo habla con esta interfaz; en el teléfono es
+ * {@link RfcommTransport} y en las pruebas {@link LoopbackTransport}.
+ */
+public interface Transport {
+
+    /** Bloquea hasta conectar o fallar. */
+    LinkSocket connect(String address) throws IOException;
+
+    /** Devuelve false si la búsqueda no se pudo iniciar. */
+    boolean startDiscovery();
+
+    /** false si buscar no tiene sentido (p. ej. falta el permiso): solo quedan los intentos directos. */
+    default boolean canDiscover() {
+        return true;
+    }
+
+    void cancelDiscovery();
+}
@@ -0,0 +1,135 @@
+package com.example.appbt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Junta en una sola alerta los SEND_SMS que llegan dentro de una ventana (rebote del botón,
+ * reintentos del firmware). El primero abre un "vuelo": una sola ubicación y un solo envío;
+ * los siguientes dentro de la ventana se suman a él y reciben el mismo resultado como ACK.
+ * Todo corre en el hilo del {@link TaskScheduler}.
+ */
+public class TriggerCoalescer {
+
+    public interface AlertStarter {
+        /** Arranca la alerta; cuando se sepa el resultado se llama {@link Flight#complete}. */
+        void start(Flight flight);
+    }
+
+    public interface AckSender {
+        void ack(int seq, int status);
+
+        /** Igual, sabiendo a qué vuelo responde el ACK; por defecto se ignora el vuelo. */
+        default void ack(Flight flight, int seq, int status) {
+            ack(seq, status);
+        }
+    }
+
+    /** Una alerta en curso con todos los disparos que se le sumaron. */
+    public final class Flight {
+        private final long startedAt;
+        private final List<Integer> seqs = new ArrayList<>();
+        private int status = -1;
+        private volatile int traceId;
+
+        private Flight(long startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        /** Resultado de la alerta; cada disparo sumado recibe su ACK con este estado. */
+        public void complete(int result) {
+            scheduler.execute(() -> {
+                if (status >= 0) return;
+                status = result;
+                for (int seq : seqs) ack(this, seq, result);
+                seqs.clear();
+            });
+        }
+
+        public boolean isComplete() {
+            return status >= 0;
+        }
+
+        /** Cuándo llegó el primer disparo, en el reloj del scheduler. */
+        public long getStartedAt() {
+            return startedAt;
+        }
+
+        /** Id de traza de {@link AlertTracer}; 0 si esta alerta no se mide. */
+        public int getTraceId() {
+            return traceId;
+        }
+
+        public void setTraceId(int traceId) {
+            this.traceId = traceId;
+        }
+    }
+
+    private final TaskScheduler scheduler;
+    private final long windowMs;
+    private final AlertStarter starter;
+    private final AckSender ackSender;
+
+    // Solo se tocan desde el hilo del scheduler
+    private Flight current;
+    private volatile long triggers;
+    private volatile long alertsStarted;
+    private volatile long suppressed;
+    private volatile long acksSent;
+
+    public TriggerCoalescer(TaskScheduler scheduler, long windowMs, AlertStarter starter, AckSender ackSender) {
+        this.scheduler = scheduler;
+        this.windowMs = windowMs;
+        this.starter = starter;
+        this.ackSender = ackSender;
+    }
+
+    /** Disparo recibido del ESP32 ({@code seq} -1 en modo ASCII). */
+    public void trigger(int seq) {
+        // La hora se toma al recibir la línea, no cuando el hilo de alertas llega a procesarla
+        long now = scheduler.now();
+        scheduler.execute(() -> {
+            triggers++;
+            Flight flight = current;
+            if (flight != null && now - flight.startedAt <= windowMs) {
+                suppressed++;
+                if (flight.isComplete()) {
+                    ack(flight, seq, flight.status);
+                } else {
+                    flight.seqs.add(seq);
+                }
+                return;
+            }
+            Flight next = new Flight(now);
+            next.seqs.add(seq);
+            current = next;
+            alertsStarted++;
+            scheduler.schedule(() -> {
+                if (current == next) current = null;
+            }, windowMs + 1);
+            starter.start(next);
+        });
+    }
+
+    private void ack(Flight flight, int seq, int status) {
+        acksSent++;
+        ackSender.ack(flight, seq, status);
+    }
+
+    public long getTriggers() {
+        return triggers;
+    }
+
+    public long getAlertsStarted() {
+        return alertsStarted;
+    }
+
+    /** Disparos que se sumaron a una alerta ya en curso en vez de abrir otra. */
+    public long getSuppressed() {
+        return suppressed;
+    }
+
+    public long getAcksSent() {
+        return acksSent;
+    }
+}
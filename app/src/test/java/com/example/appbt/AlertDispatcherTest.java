@@ -0,0 +1,179 @@
+package com.example.appbt;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AlertDispatcherTest {
+
+    private static class SentCall {
+        final String number;
+        final int alertId, recipient, attempt, parts;
+
+        SentCall(String number, int alertId, int recipient, int attempt, int parts) {
+            this.number = number;
+            this.alertId = alertId;
+            this.recipient = recipient;
+            this.attempt = attempt;
+            this.parts = parts;
+        }
+    }
+
+    private static class FakeSender implements SmsSender {
+        final List<SentCall> calls = new ArrayList<>();
+        int divides;
+        boolean throwOnSend;
+
+        @Override
+        public List<String> divideMessage(String text) {
+            divides++;
+            return Arrays.asList(text.substring(0, text.length() / 2), text.substring(text.length() / 2));
+        }
+
+        @Override
+        public void send(String number, List<String> parts, int alertId, int recipient, int attempt) {
+            if (throwOnSend) throw new IllegalArgumentException("número inválido");
+            calls.add(new SentCall(number, alertId, recipient, attempt, parts.size()));
+        }
+    }
+
+    private class Recorder implements AlertDispatcher.Listener {
+        int quorumCalls;
+        int[] finished;
+
+        @Override
+        public void onQuorumReached(int alertId) {
+            quorumCalls++;
+        }
+
+        @Override
+        public void onAlertFinished(int alertId, int delivered, int failed, int total) {
+            finished = new int[]{delivered, failed, total};
+        }
+    }
+
+    private ManualScheduler scheduler;
+    private FakeSender sender;
+    private Recorder recorder;
+
+    @Before
+    public void setUp() {
+        scheduler = new ManualScheduler();
+        sender = new FakeSender();
+        recorder = new Recorder();
+    }
+
+    private void deliverAll(AlertDispatcher dispatcher, SentCall call) {
+        for (int part = 0; part < call.parts; part++) {
+            dispatcher.onPartSent(call.alertId, call.recipient, call.attempt, part, true);
+            dispatcher.onPartDelivered(call.alertId, call.recipient, call.attempt, part, true);
+        }
+        scheduler.runPending();
+    }
+
+    @Test
+    public void divideUnaVezYEnviaATodos() {
+        AlertDispatcher dispatcher = new AlertDispatcher(sender, scheduler, 2, 3, 1000, 60_000);
+        dispatcher.dispatch("mensaje de alerta", Arrays.asList("1", "2", "3"), recorder);
+        scheduler.runPending();
+
+        assertEquals(1, sender.divides);
+        assertEquals(3, sender.calls.size());
+        assertEquals(0, recorder.quorumCalls);
+    }
+
+    @Test
+    public void avisaQuorumSoloCuandoSeConfirmanLasEntregas() {
+        AlertDispatcher dispatcher = new AlertDispatcher(sender, scheduler, 2, 3, 1000, 60_000);
+        dispatcher.dispatch("mensaje de alerta", Arrays.asList("1", "2", "3"), recorder);
+        scheduler.runPending();
+
+        SentCall first = sender.calls.get(0);
+        dispatcher.onPartSent(first.alertId, first.recipient, first.attempt, 0, true);
+        dispatcher.onPartSent(first.alertId, first.recipient, first.attempt, 1, true);
+        dispatcher.onPartDelivered(first.alertId, first.recipient, first.attempt, 0, true);
+        scheduler.runPending();
+        assertEquals("falta una parte", 0, recorder.quorumCalls);
+
+        deliverAll(dispatcher, first);
+        assertEquals(0, recorder.quorumCalls);
+        deliverAll(dispatcher, sender.calls.get(1));
+        assertEquals(1, recorder.quorumCalls);
+        assertNull(recorder.finished);
+
+        deliverAll(dispatcher, sender.calls.get(2));
+        assertEquals(1, recorder.quorumCalls);
+        assertArrayEquals(new int[]{3, 0, 3}, recorder.finished);
+    }
+
+    @Test
+    public void reintentaConEsperaCrecienteEIgnoraResultadosViejos() {
+        AlertDispatcher dispatcher = new AlertDispatcher(sender, scheduler, 1, 3, 1000, 60_000);
+        dispatcher.dispatch("mensaje de alerta", Arrays.asList("1"), recorder);
+        scheduler.runPending();
+
+        SentCall first = sender.calls.get(0);
+        dispatcher.onPartSent(first.alertId, 0, 1, 0, false);
+        scheduler.runPending();
+        scheduler.advance(999);
+        assertEquals(1, sender.calls.size());
+        scheduler.advance(1);
+        assertEquals(2, sender.calls.size());
+
+        // Un reporte tardío del primer intento no cuenta
+        dispatcher.onPartDelivered(first.alertId, 0, 1, 0, true);
+        dispatcher.onPartDelivered(first.alertId, 0, 1, 1, true);
+        scheduler.runPending();
+        assertEquals(0, recorder.quorumCalls);
+
+        SentCall second = sender.calls.get(1);
+        dispatcher.onPartSent(second.alertId, 0, 2, 1, false);
+        scheduler.runPending();
+        scheduler.advance(1999);
+        assertEquals(2, sender.calls.size());
+        scheduler.advance(1);
+        assertEquals(3, sender.calls.size());
+
+        SentCall third = sender.calls.get(2);
+        dispatcher.onPartSent(third.alertId, 0, 3, 0, false);
+        scheduler.runPending();
+        assertArrayEquals(new int[]{0, 1, 1}, recorder.finished);
+        assertEquals(0, recorder.quorumCalls);
+    }
+
+    @Test
+    public void excepcionDelEnvioCuentaComoFallo() {
+        sender.throwOnSend = true;
+        AlertDispatcher dispatcher = new AlertDispatcher(sender, scheduler, 1, 2, 1000, 60_000);
+        dispatcher.dispatch("mensaje de alerta", Arrays.asList("x"), recorder);
+        scheduler.runPending();
+        scheduler.advance(1000);
+        assertArrayEquals(new int[]{0, 1, 1}, recorder.finished);
+    }
+
+    @Test
+    public void terminaPorPlazoSiNoLleganConfirmaciones() {
+        AlertDispatcher dispatcher = new AlertDispatcher(sender, scheduler, 1, 3, 1000, 60_000);
+        dispatcher.dispatch("mensaje de alerta", Arrays.asList("1", "2"), recorder);
+        scheduler.runPending();
+        deliverAll(dispatcher, sender.calls.get(0));
+        assertEquals(1, recorder.quorumCalls);
+
+        scheduler.advance(60_000);
+        assertArrayEquals(new int[]{1, 0, 2}, recorder.finished);
+    }
+
+    @Test
+    public void sinContactosTerminaSinQuorum() {
+        AlertDispatcher dispatcher = new AlertDispatcher(sender, scheduler, 1, 3, 1000, 60_000);
+        dispatcher.dispatch("mensaje de alerta", new ArrayList<>(), recorder);
+        scheduler.runPending();
+        assertEquals(0, recorder.quorumCalls);
+        assertArrayEquals(new int[]{0, 0, 0}, recorder.finished);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.appbt;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class AlertEventSchemaTest {
+
+    @Test
+    public void claveDeMesCoincideConCalendario() {
+        SimpleDateFormat format = new SimpleDateFormat("yyyyMM", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        Random random = new Random(3);
+        for (int i = 0; i < 10_000; i++) {
+            long time = (long) (random.nextDouble() * 4_000_000_000_000L) - 500_000_000_000L;
+            assertEquals(format.format(new java.util.Date(time)), AlertEventSchema.bucketKey(time));
+        }
+    }
+
+    @Test
+    public void bordesDeMes() {
+        // 2024-02-29T23:59:59.999Z y el milisegundo siguiente
+        long leapEnd = 1_709_251_199_999L;
+        assertEquals(202402, AlertEventSchema.bucketOf(leapEnd));
+        assertEquals(202403, AlertEventSchema.bucketOf(leapEnd + 1));
+        assertEquals(197001, AlertEventSchema.bucketOf(0));
+        assertEquals(196912, AlertEventSchema.bucketOf(-1));
+    }
+
+    @Test
+    public void rangoCruzaFinDeAnio() {
+        long nov2023 = 1_699_000_000_000L;
+        long feb2024 = 1_707_000_000_000L;
+        assertEquals(Arrays.asList("202311", "202312", "202401", "202402"),
+                AlertEventSchema.bucketsBetween(nov2023, feb2024));
+        assertEquals(Arrays.asList("202311"), AlertEventSchema.bucketsBetween(nov2023, nov2023));
+        assertTrue(AlertEventSchema.bucketsBetween(feb2024, nov2023).isEmpty());
+    }
+
+    @Test
+    public void camposCompactosYNumericos() {
+        AlertEvent event = new AlertEvent("e1", 1_700_000_000_000L, AlertEvent.ORIGIN_APP, "SEGUIMIENTO",
+                -0.18, -78.46, 12.5f, "texto largo que no se guarda");
+        Map<String, Object> fields = AlertEventSchema.toFields(event);
+        assertEquals(6, fields.size());
+        assertEquals(1_700_000_000_000L, fields.get(AlertEventSchema.FIELD_TIME));
+        assertEquals(-0.18, (Double) fields.get(AlertEventSchema.FIELD_LATITUDE), 0);
+        assertEquals(-78.46, (Double) fields.get(AlertEventSchema.FIELD_LONGITUDE), 0);
+        assertEquals(12.5, (Double) fields.get(AlertEventSchema.FIELD_ACCURACY), 0);
+        assertEquals(AlertEventSchema.KIND_FOLLOW_UP, fields.get(AlertEventSchema.FIELD_KIND));
+        assertEquals(AlertEvent.ORIGIN_APP, fields.get(AlertEventSchema.FIELD_ORIGIN));
+        for (Object value : fields.values()) assertTrue(value instanceof Number);
+    }
+
+    @Test
+    public void tiposConocidosIdaYVuelta() {
+        for (String type : new String[]{"PRUEBA", "SEGUIMIENTO"}) {
+            assertEquals(type, AlertEventSchema.kindName(AlertEventSchema.kindCode(type)));
+        }
+        assertEquals(AlertEventSchema.KIND_OTHER, AlertEventSchema.kindCode("DESCONOCIDO"));
+        assertEquals(AlertEventSchema.KIND_OTHER, AlertEventSchema.kindCode(null));
+    }
+
+    @Test
+    public void migraEntradaDelArrayAnterior() {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("fecha", 1_700_000_000_000L);
+        entry.put("latitud", -0.18);
+        entry.put("longitud", -78.46);
+        entry.put("mensaje", "🚨 MENSAJE DE PRUEBA 🚨");
+        entry.put("tipo", "PRUEBA");
+
+        AlertEvent event = AlertEventSchema.fromLegacy(entry, 4);
+        assertEquals("legacy-1700000000000-4", event.getId());
+        assertEquals(1_700_000_000_000L, event.getTimeMs());
+        assertEquals(-0.18, event.getLatitude(), 0);
+        assertEquals(-78.46, event.getLongitude(), 0);
+        assertEquals("PRUEBA", event.getType());
+        // Misma entrada, mismo id: repetir la migración no duplica
+        assertEquals(event.getId(), AlertEventSchema.fromLegacy(entry, 4).getId());
+    }
+
+    @Test
+    public void migradaConservaTextoYTipoOriginales() {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("fecha", 1_700_000_000_000L);
+        entry.put("mensaje", "🚨 MENSAJE DE PRUEBA 🚨");
+        entry.put("tipo", "PRUEBA");
+        Map<String, Object> fields = AlertEventSchema.toFields(AlertEventSchema.fromLegacy(entry, 0));
+        assertEquals(AlertEventSchema.KIND_TEST, fields.get(AlertEventSchema.FIELD_KIND));
+        assertEquals("PRUEBA", fields.get(AlertEventSchema.FIELD_TYPE));
+        assertEquals("🚨 MENSAJE DE PRUEBA 🚨", fields.get(AlertEventSchema.FIELD_MESSAGE));
+
+        entry.put("tipo", "EMERGENCIA");
+        fields = AlertEventSchema.toFields(AlertEventSchema.fromLegacy(entry, 1));
+        assertEquals(AlertEventSchema.KIND_OTHER, fields.get(AlertEventSchema.FIELD_KIND));
+        assertEquals("EMERGENCIA", fields.get(AlertEventSchema.FIELD_TYPE));
+    }
+
+    @Test
+    public void tipoDesconocidoSeGuardaTalCual() {
+        AlertEvent event = new AlertEvent("e2", 1_700_000_000_000L, AlertEvent.ORIGIN_APP, "EMERGENCIA",
+                -0.18, -78.46, 12.5f, "texto que no se guarda");
+        Map<String, Object> fields = AlertEventSchema.toFields(event);
+        assertEquals("EMERGENCIA", fields.get(AlertEventSchema.FIELD_TYPE));
+        assertFalse(fields.containsKey(AlertEventSchema.FIELD_MESSAGE));
+    }
+
+    @Test
+    public void entradaIncompletaNoRompeLaMigracion() {
+        AlertEvent event = AlertEventSchema.fromLegacy(new HashMap<>(), 0);
+        assertEquals(0, event.getTimeMs());
+        assertEquals("", event.getType());
+    }
+}
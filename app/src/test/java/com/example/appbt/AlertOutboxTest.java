@@ -0,0 +1,140 @@
+package com.example.appbt;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AlertOutboxTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("outbox", "");
+        assertTrue(dir.delete());
+        assertTrue(dir.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) for (File file : files) file.delete();
+        dir.delete();
+    }
+
+    private static AlertEvent event(int i) {
+        return new AlertEvent("id-" + i, 1_700_000_000_000L + i, AlertEvent.ORIGIN_SERVICE, "PRUEBA",
+                -0.18 + i, -78.46, 12.5f, "Ubicación " + i);
+    }
+
+    @Test
+    public void eventoIdaYVuelta() throws IOException {
+        AlertEvent original = event(3);
+        AlertEvent copy = AlertEvent.fromBytes(original.toBytes());
+        assertEquals(original.getId(), copy.getId());
+        assertEquals(original.getTimeMs(), copy.getTimeMs());
+        assertEquals(original.getMessage(), copy.getMessage());
+        assertEquals(original.getLatitude(), copy.getLatitude(), 0);
+        assertEquals(original.getAccuracy(), copy.getAccuracy(), 0);
+    }
+
+    @Test
+    public void sobreviveAReabrirYRespetaLoConfirmado() throws IOException {
+        AlertOutbox outbox = new AlertOutbox(dir);
+        for (int i = 0; i < 5; i++) outbox.append(event(i));
+        outbox.commit(2);
+
+        AlertOutbox reopened = new AlertOutbox(dir);
+        assertEquals(3, reopened.pendingCount());
+        List<AlertEvent> pending = reopened.peek(10);
+        assertEquals(3, pending.size());
+        assertEquals("id-2", pending.get(0).getId());
+        assertEquals("id-4", pending.get(2).getId());
+    }
+
+    @Test
+    public void descartaRegistroFinalIncompleto() throws IOException {
+        AlertOutbox outbox = new AlertOutbox(dir);
+        outbox.append(event(0));
+        outbox.append(event(1));
+
+        // Simula un corte de energía a mitad del segundo registro
+        File log = new File(dir, "alerts.log");
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            file.setLength(file.length() - 5);
+        }
+
+        AlertOutbox reopened = new AlertOutbox(dir);
+        assertEquals(1, reopened.pendingCount());
+        reopened.append(event(2));
+        List<AlertEvent> pending = reopened.peek(10);
+        assertEquals(2, pending.size());
+        assertEquals("id-2", pending.get(1).getId());
+    }
+
+    @Test
+    public void vaciaElLogCuandoTodoEstaSubido() throws IOException {
+        AlertOutbox outbox = new AlertOutbox(dir);
+        for (int i = 0; i < 3; i++) outbox.append(event(i));
+        outbox.commit(3);
+
+        assertEquals(0, new File(dir, "alerts.log").length());
+        assertEquals(0, outbox.pendingCount());
+        assertTrue(outbox.peek(10).isEmpty());
+        assertEquals(0, new AlertOutbox(dir).pendingCount());
+    }
+
+    @Test
+    public void uploaderAgrupaEnLotesYReintentaTrasFallo() throws IOException {
+        AlertOutbox outbox = new AlertOutbox(dir);
+        InMemoryAlertSink sink = new InMemoryAlertSink();
+        sink.failuresLeft = 2;
+        ManualScheduler scheduler = new ManualScheduler();
+        OutboxUploader uploader = new OutboxUploader(outbox, sink, scheduler, 4, 1000, 5000, 60_000);
+
+        for (int i = 0; i < 10; i++) {
+            outbox.append(event(i));
+            uploader.requestFlush();
+        }
+        assertEquals(1, scheduler.pendingTimers());
+
+        scheduler.advance(1000);
+        assertEquals(1, uploader.getFailures());
+        scheduler.advance(5000);
+        assertEquals(2, uploader.getFailures());
+        assertTrue(sink.batches.isEmpty());
+        scheduler.advance(9999);
+        assertTrue(sink.batches.isEmpty());
+        scheduler.advance(1);
+
+        assertEquals(3, sink.batches.size());
+        assertEquals(10, sink.eventCount());
+        assertEquals(0, outbox.pendingCount());
+        assertEquals("id-0", sink.batches.get(0).get(0).getId());
+    }
+
+    @Test
+    public void redDisponibleSubeSinEsperarElReintento() throws IOException {
+        AlertOutbox outbox = new AlertOutbox(dir);
+        InMemoryAlertSink sink = new InMemoryAlertSink();
+        sink.failuresLeft = 1;
+        ManualScheduler scheduler = new ManualScheduler();
+        OutboxUploader uploader = new OutboxUploader(outbox, sink, scheduler, 50, 1000, 60_000, 600_000);
+
+        outbox.append(event(0));
+        uploader.requestFlush();
+        scheduler.advance(1000);
+        assertEquals(0, sink.eventCount());
+
+        uploader.onNetworkAvailable();
+        scheduler.runPending();
+        assertEquals(1, sink.eventCount());
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.appbt;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AlertTracerTest {
+
+    private long nowMs;
+    private AlertTracer tracer;
+
+    @Before
+    public void setUp() {
+        nowMs = 1000;
+        tracer = new AlertTracer(() -> nowMs);
+    }
+
+    @Test
+    public void lasCubetasCubrenTodoElRangoSinHuecos() {
+        for (int i = 0; i < LatencyHistogram.BUCKETS - 1; i++) {
+            assertEquals(LatencyHistogram.upperBound(i) + 1, LatencyHistogram.lowerBound(i + 1));
+            assertEquals(i, LatencyHistogram.indexOf(LatencyHistogram.lowerBound(i)));
+            assertEquals(i, LatencyHistogram.indexOf(LatencyHistogram.upperBound(i)));
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.indexOf(Long.MAX_VALUE));
+        assertEquals(0, LatencyHistogram.indexOf(0));
+    }
+
+    @Test
+    public void percentilesConErrorAcotado() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int v = 1; v <= 10_000; v++) histogram.record(v);
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000, histogram.getMax());
+        assertEquals(5000, histogram.getMean());
+        long p50 = histogram.percentile(50);
+        long p99 = histogram.percentile(99);
+        assertTrue("p50 " + p50, p50 >= 5000 && p50 <= 5000 * 1.125);
+        assertTrue("p99 " + p99, p99 >= 9900 && p99 <= 10_000);
+        assertEquals(10_000, histogram.percentile(100));
+        // Hasta 8 ms las cubetas son exactas
+        LatencyHistogram small = new LatencyHistogram();
+        small.record(3);
+        small.record(-5);
+        assertEquals(0, small.percentile(50));
+        assertEquals(3, small.percentile(100));
+    }
+
+    @Test
+    public void seGuardaYSeAcumulaComoTexto() {
+        LatencyHistogram a = new LatencyHistogram();
+        for (int v = 0; v < 500; v += 7) a.record(v);
+        LatencyHistogram b = new LatencyHistogram();
+        assertTrue(b.merge(a.encode()));
+        assertTrue(b.merge(a.encode()));
+
+        assertEquals(a.getCount() * 2, b.getCount());
+        assertEquals(a.getMax(), b.getMax());
+        assertEquals(a.getMean(), b.getMean());
+        assertEquals(a.percentile(90), b.percentile(90));
+
+        assertFalse(b.merge("basura"));
+        assertFalse(b.merge("1;2;999:1"));
+        assertTrue(new LatencyHistogram().merge(new LatencyHistogram().encode()));
+        assertEquals(a.getCount() * 2, b.getCount());
+    }
+
+    @Test
+    public void cadaEtapaMideDesdeElDisparo() {
+        int trace = tracer.begin(1000);
+        nowMs = 1300;
+        tracer.mark(trace, AlertTracer.Stage.LOCATION);
+        tracer.bindAlert(trace, 42);
+        nowMs = 1400;
+        tracer.markAlert(42, AlertTracer.Stage.SMS_SUBMITTED);
+        tracer.markAlert(42, AlertTracer.Stage.SMS_SUBMITTED);
+        nowMs = 3000;
+        tracer.mark(trace, AlertTracer.Stage.SMS_SENT);
+
+        assertEquals(300, tracer.get(AlertTracer.Stage.LOCATION).getMax());
+        assertEquals(2, tracer.get(AlertTracer.Stage.SMS_SUBMITTED).getCount());
+        assertEquals(2000, tracer.get(AlertTracer.Stage.SMS_SENT).getMax());
+        // Una alerta sin traza (seguimiento) no se cuenta
+        tracer.markAlert(7, AlertTracer.Stage.SMS_SUBMITTED);
+        tracer.mark(0, AlertTracer.Stage.LOCATION);
+        assertEquals(2, tracer.get(AlertTracer.Stage.SMS_SUBMITTED).getCount());
+        assertEquals(1, tracer.get(AlertTracer.Stage.LOCATION).getCount());
+    }
+
+    @Test
+    public void lasEtapasUnicasCuentanSoloLaPrimeraMarca() {
+        int trace = tracer.begin(1000);
+        nowMs = 1500;
+        tracer.mark(trace, AlertTracer.Stage.ACK_WRITTEN);
+        nowMs = 9000;
+        // Otro disparo del mismo vuelo recibe su ACK más tarde
+        tracer.mark(trace, AlertTracer.Stage.ACK_WRITTEN);
+
+        assertEquals(1, tracer.get(AlertTracer.Stage.ACK_WRITTEN).getCount());
+        assertEquals(500, tracer.get(AlertTracer.Stage.ACK_WRITTEN).getMax());
+    }
+
+    @Test
+    public void unaTrazaPisadaIgnoraMarcasTardias() {
+        int old = tracer.begin(1000);
+        for (int i = 0; i < 16; i++) tracer.begin(2000);
+        nowMs = 5000;
+        tracer.mark(old, AlertTracer.Stage.FIRESTORE);
+        assertEquals(0, tracer.get(AlertTracer.Stage.FIRESTORE).getCount());
+    }
+
+    @Test
+    public void rendimientoDeRegistroConVariosHilos() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threads = 4;
+        int perThread = 1_000_000;
+        Thread[] workers = new Thread[threads];
+        long t0 = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            workers[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < perThread; i++) histogram.record(random.nextInt(60_000));
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) worker.join();
+        long elapsedNs = System.nanoTime() - t0;
+
+        assertEquals((long) threads * perThread, histogram.getCount());
+        // Valores uniformes en 0..60 s: los percentiles caen donde deben, con el error de un balde
+        assertTrue("p50 " + histogram.percentile(50), Math.abs(histogram.percentile(50) - 30_000) < 6_000);
+        assertTrue("p99 " + histogram.percentile(99), histogram.percentile(99) >= 54_000);
+        // Cota holgada: se miden ~500 ns por registro con cuatro hilos compitiendo
+        double nsPerRecord = (double) elapsedNs * threads / histogram.getCount();
+        assertTrue("Histograma: " + nsPerRecord + " ns por registro", nsPerRecord < 20_000);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.appbt;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CaptureReplayTest {
+
+    private File dir;
+    private long fakeNanos;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("captures", "");
+        assertTrue(dir.delete());
+        assertTrue(dir.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    /** Lee todo el stream en trozos de {@code chunk}, como el lector del servicio. */
+    private static void drain(InputStream in, int chunk) throws IOException {
+        byte[] buffer = new byte[chunk];
+        while (in.read(buffer, 0, buffer.length) != -1) {
+            // solo se graba
+        }
+        in.close();
+    }
+
+    /** Tramas de disparo con ruido entre medio y cortes arbitrarios, como llegan del ESP32. */
+    private static byte[] traffic(int frames, long seed) {
+        Random random = new Random(seed);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < frames; i++) {
+            if (random.nextInt(10) == 0) out.write(random.nextInt(0x80));
+            byte[] frame = FrameCodec.encode(FrameCodec.TYPE_TRIGGER, i & 0xFFFF, null);
+            out.write(frame, 0, frame.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static List<Integer> parse(CaptureReplayer replayer) throws IOException {
+        return parse(replayer, LinkProtocol.Mode.AUTO);
+    }
+
+    private static List<Integer> parse(CaptureReplayer replayer, LinkProtocol.Mode mode) throws IOException {
+        List<Integer> seqs = new ArrayList<>();
+        LinkProtocol protocol = new LinkProtocol(mode);
+        InputStream in;
+        while ((in = replayer.nextConnection()) != null) {
+            protocol.reset();
+            protocol.pump(in, (command, seq) -> seqs.add(seq));
+        }
+        return seqs;
+    }
+
+    @Test
+    public void reproduceLasConexionesConLosMismosCortes() throws IOException {
+        CaptureTap tap = new CaptureTap(dir, 1024 * 1024, 4, () -> fakeNanos);
+        byte[] first = traffic(50, 1);
+        byte[] second = "SEND_SMS\nbasura\nSEND_SMS\n".getBytes(StandardCharsets.US_ASCII);
+        drain(tap.wrap(new ByteArrayInputStream(first)), 7);
+        drain(tap.wrap(new ByteArrayInputStream(second)), 5);
+        tap.close();
+
+        List<File> files = CaptureTap.listCaptures(dir);
+        assertEquals(1, files.size());
+        CaptureReplayer replayer = new CaptureReplayer(files.get(0), CaptureReplayer.Speed.MAX);
+        List<Integer> seqs = parse(replayer);
+
+        // 50 disparos binarios de la primera conexión y 2 de texto (seq -1) de la segunda
+        assertEquals(52, seqs.size());
+        assertEquals(49, (int) seqs.get(49));
+        assertEquals(-1, (int) seqs.get(51));
+        assertEquals(first.length + second.length, replayer.getBytes());
+        assertEquals(first.length + second.length, tap.getRecordedBytes());
+        // Un registro por cada lectura del socket
+        assertEquals((first.length + 6) / 7 + (second.length + 4) / 5, replayer.getRecords());
+    }
+
+    @Test
+    public void aVelocidadOriginalRespetaLasPausas() throws IOException {
+        CaptureTap tap = new CaptureTap(dir, 1024 * 1024, 4, () -> fakeNanos);
+        InputStream in = tap.wrap(new ByteArrayInputStream(traffic(3, 2)));
+        byte[] buffer = new byte[FrameCodec.OVERHEAD];
+        while (in.read(buffer, 0, buffer.length) != -1) fakeNanos += 30_000_000L;
+        tap.close();
+
+        CaptureReplayer replayer = new CaptureReplayer(CaptureTap.listCaptures(dir).get(0),
+                CaptureReplayer.Speed.ORIGINAL);
+        long t0 = System.nanoTime();
+        parse(replayer);
+        long elapsedMs = (System.nanoTime() - t0) / 1_000_000;
+        assertTrue("Duró " + elapsedMs + " ms", elapsedMs >= 50);
+    }
+
+    @Test
+    public void rotaYGuardaSoloLosUltimosArchivos() throws IOException {
+        CaptureTap tap = new CaptureTap(dir, 4096, 3, () -> fakeNanos);
+        for (int i = 0; i < 10; i++) drain(tap.wrap(new ByteArrayInputStream(traffic(200, i))), 64);
+        tap.close();
+
+        List<File> files = CaptureTap.listCaptures(dir);
+        assertEquals(3, files.size());
+        for (File file : files) {
+            assertTrue(file.length() <= 4096);
+            // Cada archivo se puede reproducir suelto; si rotó a mitad de una conexión empieza
+            // a mitad de trama, así que el modo se fija en vez de detectarlo
+            assertFalse(parse(new CaptureReplayer(file, CaptureReplayer.Speed.MAX), LinkProtocol.Mode.BINARY).isEmpty());
+        }
+
+        // Una instancia nueva sigue la numeración en vez de pisar archivos
+        CaptureTap again = new CaptureTap(dir, 4096, 3, () -> fakeNanos);
+        drain(again.wrap(new ByteArrayInputStream(traffic(1, 99))), 64);
+        again.close();
+        List<File> after = CaptureTap.listCaptures(dir);
+        assertEquals(files.get(2).getName(), after.get(1).getName());
+    }
+
+    @Test
+    public void toleraUnaColaCortada() throws IOException {
+        CaptureTap tap = new CaptureTap(dir, 1024 * 1024, 4, () -> fakeNanos);
+        drain(tap.wrap(new ByteArrayInputStream(traffic(20, 3))), 10);
+        tap.close();
+        File file = CaptureTap.listCaptures(dir).get(0);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 4);
+        }
+
+        List<Integer> seqs = parse(new CaptureReplayer(file, CaptureReplayer.Speed.MAX));
+        assertTrue(seqs.size() >= 18 && seqs.size() < 20);
+    }
+
+    @Test
+    public void rendimientoDelParserConTraficoGrabado() throws IOException {
+        CaptureTap tap = new CaptureTap(dir, 64L * 1024 * 1024, 2, () -> fakeNanos);
+        byte[] data = traffic(200_000, 4);
+        long t0 = System.nanoTime();
+        drain(tap.wrap(new ByteArrayInputStream(data)), 512);
+        tap.close();
+        long recordNs = System.nanoTime() - t0;
+
+        File file = CaptureTap.listCaptures(dir).get(0);
+        CaptureReplayer replayer = new CaptureReplayer(file, CaptureReplayer.Speed.MAX);
+        t0 = System.nanoTime();
+        List<Integer> seqs = parse(replayer);
+        long replayNs = System.nanoTime() - t0;
+
+        assertEquals(200_000, seqs.size());
+        // Los encabezados de cada trozo agregan menos de 5 % a lo recibido
+        assertTrue("Archivo de " + file.length() + " bytes", file.length() < data.length * 105L / 100);
+        // Cotas holgadas: se miden ~100 MB/s al grabar y ~15 MB/s al reproducir con el parser
+        double recordMbps = data.length * 1e3 / recordNs;
+        double replayMbps = data.length * 1e3 / replayNs;
+        assertTrue("Grabación: " + recordMbps + " MB/s", recordMbps > 1);
+        assertTrue("Reproducción + parser: " + replayMbps + " MB/s", replayMbps > 0.5);
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.appbt;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ConnectionManagerTest {
+
+    private static final String ADDRESS = "08:A6:F7:47:01:62";
+    private static final long MAX_DELAY_MS = 8000;
+
+    private ManualScheduler scheduler;
+    private ArrayDeque<Runnable> readers;
+    private ArrayDeque<Runnable> connects;
+    private FakeConnector connector;
+    private List<ConnectionManager.State> states;
+    private ReconnectPolicy policy;
+    private ConnectionManager manager;
+
+    private class FakeSocket implements LinkSocket {
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        boolean closed;
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return written;
+        }
+
+        @Override
+        public String getAddress() {
+            return ADDRESS;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            connector.open--;
+        }
+    }
+
+    private class FakeConnector implements Transport {
+        boolean failConnect;
+        boolean canDiscover = true;
+        int connects;
+        int discoveries;
+        int open;
+        FakeSocket last;
+
+        @Override
+        public LinkSocket connect(String address) throws IOException {
+            connects++;
+            if (failConnect) throw new IOException("sin respuesta");
+            open++;
+            last = new FakeSocket();
+            return last;
+        }
+
+        @Override
+        public boolean startDiscovery() {
+            discoveries++;
+            return true;
+        }
+
+        @Override
+        public boolean canDiscover() {
+            return canDiscover;
+        }
+
+        @Override
+        public void cancelDiscovery() {}
+    }
+
+    @Before
+    public void setUp() {
+        scheduler = new ManualScheduler();
+        readers = new ArrayDeque<>();
+        connects = new ArrayDeque<>();
+        connector = new FakeConnector();
+        states = new ArrayList<>();
+        policy = new ReconnectPolicy(1000, MAX_DELAY_MS, 2, new Random(7));
+        manager = new ConnectionManager(connector, scheduler, readers::add, connects::add, policy,
+                new ConnectionManager.Listener() {
+                    @Override
+                    public void onStateChanged(ConnectionManager.State state) {
+                        states.add(state);
+                    }
+
+                    @Override
+                    public void readLoop(LinkSocket socket) {
+                        // El lector termina al instante: equivale a perder el enlace
+                    }
+                });
+    }
+
+    /** Corre el scheduler y las conexiones que vaya pidiendo hasta que no quede nada. */
+    private void settle() {
+        scheduler.runPending();
+        Runnable connect;
+        while ((connect = connects.poll()) != null) {
+            connect.run();
+            scheduler.runPending();
+        }
+    }
+
+    @Test
+    public void conectaDirectoConDireccionConocida() {
+        manager.start(ADDRESS);
+        settle();
+
+        assertEquals(ConnectionManager.State.CONNECTED, manager.getState());
+        assertEquals(1, connector.connects);
+        assertEquals(0, connector.discoveries);
+        assertTrue(manager.write(new byte[]{1, 2}));
+        assertEquals(2, connector.last.written.size());
+    }
+
+    @Test
+    public void buscaCuandoNoHayDireccionYConectaAlEncontrar() {
+        manager.start(null);
+        scheduler.runPending();
+        assertEquals(ConnectionManager.State.DISCOVERING, manager.getState());
+
+        manager.onDeviceFound(ADDRESS);
+        manager.onDeviceFound(ADDRESS);
+        settle();
+
+        assertEquals(ConnectionManager.State.CONNECTED, manager.getState());
+        assertEquals(1, connector.connects);
+    }
+
+    @Test
+    public void reintentaDirectoAntesDeRecurrirABusqueda() {
+        connector.failConnect = true;
+        manager.start(ADDRESS);
+        settle();
+        assertEquals(ConnectionManager.State.BACKOFF, manager.getState());
+        assertFalse(manager.write(new byte[]{1}));
+
+        scheduler.advance(2000);
+        settle();
+        assertEquals(2, connector.connects);
+        assertEquals(0, connector.discoveries);
+
+        scheduler.advance(MAX_DELAY_MS);
+        assertEquals(ConnectionManager.State.DISCOVERING, manager.getState());
+        assertEquals(1, connector.discoveries);
+    }
+
+    @Test
+    public void trasUnaBusquedaFallidaVuelveAProbarDirecto() {
+        connector.failConnect = true;
+        manager.start(ADDRESS);
+        settle();
+        scheduler.advance(2000);
+        settle();
+        // Agotados los intentos directos toca buscar; la búsqueda vence sin resultado
+        scheduler.advance(MAX_DELAY_MS);
+        assertEquals(ConnectionManager.State.DISCOVERING, manager.getState());
+        scheduler.advance(ConnectionManager.DISCOVERY_TIMEOUT_MS);
+        assertEquals(ConnectionManager.State.BACKOFF, manager.getState());
+
+        connector.failConnect = false;
+        scheduler.advance(MAX_DELAY_MS);
+        settle();
+        assertEquals(ConnectionManager.State.CONNECTED, manager.getState());
+        assertEquals(3, connector.connects);
+        assertEquals(1, connector.discoveries);
+    }
+
+    @Test
+    public void sinPermisoDeBusquedaSoloReintentaDirecto() {
+        connector.canDiscover = false;
+        connector.failConnect = true;
+        manager.start(ADDRESS);
+        settle();
+        for (int i = 0; i < 10; i++) {
+            scheduler.advance(MAX_DELAY_MS);
+            settle();
+            assertEquals(ConnectionManager.State.BACKOFF, manager.getState());
+        }
+        assertEquals(11, connector.connects);
+        assertEquals(0, connector.discoveries);
+
+        connector.failConnect = false;
+        scheduler.advance(MAX_DELAY_MS);
+        settle();
+        assertEquals(ConnectionManager.State.CONNECTED, manager.getState());
+    }
+
+    @Test
+    public void registraTiempoDeReconexionTrasCaidaBreve() {
+        manager.start(ADDRESS);
+        settle();
+        readers.poll().run();
+        scheduler.runPending();
+        assertEquals(ConnectionManager.State.BACKOFF, manager.getState());
+
+        scheduler.advance(1000);
+        settle();
+        assertEquals(ConnectionManager.State.CONNECTED, manager.getState());
+        assertEquals(0, connector.discoveries);
+        assertEquals(1, policy.getReconnectCount());
+        assertTrue(policy.getLastReconnectMs() >= 500 && policy.getLastReconnectMs() <= 1000);
+    }
+
+    @Test
+    public void enlaceInestableNuncaDejaSocketsDuplicados() {
+        manager.start(ADDRESS);
+        for (int i = 0; i < 1000; i++) {
+            settle();
+            if (manager.getState() == ConnectionManager.State.CONNECTED) {
+                assertEquals(1, connector.open);
+                // Varias señales a la vez mientras el lector cae
+                manager.start(ADDRESS);
+                manager.onDeviceFound(ADDRESS);
+                Runnable reader = readers.poll();
+                if (reader != null) reader.run();
+            }
+            settle();
+            if (manager.getState() == ConnectionManager.State.BACKOFF) {
+                scheduler.advance(MAX_DELAY_MS);
+                manager.onDeviceFound(ADDRESS);
+            }
+            assertTrue(connector.open <= 1);
+        }
+        assertTrue(connector.connects > 100);
+    }
+
+    @Test
+    public void stopCierraElSocketEIgnoraAlLectorViejo() {
+        manager.start(ADDRESS);
+        settle();
+        FakeSocket socket = connector.last;
+
+        manager.stop();
+        scheduler.runPending();
+        readers.poll().run();
+        scheduler.runPending();
+
+        assertTrue(socket.closed);
+        assertEquals(ConnectionManager.State.IDLE, manager.getState());
+        assertEquals(0, scheduler.pendingTimers());
+    }
+
+    @Test
+    public void unaConexionLentaNoTrabaElSchedulerYSeDescartaSiLlegaTarde() {
+        manager.start(ADDRESS);
+        scheduler.runPending();
+        // connect() quedó en su ejecutor; el scheduler sigue libre para otras transiciones
+        assertEquals(ConnectionManager.State.CONNECTING, manager.getState());
+        assertEquals(0, connector.connects);
+        assertEquals(1, connects.size());
+
+        manager.stop();
+        scheduler.runPending();
+        assertEquals(ConnectionManager.State.IDLE, manager.getState());
+
+        connects.poll().run();
+        scheduler.runPending();
+        assertEquals(1, connector.connects);
+        assertTrue(connector.last.closed);
+        assertEquals(0, connector.open);
+        assertEquals(ConnectionManager.State.IDLE, manager.getState());
+        assertTrue(readers.isEmpty());
+    }
+
+    @Test
+    public void busquedaSinResultadoVuelveABackoff() {
+        manager.start(null);
+        scheduler.runPending();
+        scheduler.advance(ConnectionManager.DISCOVERY_TIMEOUT_MS);
+        assertEquals(ConnectionManager.State.BACKOFF, manager.getState());
+    }
+}
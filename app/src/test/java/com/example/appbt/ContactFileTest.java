@@ -0,0 +1,174 @@
+package com.example.appbt;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ContactFileTest {
+
+    private File dir;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("contacts", "");
+        assertTrue(dir.delete());
+        assertTrue(dir.mkdirs());
+        file = new File(dir, "contacts.dat");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    private static List<Contact> contacts(int count) {
+        List<Contact> contacts = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) contacts.add(new Contact(i, "Responsable " + i, "+5939" + (10_000_000 + i)));
+        return contacts;
+    }
+
+    @Test
+    public void reproduceAltasEdicionesYBajas() throws IOException {
+        ContactFile store = new ContactFile(file);
+        store.put(new Contact(1, "Ana", "0991"));
+        store.put(new Contact(2, "Luis", "0992"));
+        store.put(new Contact(3, "Eva", "0993"));
+        store.put(new Contact(1, "Ana María", "0994"));
+        store.delete(2);
+
+        List<Contact> loaded = new ContactFile(file).load();
+        assertEquals(2, loaded.size());
+        // Una edición conserva el lugar del contacto
+        assertEquals("Ana María", loaded.get(0).getName());
+        assertEquals("0994", loaded.get(0).getNumber());
+        assertEquals(3, loaded.get(1).getId());
+    }
+
+    @Test
+    public void descartaRegistroFinalIncompleto() throws IOException {
+        ContactFile store = new ContactFile(file);
+        store.put(new Contact(1, "Ana", "0991"));
+        store.put(new Contact(2, "Luis", "0992"));
+        long full = file.length();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(full - 3);
+        }
+
+        ContactFile reopened = new ContactFile(file);
+        List<Contact> loaded = reopened.load();
+        assertEquals(1, loaded.size());
+        assertEquals("Ana", loaded.get(0).getName());
+
+        reopened.put(new Contact(3, "Eva", "0993"));
+        assertEquals(2, new ContactFile(file).load().size());
+    }
+
+    @Test
+    public void compactaCuandoDominanLosRegistrosMuertos() throws IOException {
+        ContactFile store = new ContactFile(file);
+        store.rewrite(contacts(10));
+        List<Contact> current = new ArrayList<>(contacts(10));
+        for (int round = 0; round < 200; round++) {
+            Contact edited = new Contact(1, "Editado " + round, "0990");
+            store.put(edited);
+            current.set(0, edited);
+            store.compactIfNeeded(current);
+        }
+
+        assertTrue(store.getCompactions() >= 2);
+        assertTrue(store.getRecordCount() <= 2 * current.size() + 64);
+        List<Contact> loaded = new ContactFile(file).load();
+        assertEquals(10, loaded.size());
+        assertEquals("Editado 199", loaded.get(0).getName());
+    }
+
+    @Test
+    public void noCompactaPorDebajoDelMinimoNiConLaMitadExacta() throws IOException {
+        // Un solo contacto vivo: compacta recién al llegar al mínimo de registros
+        ContactFile small = new ContactFile(file);
+        small.rewrite(contacts(1));
+        List<Contact> one = contacts(1);
+        while (small.getRecordCount() < ContactFile.MIN_COMPACT_RECORDS - 1) small.put(one.get(0));
+        small.compactIfNeeded(one);
+        assertEquals(1, small.getCompactions());
+        small.put(one.get(0));
+        small.compactIfNeeded(one);
+        assertEquals(2, small.getCompactions());
+        assertEquals(1, small.getRecordCount());
+
+        // Exactamente el doble de registros que vivos no alcanza: hace falta más del doble
+        int live = ContactFile.MIN_COMPACT_RECORDS / 2;
+        ContactFile half = new ContactFile(new File(dir, "half.dat"));
+        List<Contact> current = contacts(live);
+        half.rewrite(current);
+        while (half.getRecordCount() < 2 * live) half.put(current.get(0));
+        half.compactIfNeeded(current);
+        assertEquals(1, half.getCompactions());
+        half.put(current.get(0));
+        half.compactIfNeeded(current);
+        assertEquals(2, half.getCompactions());
+        assertEquals(live, half.getRecordCount());
+    }
+
+    @Test
+    public void rendimientoFrenteACadenaEnPreferencias() throws IOException {
+        for (int count : new int[]{10, 1_000, 10_000}) {
+            List<Contact> contacts = contacts(count);
+            File legacy = new File(dir, "legacy-" + count);
+            File records = new File(dir, "records-" + count);
+            ContactFile store = new ContactFile(records);
+            store.rewrite(contacts);
+            writeLegacy(legacy, contacts);
+
+            // Guardar: la cadena se reescribe entera, el archivo nuevo solo anexa un registro
+            int rounds = 20;
+            long before = records.length();
+            for (int i = 0; i < rounds; i++) store.put(new Contact(count, "Editado " + i, "0990"));
+            long recordSaveBytes = (records.length() - before) / rounds;
+            long legacySaveBytes = legacy.length();
+            assertTrue("Bytes por edición con " + count + ": " + recordSaveBytes, recordSaveBytes < 64);
+            assertTrue(recordSaveBytes * (count >= 1_000 ? 100 : 1) < legacySaveBytes);
+
+            // Cargar: la misma cantidad de contactos, con una cota de tiempo holgada
+            long start = System.nanoTime();
+            List<Contact> recordLoaded = new ContactFile(records).load();
+            long loadMs = (System.nanoTime() - start) / 1_000_000;
+            List<Contact> legacyLoaded = ContactCodec.decode(readLegacy(legacy));
+            assertEquals(count, recordLoaded.size());
+            assertEquals(count, legacyLoaded.size());
+            assertTrue("Carga de " + count + " contactos: " + loadMs + " ms", loadMs < 1_000);
+        }
+    }
+
+    // Lo que hacía saveContacts(): reconstruir la cadena completa y reescribir el archivo
+    private static void writeLegacy(File target, List<Contact> contacts) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (Contact contact : contacts) {
+            sb.append(contact.getName()).append(",").append(contact.getNumber()).append(";");
+        }
+        try (FileOutputStream out = new FileOutputStream(target)) {
+            out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String readLegacy(File source) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(source, "r")) {
+            byte[] data = new byte[(int) raf.length()];
+            raf.readFully(data);
+            return new String(data, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.appbt;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ContactImporterTest {
+
+    private static final PhoneNumberNormalizer EC = new PhoneNumberNormalizer("EC");
+
+    private static class MemoryStorage implements ContactRepository.Storage {
+        final Map<Long, Contact> stored = new LinkedHashMap<>();
+        int bulkWrites;
+
+        @Override
+        public List<Contact> load() {
+            return new ArrayList<>(stored.values());
+        }
+
+        @Override
+        public void put(Contact contact) {
+            stored.put(contact.getId(), contact);
+        }
+
+        @Override
+        public void delete(long id) {
+            stored.remove(id);
+        }
+
+        @Override
+        public void putAll(List<Contact> contacts) {
+            for (Contact contact : contacts) stored.put(contact.getId(), contact);
+            bulkWrites++;
+        }
+    }
+
+    /** Agenda falsa; registra cada página pedida para verificar la paginación. */
+    private static class FakePhonebook implements ContactImporter.PageSource {
+        final List<String[]> rows = new ArrayList<>();
+        final List<Long> requestedAfter = new ArrayList<>();
+        int maxRowsInPage;
+
+        void add(String name, String number) {
+            rows.add(new String[]{name, number});
+        }
+
+        @Override
+        public int readPage(long afterId, int limit, ContactImporter.RowConsumer consumer) {
+            requestedAfter.add(afterId);
+            int count = 0;
+            for (int i = 0; i < rows.size() && count < limit; i++) {
+                long rowId = (i + 1) * 10L;
+                if (rowId <= afterId) continue;
+                consumer.accept(rowId, rows.get(i)[0], rows.get(i)[1]);
+                count++;
+            }
+            maxRowsInPage = Math.max(maxRowsInPage, count);
+            return count;
+        }
+    }
+
+    @Test
+    public void importaPorPaginasNormalizandoYSinRepetidos() throws IOException {
+        MemoryStorage storage = new MemoryStorage();
+        ContactRepository repository = new ContactRepository(storage, EC);
+        repository.add(new Contact("Ana", "099 111 2222"));
+
+        FakePhonebook phonebook = new FakePhonebook();
+        phonebook.add("Ana (trabajo)", "0991112222");
+        phonebook.add("Luis", "(02) 234-5678");
+        phonebook.add("Luis", "02 234 5678");
+        phonebook.add("Sin número", "--");
+        phonebook.add("", "+593 98 765 4321");
+        phonebook.add("Eva", "0981234567");
+
+        List<Integer> progress = new ArrayList<>();
+        ContactImporter.Result result = new ContactImporter(repository, 2)
+                .run(phonebook, (scanned, imported) -> progress.add(scanned));
+
+        assertEquals(6, result.scanned);
+        assertEquals(3, result.imported);
+        assertEquals(2, result.duplicates);
+        assertEquals(1, result.invalid);
+        assertEquals(4, repository.size());
+        assertEquals("022345678", repository.getContacts().get(1).getNumber());
+        assertEquals("+593987654321", repository.getContacts().get(2).getName());
+
+        // Tres páginas llenas de 2 y una vacía al final, cada una pedida después del último id
+        assertEquals(2, phonebook.maxRowsInPage);
+        assertEquals(Long.valueOf(20), phonebook.requestedAfter.get(1));
+        assertEquals(4, phonebook.requestedAfter.size());
+        assertEquals(4, progress.size());
+        // Una escritura por página con contactos nuevos
+        assertEquals(2, storage.bulkWrites);
+    }
+
+    @Test
+    public void agendaVaciaNoEscribeNada() throws IOException {
+        MemoryStorage storage = new MemoryStorage();
+        ContactImporter.Result result = new ContactImporter(new ContactRepository(storage, EC), 50)
+                .run(new FakePhonebook(), null);
+        assertEquals(0, result.scanned);
+        assertEquals(0, storage.bulkWrites);
+    }
+
+    @Test
+    public void importacionGrandeConMemoriaAcotada() throws IOException {
+        MemoryStorage storage = new MemoryStorage();
+        ContactRepository repository = new ContactRepository(storage, EC);
+        FakePhonebook phonebook = new FakePhonebook();
+        for (int i = 0; i < 10_000; i++) phonebook.add("Contacto " + i, "09" + (20_000_000 + i % 8_000));
+
+        ContactImporter.Result result = new ContactImporter(repository, 500).run(phonebook, null);
+
+        assertEquals(10_000, result.scanned);
+        assertEquals(8_000, result.imported);
+        assertEquals(2_000, result.duplicates);
+        assertEquals(500, phonebook.maxRowsInPage);
+        assertEquals(8_000, repository.size());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.appbt;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ContactIndexTest {
+
+    private static final List<Contact> CONTACTS = Arrays.asList(
+            new Contact(1, "Ana Pérez", "+593 99 123 4567"),
+            new Contact(2, "Andrés Ortiz", "0987654321"),
+            new Contact(3, "María Ana López", "02-234-5678"),
+            new Contact(4, "Luis Anaya", "0991112233"));
+
+    private static List<Long> ids(List<Contact> contacts) {
+        List<Long> ids = new ArrayList<>();
+        for (Contact contact : contacts) ids.add(contact.getId());
+        return ids;
+    }
+
+    @Test
+    public void buscaPorPrefijoDePalabraSinTildesNiMayusculas() {
+        ContactIndex index = ContactIndex.build(CONTACTS);
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L), ids(index.search("an")));
+        assertEquals(Arrays.asList(1L, 3L, 4L), ids(index.search("ana")));
+        assertEquals(Arrays.asList(2L), ids(index.search("ANDRES")));
+        assertEquals(Arrays.asList(1L), ids(index.search("perez")));
+        assertTrue(index.search("zz").isEmpty());
+    }
+
+    @Test
+    public void todasLasPalabrasDebenCoincidir() {
+        ContactIndex index = ContactIndex.build(CONTACTS);
+        assertEquals(Arrays.asList(3L), ids(index.search("ana lo")));
+        assertEquals(Arrays.asList(3L), ids(index.search("lo ana")));
+        assertTrue(index.search("ana ortiz").isEmpty());
+    }
+
+    @Test
+    public void buscaPorPrefijoDeNumeroIgnorandoSeparadores() {
+        ContactIndex index = ContactIndex.build(CONTACTS);
+        assertEquals(Arrays.asList(2L, 4L), ids(index.search("09")));
+        assertEquals(Arrays.asList(1L), ids(index.search("+593 99")));
+        assertEquals(Arrays.asList(3L), ids(index.search("02-23")));
+    }
+
+    @Test
+    public void consultaVaciaDevuelveTodo() {
+        ContactIndex index = ContactIndex.build(CONTACTS);
+        assertSame(CONTACTS, index.search("  "));
+    }
+
+    @Test
+    public void busquedaEnDiezMilContactos() {
+        String[] first = {"Ana", "Luis", "María", "José", "Carmen", "Pedro", "Lucía", "Jorge", "Sofía", "Diego"};
+        String[] last = {"Pérez", "López", "Gómez", "Torres", "Vera", "Andrade", "Castillo", "Mora"};
+        Random random = new Random(11);
+        List<Contact> contacts = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String name = first[random.nextInt(first.length)] + " " + last[random.nextInt(last.length)] + " " + i;
+            contacts.add(new Contact(i + 1, name, "09" + (10_000_000 + random.nextInt(90_000_000))));
+        }
+        ContactIndex index = ContactIndex.build(contacts);
+
+        String[] queries = {"an", "lopez", "mar to", "099", "0912", "9999", "sof cas", "x"};
+        int rounds = 200;
+        int found = 0;
+        // La mejor vuelta: una pausa del GC o una máquina cargada no cuentan como búsqueda lenta
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < rounds; r++) {
+            long start = System.nanoTime();
+            for (String query : queries) found += index.search(query).size();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double micros = best / 1e3 / queries.length;
+
+        assertTrue(found > 0);
+        // Comparación contra un recorrido lineal para la misma consulta
+        int linear = 0;
+        for (Contact contact : contacts) {
+            if (ContactIndex.fold(contact.getName()).contains("lopez")) linear++;
+        }
+        assertEquals(linear, index.search("lopez").size());
+        assertTrue("ContactIndex: " + micros + " us por búsqueda en 10k contactos", micros < 1_000);
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.appbt;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ContactRepositoryTest {
+
+    private static final PhoneNumberNormalizer EC = new PhoneNumberNormalizer("EC");
+
+    private static class MemoryStorage implements ContactRepository.Storage {
+        final Map<Long, Contact> stored = new LinkedHashMap<>();
+        int writes;
+
+        MemoryStorage(Contact... initial) {
+            for (Contact contact : initial) stored.put(contact.getId(), contact);
+        }
+
+        @Override
+        public List<Contact> load() {
+            return new ArrayList<>(stored.values());
+        }
+
+        @Override
+        public void put(Contact contact) {
+            stored.put(contact.getId(), contact);
+            writes++;
+        }
+
+        @Override
+        public void delete(long id) {
+            stored.remove(id);
+            writes++;
+        }
+    }
+
+    @Test
+    public void leeElFormatoAnterior() {
+        List<Contact> contacts = ContactCodec.decode("Mamá,0991234567;Papá,0987654321;");
+        assertEquals(2, contacts.size());
+        assertEquals("Mamá", contacts.get(0).getName());
+        assertEquals("0987654321", contacts.get(1).getNumber());
+    }
+
+    @Test
+    public void descartaEntradasMalFormadasComoAntes() {
+        List<Contact> contacts = ContactCodec.decode("solo;a,b,c;,123;Ana,099;Luis,098");
+        assertEquals(2, contacts.size());
+        assertEquals("Ana", contacts.get(0).getName());
+        assertEquals("Luis", contacts.get(1).getName());
+    }
+
+    @Test
+    public void separadoresEnElNombreNoCorrompenLaLista() {
+        List<Contact> original = Arrays.asList(
+                new Contact("Pérez, Ana", "0991"),
+                new Contact("Tío; Juan", "0992"),
+                new Contact("C:\\ruta\\", "+593 99,3"));
+        List<Contact> decoded = ContactCodec.decode(ContactCodec.encode(original));
+        assertEquals(3, decoded.size());
+        for (int i = 0; i < original.size(); i++) {
+            assertEquals(original.get(i).getName(), decoded.get(i).getName());
+            assertEquals(original.get(i).getNumber(), decoded.get(i).getNumber());
+        }
+    }
+
+    @Test
+    public void cargaUnaSolaVezYPersisteCadaCambio() throws IOException {
+        MemoryStorage storage = new MemoryStorage(new Contact(5, "Ana", "0991"));
+        ContactRepository repository = new ContactRepository(storage, EC);
+        assertEquals(Arrays.asList("0991"), repository.getNumbers());
+
+        repository.add(new Contact("Luis", "0992"));
+        repository.update(new Contact(5, "Ana María", "0993"));
+        repository.remove(6);
+
+        // Una escritura al cargar (número canónico del contacto antiguo) y una por cambio
+        assertEquals(4, storage.writes);
+        assertEquals(Arrays.asList("0993"), repository.getNumbers());
+        List<Contact> reloaded = new ContactRepository(storage, EC).getContacts();
+        assertEquals(1, reloaded.size());
+        assertEquals("Ana María", reloaded.get(0).getName());
+        assertEquals(5, reloaded.get(0).getId());
+    }
+
+    @Test
+    public void asignaIdsNuevosSinRepetir() throws IOException {
+        ContactRepository repository = new ContactRepository(new MemoryStorage(new Contact(7, "Ana", "0991")), EC);
+        repository.add(new Contact("Luis", "0992"));
+        repository.remove(8);
+        repository.add(new Contact("Eva", "0993"));
+
+        assertEquals(7, repository.getContacts().get(0).getId());
+        assertEquals(9, repository.getContacts().get(1).getId());
+    }
+
+    @Test
+    public void editarOBorrarUnIdInexistenteNoHaceNada() throws IOException {
+        MemoryStorage storage = new MemoryStorage(new Contact(1, "Ana", "0991"));
+        ContactRepository repository = new ContactRepository(storage, EC);
+        List<Contact> before = repository.getContacts();
+        storage.writes = 0;
+
+        repository.update(new Contact(2, "Luis", "0992"));
+        repository.remove(3);
+
+        assertSame(before, repository.getContacts());
+        assertEquals(0, storage.writes);
+    }
+
+    @Test
+    public void completaElNumeroCanonicoDeContactosAntiguosUnaVez() throws IOException {
+        MemoryStorage storage = new MemoryStorage(new Contact(1, "Ana", "099 123 4567"));
+        new ContactRepository(storage, EC);
+        assertEquals("+593991234567", storage.stored.get(1L).getCanonicalNumber());
+
+        storage.writes = 0;
+        new ContactRepository(storage, EC);
+        assertEquals(0, storage.writes);
+    }
+
+    @Test
+    public void destinatariosSinRepetir() throws IOException {
+        ContactRepository repository = new ContactRepository(new MemoryStorage(), EC);
+        repository.add(new Contact("Ana", "0991234567"));
+        repository.add(new Contact("Ana celular", "+593 99 123 4567"));
+        repository.add(new Contact("Luis", "00593 98 765 4321"));
+        repository.add(new Contact("Luis otra vez", "593987654321"));
+
+        assertEquals(4, repository.size());
+        assertEquals(Arrays.asList("+593991234567", "+593987654321"), repository.getNumbers());
+
+        repository.update(new Contact(repository.getContacts().get(1).getId(), "Ana", "0990000000"));
+        assertEquals(Arrays.asList("+593991234567", "+593990000000", "+593987654321"), repository.getNumbers());
+    }
+
+    @Test
+    public void siFallaElDiscoLaListaNoCambia() throws IOException {
+        ContactRepository repository = new ContactRepository(new MemoryStorage() {
+            @Override
+            public void put(Contact contact) {
+                throw new UncheckedIOException(new IOException("disco lleno"));
+            }
+        }, EC);
+        try {
+            repository.add(new Contact("Ana", "0991"));
+            fail();
+        } catch (UncheckedIOException expected) {
+            assertEquals(0, repository.size());
+        }
+    }
+
+    @Test
+    public void instantaneasInmutables() throws IOException {
+        ContactRepository repository = new ContactRepository(new MemoryStorage(), EC);
+        repository.add(new Contact("Ana", "0991"));
+        List<Contact> before = repository.getContacts();
+        repository.add(new Contact("Luis", "0992"));
+
+        assertEquals(1, before.size());
+        assertEquals(2, repository.getContacts().size());
+        try {
+            repository.getNumbers().add("0000");
+            fail("La instantánea debe ser de solo lectura");
+        } catch (UnsupportedOperationException expected) {
+            // ok
+        }
+    }
+
+    @Test
+    public void avisaALosListenersConLaListaNueva() throws IOException {
+        ContactRepository repository = new ContactRepository(new MemoryStorage(), EC);
+        List<Integer> sizes = new ArrayList<>();
+        ContactRepository.Listener listener = contacts -> sizes.add(contacts.size());
+        repository.addListener(listener);
+
+        repository.add(new Contact("Ana", "0991"));
+        repository.add(new Contact("Luis", "0992"));
+        repository.removeListener(listener);
+        repository.remove(1);
+
+        assertEquals(Arrays.asList(1, 2), sizes);
+    }
+
+    @Test
+    public void lectoresConcurrentesVenListasCompletas() throws Exception {
+        ContactRepository repository = new ContactRepository(new MemoryStorage(), EC);
+        AtomicInteger inconsistent = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        Thread reader = new Thread(() -> {
+            while (done.getCount() > 0) {
+                List<Contact> contacts = repository.getContacts();
+                for (int i = 0; i < contacts.size(); i++) {
+                    if (!contacts.get(i).getName().equals("c" + i)) inconsistent.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 2000; i++) repository.add(new Contact("c" + i, "09" + i));
+        done.countDown();
+        reader.join();
+
+        assertEquals(0, inconsistent.get());
+        assertEquals(2000, repository.size());
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.appbt;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class DevicePoolTest {
+
+    private static final String A = "08:A6:F7:47:01:62";
+    private static final String B = "08:A6:F7:47:01:70";
+
+    /** Cuenta las búsquedas reales contra el adaptador. */
+    private static class CountingTransport implements Transport {
+        final LoopbackTransport loopback = new LoopbackTransport();
+        final AtomicInteger connects = new AtomicInteger();
+        int discoveries;
+        int cancels;
+
+        @Override
+        public LinkSocket connect(String address) throws IOException {
+            connects.incrementAndGet();
+            return loopback.connect(address);
+        }
+
+        @Override
+        public boolean startDiscovery() {
+            discoveries++;
+            return true;
+        }
+
+        @Override
+        public void cancelDiscovery() {
+            cancels++;
+        }
+    }
+
+    private ManualScheduler scheduler;
+    private CountingTransport transport;
+    private DevicePool pool;
+
+    @Before
+    public void setUp() {
+        scheduler = new ManualScheduler();
+        transport = new CountingTransport();
+        pool = new DevicePool(transport, scheduler, scheduler, 2, 16, 256,
+                () -> new ReconnectPolicy(10, 100, 1, new Random(3)), new DevicePool.Listener() {
+                    @Override
+                    public void onStateChanged(DevicePool.Device device, ConnectionManager.State from,
+                                               ConnectionManager.State to, long fromMs) {}
+
+                    @Override
+                    public void onHealthChanged(DevicePool.Device device, LinkHeartbeat.Health health, long rttMs) {}
+
+                    @Override
+                    public void onTrigger(DevicePool.Device device, int seq) {}
+                });
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+        scheduler.runPending();
+    }
+
+    @Test
+    public void leeLaListaDeDispositivosDeLasPreferencias() {
+        List<DevicePool.Entry> entries = DevicePool.parse(
+                " 08:a6:f7:47:01:62 = Abuela ;;08:A6:F7:47:01:70\n08:A6:F7:47:01:62=Otra;08:A6:F7:47:01:71=");
+
+        assertEquals(3, entries.size());
+        assertEquals(A, entries.get(0).address);
+        assertEquals("Abuela", entries.get(0).label);
+        assertNull(entries.get(1).label);
+        assertNull(entries.get(2).label);
+        assertTrue(DevicePool.parse(null).isEmpty());
+        assertTrue(DevicePool.parse("  ; ").isEmpty());
+    }
+
+    @Test
+    public void noAceptaMasDispositivosQueLectores() {
+        DevicePool.Device first = pool.add(new DevicePool.Entry(A, "Abuela"));
+        assertSame(first, pool.add(new DevicePool.Entry(A, null)));
+        assertNotNull(pool.add(new DevicePool.Entry(B, null)));
+        assertNull(pool.add(new DevicePool.Entry("08:A6:F7:47:01:71", null)));
+        assertEquals(2, pool.size());
+
+        assertTrue(pool.remove(B));
+        assertFalse(pool.remove(B));
+        assertNotNull(pool.add(new DevicePool.Entry("08:A6:F7:47:01:71", null)));
+    }
+
+    @Test
+    public void unDispositivoEncontradoNoCortaLaBusquedaDelOtro() throws InterruptedException {
+        DevicePool.Device a = pool.add(new DevicePool.Entry(A, null));
+        DevicePool.Device b = pool.add(new DevicePool.Entry(B, null));
+        // Nadie al alcance: un intento directo cada uno y después a buscar
+        settle(a, b);
+        scheduler.advance(200);
+        assertEquals(ConnectionManager.State.DISCOVERING, a.getState());
+        assertEquals(ConnectionManager.State.DISCOVERING, b.getState());
+        assertEquals(ConnectionManager.State.DISCOVERING, pool.getState());
+
+        transport.loopback.register(A, socket -> {});
+        pool.onDeviceFound(A);
+        pool.onDeviceFound("00:11:22:33:44:55");
+        settle(a, b);
+        assertEquals(ConnectionManager.State.CONNECTED, a.getState());
+        assertEquals(ConnectionManager.State.CONNECTED, pool.getState());
+        assertEquals(1, pool.getConnectedCount());
+        assertEquals(0, transport.cancels);
+
+        // La búsqueda de B vence sola, recién ahí se cancela en el adaptador; B prueba directo
+        // (se alterna con la búsqueda) y, como sigue fuera de alcance, vuelve a buscar
+        int connects = transport.connects.get();
+        scheduler.advance(ConnectionManager.DISCOVERY_TIMEOUT_MS);
+        assertEquals(1, transport.cancels);
+        settle(b);
+        scheduler.advance(200);
+        assertEquals(connects + 1, transport.connects.get());
+        assertEquals(3, transport.discoveries);
+        assertEquals(ConnectionManager.State.DISCOVERING, b.getState());
+        assertEquals(ConnectionManager.State.CONNECTED, pool.getState());
+    }
+
+    /** Las conexiones corren en los lectores reales: espera a que vuelvan al scheduler. */
+    private void settle(DevicePool.Device... devices) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            scheduler.runPending();
+            boolean connecting = false;
+            for (DevicePool.Device device : devices) {
+                connecting |= device.getState() == ConnectionManager.State.CONNECTING;
+            }
+            if (!connecting) return;
+            Thread.sleep(1);
+        }
+        fail("Conexión sin resultado");
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.appbt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ESP32 simulado para {@link LoopbackTransport}: manda disparos en tramas binarias, contesta
+ * los PING y anota cuánto tarda cada ACK. Con una semilla fija, el ruido entre tramas, las
+ * tramas partidas y los cortes de enlace salen siempre iguales.
+ */
+class Esp32Simulator implements LoopbackTransport.Device {
+
+    private final Random random;
+    private final double noiseRate;
+    private final double splitRate;
+
+    private final Object writeLock = new Object();
+    private final Map<Integer, Long> pending = new ConcurrentHashMap<>();
+    private final List<Long> ackLatenciesNs = new ArrayList<>();
+    private volatile LinkSocket current;
+    private volatile boolean answerPings = true;
+    private int nextSeq;
+    private int connections;
+    private int duplicateAcks;
+    private int lost;
+
+    /**
+     * @param noiseRate probabilidad de meter bytes basura antes de una trama
+     * @param splitRate probabilidad de mandar una trama en dos escrituras
+     */
+    Esp32Simulator(long seed, double noiseRate, double splitRate) {
+        this.random = new Random(seed);
+        this.noiseRate = noiseRate;
+        this.splitRate = splitRate;
+    }
+
+    @Override
+    public void onConnected(LinkSocket socket) {
+        synchronized (this) {
+            connections++;
+            current = socket;
+            notifyAll();
+        }
+        Thread reader = new Thread(() -> readLoop(socket), "esp32-sim");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    synchronized boolean awaitConnection(int connectionCount, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (connections < connectionCount || current == null) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) return false;
+            wait(left);
+        }
+        return true;
+    }
+
+    /** Manda un disparo; devuelve false si el enlace estaba cortado. */
+    boolean trigger() {
+        LinkSocket socket = current;
+        if (socket == null) return false;
+        synchronized (writeLock) {
+            int seq = nextSeq;
+            nextSeq = (nextSeq + 1) & 0xFFFF;
+            byte[] frame = FrameCodec.encode(FrameCodec.TYPE_TRIGGER, seq, null);
+            pending.put(seq, System.nanoTime());
+            try {
+                write(socket, frame);
+                return true;
+            } catch (IOException e) {
+                pending.remove(seq);
+                return false;
+            }
+        }
+    }
+
+    /** Corta el enlace desde el lado del dispositivo (sale de alcance). */
+    void disconnect() {
+        LinkSocket socket = current;
+        current = null;
+        if (socket == null) return;
+        try {
+            socket.close();
+        } catch (IOException ignored) {}
+    }
+
+    /** Sigue conectado pero deja de contestar latidos, como un firmware colgado. */
+    void setAnswerPings(boolean answer) {
+        answerPings = answer;
+    }
+
+    private void write(LinkSocket socket, byte[] frame) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        if (random.nextDouble() < noiseRate) {
+            byte[] noise = new byte[1 + random.nextInt(8)];
+            for (int i = 0; i < noise.length; i++) noise[i] = (byte) random.nextInt(0x80);
+            out.write(noise);
+        }
+        if (frame.length > 1 && random.nextDouble() < splitRate) {
+            int cut = 1 + random.nextInt(frame.length - 1);
+            out.write(frame, 0, cut);
+            Thread.yield();
+            out.write(frame, cut, frame.length - cut);
+        } else {
+            out.write(frame);
+        }
+    }
+
+    private void readLoop(LinkSocket socket) {
+        FrameDecoder decoder = new FrameDecoder();
+        byte[] chunk = new byte[256];
+        FrameDecoder.Listener listener = new FrameDecoder.Listener() {
+            @Override
+            public void onFrame(int type, int seq, byte[] payload, int offset, int length) {
+                if (type == FrameCodec.TYPE_ACK && length >= 3) {
+                    int acked = ((payload[offset] & 0xFF) << 8) | (payload[offset + 1] & 0xFF);
+                    if (payload[offset + 2] == FrameCodec.ACK_RECEIVED) onAck(acked);
+                } else if (type == FrameCodec.TYPE_PING && length >= 2 && answerPings) {
+                    byte[] nonce = {payload[offset], payload[offset + 1]};
+                    synchronized (writeLock) {
+                        byte[] pong = FrameCodec.encode(FrameCodec.TYPE_PONG, nextSeq, nonce);
+                        nextSeq = (nextSeq + 1) & 0xFFFF;
+                        try {
+                            socket.getOutputStream().write(pong);
+                        } catch (IOException ignored) {
+                            // El lector verá el cierre
+                        }
+                    }
+                }
+            }
+        };
+        try (InputStream in = socket.getInputStream()) {
+            int n;
+            while ((n = in.read(chunk, 0, chunk.length)) != -1) decoder.feed(chunk, 0, n, listener);
+        } catch (IOException ignored) {
+            // Fin del enlace
+        }
+        synchronized (this) {
+            if (current == socket) current = null;
+            // Lo que quedó sin ACK en este enlace se perdió con él
+            lost += pending.size();
+            pending.clear();
+        }
+    }
+
+    private void onAck(int seq) {
+        Long sentAt = pending.remove(seq);
+        synchronized (this) {
+            if (sentAt == null) {
+                duplicateAcks++;
+                return;
+            }
+            ackLatenciesNs.add(System.nanoTime() - sentAt);
+        }
+    }
+
+    synchronized List<Long> getAckLatenciesNs() {
+        return new ArrayList<>(ackLatenciesNs);
+    }
+
+    synchronized int getConnections() {
+        return connections;
+    }
+
+    synchronized int getDuplicateAcks() {
+        return duplicateAcks;
+    }
+
+    synchronized int getLost() {
+        return lost + pending.size();
+    }
+
+    boolean isConnected() {
+        return current != null;
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.appbt;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FrameCodecTest {
+
+    private static class Collector implements FrameDecoder.Listener {
+        final List<int[]> frames = new ArrayList<>();
+        final List<byte[]> payloads = new ArrayList<>();
+        int duplicates;
+
+        @Override
+        public void onFrame(int type, int seq, byte[] payload, int offset, int length) {
+            frames.add(new int[]{type, seq});
+            byte[] copy = new byte[length];
+            System.arraycopy(payload, offset, copy, 0, length);
+            payloads.add(copy);
+        }
+
+        @Override
+        public void onDuplicate(int type, int seq) {
+            duplicates++;
+        }
+    }
+
+    @Test
+    public void crcCoincideConVectorConocido() {
+        byte[] data = "123456789".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(0x29B1, FrameCodec.crc16(data, 0, data.length));
+    }
+
+    @Test
+    public void idaYVueltaConPayload() {
+        byte[] payload = {1, 2, 3, (byte) 0xB5, 0};
+        byte[] encoded = FrameCodec.encode(FrameCodec.TYPE_STATUS, 0x1234, payload);
+        assertEquals(FrameCodec.OVERHEAD + payload.length, encoded.length);
+
+        Collector collector = new Collector();
+        new FrameDecoder().feed(encoded, 0, encoded.length, collector);
+
+        assertEquals(1, collector.frames.size());
+        assertEquals(FrameCodec.TYPE_STATUS, collector.frames.get(0)[0]);
+        assertEquals(0x1234, collector.frames.get(0)[1]);
+        assertArrayEquals(payload, collector.payloads.get(0));
+    }
+
+    @Test
+    public void variasTramasEnUnMismoPaqueteYFragmentadas() {
+        byte[] packet = new byte[FrameCodec.MAX_FRAME * 3];
+        int end = 0;
+        for (int seq = 1; seq <= 3; seq++) {
+            end = FrameCodec.encode(FrameCodec.TYPE_TRIGGER, seq, null, 0, 0, packet, end);
+        }
+        Collector collector = new Collector();
+        FrameDecoder decoder = new FrameDecoder();
+        for (int i = 0; i < end; i += 3) {
+            decoder.feed(packet, i, Math.min(3, end - i), collector);
+        }
+        assertEquals(3, collector.frames.size());
+    }
+
+    @Test
+    public void descartaTramaCorruptaYResincroniza() {
+        byte[] good = FrameCodec.encode(FrameCodec.TYPE_TRIGGER, 7, new byte[]{42});
+        byte[] bad = good.clone();
+        bad[6] ^= 0x01;
+        byte[] next = FrameCodec.encode(FrameCodec.TYPE_TRIGGER, 8, new byte[]{43});
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(new byte[]{'x', 'y'}, 0, 2);
+        stream.write(bad, 0, bad.length);
+        stream.write(next, 0, next.length);
+        byte[] data = stream.toByteArray();
+
+        Collector collector = new Collector();
+        FrameDecoder decoder = new FrameDecoder();
+        decoder.feed(data, 0, data.length, collector);
+
+        assertEquals(1, collector.frames.size());
+        assertEquals(8, collector.frames.get(0)[1]);
+        assertEquals(1, decoder.getCrcErrors());
+    }
+
+    @Test
+    public void detectaRetransmisiones() {
+        byte[] frame = FrameCodec.encode(FrameCodec.TYPE_TRIGGER, 5, null);
+        Collector collector = new Collector();
+        FrameDecoder decoder = new FrameDecoder();
+        decoder.feed(frame, 0, frame.length, collector);
+        decoder.feed(frame, 0, frame.length, collector);
+
+        assertEquals(1, collector.frames.size());
+        assertEquals(1, collector.duplicates);
+    }
+
+    @Test
+    public void unaTramaDeOtroTipoEnMedioNoOcultaLaRetransmision() {
+        byte[] trigger = FrameCodec.encode(FrameCodec.TYPE_TRIGGER, 5, null);
+        byte[] pong = FrameCodec.encode(FrameCodec.TYPE_PONG, 6, new byte[]{0, 1});
+        Collector collector = new Collector();
+        FrameDecoder decoder = new FrameDecoder();
+        decoder.feed(trigger, 0, trigger.length, collector);
+        decoder.feed(pong, 0, pong.length, collector);
+        decoder.feed(trigger, 0, trigger.length, collector);
+
+        assertEquals(2, collector.frames.size());
+        assertEquals(1, collector.duplicates);
+    }
+
+    @Test
+    public void noPierdeLasTramasQueUnLargoCorruptoSeTrago() {
+        // El largo corrupto (200) hace esperar bytes que en realidad son las tramas siguientes
+        byte[] bad = FrameCodec.encode(FrameCodec.TYPE_STATUS, 1, new byte[]{9});
+        bad[5] = (byte) 200;
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(bad, 0, bad.length);
+        for (int seq = 2; seq <= 30; seq++) {
+            byte[] next = FrameCodec.encode(FrameCodec.TYPE_STATUS, seq, new byte[]{(byte) seq});
+            stream.write(next, 0, next.length);
+        }
+        byte[] data = stream.toByteArray();
+
+        Collector collector = new Collector();
+        FrameDecoder decoder = new FrameDecoder();
+        decoder.feed(data, 0, data.length, collector);
+
+        assertEquals(29, collector.frames.size());
+        for (int i = 0; i < 29; i++) assertEquals(i + 2, collector.frames.get(i)[1]);
+        assertEquals(1, decoder.getCrcErrors());
+    }
+
+    @Test
+    public void fuzzConBytesAleatoriosYCorrupcion() {
+        Random random = new Random(1234);
+        FrameDecoder decoder = new FrameDecoder();
+        Collector collector = new Collector();
+        List<Integer> expected = new ArrayList<>();
+        for (int round = 0; round < 20_000; round++) {
+            byte[] payload = new byte[random.nextInt(32)];
+            random.nextBytes(payload);
+            byte[] frame = FrameCodec.encode(FrameCodec.TYPE_STATUS, round & 0xFFFF, payload);
+            boolean corrupt = random.nextInt(4) == 0;
+            if (corrupt) frame[random.nextInt(frame.length)] ^= (byte) (1 + random.nextInt(255));
+            else expected.add(round);
+            byte[] noise = new byte[random.nextInt(4)];
+            random.nextBytes(noise);
+            decoder.feed(noise, 0, noise.length, collector);
+            decoder.feed(frame, 0, frame.length, collector);
+        }
+        // Aunque una trama corrupta se trague las siguientes, al resincronizar llegan todas las sanas
+        List<Integer> decoded = new ArrayList<>();
+        for (int[] frame : collector.frames) decoded.add(frame[1]);
+        assertEquals(expected, decoded);
+    }
+
+    @Test
+    public void rendimientoDeCodificacionYDecodificacion() {
+        byte[] payload = new byte[16];
+        byte[] packet = new byte[FrameCodec.MAX_FRAME];
+        FrameDecoder decoder = new FrameDecoder();
+        int[] count = new int[1];
+        FrameDecoder.Listener listener = (type, seq, data, offset, length) -> count[0]++;
+        int frames = 500_000;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < frames; i++) {
+            int end = FrameCodec.encode(FrameCodec.TYPE_STATUS, i & 0xFFFF, payload, 0, payload.length, packet, 0);
+            decoder.feed(packet, 0, end, listener);
+        }
+        long nanos = System.nanoTime() - start;
+
+        assertEquals(frames, count[0]);
+        assertEquals(0, decoder.getCrcErrors());
+        // Cota holgada (se miden ~1,5 millones por segundo) para que no falle en una máquina cargada
+        double perSecond = frames / (nanos / 1e9);
+        assertTrue("FrameCodec: " + perSecond + " tramas/s", perSecond > 50_000);
+    }
+
+    @Test
+    public void protocoloAutoDetectaTextoYBinario() throws Exception {
+        List<Integer> seqs = new ArrayList<>();
+        LinkProtocol protocol = new LinkProtocol(LinkProtocol.Mode.AUTO);
+        protocol.pump(new ByteArrayInputStream("SEND_SMS\n".getBytes(StandardCharsets.US_ASCII)),
+                (command, seq) -> seqs.add(seq));
+        assertEquals(LinkProtocol.Mode.ASCII, protocol.getActiveMode());
+        assertEquals(-1, (int) seqs.get(0));
+        assertArrayEquals("SMS_ENVIADO\n".getBytes(StandardCharsets.US_ASCII),
+                protocol.encodeReply(-1, FrameCodec.ACK_SMS_SENT));
+
+        protocol.reset();
+        byte[] trigger = FrameCodec.encode(FrameCodec.TYPE_TRIGGER, 300, null);
+        protocol.pump(new ByteArrayInputStream(trigger), (command, seq) -> seqs.add(seq));
+        assertEquals(LinkProtocol.Mode.BINARY, protocol.getActiveMode());
+        assertEquals(300, (int) seqs.get(1));
+
+        byte[] reply = protocol.encodeReply(300, FrameCodec.ACK_SMS_SENT);
+        Collector collector = new Collector();
+        new FrameDecoder().feed(reply, 0, reply.length, collector);
+        assertEquals(FrameCodec.TYPE_ACK, collector.frames.get(0)[0]);
+        assertArrayEquals(new byte[]{1, 44, FrameCodec.ACK_SMS_SENT}, collector.payloads.get(0));
+    }
+}
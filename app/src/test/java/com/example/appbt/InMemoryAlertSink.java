@@ -0,0 +1,27 @@
+package com.example.appbt;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Sustituto de Firestore para pruebas: guarda los lotes en memoria y puede fallar a pedido. */
+class InMemoryAlertSink implements AlertSink {
+
+    final List<List<AlertEvent>> batches = new ArrayList<>();
+    int failuresLeft;
+
+    @Override
+    public synchronized void upload(List<AlertEvent> batch) throws IOException {
+        if (failuresLeft > 0) {
+            failuresLeft--;
+            throw new IOException("sin red");
+        }
+        batches.add(new ArrayList<>(batch));
+    }
+
+    synchronized int eventCount() {
+        int count = 0;
+        for (List<AlertEvent> batch : batches) count += batch.size();
+        return count;
+    }
+}
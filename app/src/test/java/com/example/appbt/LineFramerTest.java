@@ -0,0 +1,149 @@
+package com.example.appbt;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LineFramerTest {
+
+    private static final int SEND_SMS = 0;
+    private static final int PONG = 1;
+
+    @Test
+    public void reconoceComandosConCrLfEspaciosYMayusculas() throws IOException {
+        LineFramer framer = new LineFramer(64, "SEND_SMS", "PONG");
+        List<Integer> received = new ArrayList<>();
+        String input = "SEND_SMS\r\n  send_sms  \npong\rHOLA\n\n\r\nSend_Sms\n";
+        framer.pump(new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII)), received::add);
+
+        assertEquals(4, received.size());
+        assertEquals(SEND_SMS, (int) received.get(0));
+        assertEquals(SEND_SMS, (int) received.get(1));
+        assertEquals(PONG, (int) received.get(2));
+        assertEquals(SEND_SMS, (int) received.get(3));
+    }
+
+    @Test
+    public void ignoraLineaSinDelimitadorAlFinal() throws IOException {
+        LineFramer framer = new LineFramer(64, "SEND_SMS");
+        List<Integer> received = new ArrayList<>();
+        framer.pump(new ByteArrayInputStream("SEND_SMS".getBytes(StandardCharsets.US_ASCII)), received::add);
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void unePartesQueLleganEnLecturasSeparadas() {
+        LineFramer framer = new LineFramer(32, "SEND_SMS");
+        List<Integer> received = new ArrayList<>();
+        byte[] data = "xxSEND_SMS\nSEND_SMS\n".getBytes(StandardCharsets.US_ASCII);
+        // Se entrega byte a byte para forzar varias vueltas del buffer circular
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < data.length; i++) framer.feed(data, i, 1, received::add);
+        }
+        assertEquals(50, received.size());
+    }
+
+    @Test
+    public void descartaLineasMasLargasQueElBuffer() {
+        LineFramer framer = new LineFramer(32, "SEND_SMS");
+        List<Integer> received = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) sb.append('A');
+        sb.append("SEND_SMS\nSEND_SMS\n");
+        byte[] data = sb.toString().getBytes(StandardCharsets.US_ASCII);
+        framer.feed(data, 0, data.length, received::add);
+
+        assertEquals(1, received.size());
+        assertTrue(framer.getLinesDropped() > 0);
+    }
+
+    @Test
+    public void rendimientoFrenteAlLectorByteAByte() throws Exception {
+        byte[] chunk = "SEND_SMS\r\nSTATUS OK 12345\nping\n".getBytes(StandardCharsets.US_ASCII);
+        int repetitions = 40_000;
+
+        CountingInput legacyInput = new CountingInput(pipe(chunk, repetitions));
+        int legacy = legacyLoop(legacyInput);
+
+        LineFramer framer = new LineFramer(256, "SEND_SMS");
+        int[] framed = new int[1];
+        CountingInput framerInput = new CountingInput(pipe(chunk, repetitions));
+        long start = System.nanoTime();
+        framer.pump(framerInput, command -> framed[0]++);
+        long framerNanos = System.nanoTime() - start;
+
+        assertEquals(repetitions, legacy);
+        assertEquals(repetitions, framed[0]);
+        assertEquals((long) chunk.length * repetitions, framer.getBytesRead());
+        // El bucle viejo hace una llamada por byte; el framer lee en bloques
+        assertEquals((long) chunk.length * repetitions + 1, legacyInput.reads);
+        assertTrue("Lecturas del framer: " + framerInput.reads, framerInput.reads * 8 < legacyInput.reads);
+        double megabytesPerSecond = chunk.length * (double) repetitions / (1024 * 1024) / (framerNanos / 1e9);
+        assertTrue("LineFramer: " + megabytesPerSecond + " MB/s", megabytesPerSecond > 1);
+    }
+
+    /** Cuenta las llamadas a read(), que en el socket real son las que cuestan. */
+    private static class CountingInput extends FilterInputStream {
+        long reads;
+
+        CountingInput(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            reads++;
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            reads++;
+            return super.read(b, off, len);
+        }
+    }
+
+    private static InputStream pipe(byte[] chunk, int repetitions) throws IOException {
+        PipedOutputStream out = new PipedOutputStream();
+        PipedInputStream in = new PipedInputStream(out, 64 * 1024);
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 0; i < repetitions; i++) out.write(chunk);
+                out.close();
+            } catch (IOException ignored) {}
+        });
+        writer.setDaemon(true);
+        writer.start();
+        return in;
+    }
+
+    // Copia del bucle original de BluetoothForegroundService.listenForBluetoothMessages
+    private static int legacyLoop(InputStream inputStream) throws IOException {
+        int count = 0;
+        StringBuilder messageBuilder = new StringBuilder();
+        int byteRead;
+        while ((byteRead = inputStream.read()) != -1) {
+            char readChar = (char) byteRead;
+            if (readChar == '\n' || readChar == '\r') {
+                if (messageBuilder.length() > 0) {
+                    String message = messageBuilder.toString().trim();
+                    if (message.equalsIgnoreCase("SEND_SMS")) count++;
+                    messageBuilder.setLength(0);
+                }
+            } else {
+                messageBuilder.append(readChar);
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.appbt;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LinkHeartbeatTest {
+
+    private ManualScheduler scheduler;
+    private List<Integer> pings;
+    private List<LinkHeartbeat.Health> healths;
+    private int deaths;
+    private boolean binary;
+    private LinkHeartbeat heartbeat;
+
+    @Before
+    public void setUp() {
+        scheduler = new ManualScheduler();
+        pings = new ArrayList<>();
+        healths = new ArrayList<>();
+        binary = true;
+        heartbeat = new LinkHeartbeat(scheduler, nonce -> {
+            if (!binary) return false;
+            pings.add(nonce);
+            return true;
+        }, new LinkHeartbeat.Listener() {
+            @Override
+            public void onHealthChanged(LinkHeartbeat.Health health, long rttMs) {
+                healths.add(health);
+            }
+
+            @Override
+            public void onLinkDead() {
+                deaths++;
+            }
+        }, 5_000, 60_000, 3_000, 2);
+    }
+
+    private void answerLast(long afterMs) {
+        scheduler.advance(afterMs);
+        heartbeat.onPong(pings.get(pings.size() - 1));
+        scheduler.runPending();
+    }
+
+    @Test
+    public void respondeYMideElTiempoDeIdaYVuelta() {
+        heartbeat.start();
+        scheduler.runPending();
+        assertEquals(1, pings.size());
+
+        answerLast(40);
+        assertEquals(LinkHeartbeat.Health.GOOD, heartbeat.getHealth());
+        assertEquals(40, heartbeat.getRtt().getLast());
+
+        scheduler.advance(5_000 - 40);
+        assertEquals(2, pings.size());
+    }
+
+    @Test
+    public void conEnlaceEstableElIntervaloCreceHastaElMaximo() {
+        heartbeat.start();
+        scheduler.runPending();
+        for (int i = 0; i < 40; i++) {
+            int before = pings.size();
+            answerLast(20);
+            while (pings.size() == before) scheduler.advance(1_000);
+        }
+        assertEquals(60_000, heartbeat.getIntervalMs());
+        assertEquals(0, heartbeat.getMissed());
+    }
+
+    @Test
+    public void dosLatidosPerdidosPasanLaPostaAReconectar() {
+        heartbeat.start();
+        scheduler.runPending();
+        scheduler.advance(3_000);
+        assertEquals(LinkHeartbeat.Health.DEGRADED, heartbeat.getHealth());
+        // El reintento sale enseguida, no al ritmo normal
+        assertEquals(2, pings.size());
+        assertEquals(0, deaths);
+
+        scheduler.advance(3_000);
+        assertEquals(1, deaths);
+        assertEquals(LinkHeartbeat.Health.DEAD, heartbeat.getHealth());
+        assertEquals(Arrays.asList(LinkHeartbeat.Health.DEGRADED, LinkHeartbeat.Health.DEAD), healths);
+
+        // Después de avisar no sigue latiendo sobre el enlace muerto
+        scheduler.advance(120_000);
+        assertEquals(2, pings.size());
+        assertEquals(0, scheduler.pendingTimers());
+    }
+
+    @Test
+    public void unaRespuestaTardiaNoCuentaYUnaPerdidaVuelveAlMinimo() {
+        heartbeat.start();
+        scheduler.runPending();
+        for (int i = 0; i < 4; i++) {
+            answerLast(10);
+            scheduler.advance(5_000 - 10);
+        }
+        assertEquals(10_000, heartbeat.getIntervalMs());
+        int before = pings.size();
+        while (pings.size() == before) scheduler.advance(1_000);
+
+        int late = pings.get(pings.size() - 1);
+        scheduler.advance(3_000);
+        heartbeat.onPong(late);
+        scheduler.runPending();
+        assertEquals(LinkHeartbeat.Health.DEGRADED, heartbeat.getHealth());
+        assertEquals(5_000, heartbeat.getIntervalMs());
+
+        answerLast(15);
+        assertEquals(LinkHeartbeat.Health.GOOD, heartbeat.getHealth());
+    }
+
+    @Test
+    public void sinModoBinarioEsperaSinMarcarFallos() {
+        binary = false;
+        heartbeat.start();
+        scheduler.advance(59_000);
+        assertEquals(0, heartbeat.getMissed());
+        assertEquals(LinkHeartbeat.Health.UNKNOWN, heartbeat.getHealth());
+
+        binary = true;
+        scheduler.advance(1_000);
+        assertEquals(1, pings.size());
+    }
+
+    @Test
+    public void detenerCancelaLosLatidosPendientes() {
+        heartbeat.start();
+        scheduler.runPending();
+        heartbeat.stop();
+        scheduler.advance(120_000);
+        assertEquals(1, pings.size());
+        assertEquals(0, deaths);
+    }
+
+    @Test
+    public void percentilesSobreLaVentana() {
+        RttWindow window = new RttWindow(100);
+        for (int i = 1; i <= 100; i++) window.add(i);
+        assertEquals(50, window.percentile(50));
+        assertEquals(95, window.percentile(95));
+        assertEquals(100, window.percentile(100));
+
+        // Al llenarse solo quedan las últimas muestras
+        for (int i = 0; i < 100; i++) window.add(1000);
+        assertEquals(1000, window.percentile(1));
+    }
+
+    @Test
+    public void elProtocoloEntregaElPongConSuNonce() throws Exception {
+        LinkProtocol protocol = new LinkProtocol(LinkProtocol.Mode.AUTO);
+        assertNull(protocol.encodePing(1));
+
+        byte[] pong = FrameCodec.encode(FrameCodec.TYPE_PONG, 9, new byte[]{0x12, 0x34});
+        List<Integer> nonces = new ArrayList<>();
+        protocol.pump(new ByteArrayInputStream(pong), new LinkProtocol.Listener() {
+            @Override
+            public void onCommand(int command, int seq) {}
+
+            @Override
+            public void onPong(int nonce) {
+                nonces.add(nonce);
+            }
+        });
+        assertEquals(1, nonces.size());
+        assertEquals(0x1234, (int) nonces.get(0));
+        assertNotNull(protocol.encodePing(2));
+    }
+}
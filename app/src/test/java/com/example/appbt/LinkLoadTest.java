@@ -0,0 +1,341 @@
+package com.example.appbt;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Enlace completo (ConnectionManager, LinkProtocol, LinkWriter y latido) contra ESP32
+ * simulados en {@link LoopbackTransport}, con hilos reales: mide disparo → ACK y reconexiones.
+ */
+public class LinkLoadTest {
+
+    /** Lo que hace el servicio por cada enlace, sin Android. */
+    private static class Phone {
+        final String address;
+        final ReconnectPolicy policy = new ReconnectPolicy(10, 100, 4, new Random(7));
+        final TaskScheduler linkScheduler;
+        final TaskScheduler writerScheduler;
+        final LinkProtocol protocol = new LinkProtocol(LinkProtocol.Mode.AUTO);
+        final ConnectionManager manager;
+        final LinkWriter writer;
+        final LinkHeartbeat heartbeat;
+        volatile int deadLinks;
+
+        Phone(String address, LoopbackTransport transport, ExecutorService readers, long heartbeatMs) {
+            this.address = address;
+            linkScheduler = TaskScheduler.singleThread("link-" + address);
+            writerScheduler = TaskScheduler.singleThread("writer-" + address);
+            LinkProtocol.Listener commands = new LinkProtocol.Listener() {
+                @Override
+                public void onCommand(int command, int seq) {
+                    writer.offer(protocol.encodeReply(seq, FrameCodec.ACK_RECEIVED));
+                }
+
+                @Override
+                public void onPong(int nonce) {
+                    heartbeat.onPong(nonce);
+                }
+            };
+            manager = new ConnectionManager(transport, linkScheduler, readers, readers, policy,
+                    new ConnectionManager.Listener() {
+                        @Override
+                        public void onStateChanged(ConnectionManager.State state) {
+                            if (state == ConnectionManager.State.CONNECTED) {
+                                heartbeat.start();
+                            } else if (state == ConnectionManager.State.BACKOFF) {
+                                heartbeat.stop();
+                                writer.clear();
+                            }
+                        }
+
+                        @Override
+                        public void readLoop(LinkSocket socket) throws IOException {
+                            try (InputStream in = socket.getInputStream()) {
+                                protocol.reset();
+                                protocol.pump(in, commands);
+                            }
+                        }
+                    });
+            writer = new LinkWriter(writerScheduler, manager::write, 64, 512, LinkWriter.Overflow.DROP_OLDEST);
+            heartbeat = new LinkHeartbeat(linkScheduler, nonce -> {
+                byte[] ping = protocol.encodePing(nonce);
+                return ping != null && writer.offer(ping);
+            }, new LinkHeartbeat.Listener() {
+                @Override
+                public void onHealthChanged(LinkHeartbeat.Health health, long rttMs) {}
+
+                @Override
+                public void onLinkDead() {
+                    deadLinks++;
+                    manager.reportLinkDead();
+                }
+            }, heartbeatMs, heartbeatMs * 4, heartbeatMs / 2, 2);
+        }
+
+        void shutdown() {
+            manager.stop();
+            linkScheduler.execute(linkScheduler::shutdown);
+            writerScheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void muchosDispositivosConRuidoYCortes() throws Exception {
+        int devices = 8;
+        int triggersPerDevice = 400;
+        double disconnectRate = 0.01;
+        LoopbackTransport transport = new LoopbackTransport();
+        ExecutorService readers = Executors.newCachedThreadPool();
+        List<Esp32Simulator> sims = new ArrayList<>();
+        List<Phone> phones = new ArrayList<>();
+        for (int d = 0; d < devices; d++) {
+            String address = String.format("SIM:%02d", d);
+            Esp32Simulator sim = new Esp32Simulator(d, 0.05, 0.2);
+            transport.register(address, sim);
+            sims.add(sim);
+            Phone phone = new Phone(address, transport, readers, 200);
+            phones.add(phone);
+            phone.manager.start(address);
+        }
+
+        List<Thread> drivers = new ArrayList<>();
+        int[] disconnects = new int[devices];
+        int[] sent = new int[devices];
+        for (int d = 0; d < devices; d++) {
+            int index = d;
+            Thread driver = new Thread(() -> {
+                Esp32Simulator sim = sims.get(index);
+                Random random = new Random(100 + index);
+                try {
+                    for (int i = 0; i < triggersPerDevice; i++) {
+                        if (!sim.awaitConnection(disconnects[index] + 1, 5_000)) return;
+                        if (sim.trigger()) sent[index]++;
+                        if (random.nextDouble() < disconnectRate) {
+                            sim.disconnect();
+                            disconnects[index]++;
+                        }
+                        if (i % 8 == 0) Thread.sleep(1);
+                    }
+                } catch (InterruptedException ignored) {
+                    // Fin de la prueba
+                }
+            });
+            drivers.add(driver);
+            driver.start();
+        }
+        for (Thread driver : drivers) driver.join(30_000);
+        Thread.sleep(200);
+
+        List<Long> latencies = new ArrayList<>();
+        int totalSent = 0, lost = 0, reconnects = 0, duplicates = 0;
+        for (int d = 0; d < devices; d++) {
+            Esp32Simulator sim = sims.get(d);
+            latencies.addAll(sim.getAckLatenciesNs());
+            totalSent += sent[d];
+            lost += sim.getLost();
+            duplicates += sim.getDuplicateAcks();
+            reconnects += phones.get(d).policy.getReconnectCount();
+            // Cada corte terminó en una reconexión
+            assertEquals(disconnects[d] + 1, sim.getConnections());
+            assertEquals(disconnects[d], phones.get(d).policy.getReconnectCount());
+        }
+        for (Phone phone : phones) phone.shutdown();
+        readers.shutdownNow();
+        readers.awaitTermination(1, TimeUnit.SECONDS);
+
+        assertEquals(0, duplicates);
+        assertEquals(totalSent, latencies.size() + lost);
+        assertTrue("Demasiados disparos sin ACK: " + lost, lost <= totalSent / 10);
+        // Disparo → ACK de punta a punta y reconexión tras cada corte, con cotas holgadas:
+        // en una máquina normal se miden ~0,1 ms (p50), ~5 ms (p99) y ~10 ms por reconexión
+        assertLatency(latencies);
+        long reconnectTotal = 0;
+        int reconnected = 0;
+        for (Phone phone : phones) {
+            long mean = phone.policy.getMeanReconnectMs();
+            if (mean < 0) continue;
+            reconnectTotal += mean;
+            reconnected++;
+        }
+        assertTrue("Sin cortes en la carga: " + reconnects, reconnects > 0 && reconnected > 0);
+        long meanReconnectMs = reconnectTotal / reconnected;
+        assertTrue("Reconexión media: " + meanReconnectMs + " ms", meanReconnectMs < 2_000);
+    }
+
+    /** p50 y p99 de disparo → ACK, en nanosegundos; falla si el p99 pasa de un segundo. */
+    private static void assertLatency(List<Long> latenciesNs) {
+        assertFalse(latenciesNs.isEmpty());
+        List<Long> sorted = new ArrayList<>(latenciesNs);
+        Collections.sort(sorted);
+        long p50Us = sorted.get(sorted.size() / 2) / 1000;
+        long p99Us = sorted.get(sorted.size() * 99 / 100) / 1000;
+        assertTrue(p50Us <= p99Us);
+        assertTrue("Disparo → ACK p99: " + p99Us + " µs (p50 " + p50Us + " µs)", p99Us < 1_000_000);
+    }
+
+    @Test
+    public void grupoDeDispositivosConHilosAcotados() throws Exception {
+        int devices = 8;
+        int triggersPerDevice = 300;
+        double disconnectRate = 0.005;
+        LoopbackTransport transport = new LoopbackTransport();
+        TaskScheduler linkScheduler = TaskScheduler.singleThread("pool-link");
+        TaskScheduler writerScheduler = TaskScheduler.singleThread("pool-writer");
+        Map<String, AtomicInteger> routed = new ConcurrentHashMap<>();
+        DevicePool pool = new DevicePool(transport, linkScheduler, writerScheduler, devices, 64, 512,
+                () -> new ReconnectPolicy(10, 100, 4, new Random(11)), new DevicePool.Listener() {
+                    @Override
+                    public void onStateChanged(DevicePool.Device device, ConnectionManager.State from,
+                                               ConnectionManager.State to, long fromMs) {}
+
+                    @Override
+                    public void onHealthChanged(DevicePool.Device device, LinkHeartbeat.Health health, long rttMs) {}
+
+                    @Override
+                    public void onTrigger(DevicePool.Device device, int seq) {
+                        routed.get(device.getLabel()).incrementAndGet();
+                    }
+                });
+        pool.setHeartbeat(200, 800, 100, 2);
+        List<Esp32Simulator> sims = new ArrayList<>();
+        for (int d = 0; d < devices; d++) {
+            String address = String.format("SIM:%02d", d);
+            Esp32Simulator sim = new Esp32Simulator(20 + d, 0.05, 0.2);
+            transport.register(address, sim);
+            sims.add(sim);
+            // La etiqueta dice de qué simulador debería venir cada disparo
+            routed.put("sim" + d, new AtomicInteger());
+            assertNotNull(pool.add(new DevicePool.Entry(address, "sim" + d)));
+        }
+        assertNull(pool.add(new DevicePool.Entry("SIM:99", null)));
+
+        List<Thread> drivers = new ArrayList<>();
+        int[] disconnects = new int[devices];
+        int[] sent = new int[devices];
+        for (int d = 0; d < devices; d++) {
+            int index = d;
+            Thread driver = new Thread(() -> {
+                Esp32Simulator sim = sims.get(index);
+                Random random = new Random(200 + index);
+                try {
+                    for (int i = 0; i < triggersPerDevice; i++) {
+                        if (!sim.awaitConnection(disconnects[index] + 1, 5_000)) return;
+                        if (sim.trigger()) sent[index]++;
+                        if (random.nextDouble() < disconnectRate) {
+                            sim.disconnect();
+                            disconnects[index]++;
+                        }
+                        if (i % 8 == 0) Thread.sleep(1);
+                    }
+                } catch (InterruptedException ignored) {
+                    // Fin de la prueba
+                }
+            });
+            drivers.add(driver);
+            driver.start();
+        }
+        for (Thread driver : drivers) driver.join(30_000);
+        Thread.sleep(200);
+        int readerThreads = countThreads("bt-reader-");
+        int connected = pool.getConnectedCount();
+
+        List<Long> latencies = new ArrayList<>();
+        int totalSent = 0, lost = 0, duplicates = 0;
+        for (int d = 0; d < devices; d++) {
+            Esp32Simulator sim = sims.get(d);
+            List<Long> acks = sim.getAckLatenciesNs();
+            latencies.addAll(acks);
+            totalSent += sent[d];
+            lost += sim.getLost();
+            duplicates += sim.getDuplicateAcks();
+            // Cada disparo llegó por el enlace de su dispositivo y a nadie más
+            int received = routed.get("sim" + d).get();
+            assertTrue(received >= acks.size() && received <= sent[d]);
+            assertEquals(disconnects[d] + 1, sim.getConnections());
+        }
+        pool.shutdown();
+        linkScheduler.execute(linkScheduler::shutdown);
+        writerScheduler.shutdown();
+
+        assertEquals(devices, connected);
+        assertTrue("Lectores: " + readerThreads, readerThreads <= devices);
+        assertEquals(0, duplicates);
+        assertEquals(totalSent, latencies.size() + lost);
+        assertTrue("Demasiados disparos sin ACK: " + lost, lost <= totalSent / 10);
+        // Compartir hilos no puede costar latencia: misma cota que con un hilo por enlace
+        assertLatency(latencies);
+    }
+
+    private static int countThreads(String prefix) {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith(prefix)) count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void elLatidoDetectaUnFirmwareColgado() throws Exception {
+        LoopbackTransport transport = new LoopbackTransport();
+        ExecutorService readers = Executors.newCachedThreadPool();
+        Esp32Simulator sim = new Esp32Simulator(1, 0, 0);
+        transport.register("SIM:00", sim);
+        Phone phone = new Phone("SIM:00", transport, readers, 40);
+        phone.manager.start("SIM:00");
+        assertTrue(sim.awaitConnection(1, 5_000));
+        // El primer byte del ESP32 pone el enlace en modo binario y habilita los latidos
+        assertTrue(sim.trigger());
+
+        sim.setAnswerPings(false);
+        long t0 = System.nanoTime();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (phone.deadLinks == 0 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        long detectMs = (System.nanoTime() - t0) / 1_000_000;
+        sim.setAnswerPings(true);
+        assertTrue(sim.awaitConnection(2, 5_000));
+        phone.shutdown();
+        readers.shutdownNow();
+
+        assertEquals(1, phone.deadLinks);
+        // Latido de 40 ms y dos faltas: se mide ~200 ms; la cota deja margen a una máquina cargada
+        assertTrue("Firmware colgado detectado en " + detectMs + " ms", detectMs < 2_000);
+    }
+
+    @Test
+    public void sinDispositivoAlAlcanceReintentaYConectaAlVolver() throws Exception {
+        LoopbackTransport transport = new LoopbackTransport();
+        ExecutorService readers = Executors.newCachedThreadPool();
+        Esp32Simulator sim = new Esp32Simulator(2, 0, 0);
+        transport.register("SIM:00", sim);
+        transport.setReachable("SIM:00", false);
+        Phone phone = new Phone("SIM:00", transport, readers, 200);
+        transport.setDiscoveryListener(phone.manager::onDeviceFound);
+        phone.manager.start("SIM:00");
+
+        Thread.sleep(300);
+        assertEquals(0, sim.getConnections());
+        assertTrue(phone.policy.getFailures() > 0);
+
+        transport.setReachable("SIM:00", true);
+        assertTrue(sim.awaitConnection(1, 5_000));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!phone.manager.isConnected() && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        assertTrue(phone.manager.isConnected());
+        phone.shutdown();
+        readers.shutdownNow();
+    }
+}
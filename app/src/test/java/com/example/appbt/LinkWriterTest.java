@@ -0,0 +1,165 @@
+package com.example.appbt;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class LinkWriterTest {
+
+    private ManualScheduler scheduler;
+    private List<byte[]> blocks;
+    private boolean linkUp;
+
+    @Before
+    public void setUp() {
+        scheduler = new ManualScheduler();
+        blocks = new ArrayList<>();
+        linkUp = true;
+    }
+
+    private LinkWriter writer(int capacity, int batchBytes, LinkWriter.Overflow overflow) {
+        return new LinkWriter(scheduler, data -> {
+            if (!linkUp) return false;
+            blocks.add(data);
+            return true;
+        }, capacity, batchBytes, overflow);
+    }
+
+    @Test
+    public void juntaMensajesPequenosEnUnaEscritura() {
+        LinkWriter writer = writer(64, 512, LinkWriter.Overflow.DROP_OLDEST);
+        for (int i = 0; i < 10; i++) writer.offer(new byte[]{(byte) i, (byte) i});
+        scheduler.runPending();
+
+        assertEquals(1, blocks.size());
+        assertEquals(20, blocks.get(0).length);
+        assertEquals(9, blocks.get(0)[18]);
+        assertEquals(10, writer.getWritten());
+        assertEquals(1, writer.getBatches());
+    }
+
+    @Test
+    public void respetaElTamanoMaximoDelBloque() {
+        LinkWriter writer = writer(64, 8, LinkWriter.Overflow.DROP_OLDEST);
+        for (int i = 0; i < 5; i++) writer.offer(new byte[3]);
+        writer.offer(new byte[20]);
+        scheduler.runPending();
+
+        assertEquals(4, blocks.size());
+        assertEquals(6, blocks.get(0).length);
+        assertEquals(3, blocks.get(2).length);
+        // Un mensaje más grande que el bloque sale solo, sin partirse
+        assertEquals(20, blocks.get(3).length);
+    }
+
+    @Test
+    public void avisaSoloCuandoElMensajeLlegaAlEnlace() {
+        LinkWriter writer = writer(64, 512, LinkWriter.Overflow.DROP_OLDEST);
+        int[] written = new int[1];
+        linkUp = false;
+        writer.offer(new byte[]{1}, () -> written[0]++);
+        scheduler.runPending();
+        assertEquals(0, written[0]);
+
+        linkUp = true;
+        writer.offer(new byte[]{2}, () -> written[0]++);
+        writer.offer(new byte[]{3});
+        scheduler.runPending();
+        assertEquals(1, written[0]);
+    }
+
+    @Test
+    public void colaLlenaDescartaElMasViejo() {
+        LinkWriter writer = writer(3, 512, LinkWriter.Overflow.DROP_OLDEST);
+        for (int i = 0; i < 5; i++) assertTrue(writer.offer(new byte[]{(byte) i}));
+        assertEquals(3, writer.getQueueDepth());
+        scheduler.runPending();
+
+        assertArrayEquals(new byte[]{2, 3, 4}, blocks.get(0));
+        assertEquals(2, writer.getDropped());
+    }
+
+    @Test
+    public void colaLlenaRechazaElNuevo() {
+        LinkWriter writer = writer(3, 512, LinkWriter.Overflow.DROP_NEWEST);
+        for (int i = 0; i < 3; i++) assertTrue(writer.offer(new byte[]{(byte) i}));
+        assertFalse(writer.offer(new byte[]{9}));
+        scheduler.runPending();
+
+        assertArrayEquals(new byte[]{0, 1, 2}, blocks.get(0));
+        assertEquals(1, writer.getDropped());
+    }
+
+    @Test
+    public void cuentaEscriturasFallidasYLimpiezas() {
+        LinkWriter writer = writer(64, 512, LinkWriter.Overflow.DROP_OLDEST);
+        linkUp = false;
+        writer.offer(new byte[]{1});
+        writer.offer(new byte[]{2});
+        scheduler.runPending();
+        assertEquals(2, writer.getFailed());
+        assertEquals(0, writer.getWritten());
+
+        writer.offer(new byte[]{3});
+        writer.clear();
+        scheduler.runPending();
+        assertEquals(1, writer.getDropped());
+        assertTrue(blocks.isEmpty());
+    }
+
+    @Test
+    public void variosHilosNoIntercalanBytes() throws Exception {
+        List<byte[]> out = new ArrayList<>();
+        TaskScheduler real = TaskScheduler.singleThread("bt-writer-test");
+        LinkWriter writer = new LinkWriter(real, data -> {
+            out.add(data);
+            return true;
+        }, 100_000, 64, LinkWriter.Overflow.DROP_NEWEST);
+        int threads = 4, perThread = 5000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            byte value = (byte) (t + 1);
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) writer.offer(new byte[]{value, value, value, value});
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) worker.join();
+        CountDownLatch drained = new CountDownLatch(1);
+        while (writer.getWritten() + writer.getDropped() < threads * perThread) Thread.sleep(1);
+        real.execute(drained::countDown);
+        drained.await();
+        long elapsedUs = (System.nanoTime() - t0) / 1000;
+        real.shutdown();
+
+        int total = 0;
+        for (byte[] block : out) {
+            assertEquals(0, block.length % 4);
+            for (int i = 0; i < block.length; i += 4) {
+                assertTrue(block[i] == block[i + 1] && block[i] == block[i + 2] && block[i] == block[i + 3]);
+            }
+            total += block.length / 4;
+        }
+        assertEquals(threads * perThread, total);
+        // Con cuatro hilos empujando, los mensajes chicos salen juntos (se miden ~16 por escritura)
+        assertEquals(out.size(), writer.getBatches());
+        assertTrue("Escrituras: " + writer.getBatches(), writer.getBatches() < total);
+        // Cotas holgadas: se miden ~15 ms en total y 8 ms de latencia máxima
+        assertTrue("LinkWriter: " + elapsedUs + " µs", elapsedUs < 10_000_000);
+        assertTrue("Latencia máxima: " + writer.getMaxLatencyMs() + " ms", writer.getMaxLatencyMs() < 2_000);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.appbt;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LocationCacheTest {
+
+    private static final double LAT = -0.180653;
+    private static final double LON = -78.467834;
+
+    @Test
+    public void usaLaCacheSoloSiEsRecienteYPrecisa() {
+        LocationCache cache = new LocationCache(60_000, 50, 30_000);
+        assertNull(cache.getUsable(0));
+
+        cache.offer(new LocationFix(LAT, LON, 20, 1_000));
+        assertNotNull(cache.getUsable(30_000));
+        assertNull("fix vencido", cache.getUsable(61_001));
+
+        cache.offer(new LocationFix(LAT, LON, 500, 62_000));
+        assertNull("fix impreciso", cache.getUsable(62_000));
+    }
+
+    @Test
+    public void noReemplazaConUnFixMasViejo() {
+        LocationCache cache = new LocationCache(60_000, 50, 30_000);
+        cache.offer(new LocationFix(LAT, LON, 20, 5_000));
+        cache.offer(new LocationFix(0, 0, 5, 4_000));
+        assertEquals(LAT, cache.getLatest().getLatitude(), 0);
+    }
+
+    @Test
+    public void seguimientoSoloCuandoElNuevoFixAportaAlgo() {
+        LocationFix sent = new LocationFix(LAT, LON, 40, 1_000);
+
+        assertFalse(LocationCache.isWorthFollowUp(sent, new LocationFix(LAT, LON, 35, 2_000)));
+        assertTrue(LocationCache.isWorthFollowUp(sent, new LocationFix(LAT, LON, 10, 2_000)));
+        // ~110 m al norte, más que la suma de ambos errores
+        assertTrue(LocationCache.isWorthFollowUp(sent, new LocationFix(LAT + 0.001, LON, 35, 2_000)));
+        assertFalse("fix anterior", LocationCache.isWorthFollowUp(sent, new LocationFix(LAT, LON, 5, 500)));
+    }
+
+    @Test
+    public void distanciaAproximada() {
+        LocationFix a = new LocationFix(0, 0, 0, 0);
+        LocationFix b = new LocationFix(0.001, 0, 0, 0);
+        assertEquals(111.2, LocationCache.distanceMeters(a, b), 0.5);
+    }
+
+    @Test
+    public void llevaLatenciaDisparoAUbicacion() {
+        LocationCache cache = new LocationCache(60_000, 50, 30_000);
+        assertEquals(-1, cache.getMeanLatencyMs());
+
+        cache.recordTriggerToFix(2, true);
+        cache.recordTriggerToFix(4_000, false);
+
+        assertEquals(2, cache.getLatencyCount());
+        assertEquals(2001, cache.getMeanLatencyMs());
+        assertEquals(4_000, cache.getMaxLatencyMs());
+        assertEquals(4_000, cache.getLastLatencyMs());
+        assertEquals(1, cache.getCacheHits());
+    }
+}
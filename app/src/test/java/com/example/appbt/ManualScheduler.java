@@ -0,0 +1,81 @@
+package com.example.appbt;
+
+import java.util.ArrayDeque;
+import java.util.PriorityQueue;
+
+/** {@link TaskScheduler} de prueba con reloj virtual; nada corre hasta que el test lo pide. */
+class ManualScheduler implements TaskScheduler {
+
+    private static class Timer implements Comparable<Timer> {
+        final long at;
+        final long order;
+        final Runnable task;
+
+        Timer(long at, long order, Runnable task) {
+            this.at = at;
+            this.order = order;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(Timer other) {
+            return at != other.at ? Long.compare(at, other.at) : Long.compare(order, other.order);
+        }
+    }
+
+    private final ArrayDeque<Runnable> ready = new ArrayDeque<>();
+    private final PriorityQueue<Timer> timers = new PriorityQueue<>();
+    private long now;
+    private long order;
+
+    @Override
+    public synchronized void execute(Runnable task) {
+        ready.add(task);
+    }
+
+    @Override
+    public synchronized void schedule(Runnable task, long delayMs) {
+        timers.add(new Timer(now + delayMs, order++, task));
+    }
+
+    @Override
+    public synchronized long now() {
+        return now;
+    }
+
+    @Override
+    public void shutdown() {}
+
+    void runPending() {
+        Runnable task;
+        while ((task = poll()) != null) task.run();
+    }
+
+    /** Avanza el reloj ejecutando en orden cada temporizador que venza. */
+    void advance(long ms) {
+        long target = now() + ms;
+        runPending();
+        while (true) {
+            Timer timer;
+            synchronized (this) {
+                timer = timers.peek();
+                if (timer == null || timer.at > target) break;
+                timers.poll();
+                now = timer.at;
+            }
+            timer.task.run();
+            runPending();
+        }
+        synchronized (this) {
+            now = target;
+        }
+    }
+
+    synchronized int pendingTimers() {
+        return timers.size();
+    }
+
+    private synchronized Runnable poll() {
+        return ready.poll();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.appbt;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MetricsRegistryTest {
+
+    private File dir;
+    private ManualScheduler scheduler;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("metrics", "");
+        assertTrue(dir.delete());
+        assertTrue(dir.mkdirs());
+        scheduler = new ManualScheduler();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    private static List<String> lines(File file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) lines.add(line);
+        }
+        return lines;
+    }
+
+    @Test
+    public void columnasYValoresEnOrdenDeRegistro() {
+        MetricsRegistry registry = new MetricsRegistry();
+        MetricsRegistry.Counter bytes = registry.counter("link.bytes_read");
+        long[] depth = {3};
+        registry.gauge("sms.queue_depth", () -> depth[0]);
+        LatencyHistogram rtt = registry.histogram("link.rtt_ms");
+        bytes.add(10);
+        registry.counter("link.bytes_read").increment();
+        rtt.record(20);
+        depth[0] = 5;
+
+        assertEquals(Arrays.asList("link.bytes_read", "sms.queue_depth", "link.rtt_ms.n", "link.rtt_ms.p50",
+                "link.rtt_ms.p95", "link.rtt_ms.max"), registry.columns());
+        assertArrayEquals(new long[]{11, 5, 1, 20, 20, 20}, registry.values());
+    }
+
+    @Test
+    public void unGaugeRotoNoTapaAlResto() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.gauge("roto", () -> {
+            throw new IllegalStateException();
+        });
+        registry.counter("bien").add(2);
+        StringWriter text = new StringWriter();
+        registry.dump(new PrintWriter(text, true));
+
+        assertArrayEquals(new long[]{-1, 2}, registry.values());
+        assertTrue(text.toString().contains("bien"));
+    }
+
+    @Test
+    public void cuentaLosBytesLeidos() throws IOException {
+        MetricsRegistry.Counter counter = new MetricsRegistry().counter("bytes");
+        InputStream in = MetricsRegistry.counting(
+                new ByteArrayInputStream("SEND_SMS\n".getBytes(StandardCharsets.US_ASCII)), counter);
+        assertEquals('S', in.read());
+        byte[] buffer = new byte[4];
+        while (in.read(buffer, 0, buffer.length) != -1) {
+            // solo se cuenta
+        }
+        assertEquals(9, counter.get());
+    }
+
+    @Test
+    public void guardaUnaFilaPorIntervaloConEncabezado() throws IOException {
+        MetricsRegistry registry = new MetricsRegistry();
+        MetricsRegistry.Counter lines = registry.counter("link.lines_parsed");
+        MetricsLog log = new MetricsLog(registry, scheduler, dir, 1000, 64 * 1024, 3);
+        log.start();
+        lines.add(4);
+        scheduler.advance(1000);
+        lines.add(4);
+        scheduler.advance(1000);
+        log.stop();
+        scheduler.runPending();
+        scheduler.advance(5000);
+
+        List<String> rows = lines(new File(dir, "metrics.csv"));
+        assertEquals(4, rows.size());
+        assertEquals("time_ms,link.lines_parsed", rows.get(0));
+        assertTrue(rows.get(1).endsWith(",4"));
+        assertTrue(rows.get(3).endsWith(",8"));
+        assertEquals(3, log.getSnapshots());
+    }
+
+    @Test
+    public void rotaPorTamanoYAlCambiarLasMetricas() throws IOException {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("a");
+        MetricsLog log = new MetricsLog(registry, scheduler, dir, 1000, 200, 3);
+        for (int i = 0; i < 30; i++) log.writeNow();
+
+        assertTrue(new File(dir, "metrics.1.csv").exists());
+        assertTrue(new File(dir, "metrics.2.csv").exists());
+        assertFalse(new File(dir, "metrics.3.csv").exists());
+        assertTrue(new File(dir, "metrics.csv").length() <= 200);
+
+        // Una instancia nueva con otra métrica no mezcla columnas en el mismo archivo
+        registry.counter("b");
+        MetricsLog again = new MetricsLog(registry, scheduler, dir, 1000, 200, 3);
+        again.writeNow();
+        List<String> rows = lines(new File(dir, "metrics.csv"));
+        assertEquals(2, rows.size());
+        assertEquals("time_ms,a,b", rows.get(0));
+        assertEquals(0, again.getFailures());
+    }
+
+    @Test
+    public void rendimientoDeContadoresConVariosHilos() throws InterruptedException {
+        MetricsRegistry.Counter counter = new MetricsRegistry().counter("bytes");
+        int threads = 4;
+        int perThread = 2_000_000;
+        Thread[] workers = new Thread[threads];
+        long t0 = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) counter.increment();
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) worker.join();
+        long elapsedNs = System.nanoTime() - t0;
+
+        assertEquals((long) threads * perThread, counter.get());
+        // Cota holgada: se miden ~130 ns por incremento con cuatro hilos compitiendo
+        double nsPerIncrement = (double) elapsedNs * threads / counter.get();
+        assertTrue("Contador: " + nsPerIncrement + " ns por incremento", nsPerIncrement < 5_000);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.appbt;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PhoneNumberNormalizerTest {
+
+    private static final PhoneNumberNormalizer EC = new PhoneNumberNormalizer("ec");
+
+    // {entrada, E.164 esperado} para una SIM de Ecuador
+    private static final String[][] ECUADOR = {
+            {"0991234567", "+593991234567"},
+            {"099 123 4567", "+593991234567"},
+            {"099-123-4567", "+593991234567"},
+            {"(099) 123 4567", "+593991234567"},
+            {"991234567", "+593991234567"},
+            {"+593991234567", "+593991234567"},
+            {"+593 99 123 4567", "+593991234567"},
+            {"+593 (0)99 123 4567", "+593991234567"},
+            {"00593991234567", "+593991234567"},
+            {"00 593 99 123 4567", "+593991234567"},
+            {"593991234567", "+593991234567"},
+            {"593 99 123 4567", "+593991234567"},
+            {"022345678", "+59322345678"},
+            {"02 234 5678", "+59322345678"},
+            {"(02) 234-5678", "+59322345678"},
+            {"22345678", "+59322345678"},
+            {"+59322345678", "+59322345678"},
+            {"+1 202 555 0123", "+12025550123"},
+            {"+34 612 34 56 78", "+34612345678"},
+            {"0057 300 123 4567", "+573001234567"},
+            {"  +593991234567  ", "+593991234567"},
+            {"+593.99.123.4567", "+593991234567"},
+            {"tel: 099 123 4567", "+593991234567"},
+    };
+
+    @Test
+    public void corpusDeFormatosEcuador() {
+        for (String[] sample : ECUADOR) {
+            assertEquals(sample[0], sample[1], EC.canonical(sample[0]));
+        }
+    }
+
+    @Test
+    public void otrasRegiones() {
+        PhoneNumberNormalizer us = new PhoneNumberNormalizer("US");
+        assertEquals("+12025550123", us.canonical("(202) 555-0123"));
+        assertEquals("+12025550123", us.canonical("1 202 555 0123"));
+        assertEquals("+12025550123", us.canonical("+1-202-555-0123"));
+
+        PhoneNumberNormalizer co = new PhoneNumberNormalizer("CO");
+        assertEquals("+573001234567", co.canonical("300 123 4567"));
+        assertEquals("+573001234567", co.canonical("57 300 123 4567"));
+
+        PhoneNumberNormalizer pe = new PhoneNumberNormalizer("PE");
+        assertEquals("+5114567890", pe.canonical("01 456 7890"));
+    }
+
+    @Test
+    public void numerosCortosOInvalidosNoSePierden() {
+        // No encajan en E.164: se devuelven limpios para no dejar fuera al destinatario
+        assertEquals("911", EC.canonical("911"));
+        assertEquals("171", EC.canonical("1-7-1"));
+        assertEquals("", EC.canonical("--"));
+        assertEquals("", EC.canonical(null));
+        assertEquals("+1234567890123456", EC.canonical("+1234567890123456"));
+    }
+
+    @Test
+    public void sinRegionConocidaLosNacionalesQuedanSinPrefijo() {
+        PhoneNumberNormalizer unknown = new PhoneNumberNormalizer(null);
+        assertEquals("0991234567", unknown.canonical("099 123 4567"));
+        assertEquals("+593991234567", unknown.canonical("+593 99 123 4567"));
+        assertEquals("+593991234567", unknown.canonical("00593 99 123 4567"));
+        assertEquals("0991234567", new PhoneNumberNormalizer("ZZ").canonical("099-123-4567"));
+    }
+
+    @Test
+    public void mismaPersonaMismoCanonico() {
+        Random random = new Random(5);
+        String[] separators = {"", " ", "-", ".", "  "};
+        for (int i = 0; i < 5_000; i++) {
+            String subscriber = String.valueOf(10_000_000 + random.nextInt(90_000_000));
+            String expected = "+5939" + subscriber;
+            String sep = separators[random.nextInt(separators.length)];
+            String[] variants = {
+                    "09" + sep + subscriber,
+                    "9" + subscriber,
+                    "+593" + sep + "9" + sep + subscriber,
+                    "00593" + sep + "9" + subscriber,
+                    "593" + sep + "9" + subscriber
+            };
+            for (String variant : variants) assertEquals(variant, expected, EC.canonical(variant));
+        }
+    }
+
+    @Test
+    public void rendimientoDeNormalizacion() {
+        String[] inputs = new String[ECUADOR.length];
+        for (int i = 0; i < inputs.length; i++) inputs[i] = ECUADOR[i][0];
+        int rounds = 20_000;
+        int length = 0;
+        // Calentamiento
+        for (int r = 0; r < 2_000; r++) for (String input : inputs) length += EC.canonical(input).length();
+
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (String input : inputs) length += EC.canonical(input).length();
+        }
+        long nanos = System.nanoTime() - start;
+
+        assertTrue(length > 0);
+        // Cota holgada: se miden ~2 millones por segundo
+        double perSecond = rounds * (double) inputs.length / (nanos / 1e9);
+        assertTrue("PhoneNumberNormalizer: " + perSecond + " números/s", perSecond > 50_000);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.appbt;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ReconnectPolicyTest {
+
+    @Test
+    public void esperaCreceHastaElTopeConJitterAcotado() {
+        ReconnectPolicy policy = new ReconnectPolicy(500, 30000, 4, new Random(42));
+        long previousCeiling = 0;
+        for (int failures = 0; failures < 12; failures++) {
+            long ceiling = Math.min(30000, 500L << failures);
+            for (int sample = 0; sample < 200; sample++) {
+                long delay = policy.nextDelayMs();
+                assertTrue("demasiado corta: " + delay, delay >= ceiling / 2);
+                assertTrue("demasiado larga: " + delay, delay <= ceiling);
+            }
+            assertTrue(ceiling >= previousCeiling);
+            previousCeiling = ceiling;
+            policy.onAttemptFailed();
+        }
+    }
+
+    @Test
+    public void jitterReparteLosReintentos() {
+        ReconnectPolicy policy = new ReconnectPolicy(1000, 30000, 4, new Random(3));
+        long min = Long.MAX_VALUE, max = 0;
+        for (int i = 0; i < 1000; i++) {
+            long delay = policy.nextDelayMs();
+            min = Math.min(min, delay);
+            max = Math.max(max, delay);
+        }
+        assertTrue(max - min > 300);
+    }
+
+    @Test
+    public void conexionDirectaVuelveEntreBusquedasFallidas() {
+        ReconnectPolicy policy = new ReconnectPolicy(500, 30000, 3, new Random(1));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(policy.shouldConnectDirectly());
+            policy.onAttemptFailed();
+        }
+        // Después se alterna: una búsqueda, un intento directo, y así mientras no aparezca
+        for (int i = 0; i < 10; i++) {
+            assertFalse(policy.shouldConnectDirectly());
+            policy.onAttemptFailed();
+            assertTrue(policy.shouldConnectDirectly());
+            policy.onAttemptFailed();
+        }
+
+        policy.onConnected(0);
+        assertTrue(policy.shouldConnectDirectly());
+        assertEquals(0, policy.getFailures());
+    }
+
+    @Test
+    public void registraTiemposDeReconexion() {
+        ReconnectPolicy policy = new ReconnectPolicy();
+        assertEquals(-1, policy.getMeanReconnectMs());
+
+        policy.onLinkLost(1000);
+        policy.onLinkLost(1500);
+        policy.onConnected(3000);
+        policy.onLinkLost(10000);
+        policy.onConnected(14000);
+
+        assertEquals(2, policy.getReconnectCount());
+        assertEquals(4000, policy.getLastReconnectMs());
+        assertEquals(3000, policy.getMeanReconnectMs());
+    }
+}
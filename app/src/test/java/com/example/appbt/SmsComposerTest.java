@@ -0,0 +1,155 @@
+package com.example.appbt;
+
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class SmsComposerTest {
+
+    @Test
+    public void alfabetoGsm7() {
+        assertTrue(Gsm7.isEncodable("Hola @ 100€ ¿qué? ñ é ü"));
+        assertFalse(Gsm7.isEncodable("Ubicación"));
+        assertFalse(Gsm7.isEncodable("🚨"));
+        assertEquals(2, Gsm7.septets('€'));
+        assertEquals(2, Gsm7.septets('['));
+        assertEquals(1, Gsm7.septets('Δ'));
+        assertEquals(0, Gsm7.septets('á'));
+    }
+
+    @Test
+    public void cuentaSegmentosEnLosLimites() {
+        assertEquals(1, Gsm7.segments(repeat('a', 160)));
+        assertEquals(2, Gsm7.segments(repeat('a', 161)));
+        assertEquals(2, Gsm7.segments(repeat('a', 306)));
+        assertEquals(3, Gsm7.segments(repeat('a', 307)));
+        // 80 caracteres de la tabla extendida = 160 septetos
+        assertEquals(1, Gsm7.segments(repeat('€', 80)));
+        assertEquals(2, Gsm7.segments(repeat('€', 81)));
+
+        assertEquals(1, Gsm7.segments(repeat('ó', 70)));
+        assertEquals(2, Gsm7.segments(repeat('ó', 71)));
+        assertEquals(3, Gsm7.segments(repeat('ó', 135)));
+    }
+
+    @Test
+    public void paresNoSeCortanEntreSegmentos() {
+        // 152 'a' + '€': el escape no cabe al final del primer segmento
+        assertEquals(2, Gsm7.segments(repeat('a', 152) + "€" + repeat('a', 150)));
+        assertEquals(3, Gsm7.segments(repeat('a', 152) + "€" + repeat('a', 152)));
+        // 66 unidades + emoji: el par sustituto pasa entero al segundo segmento
+        assertEquals(2, Gsm7.segments(repeat('ó', 66) + "🚨" + repeat('ó', 65)));
+        assertEquals(3, Gsm7.segments(repeat('ó', 66) + "🚨" + repeat('ó', 66)));
+    }
+
+    @Test
+    public void transliteraAGsm7() {
+        assertEquals("Ubicacion Precision ñandu", Gsm7.transliterate("Ubicación Precisión ñandú"));
+        assertEquals("Alerta ", Gsm7.transliterate("🚨Alerta \uFE0F"));
+        assertEquals("é è ü Ñ", Gsm7.transliterate("é è ü Ñ"));
+        assertTrue(Gsm7.isEncodable(Gsm7.transliterate("Çç ÁÍÓÚ áíóú 漢")));
+    }
+
+    @Test
+    public void eligeLaVarianteConMenosSegmentos() {
+        SmsComposer.Message sms = SmsComposer.TEST_ALERT.compose(-0.1807, -78.4678, 12.4f);
+        assertTrue(sms.gsm7);
+        assertEquals(1, sms.segments);
+        assertEquals("MENSAJE DE PRUEBA\nUbicacion: maps.google.com/?q=-0.18070,-78.46780\nPrecision: 12 m", sms.text);
+
+        // El texto anterior con emoji y enlace largo ocupaba 2 segmentos UCS-2
+        String legacy = String.format(Locale.US,
+                "🚨 MENSAJE DE PRUEBA 🚨 Ubicación: https://maps.google.com/?q=%.6f,%.6f\nPrecisión: %.0f m",
+                -0.1807, -78.4678, 12.4f);
+        assertEquals(2, Gsm7.segments(legacy));
+    }
+
+    @Test
+    public void aIgualCostoConservaEmoji() {
+        SmsComposer composer = new SmsComposer("📍 {acc} m", "Pos {acc} m", "📍 -", "Pos -");
+        SmsComposer.Message sms = composer.compose(0, 0, 5f);
+        assertEquals("📍 5 m", sms.text);
+        assertFalse(sms.gsm7);
+        assertEquals("Pos 5 m", composer.composeGsm7(0, 0, 5f).text);
+    }
+
+    @Test
+    public void sinUbicacion() {
+        SmsComposer.Message sms = SmsComposer.FOLLOW_UP.compose(null);
+        assertEquals(1, sms.segments);
+        assertTrue(sms.text.contains("no disponible"));
+    }
+
+    @Test
+    public void formatoFijoIgualQueStringFormat() {
+        double[] values = {0, -0.000004, 0.000005, 12.345675, -78.4678912, 89.999999, -179.999995, 1e-9};
+        for (double value : values) {
+            StringBuilder sb = new StringBuilder();
+            SmsComposer.appendFixed(sb, value, 5);
+            double parsed = Double.parseDouble(sb.toString());
+            assertEquals(sb.toString(), value, parsed, 0.0000051);
+            assertEquals(sb.toString(), 5, sb.length() - sb.indexOf(".") - 1);
+        }
+        StringBuilder sb = new StringBuilder();
+        SmsComposer.appendFixed(sb, 12.5f, 0);
+        assertEquals("13", sb.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void varianteGsmDebeSerGsm() {
+        new SmsComposer("{acc}", "Ubicación {acc}", "-", "-");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void campoDesconocido() {
+        new SmsComposer("{lat}", "{lat}", "-", "-");
+    }
+
+    @Test
+    public void rendimientoDeComposicion() {
+        int rounds = 100_000;
+        int segments = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            segments += SmsComposer.TEST_ALERT.compose(-0.18 + i * 1e-6, -78.46, 10f).segments;
+        }
+        double nanos = (System.nanoTime() - start) / (double) rounds;
+
+        assertEquals(rounds, segments);
+        // Cota holgada: se miden ~6 µs por mensaje, incluido el conteo de segmentos
+        assertTrue("SmsComposer: " + nanos + " ns por mensaje", nanos < 200_000);
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder sb = new StringBuilder(count);
+        for (int i = 0; i < count; i++) sb.append(c);
+        return sb.toString();
+    }
+
+    @Test
+    public void laEtiquetaDelDispositivoVaEnLaPrimeraLinea() {
+        SmsComposer.Message sms = SmsComposer.TEST_ALERT.compose(-0.1807, -78.4678, 12.4f);
+        SmsComposer.Message tagged = sms.withHeader("Abuela Rosa");
+
+        assertTrue(tagged.text.startsWith("Abuela Rosa\n"));
+        assertTrue(tagged.text.endsWith(sms.text));
+        assertEquals(Gsm7.segments(tagged.text), tagged.segments);
+    }
+
+    @Test
+    public void etiquetaConTildesNoPasaLaVarianteGsmAUcs2() {
+        SmsComposer.Message sms = SmsComposer.TEST_ALERT.composeGsm7(-0.1807, -78.4678, 12.4f);
+        SmsComposer.Message tagged = sms.withHeader("Abuelo Joaquín 👴");
+
+        assertTrue(tagged.gsm7);
+        assertTrue(tagged.text.startsWith("Abuelo Joaquin \n"));
+        assertEquals(1, tagged.segments);
+
+        // La variante con emoji ya es UCS-2: la etiqueta va tal cual
+        SmsComposer.Message rich = SmsComposer.TEST_ALERT.compose(null).withHeader("Abuelo Joaquín 👴");
+        assertFalse(rich.gsm7);
+        assertTrue(rich.text.startsWith("Abuelo Joaquín 👴\n"));
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.appbt;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SmsRateSchedulerTest {
+
+    private static final long WINDOW_MS = 30 * 60 * 1000;
+    private static final List<String> ONE_PART = Collections.singletonList("Alerta");
+
+    private static class FakeSink implements SmsSender {
+        final List<String> numbers = new ArrayList<>();
+        final List<Long> times = new ArrayList<>();
+        final ManualScheduler clock;
+        String failOn;
+
+        FakeSink(ManualScheduler clock) {
+            this.clock = clock;
+        }
+
+        @Override
+        public List<String> divideMessage(String text) {
+            return Collections.singletonList(text);
+        }
+
+        @Override
+        public void send(String number, List<String> parts, int alertId, int recipient, int attempt) {
+            if (number.equals(failOn)) throw new IllegalArgumentException("número inválido");
+            numbers.add(number);
+            times.add(clock.now());
+        }
+    }
+
+    private ManualScheduler scheduler;
+    private FakeSink sink;
+    private SmsRateScheduler rate;
+
+    @Before
+    public void setUp() {
+        scheduler = new ManualScheduler();
+        sink = new FakeSink(scheduler);
+        rate = new SmsRateScheduler(sink, scheduler, 30, WINDOW_MS, 10);
+    }
+
+    @Test
+    public void losPrincipalesSalenDeInmediato() {
+        for (int i = 0; i < 5; i++) rate.send("p" + i, ONE_PART, 1, i, 1, SmsRateScheduler.TIER_PRIMARY);
+
+        assertEquals(5, sink.numbers.size());
+        assertEquals(0, rate.getQueueDepth());
+        assertEquals(0, rate.getDeferred());
+    }
+
+    @Test
+    public void nuncaPasaElLimiteDeLaVentana() {
+        for (int i = 0; i < 100; i++) rate.send("c" + i, ONE_PART, 1, i, 1, SmsRateScheduler.TIER_PRIMARY);
+        assertEquals(30, sink.numbers.size());
+        assertEquals(70, rate.getQueueDepth());
+
+        scheduler.advance(3 * WINDOW_MS);
+        assertEquals(100, sink.numbers.size());
+        assertEquals(0, rate.getQueueDepth());
+        assertEquals(70, rate.getMaxQueueDepth());
+
+        // Cualquier ventana de 30 minutos contiene como mucho 30 envíos
+        for (int i = 30; i < sink.times.size(); i++) {
+            assertTrue(sink.times.get(i) - sink.times.get(i - 30) >= WINDOW_MS);
+        }
+        assertEquals(70, rate.getDeferred());
+        assertTrue(rate.getMaxQueueMs() >= 2 * WINDOW_MS);
+    }
+
+    @Test
+    public void losSecundariosSeEspacianYDejanReserva() {
+        for (int i = 0; i < 25; i++) rate.send("s" + i, ONE_PART, 1, i, 1, SmsRateScheduler.TIER_SECONDARY);
+        assertEquals(1, sink.numbers.size());
+
+        scheduler.advance(WINDOW_MS - 1);
+        // Un envío cada minuto (30 min / 30) y nunca más de 20 en la ventana
+        assertEquals(20, sink.numbers.size());
+        assertEquals(60_000L, sink.times.get(1) - sink.times.get(0));
+
+        // Una alerta nueva todavía encuentra cupo para sus principales
+        for (int i = 0; i < 10; i++) rate.send("p" + i, ONE_PART, 2, i, 1, SmsRateScheduler.TIER_PRIMARY);
+        assertEquals(30, sink.numbers.size());
+    }
+
+    @Test
+    public void losPrincipalesPasanDelanteDeLaCola() {
+        for (int i = 0; i < 30; i++) rate.send("x" + i, ONE_PART, 1, i, 1, SmsRateScheduler.TIER_PRIMARY);
+        rate.send("seguimiento", ONE_PART, 2, 0, 1, SmsRateScheduler.TIER_FOLLOW_UP);
+        rate.send("secundario", ONE_PART, 3, 1, 1, SmsRateScheduler.TIER_SECONDARY);
+        rate.send("principal", ONE_PART, 3, 0, 1, SmsRateScheduler.TIER_PRIMARY);
+        assertEquals(3, rate.getQueueDepth());
+
+        scheduler.advance(2 * WINDOW_MS);
+        assertEquals(Arrays.asList("principal", "secundario", "seguimiento"),
+                sink.numbers.subList(30, 33));
+    }
+
+    @Test
+    public void cuentaLasPartesDeMensajesLargos() {
+        List<String> threeParts = Arrays.asList("a", "b", "c");
+        for (int i = 0; i < 11; i++) rate.send("c" + i, threeParts, 1, i, 1, SmsRateScheduler.TIER_PRIMARY);
+
+        assertEquals(10, sink.numbers.size());
+        assertEquals(1, rate.getQueueDepth());
+    }
+
+    @Test
+    public void unFalloDiferidoSeReportaAlDispatcher() {
+        List<int[]> failures = new ArrayList<>();
+        rate.setFailureListener((alertId, recipient, attempt) -> failures.add(new int[]{alertId, recipient, attempt}));
+        for (int i = 0; i < 30; i++) rate.send("x" + i, ONE_PART, 1, i, 1, SmsRateScheduler.TIER_PRIMARY);
+        sink.failOn = "malo";
+        rate.send("malo", ONE_PART, 4, 2, 3, SmsRateScheduler.TIER_PRIMARY);
+        assertTrue(failures.isEmpty());
+
+        scheduler.advance(WINDOW_MS);
+        assertEquals(1, failures.size());
+        assertArrayEquals(new int[]{4, 2, 3}, failures.get(0));
+    }
+
+    @Test
+    public void elDispatcherMandaPrincipalesSecundariosYSeguimientosPorNivel() {
+        List<Integer> tiers = new ArrayList<>();
+        SmsSender recorder = new FakeSink(scheduler) {
+            @Override
+            public void send(String number, List<String> parts, int alertId, int recipient, int attempt, int tier) {
+                tiers.add(tier);
+            }
+        };
+        AlertDispatcher dispatcher = new AlertDispatcher(recorder, scheduler, 1, 2, 3, 1000, 60_000);
+        dispatcher.dispatch("Alerta", Arrays.asList("a", "b", "c"), null);
+        dispatcher.dispatch("Seguimiento", Arrays.asList("a"), true, null);
+        scheduler.runPending();
+
+        assertEquals(Arrays.asList(SmsRateScheduler.TIER_PRIMARY, SmsRateScheduler.TIER_PRIMARY,
+                SmsRateScheduler.TIER_SECONDARY, SmsRateScheduler.TIER_FOLLOW_UP), tiers);
+    }
+}
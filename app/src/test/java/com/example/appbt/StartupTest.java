@@ -0,0 +1,98 @@
+package com.example.appbt;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class StartupTest {
+
+    @Test
+    public void lazyCreaElValorUnaSolaVezAunqueLoPidanVariosHilos() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        CountDownLatch slow = new CountDownLatch(1);
+        Lazy<Object> lazy = new Lazy<>(() -> {
+            created.incrementAndGet();
+            try {
+                slow.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new Object();
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<Object>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) results.add(pool.submit(lazy::get));
+        slow.countDown();
+        Object first = results.get(0).get(2, TimeUnit.SECONDS);
+        for (Future<Object> result : results) assertSame(first, result.get(2, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertEquals(1, created.get());
+        assertTrue(lazy.isReady());
+    }
+
+    @Test
+    public void prefetchAdelantaElCalculoYNoLoRepite() {
+        AtomicInteger created = new AtomicInteger();
+        Lazy<String> lazy = new Lazy<>(() -> "cliente" + created.incrementAndGet());
+        ArrayDeque<Runnable> background = new ArrayDeque<>();
+
+        lazy.prefetch(background::add);
+        assertFalse(lazy.isReady());
+        background.poll().run();
+        assertTrue(lazy.isReady());
+
+        lazy.prefetch(background::add);
+        assertTrue(background.isEmpty());
+        assertEquals("cliente1", lazy.get());
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    public void siLaFabricaFallaSeReintentaEnElProximoPedido() {
+        AtomicInteger calls = new AtomicInteger();
+        Lazy<String> lazy = new Lazy<>(() -> {
+            int call = calls.incrementAndGet();
+            if (call == 1) throw new IllegalStateException("sin configuración");
+            return call == 2 ? null : "listo";
+        });
+
+        // El fallo en segundo plano no se propaga al hilo que precarga
+        lazy.prefetch(Runnable::run);
+        assertFalse(lazy.isReady());
+        assertNull(lazy.get());
+        assertEquals("listo", lazy.get());
+        assertEquals("listo", lazy.get());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void cadaFaseSeMideUnaVezDesdeElInicioDelProceso() {
+        AtomicLong clock = new AtomicLong(1_000);
+        StartupTrace trace = new StartupTrace(clock::get, 900);
+
+        clock.set(1_150);
+        assertTrue(trace.mark("activity_created"));
+        clock.set(1_320);
+        assertTrue(trace.mark("first_frame"));
+        clock.set(5_000);
+        assertFalse(trace.mark("activity_created"));
+
+        assertEquals(250, trace.get("activity_created"));
+        assertEquals(420, trace.get("first_frame"));
+        assertEquals(-1, trace.get("service_listening"));
+        assertEquals("activity_created=250 first_frame=420", trace.format());
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.appbt;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class StateHolderTest {
+
+    /** Hilo principal de mentira: las tareas esperan hasta {@link #runAll()}. */
+    private static class QueueExecutor implements Executor {
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) task.run();
+        }
+    }
+
+    @Test
+    public void alSuscribirseRecibeElEstadoActual() {
+        StateHolder<ServiceStatus> holder = new StateHolder<>(ServiceStatus.INITIAL);
+        holder.update(s -> s.withLink(ConnectionManager.State.CONNECTED));
+        QueueExecutor main = new QueueExecutor();
+        List<ServiceStatus> seen = new ArrayList<>();
+        holder.subscribe(main, seen::add);
+        main.runAll();
+
+        assertEquals(1, seen.size());
+        assertEquals(ConnectionManager.State.CONNECTED, seen.get(0).getLink());
+    }
+
+    @Test
+    public void juntaCambiosRapidosYEntregaElUltimo() {
+        StateHolder<ServiceStatus> holder = new StateHolder<>(ServiceStatus.INITIAL);
+        QueueExecutor main = new QueueExecutor();
+        List<ServiceStatus> seen = new ArrayList<>();
+        holder.subscribe(main, seen::add);
+        main.runAll();
+
+        holder.update(s -> s.withLink(ConnectionManager.State.DISCOVERING));
+        holder.update(s -> s.withLink(ConnectionManager.State.CONNECTING));
+        holder.update(s -> s.withLink(ConnectionManager.State.CONNECTED));
+        holder.update(s -> s.withHealth(LinkHeartbeat.Health.GOOD, 42));
+        assertEquals(1, main.tasks.size());
+        main.runAll();
+
+        assertEquals(2, seen.size());
+        ServiceStatus last = seen.get(1);
+        assertEquals(ConnectionManager.State.CONNECTED, last.getLink());
+        assertEquals(42, last.getRttMs());
+        assertEquals(4, holder.getPublished());
+    }
+
+    @Test
+    public void sinCambiosNoAvisa() {
+        StateHolder<ServiceStatus> holder = new StateHolder<>(ServiceStatus.INITIAL);
+        QueueExecutor main = new QueueExecutor();
+        holder.subscribe(main, s -> {});
+        main.runAll();
+
+        holder.update(s -> s.withLink(ConnectionManager.State.IDLE));
+        holder.update(s -> s.withProblem(ServiceStatus.Problem.NONE));
+        assertTrue(main.tasks.isEmpty());
+        assertEquals(0, holder.getPublished());
+    }
+
+    @Test
+    public void unEnlaceNuevoBorraElLatidoYDetenerConservaLaUltimaAlerta() {
+        ServiceStatus status = ServiceStatus.INITIAL
+                .withLink(ConnectionManager.State.CONNECTED)
+                .withHealth(LinkHeartbeat.Health.GOOD, 30)
+                .withAlert(ServiceStatus.Alert.finished(false, 2, 3, 1000))
+                .withLink(ConnectionManager.State.BACKOFF);
+        assertEquals(LinkHeartbeat.Health.UNKNOWN, status.getHealth());
+        assertEquals(-1, status.getRttMs());
+
+        ServiceStatus stopped = status.stopped();
+        assertFalse(stopped.isRunning());
+        assertEquals(ConnectionManager.State.IDLE, stopped.getLink());
+        assertEquals(2, stopped.getLastAlert().delivered);
+        assertSame(stopped, stopped.stopped());
+    }
+
+    @Test
+    public void cancelarCortaLasEntregasPendientes() {
+        StateHolder<ServiceStatus> holder = new StateHolder<>(ServiceStatus.INITIAL);
+        QueueExecutor main = new QueueExecutor();
+        List<ServiceStatus> seen = new ArrayList<>();
+        StateHolder.Subscription subscription = holder.subscribe(main, seen::add);
+        holder.update(s -> s.withContacts(3));
+        subscription.cancel();
+        main.runAll();
+
+        assertTrue(seen.isEmpty());
+        assertEquals(0, holder.getSubscriberCount());
+    }
+
+    @Test
+    public void muchosHilosPublicandoNoPierdenElUltimoEstado() throws Exception {
+        StateHolder<Integer> holder = new StateHolder<>(0);
+        ExecutorService main = Executors.newSingleThreadExecutor();
+        AtomicInteger deliveries = new AtomicInteger();
+        int[] lastSeen = new int[1];
+        holder.subscribe(main, value -> {
+            deliveries.incrementAndGet();
+            lastSeen[0] = value;
+        });
+
+        int threads = 4;
+        int perThread = 100_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        long t0 = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++) holder.update(v -> v + 1);
+                done.countDown();
+            }).start();
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        long elapsedNs = System.nanoTime() - t0;
+        main.submit(() -> {}).get();
+        main.shutdown();
+
+        assertEquals(threads * perThread, (int) holder.get());
+        assertEquals(threads * perThread, lastSeen[0]);
+        // Los cambios seguidos se juntan: el suscriptor recibe muchas menos entregas que cambios
+        assertTrue("Entregas: " + deliveries.get(), deliveries.get() < holder.getPublished());
+        // Cota holgada: se miden ~1 µs por cambio
+        double nsPerUpdate = (double) elapsedNs * threads / holder.getPublished();
+        assertTrue("Estado: " + nsPerUpdate + " ns por cambio", nsPerUpdate < 50_000);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.appbt;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TriggerCoalescerTest {
+
+    private static final long WINDOW_MS = 10_000;
+
+    private ManualScheduler scheduler;
+    private List<TriggerCoalescer.Flight> started;
+    private List<int[]> acks;
+    private TriggerCoalescer coalescer;
+
+    @Before
+    public void setUp() {
+        scheduler = new ManualScheduler();
+        started = new ArrayList<>();
+        acks = new ArrayList<>();
+        coalescer = new TriggerCoalescer(scheduler, WINDOW_MS, started::add,
+                (seq, status) -> acks.add(new int[]{seq, status}));
+    }
+
+    @Test
+    public void unaRafagaArrancaUnaSolaAlerta() {
+        for (int seq = 0; seq < 5000; seq++) coalescer.trigger(seq);
+        scheduler.runPending();
+
+        assertEquals(1, started.size());
+        assertTrue(acks.isEmpty());
+
+        started.get(0).complete(FrameCodec.ACK_SMS_SENT);
+        scheduler.runPending();
+
+        assertEquals(5000, acks.size());
+        for (int i = 0; i < acks.size(); i++) {
+            assertEquals(i, acks.get(i)[0]);
+            assertEquals(FrameCodec.ACK_SMS_SENT, acks.get(i)[1]);
+        }
+        assertEquals(5000, coalescer.getTriggers());
+        assertEquals(1, coalescer.getAlertsStarted());
+        assertEquals(4999, coalescer.getSuppressed());
+        assertEquals(5000, coalescer.getAcksSent());
+    }
+
+    @Test
+    public void disparoTardioDentroDeLaVentanaRecibeElMismoResultado() {
+        coalescer.trigger(1);
+        scheduler.runPending();
+        started.get(0).complete(FrameCodec.ACK_FAILED);
+        scheduler.advance(3_000);
+
+        coalescer.trigger(2);
+        scheduler.runPending();
+
+        assertEquals(1, started.size());
+        assertEquals(2, acks.size());
+        assertEquals(2, acks.get(1)[0]);
+        assertEquals(FrameCodec.ACK_FAILED, acks.get(1)[1]);
+    }
+
+    @Test
+    public void fueraDeLaVentanaArrancaOtraAlerta() {
+        coalescer.trigger(1);
+        scheduler.runPending();
+        started.get(0).complete(FrameCodec.ACK_SMS_SENT);
+        scheduler.advance(WINDOW_MS + 1);
+        assertEquals(0, scheduler.pendingTimers());
+
+        coalescer.trigger(2);
+        scheduler.runPending();
+
+        assertEquals(2, started.size());
+        assertEquals(0, coalescer.getSuppressed());
+    }
+
+    @Test
+    public void completarDosVecesNoRepiteAcks() {
+        coalescer.trigger(7);
+        scheduler.runPending();
+        TriggerCoalescer.Flight flight = started.get(0);
+        flight.complete(FrameCodec.ACK_SMS_SENT);
+        flight.complete(FrameCodec.ACK_FAILED);
+        scheduler.runPending();
+
+        assertEquals(1, acks.size());
+        assertEquals(FrameCodec.ACK_SMS_SENT, acks.get(0)[1]);
+        assertTrue(flight.isComplete());
+    }
+
+    @Test
+    public void alertaLentaSigueJuntandoDisparosHastaQueTermineLaVentana() {
+        coalescer.trigger(1);
+        scheduler.advance(WINDOW_MS);
+        coalescer.trigger(2);
+        scheduler.runPending();
+        assertEquals(1, started.size());
+
+        // La ventana cuenta desde el inicio: pasado el plazo se abre un vuelo nuevo aunque
+        // el anterior siga esperando resultado
+        scheduler.advance(1);
+        coalescer.trigger(3);
+        scheduler.runPending();
+        assertEquals(2, started.size());
+
+        started.get(0).complete(FrameCodec.ACK_SMS_SENT);
+        scheduler.runPending();
+        assertEquals(2, acks.size());
+    }
+}